@@ -0,0 +1,152 @@
+package file;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times reading and writing files of each size through {@code FileManipulation},
+ * i.e opening a file whole with {@code getFileContents}, writing bytes with
+ * {@code saveFile} and saving a document with {@code writeDocumentFile}, which
+ * streams the document to a temporary file, forces it to disk and moves it into
+ * place.
+ *
+ * The files are wrote to a temporary folder, so the times are those of the disk
+ * holding it, and the save of a document includes the wait for the disk to
+ * confirm the write.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManipulation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Djava.awt.headless=true" })
+public class FileBenchmark {
+	/** The number of bytes in each file, from a short letter to a long report. */
+	@Param({ "4096", "1048576", "16777216" })
+	public int size;
+
+	/** Reads and writes the files. */
+	private final FileManipulation fileManip = new FileManipulation();
+	/** The folder the files are wrote to. */
+	private Path folder;
+	/** The file read by {@code getFileContents}. */
+	private Path source;
+	/** The file wrote by {@code saveFile} and {@code writeDocumentFile}. */
+	private Path target;
+	/** The contents of the file. */
+	private byte[] bytes;
+	/** A document holding the text of the file. */
+	private PlainDocument document;
+
+	/**
+	 * Creates the folder, the file to be read and a document of the same text.
+	 *
+	 * @throws IOException          if the file could not be wrote
+	 * @throws BadLocationException never, the text is inserted at the start
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException, BadLocationException {
+		folder = Files.createTempDirectory("textual-bench");
+		String text = createText(size);
+		bytes = text.getBytes(StandardCharsets.UTF_8);
+		source = Files.write(folder.resolve("source.txt"), bytes);
+		target = folder.resolve("target.txt");
+		document = new PlainDocument();
+		document.insertString(0, text, null);
+	}
+
+	/**
+	 * Removes the folder along with the files in it.
+	 *
+	 * @throws IOException if a file could not be removed
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		try (Stream<Path> files = Files.walk(folder)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * Reads the whole file into a byte array.
+	 *
+	 * @return the contents of the file
+	 */
+	@Benchmark
+	public byte[] getFileContents() {
+		return fileManip.getFileContents(source);
+	}
+
+	/**
+	 * Writes the bytes of the file over the target file.
+	 *
+	 * @return whether the file was wrote
+	 */
+	@Benchmark
+	public boolean saveFile() {
+		return fileManip.saveFile(target, bytes);
+	}
+
+	/**
+	 * Saves the document over the target file, as saving a tab does.
+	 *
+	 * @throws IOException if the file could not be wrote
+	 */
+	@Benchmark
+	public void writeDocumentFile() throws IOException {
+		fileManip.writeDocumentFile(target, document);
+	}
+
+	/**
+	 * Creates a block of text of lines of words, with an accented letter now and
+	 * then so the text is not plain ASCII.
+	 *
+	 * @param size the number of bytes the text encodes to as UTF-8
+	 * @return the created text
+	 */
+	static String createText(int size) {
+		StringBuilder builder = new StringBuilder(size);
+		Random random = new Random(0);
+		int bytes = 0;
+		while (bytes < size) {
+			char c = random.nextInt(200) == 0 ? 'é' : (char) ('a' + random.nextInt(26));
+			if (bytes + (c < 128 ? 1 : 2) > size) {
+				c = 'a';
+			}
+			builder.append(c);
+			bytes += c < 128 ? 1 : 2;
+			if (bytes < size && random.nextInt(8) == 0) {
+				builder.append(random.nextInt(12) == 0 ? '\n' : ' ');
+				bytes++;
+			}
+		}
+		return builder.toString();
+	}
+}
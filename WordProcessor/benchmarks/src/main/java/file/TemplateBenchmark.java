@@ -0,0 +1,90 @@
+package file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times creating a pre-defined template with
+ * {@code PopulatedTemplates.createTemplate}, which encodes the text of the
+ * template each time, against looking the template up in the
+ * {@code TemplateRegistry}, which holds the text of each template once.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see PopulatedTemplates
+ * @see TemplateRegistry
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class TemplateBenchmark {
+	/** The template created. */
+	@Param({ "DEAR", "KIND_REGARDS", "MANY_THANKS" })
+	public Templates template;
+
+	/** Creates the template chosen. */
+	private PopulatedTemplates populated;
+	/** Holds the pre-defined templates, with an empty folder of imported ones. */
+	private TemplateRegistry registry;
+
+	/**
+	 * Creates the template and a registry over an empty template folder.
+	 *
+	 * @throws IOException if the folder could not be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		populated = new PopulatedTemplates(template);
+		registry = new TemplateRegistry(Files.createTempDirectory("textual-templates"));
+		registry.load();
+	}
+
+	/**
+	 * Removes the template folder.
+	 *
+	 * @throws IOException if the folder could not be removed
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		registry.close();
+		Files.deleteIfExists(registry.getDirectory());
+	}
+
+	/**
+	 * Creates the template, encoding its text as UTF-8.
+	 *
+	 * @return the bytes of the template
+	 */
+	@Benchmark
+	public byte[] createTemplate() {
+		return populated.createTemplate();
+	}
+
+	/**
+	 * Looks the template up in the registry, as the template menu does.
+	 *
+	 * @return the text of the template
+	 */
+	@Benchmark
+	public String registryLookup() {
+		return registry.get(template).getText();
+	}
+}
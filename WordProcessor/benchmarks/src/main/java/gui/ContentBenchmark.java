@@ -0,0 +1,114 @@
+package gui;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.GapContent;
+import javax.swing.text.Segment;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the {@code RopeContent} used by the text pane against the default
+ * {@code GapContent} for edits made at random positions within a large
+ * document, the case where a gap buffer has to move its gap the furthest.
+ *
+ * Each content is filled with {@code DOCUMENT_SIZE} characters, then each edit
+ * is in turn a single character insert, a single character removal or a short
+ * read at a random offset, so the content stays the same size. The same seed is
+ * used for both so each does identical work.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RopeContent
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ContentBenchmark {
+	/** The number of characters each document is filled with. */
+	private static final int DOCUMENT_SIZE = 10 * 1024 * 1024;
+
+	/** The content being edited. */
+	@Param({ "GapContent", "RopeContent" })
+	public String contentType;
+
+	/** The content filled with the text. */
+	private AbstractDocument.Content content;
+	/** The segment each read is made into. */
+	private final Segment segment = new Segment();
+	/** The source of the offsets of each edit. */
+	private final Random random = new Random(0);
+	/** The number of edits made, choosing the kind of the next one. */
+	private int edits;
+
+	/**
+	 * Creates the content, filled with {@code DOCUMENT_SIZE} characters.
+	 *
+	 * @throws BadLocationException never, the text is inserted at the start
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws BadLocationException {
+		content = contentType.equals("GapContent") ? new GapContent() : new RopeContent();
+		content.insertString(0, createText(DOCUMENT_SIZE));
+	}
+
+	/**
+	 * Makes the next edit at a random offset.
+	 *
+	 * @return the segment last read into
+	 * @throws BadLocationException never, the offset is within the document
+	 */
+	@Benchmark
+	public Segment edit() throws BadLocationException {
+		int offset = random.nextInt(content.length() - 64);
+		switch (edits++ % 3) {
+		case 0:
+			content.insertString(offset, "x");
+			break;
+		case 1:
+			content.remove(offset, 1);
+			break;
+		case 2:
+			content.getChars(offset, 32, segment);
+			break;
+		}
+		return segment;
+	}
+
+	/**
+	 * Creates a block of text of lines of words.
+	 *
+	 * @param size the number of characters to create
+	 * @return the created text
+	 */
+	static String createText(int size) {
+		StringBuilder builder = new StringBuilder(size);
+		Random random = new Random(0);
+		while (builder.length() < size) {
+			builder.append((char) ('a' + random.nextInt(26)));
+			if (random.nextInt(8) == 0) {
+				builder.append(random.nextInt(12) == 0 ? '\n' : ' ');
+			}
+		}
+		builder.setLength(size);
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,177 @@
+package gui;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Times the ways text is inserted into a document, comparing the
+ * {@code RichDocument} the text pane uses against a
+ * {@code DefaultStyledDocument}. Each edit that adds text to the document also
+ * removes it again, so the document stays the same size however long the run.
+ *
+ * <ul>
+ * <li>{@code typeAtEnd}, a character typed and deleted at the end, as when
+ * writing.</li>
+ * <li>{@code typeAtRandom}, a character typed and deleted at a random offset,
+ * as when correcting.</li>
+ * <li>{@code typeBold}, a character typed in bold at a random offset, which
+ * splits the run it lands in.</li>
+ * <li>{@code pasteBlock}, a block of several lines pasted and removed at a
+ * random offset.</li>
+ * <li>{@code loadChunks}, an empty document filled a chunk at a time, as the
+ * {@code FileLoader} does when a file is opened.</li>
+ * </ul>
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RichDocument
+ * @see FileLoader
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Djava.awt.headless=true" })
+public class DocumentInsertBenchmark {
+	/** The number of characters in each pasted block. */
+	private static final int BLOCK_SIZE = 4 * 1024;
+	/** The number of characters in each chunk of a load. */
+	private static final int CHUNK_SIZE = 64 * 1024;
+	/** The number of characters loaded by {@code loadChunks}. */
+	private static final int LOAD_SIZE = 4 * 1024 * 1024;
+
+	/** The document the text is inserted into. */
+	@Param({ "RichDocument", "DefaultStyledDocument" })
+	public String documentType;
+	/** The number of characters of the document before each edit. */
+	@Param({ "65536", "4194304" })
+	public int size;
+
+	/** The document being edited. */
+	private StyledDocument document;
+	/** The document filled by {@code loadChunks}, new for each load. */
+	private StyledDocument empty;
+	/** The text of a pasted block. */
+	private String block;
+	/** The text of a chunk of a load. */
+	private String chunk;
+	/** The attributes of text typed in bold. */
+	private final SimpleAttributeSet bold = new SimpleAttributeSet();
+	/** The source of the offset of each edit, the same for each run. */
+	private final SplittableRandom random = new SplittableRandom(0);
+
+	/**
+	 * Creates the document, filled with {@code size} characters.
+	 *
+	 * @throws BadLocationException never, the text is inserted at the start
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws BadLocationException {
+		document = newDocument();
+		document.insertString(0, ContentBenchmark.createText(size), null);
+		block = ContentBenchmark.createText(BLOCK_SIZE);
+		chunk = ContentBenchmark.createText(CHUNK_SIZE);
+		StyleConstants.setBold(bold, true);
+	}
+
+	/**
+	 * Creates an empty document for the next load.
+	 */
+	@Setup(Level.Invocation)
+	public void createEmpty() {
+		empty = newDocument();
+	}
+
+	/**
+	 * Creates an empty document of the type being timed.
+	 *
+	 * @return the new {@code StyledDocument}
+	 */
+	private StyledDocument newDocument() {
+		return documentType.equals("RichDocument") ? new RichDocument() : new DefaultStyledDocument();
+	}
+
+	/**
+	 * Types a character at the end of the document and deletes it.
+	 *
+	 * @throws BadLocationException never, the offset is within the document
+	 */
+	@Benchmark
+	public void typeAtEnd() throws BadLocationException {
+		int offset = document.getLength();
+		document.insertString(offset, "x", null);
+		document.remove(offset, 1);
+	}
+
+	/**
+	 * Types a character at a random offset and deletes it.
+	 *
+	 * @throws BadLocationException never, the offset is within the document
+	 */
+	@Benchmark
+	public void typeAtRandom() throws BadLocationException {
+		int offset = random.nextInt(document.getLength());
+		document.insertString(offset, "x", null);
+		document.remove(offset, 1);
+	}
+
+	/**
+	 * Types a bold character at a random offset and deletes it.
+	 *
+	 * @throws BadLocationException never, the offset is within the document
+	 */
+	@Benchmark
+	public void typeBold() throws BadLocationException {
+		int offset = random.nextInt(document.getLength());
+		document.insertString(offset, "x", bold);
+		document.remove(offset, 1);
+	}
+
+	/**
+	 * Pastes a block of text at a random offset and removes it.
+	 *
+	 * @throws BadLocationException never, the offset is within the document
+	 */
+	@Benchmark
+	public void pasteBlock() throws BadLocationException {
+		int offset = random.nextInt(document.getLength());
+		document.insertString(offset, block, null);
+		document.remove(offset, BLOCK_SIZE);
+	}
+
+	/**
+	 * Fills an empty document a chunk at a time. The time is given per chunk.
+	 *
+	 * @return the filled document
+	 * @throws BadLocationException never, each chunk is appended
+	 */
+	@Benchmark
+	@OperationsPerInvocation(LOAD_SIZE / CHUNK_SIZE)
+	public StyledDocument loadChunks() throws BadLocationException {
+		for (int i = 0; i < LOAD_SIZE / CHUNK_SIZE; i++) {
+			empty.insertString(empty.getLength(), chunk, null);
+		}
+		return empty;
+	}
+}
@@ -0,0 +1,131 @@
+package gui;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import file.FileManipulation;
+
+/**
+ * Times the work a tab does on its whole document, i.e counting the characters
+ * again, replacing the text with the bytes of a file through
+ * {@code setTextPane} and saving it back to a file, the round trip of opening a
+ * small file and saving it.
+ *
+ * The tab is the one the workspace shows, with its undo history, indexes,
+ * spell checker and counter attached, so the times include keeping each of
+ * them up to date. The undo history is cleared before each replacement, as it
+ * would otherwise grow and be moved to disk over the run.
+ *
+ * {@code Textual.updateCharCount} counts the tab in view through
+ * {@code DocumentTab.updateCharCount}, which is timed here, as the workspace
+ * needs a window to be shown.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see DocumentTab
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Djava.awt.headless=true" })
+public class DocumentTabBenchmark {
+	/** The number of characters of the document. */
+	@Param({ "16384", "1048576" })
+	public int size;
+
+	/** Saves the document. */
+	private final FileManipulation fileManip = new FileManipulation();
+	/** The folder the journal of the tab and the saved file are kept in. */
+	private Path folder;
+	/** The file the document is saved to. */
+	private Path target;
+	/** The bytes of the file shown in the tab. */
+	private byte[] bytes;
+	/** The tab being timed. */
+	private DocumentTab tab;
+
+	/**
+	 * Creates the tab, showing the text to be counted.
+	 *
+	 * @throws IOException if the folder could not be created
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws IOException {
+		folder = Files.createTempDirectory("textual-bench");
+		target = folder.resolve("target.txt");
+		bytes = ContentBenchmark.createText(size).getBytes(StandardCharsets.UTF_8);
+		tab = new DocumentTab(folder.resolve("journal"));
+		tab.setTextPane(bytes);
+	}
+
+	/**
+	 * Clears the undo history, so each replacement starts from the same state.
+	 */
+	@Setup(Level.Invocation)
+	public void clearHistory() {
+		tab.getUndoRedoManager().discardAllEdits();
+	}
+
+	/**
+	 * Removes the tab and the folder along with the files in it.
+	 *
+	 * @throws IOException if a file could not be removed
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		tab.dispose(fileManip, false);
+		try (Stream<Path> files = Files.walk(folder)) {
+			files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	/**
+	 * Counts the characters of the whole document again.
+	 */
+	@Benchmark
+	public void updateCharCount() {
+		tab.updateCharCount();
+	}
+
+	/**
+	 * Replaces the text of the tab with the bytes of the file, detecting their
+	 * encoding and decoding them.
+	 */
+	@Benchmark
+	public void setTextPane() {
+		tab.setTextPane(bytes);
+	}
+
+	/**
+	 * Replaces the text of the tab with the bytes of the file, then saves the
+	 * document back to a file in the encoding detected.
+	 *
+	 * @throws IOException if the file could not be wrote
+	 */
+	@Benchmark
+	public void roundTrip() throws IOException {
+		tab.setTextPane(bytes);
+		fileManip.writeDocumentFile(target, tab.getDocument(), tab.getDocumentEncoding());
+	}
+}
@@ -0,0 +1,173 @@
+package gui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.StyleContext;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the latency of the {@code RestyleEngine}, the time from an edit of a
+ * single paragraph to the restyle of that paragraph having been applied, for
+ * documents of increasing size. As only the edited paragraph is restyled the
+ * latency should stay the same however large the document is.
+ *
+ * Each document is made of {@code size} characters of lines of words, some
+ * lines being headings and some words being marked bold or italic, styled by
+ * every rule of {@code StyleRules}. The full restyle of the document is timed,
+ * as is each edit at a random offset, which in turn adds emphasis and removes it
+ * again so the paragraph has to be restyled and the document stays the same
+ * size. The engine is run without its usual delay so only the time spent
+ * restyling is measured. The times are sampled, so the results give the median
+ * and the percentiles of the latency.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RestyleEngine
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xmx2g", "-Djava.awt.headless=true" })
+public class RestyleBenchmark {
+	/** The text inserted by every other edit. */
+	private static final String EMPHASIS = " **new** ";
+
+	/** The number of characters of the document. */
+	@Param({ "65536", "262144", "1048576", "4194304" })
+	public int size;
+
+	/** The document being edited. */
+	private DefaultStyledDocument document;
+	/** The engine styling the document. */
+	private RestyleEngine engine;
+	/** The source of the offsets of each edit. */
+	private Random random;
+	/** The offset of the emphasis inserted by the last edit, or -1 if removed. */
+	private int inserted = -1;
+
+	/**
+	 * Creates the document and styles it in full.
+	 *
+	 * @throws Exception if the text could not be inserted or the EDT was
+	 *                   interrupted
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		document = new DefaultStyledDocument(new RopeContent(), new StyleContext());
+		document.insertString(0, createMarkedText(size), null);
+		engine = new RestyleEngine(document, null, 0);
+		random = new Random(size);
+		fullRestyle();
+	}
+
+	/**
+	 * Stops the engine.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		engine.dispose();
+	}
+
+	/**
+	 * Restyles the whole document with every rule.
+	 *
+	 * @throws Exception if the EDT was interrupted
+	 */
+	@Benchmark
+	public void fullRestyle() throws Exception {
+		await(() -> engine.setRules(Arrays.asList(StyleRules.values())));
+	}
+
+	/**
+	 * Makes a single edit on the EDT and waits for its restyle to be applied,
+	 * either inserting emphasis at a random offset or removing the emphasis the
+	 * last edit inserted.
+	 *
+	 * @throws Exception if the edit could not be made or the wait was interrupted
+	 */
+	@Benchmark
+	public void edit() throws Exception {
+		await(() -> {
+			try {
+				if (inserted < 0) {
+					inserted = random.nextInt(document.getLength() - 16);
+					document.insertString(inserted, EMPHASIS, null);
+				} else {
+					document.remove(inserted, EMPHASIS.length());
+					inserted = -1;
+				}
+			} catch (BadLocationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+	}
+
+	/**
+	 * Runs an action on the EDT and waits until the engine has nothing left to
+	 * restyle.
+	 *
+	 * @param action the action starting the restyle
+	 * @throws InterruptedException      if the wait was interrupted
+	 * @throws InvocationTargetException if the action failed
+	 */
+	private void await(Runnable action) throws InterruptedException, InvocationTargetException {
+		CountDownLatch idle = new CountDownLatch(1);
+		Runnable listener = idle::countDown;
+		engine.addRestyleListener(listener);
+		SwingUtilities.invokeAndWait(action);
+		idle.await();
+		engine.removeRestyleListener(listener);
+	}
+
+	/**
+	 * Creates a block of text of lines of words, in which one line in ten is a
+	 * heading and one word in twenty is marked bold or italic.
+	 *
+	 * @param size the number of characters to create
+	 * @return the created text
+	 */
+	static String createMarkedText(int size) {
+		StringBuilder builder = new StringBuilder(size);
+		Random random = new Random(0);
+		while (builder.length() < size) {
+			if (random.nextInt(10) == 0) {
+				builder.append("## ");
+			}
+			int words = 4 + random.nextInt(12);
+			for (int i = 0; i < words; i++) {
+				String mark = random.nextInt(20) == 0 ? (random.nextBoolean() ? "**" : "*") : "";
+				builder.append(mark);
+				int letters = 2 + random.nextInt(8);
+				for (int j = 0; j < letters; j++) {
+					builder.append((char) ('a' + random.nextInt(26)));
+				}
+				builder.append(mark).append(' ');
+			}
+			builder.append('\n');
+		}
+		builder.setLength(size);
+		return builder.toString();
+	}
+}
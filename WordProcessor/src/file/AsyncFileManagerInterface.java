@@ -0,0 +1,71 @@
+package file;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import javax.swing.text.Document;
+
+/**
+ * An interface that determines the operations an asynchronous file manager
+ * class should be able to achieve. This is the asynchronous sibling of
+ * {@code FileManagerInterface}, each method returns straight away with a
+ * {@code CompletableFuture} that is completed once the operation has finished
+ * on a background thread.
+ *
+ * Rather than reporting failure as {@code false} or {@code null}, a failed
+ * operation completes its future exceptionally with the exception that caused
+ * it, allowing the caller to tell the user what went wrong.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManagerInterface
+ */
+
+public interface AsyncFileManagerInterface {
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 *
+	 * This method is to create a new file on the storage medium of the device,
+	 * failing if the file already exists.
+	 *
+	 * @param path the path of the location to create a file.
+	 * @return a {@code CompletableFuture} completed once the file is created.
+	 */
+	public CompletableFuture<Void> newFile(Path path);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 *
+	 * This method writes an array of bytes to a file, creating the file if it does
+	 * not already exist and replacing its contents if it does.
+	 *
+	 * @param path  the path of the location to save the file.
+	 * @param bytes a byte array that is to be wrote to the file.
+	 * @return a {@code CompletableFuture} completed once the file is wrote.
+	 */
+	public CompletableFuture<Void> saveFile(Path path, byte[] bytes);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 *
+	 * This method writes the text of a document to a file, in the same way as
+	 * {@code FileManagerInterface.saveDocument}.
+	 *
+	 * @param path     the path of the location to save the file.
+	 * @param document the {@code Document} whose text is to be wrote to the file.
+	 * @return a {@code CompletableFuture} completed once the file is wrote.
+	 */
+	public CompletableFuture<Void> saveDocument(Path path, Document document);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 *
+	 * This method acquires the contents of a file as a byte array.
+	 *
+	 * @param path the path of the location of the file to be read.
+	 * @return a {@code CompletableFuture} completed with the bytes of the file.
+	 */
+	public CompletableFuture<byte[]> getFileContents(Path path);
+
+}
@@ -0,0 +1,250 @@
+package file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.text.Document;
+
+/**
+ * Handles the same operations as {@code FileManipulation} without blocking the
+ * calling thread, so that the user interface stays responsive on slow or
+ * network mounted disks.
+ *
+ * Files are read and wrote through an {@code AsynchronousFileChannel} whose
+ * completion handlers, along with the opening of each channel, run on a bounded
+ * I/O executor of {@code IO_THREADS} threads. Once {@code MAX_QUEUED_TASKS}
+ * operations are waiting, further operations are rejected rather than queued
+ * without limit, and fail with a {@code RejectedExecutionException}.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see AsyncFileManagerInterface
+ */
+
+public class AsyncFileManipulation implements AsyncFileManagerInterface {
+	/** The number of threads file operations are run on. */
+	private static final int IO_THREADS = 4;
+	/** The most operations that can be waiting for a thread. */
+	private static final int MAX_QUEUED_TASKS = 64;
+
+	/** Runs the file operations and the completion handlers of the channels. */
+	private final ExecutorService executor;
+	/** Handles the writing of documents, shared with the synchronous manager. */
+	private final FileManipulation fileManip = new FileManipulation();
+
+	/**
+	 * Class constructor that creates the bounded I/O executor. Its threads are
+	 * daemon threads so they do not keep the program open.
+	 */
+	public AsyncFileManipulation() {
+		AtomicInteger count = new AtomicInteger();
+		executor = new ThreadPoolExecutor(IO_THREADS, IO_THREADS, 30, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(MAX_QUEUED_TASKS), r -> {
+					Thread thread = new Thread(r, "I/O Thread " + count.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Returns the executor file operations are run on, allowing other background
+	 * work on files to share the same bounded set of threads.
+	 *
+	 * @return the {@code ExecutorService} of the file manager
+	 */
+	public ExecutorService getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Handles the operation that creates a file at the specified path by opening
+	 * an {@code AsynchronousFileChannel} with the {@code CREATE_NEW} option.
+	 *
+	 * @param path the {@code Path} value of the location the file should be created
+	 * @return {@code CompletableFuture} completed once the file is created, or
+	 *         exceptionally with a {@code FileAlreadyExistsException}
+	 */
+	public CompletableFuture<Void> newFile(Path path) {
+		return supply(() -> {
+			open(path, EnumSet.of(StandardOpenOption.WRITE, StandardOpenOption.CREATE_NEW)).close();
+			return null;
+		});
+	}
+
+	/**
+	 * Handles the operation that writes an array of bytes to the file at the
+	 * specified path on the I/O executor. The bytes are wrote to a temporary file
+	 * that is moved over the file, as {@code FileManipulation.writeBytesFile}
+	 * does, so a failed write never leaves the file cut short.
+	 *
+	 * @param path  the {@code Path} value of the location the file should be wrote
+	 *              too
+	 * @param bytes the bytes to be wrote
+	 * @return {@code CompletableFuture} completed once the file is wrote
+	 * @see FileManipulation#writeBytesFile(Path, byte[])
+	 */
+	public CompletableFuture<Void> saveFile(Path path, byte[] bytes) {
+		return supply(() -> {
+			fileManip.writeBytesFile(path, bytes);
+			return null;
+		});
+	}
+
+	/**
+	 * Handles the operation that saves a document to the file at the specified
+	 * path on the I/O executor, streaming it through a temporary file as
+	 * {@code FileManipulation.saveDocument} does.
+	 *
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code Document} to be saved
+	 * @return {@code CompletableFuture} completed once the file is saved
+	 * @see FileManipulation#saveDocument(Path, Document)
+	 */
+	public CompletableFuture<Void> saveDocument(Path path, Document document) {
+		return supply(() -> {
+			fileManip.writeDocumentFile(path, document);
+			return null;
+		});
+	}
+
+	/**
+	 * Handles the operation that gets the byte value of the file selected, reading
+	 * through the channel until the whole file has been read. A file larger than
+	 * the largest possible array fails with an {@code IOException} rather than an
+	 * {@code OutOfMemoryError}. If the file is cut short whilst being read, only
+	 * the bytes that were read are returned.
+	 *
+	 * @param path the {@code Path} value of the location of the file
+	 * @return {@code CompletableFuture} completed with the bytes of the file
+	 */
+	public CompletableFuture<byte[]> getFileContents(Path path) {
+		return supply(() -> open(path, EnumSet.of(StandardOpenOption.READ))).thenCompose(channel -> {
+			CompletableFuture<byte[]> read = new CompletableFuture<>();
+			long size;
+			try {
+				size = channel.size();
+				if (size > Integer.MAX_VALUE - 8) {
+					throw new IOException("File is too large to be read into memory.");
+				}
+			} catch (IOException e) {
+				closeAndComplete(channel, read, null, e);
+				return read;
+			}
+			ByteBuffer buffer = ByteBuffer.allocate((int) size);
+			channel.read(buffer, 0, null, new CompletionHandler<Integer, Void>() {
+				@Override
+				public void completed(Integer count, Void attachment) {
+					if (count >= 0 && buffer.hasRemaining()) {
+						channel.read(buffer, buffer.position(), null, this);
+					} else {
+						byte[] bytes = buffer.array();
+						closeAndComplete(channel, read,
+								buffer.hasRemaining() ? Arrays.copyOf(bytes, buffer.position()) : bytes, null);
+					}
+				}
+
+				@Override
+				public void failed(Throwable exc, Void attachment) {
+					closeAndComplete(channel, read, null, exc);
+				}
+			});
+			return read;
+		});
+	}
+
+	/**
+	 * Runs a task on the I/O executor, completing the returned future with its
+	 * result or with the exception it throws. If the executor is full the future
+	 * fails with a {@code RejectedExecutionException} rather than the task being
+	 * run on the calling thread.
+	 *
+	 * @param <T>  the type of the result of the task
+	 * @param task the task to be run
+	 * @return {@code CompletableFuture} completed once the task has run
+	 */
+	public <T> CompletableFuture<T> supply(IOTask<T> task) {
+		CompletableFuture<T> future = new CompletableFuture<>();
+		try {
+			executor.execute(() -> {
+				try {
+					future.complete(task.run());
+				} catch (IOException | RuntimeException e) {
+					future.completeExceptionally(e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			future.completeExceptionally(e);
+		}
+		return future;
+	}
+
+	/**
+	 * A task run on the I/O executor that may fail with an {@code IOException}.
+	 *
+	 * @param <T> the type of the result of the task
+	 */
+	public interface IOTask<T> {
+		/**
+		 * Runs the task.
+		 *
+		 * @return the result of the task
+		 * @throws IOException if the file operation fails
+		 */
+		T run() throws IOException;
+	}
+
+	/**
+	 * Opens an {@code AsynchronousFileChannel} whose completion handlers are run on
+	 * the I/O executor.
+	 *
+	 * @param path    the {@code Path} value of the file to be opened
+	 * @param options the options the file is opened with
+	 * @return the opened channel
+	 * @throws IOException if the file could not be opened
+	 */
+	private AsynchronousFileChannel open(Path path, Set<StandardOpenOption> options) throws IOException {
+		return AsynchronousFileChannel.open(path, options, executor);
+	}
+
+	/**
+	 * Closes a channel and completes the future of its operation, either normally
+	 * with the value provided or exceptionally with the failure provided.
+	 *
+	 * @param <T>     the type of the value the future is completed with
+	 * @param channel the channel to be closed
+	 * @param future  the future to be completed
+	 * @param value   the value to complete the future with
+	 * @param failure the exception to complete the future with, or null
+	 */
+	private static <T> void closeAndComplete(AsynchronousFileChannel channel, CompletableFuture<T> future, T value,
+			Throwable failure) {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			if (failure == null) {
+				failure = e;
+			}
+		}
+		if (failure != null) {
+			future.completeExceptionally(failure);
+		} else {
+			future.complete(value);
+		}
+	}
+}
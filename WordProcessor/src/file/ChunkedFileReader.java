@@ -0,0 +1,249 @@
+package file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the contents of a file a fixed-size chunk at a time, decoding each
+ * chunk as it is read. Unlike {@code getFileContents} the whole file is never
+ * held in memory at once, so the first part of a large file can be shown to the
+ * user before the rest of it has been read.
+ *
+ * The {@code TextEncoding} of the file is detected from its first bytes when it
+ * is opened, and any byte order mark is skipped. The bytes of each chunk are
+ * decoded into a single reused character buffer, a multi-byte character split
+ * across two chunks being carried over by the decoder and completed by the next
+ * read. Input the character set cannot decode is replaced with U+FFFD, and the
+ * encoding returned is then marked as lossy, as the encoding is detected from
+ * the start of the file alone.
+ *
+ * Carriage return and carriage return line feed line endings are converted to
+ * new lines as each chunk is decoded, as {@code setText} would when reading the
+ * file through the editor kit. The line ending of the file is kept in its
+ * encoding so it can be wrote back on save.
+ *
+ * A CRC-32C checksum of the bytes is worked out as they are read, so once the
+ * whole file has been read its {@code FileFingerprint} is known without reading
+ * the file a second time.
+ *
+ * Each chunk read is recorded as a {@code FileRead} event and in the
+ * {@code EditorMetrics}, so the time an open spends reading the file can be
+ * told apart from the time spent inserting it into the document.
+ *
+ * @author Aiden Parker
+ * @see FileManipulation#getFileReader(Path)
+ * @see TextEncoding
+ */
+public class ChunkedFileReader implements Closeable {
+	/** The default number of bytes read from the file per chunk. */
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+	/** The fewest bytes read per chunk, enough to hold any single character. */
+	private static final int MIN_CHUNK_SIZE = 16;
+
+	/** The file being read, shown in the events recorded. */
+	private final String path;
+	/** The channel the file is read through. */
+	private final FileChannel channel;
+	/** The size of the file when it was opened. */
+	private final long size;
+	/** The modification time of the file when it was opened, in nanoseconds. */
+	private final long modified;
+	/** The checksum of the bytes read so far. */
+	private final CRC32C crc = new CRC32C();
+	/** The fingerprint of the file, once it has been read whole. */
+	private FileFingerprint fingerprint;
+	/** The encoding detected from the start of the file. */
+	private final TextEncoding encoding;
+	/** Holds the bytes read from the file that are yet to be decoded. */
+	private final ByteBuffer bytes;
+	/** Holds the characters decoded from a single chunk. */
+	private final CharBuffer chars;
+	/** Decodes the bytes of the file into characters. */
+	private final CharsetDecoder decoder;
+	/** Set once the end of the file has been reached and the decoder flushed. */
+	private boolean finished = false;
+	/** Whether the last chunk read ended with a carriage return. */
+	private boolean lastWasReturn = false;
+	/** Whether any input could not be decoded and was replaced. */
+	private boolean lossy = false;
+
+	/**
+	 * Class constructor that opens the file at the path provided for reading and
+	 * detects its encoding.
+	 *
+	 * @param path      the {@code Path} value of the file to be read
+	 * @param chunkSize the number of bytes to be read per chunk, at least
+	 *                  {@code MIN_CHUNK_SIZE}
+	 * @throws IOException if the file could not be opened
+	 */
+	public ChunkedFileReader(Path path, int chunkSize) throws IOException {
+		this.path = path.toString();
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			this.modified = FileFingerprint.modifiedTime(Files.readAttributes(path, BasicFileAttributes.class));
+			this.size = channel.size();
+			ByteBuffer sample = ByteBuffer.allocate((int) Math.min(size, TextEncoding.SAMPLE_SIZE));
+			while (sample.hasRemaining() && channel.read(sample, sample.position()) >= 0) {
+				// Read until the sample is full or the end of the file.
+			}
+			sample.flip();
+			this.encoding = TextEncoding.detect(sample, sample.limit() >= size);
+			channel.position(encoding.getBom().length);
+			crc.update(encoding.getBom());
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+		this.decoder = encoding.newDecoder();
+		chunkSize = Math.max(chunkSize, MIN_CHUNK_SIZE);
+		this.bytes = ByteBuffer.allocateDirect(chunkSize);
+		this.chars = CharBuffer.allocate((int) Math.ceil(chunkSize * (double) decoder.maxCharsPerByte()));
+	}
+
+	/**
+	 * Returns the size of the file in bytes.
+	 *
+	 * @return the number of bytes in the file
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the encoding of the file, detected when it was opened. Once input
+	 * has been read that could not be decoded, the encoding is marked as lossy.
+	 *
+	 * @return the {@code TextEncoding} of the file
+	 */
+	public TextEncoding getEncoding() {
+		return encoding.withLoss(lossy);
+	}
+
+	/**
+	 * Returns the fingerprint of the file, worked out from the bytes read.
+	 *
+	 * @return the {@code FileFingerprint} of the file, or null if the file has
+	 *         not yet been read whole or changed size whilst being read
+	 */
+	public FileFingerprint getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the number of bytes of the file that have been read so far.
+	 *
+	 * @return the position of the reader in the file
+	 * @throws IOException if the position could not be read
+	 */
+	public long getPosition() throws IOException {
+		return channel.position();
+	}
+
+	/**
+	 * Reads and decodes the next chunk of the file.
+	 *
+	 * @return the text of the next chunk with its line endings converted, or null
+	 *         if the end of the file has been reached
+	 * @throws IOException if the file could not be read
+	 */
+	public String readChunk() throws IOException {
+		EditorEvents.FileRead event = new EditorEvents.FileRead();
+		event.begin();
+		long start = System.nanoTime();
+		long before = channel.position();
+		String chunk = decodeChunk();
+		long read = channel.position() - before;
+		event.path = path;
+		event.bytes = read;
+		event.commit();
+		EditorMetrics.get().record(EditorMetrics.Operation.FILE_READ, start);
+		EditorMetrics.get().addBytesRead(read);
+		return chunk;
+	}
+
+	/**
+	 * Reads bytes from the file and decodes them until there is a chunk of text
+	 * or the end of the file is reached.
+	 *
+	 * @return the text of the next chunk with its line endings converted, or null
+	 *         if the end of the file has been reached
+	 * @throws IOException if the file could not be read
+	 */
+	private String decodeChunk() throws IOException {
+		while (!finished) {
+			int from = bytes.position();
+			boolean endOfInput = channel.read(bytes) < 0;
+			crc.update(bytes.duplicate().flip().position(from));
+			bytes.flip();
+			CoderResult result = decoder.decode(bytes, chars, endOfInput);
+			while (result.isError() && chars.hasRemaining()) {
+				lossy = true;
+				bytes.position(bytes.position() + result.length());
+				chars.put(decoder.replacement());
+				result = decoder.decode(bytes, chars, endOfInput);
+			}
+			// Any bytes of a character split across chunks are kept for the next read.
+			bytes.compact();
+			if (endOfInput && result.isUnderflow()) {
+				decoder.flush(chars);
+				finished = true;
+				if (channel.position() == size) {
+					fingerprint = new FileFingerprint(size, modified, crc.getValue());
+				}
+			}
+			if (chars.position() > 0) {
+				chars.flip();
+				String chunk = normaliseLineEndings();
+				chars.clear();
+				if (!chunk.isEmpty()) {
+					return chunk;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Converts the line endings of the decoded characters into new lines. A line
+	 * ending split across two chunks is handled by remembering whether the
+	 * previous chunk ended with a carriage return.
+	 *
+	 * @return the text of the decoded characters with its line endings converted
+	 */
+	private String normaliseLineEndings() {
+		char[] array = chars.array();
+		int length = chars.limit();
+		int written = 0;
+		for (int i = 0; i < length; i++) {
+			char c = array[i];
+			if (c == '\r') {
+				array[written++] = '\n';
+				lastWasReturn = true;
+			} else {
+				if (!(c == '\n' && lastWasReturn)) {
+					array[written++] = c;
+				}
+				lastWasReturn = false;
+			}
+		}
+		return new String(array, 0, written);
+	}
+
+	/**
+	 * Closes the channel the file is being read through.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
@@ -0,0 +1,378 @@
+package file;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Holds the listings of the directories most recently browsed, so a directory
+ * is only read from the disk the first time it is shown and again once it
+ * changes.
+ *
+ * Each directory is read through a {@code DirectoryStream}, the attributes of
+ * every entry being read along with it and kept in the {@code File} of the
+ * entry, so asking whether an entry is a directory, or for its size, does not
+ * touch the disk again. This matters on network drives, where each of these
+ * would otherwise be a round trip to the server.
+ *
+ * Each listing is watched with a {@code WatchService} from before it is read,
+ * and is dropped as soon as anything in its directory is created, changed or
+ * deleted, or if events are lost, so the next request reads it again. A
+ * directory that cannot be watched is read on each request instead of being
+ * held. Once more than {@code maxDirectories} are held the directory used
+ * least recently is dropped.
+ *
+ * A directory is read on the thread that first requests it, or on the thread
+ * of the cache if it is prefetched. Any other thread requesting it whilst it
+ * is being read waits for that read rather than starting its own.
+ *
+ * @author Aiden Parker
+ * @version 1
+ */
+public class DirectoryCache implements Closeable {
+	/** The number of directories held if none is given. */
+	public static final int DEFAULT_MAX_DIRECTORIES = 64;
+
+	/** The most directories whose listings are held. */
+	private final int maxDirectories;
+	/** The listings of the directories, in the order they were last used. */
+	private final Map<Path, CompletableFuture<File[]>> listings;
+	/** The directory watched by each key of the watch service. */
+	private final Map<WatchKey, Path> keys = new HashMap<>();
+	/** The key watching each directory. */
+	private final Map<Path, WatchKey> watched = new HashMap<>();
+	/** Reads the directories that are prefetched. */
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Directory Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/** Watches the directories held, null until the first is watched. */
+	private WatchService watcher;
+	/** Whether the cache has been closed. */
+	private boolean closed = false;
+
+	/**
+	 * Class constructor that holds up to {@code DEFAULT_MAX_DIRECTORIES}
+	 * listings.
+	 */
+	public DirectoryCache() {
+		this(DEFAULT_MAX_DIRECTORIES);
+	}
+
+	/**
+	 * Class constructor that holds up to the number of listings provided.
+	 *
+	 * @param maxDirectories the most directories whose listings are held
+	 */
+	public DirectoryCache(int maxDirectories) {
+		this.maxDirectories = maxDirectories;
+		this.listings = new LinkedHashMap<>(16, 0.75f, true);
+	}
+
+	/**
+	 * Returns the entries of a directory, reading it on the calling thread if it
+	 * is not held, or waiting for it if it is already being read. The array
+	 * returned is a copy the caller is free to change.
+	 *
+	 * @param directory the {@code Path} value of the directory to be listed
+	 * @return the {@code File} of each entry of the directory
+	 * @throws IOException if the directory could not be read
+	 */
+	public File[] list(Path directory) throws IOException {
+		try {
+			return listing(directory.toAbsolutePath().normalize(), false).join().clone();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Starts reading a directory on the thread of the cache, if it is not
+	 * already held or being read, so it is ready by the time it is shown.
+	 *
+	 * @param directory the {@code Path} value of the directory to be read
+	 */
+	public void prefetch(Path directory) {
+		listing(directory.toAbsolutePath().normalize(), true);
+	}
+
+	/**
+	 * Drops the listing of a directory, so it is read again the next time it is
+	 * requested. This is needed where a change must be seen straight away, as a
+	 * watch service may report changes some time after they happen.
+	 *
+	 * @param directory the {@code Path} value of the directory that has changed
+	 */
+	public synchronized void invalidate(Path directory) {
+		drop(directory.toAbsolutePath().normalize());
+	}
+
+	/**
+	 * Drops every listing and stops watching the directories.
+	 */
+	@Override
+	public synchronized void close() {
+		closed = true;
+		executor.shutdownNow();
+		listings.clear();
+		keys.clear();
+		watched.clear();
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				System.out.println("Error closing directory watcher.");
+			}
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Returns the listing of a directory, starting to read it if it is neither
+	 * held nor being read.
+	 *
+	 * @param directory  the absolute {@code Path} value of the directory
+	 * @param background whether to read the directory on the thread of the cache
+	 *                   rather than the calling thread
+	 * @return the {@code CompletableFuture} of the listing
+	 */
+	private CompletableFuture<File[]> listing(Path directory, boolean background) {
+		CompletableFuture<File[]> listing;
+		synchronized (this) {
+			listing = listings.get(directory);
+			if (listing != null) {
+				return listing;
+			}
+			listing = new CompletableFuture<>();
+			listings.put(directory, listing);
+			trim();
+		}
+		CompletableFuture<File[]> read = listing;
+		if (!background) {
+			read(directory, read);
+		} else {
+			try {
+				executor.execute(() -> read(directory, read));
+			} catch (RejectedExecutionException e) {
+				// The cache has been closed, so the directory is left unread.
+				read.cancel(false);
+				synchronized (this) {
+					if (listings.get(directory) == read) {
+						drop(directory);
+					}
+				}
+			}
+		}
+		return listing;
+	}
+
+	/**
+	 * Watches a directory and then reads it, completing its listing. The listing
+	 * is dropped again if the directory could not be read or watched.
+	 *
+	 * @param directory the absolute {@code Path} value of the directory
+	 * @param listing   the {@code CompletableFuture} of the listing
+	 */
+	private void read(Path directory, CompletableFuture<File[]> listing) {
+		boolean isWatched = watch(directory);
+		try {
+			listing.complete(readDirectory(directory));
+		} catch (IOException e) {
+			listing.completeExceptionally(e);
+			isWatched = false;
+		} catch (DirectoryIteratorException e) {
+			listing.completeExceptionally(e.getCause());
+			isWatched = false;
+		}
+		if (!isWatched) {
+			synchronized (this) {
+				if (listings.get(directory) == listing) {
+					drop(directory);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Reads the entries of a directory along with their attributes. An entry
+	 * whose attributes cannot be read, such as a broken link, is listed as an
+	 * empty file.
+	 *
+	 * @param directory the {@code Path} value of the directory
+	 * @return the {@code File} of each entry of the directory
+	 * @throws IOException if the directory could not be read
+	 */
+	private static File[] readDirectory(Path directory) throws IOException {
+		List<File> entries = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path entry : stream) {
+				BasicFileAttributes attributes = null;
+				try {
+					attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+				} catch (IOException e) {
+					// A broken link, or an entry removed whilst being listed.
+				}
+				entries.add(new ListedFile(entry.toString(), attributes));
+			}
+		}
+		return entries.toArray(new File[entries.size()]);
+	}
+
+	/**
+	 * Registers a directory with the watch service, starting the thread of the
+	 * watch service the first time a directory is watched.
+	 *
+	 * @param directory the absolute {@code Path} value of the directory
+	 * @return true if changes to the directory will be reported
+	 */
+	private synchronized boolean watch(Path directory) {
+		if (closed) {
+			return false;
+		}
+		try {
+			if (watcher == null) {
+				watcher = directory.getFileSystem().newWatchService();
+				WatchService service = watcher;
+				Thread thread = new Thread(() -> poll(service), "Directory Watcher Thread");
+				thread.setDaemon(true);
+				thread.start();
+			}
+			WatchKey key = directory.register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+					StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+			keys.put(key, directory);
+			watched.put(directory, key);
+			return true;
+		} catch (IOException | UnsupportedOperationException | ClosedWatchServiceException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Drops the listing of each directory the watch service reports a change to,
+	 * until the cache is closed.
+	 *
+	 * @param service the watch service of the cache
+	 */
+	private void poll(WatchService service) {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = service.take();
+				// Any event, including lost events, makes the listing stale.
+				key.pollEvents();
+				synchronized (this) {
+					Path directory = keys.get(key);
+					if (directory != null) {
+						drop(directory);
+					}
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// The cache has been closed.
+		}
+	}
+
+	/**
+	 * Drops the listing of a directory and stops watching it. Must be called
+	 * whilst holding the lock of the cache.
+	 *
+	 * @param directory the absolute {@code Path} value of the directory
+	 */
+	private void drop(Path directory) {
+		listings.remove(directory);
+		WatchKey key = watched.remove(directory);
+		if (key != null) {
+			keys.remove(key);
+			key.cancel();
+		}
+	}
+
+	/**
+	 * Drops the listings used least recently until no more than
+	 * {@code maxDirectories} are held. Must be called whilst holding the lock of
+	 * the cache.
+	 */
+	private void trim() {
+		while (listings.size() > maxDirectories) {
+			drop(listings.keySet().iterator().next());
+		}
+	}
+
+	/**
+	 * A {@code File} of an entry of a directory that answers with the
+	 * attributes read when the directory was listed, rather than reading them
+	 * again from the disk.
+	 *
+	 * @author Aiden Parker
+	 * @version 1
+	 */
+	private static class ListedFile extends File {
+		private static final long serialVersionUID = 1L;
+
+		/** Whether the entry is a directory. */
+		private final boolean directory;
+		/** Whether the entry is a regular file. */
+		private final boolean regularFile;
+		/** The size of the entry in bytes. */
+		private final long length;
+		/** The time the entry was last modified, in milliseconds. */
+		private final long lastModified;
+
+		/**
+		 * Class constructor that holds the attributes provided for the entry.
+		 *
+		 * @param path       the path of the entry
+		 * @param attributes the attributes of the entry, or null if they could not
+		 *                   be read
+		 */
+		ListedFile(String path, BasicFileAttributes attributes) {
+			super(path);
+			this.directory = attributes != null && attributes.isDirectory();
+			this.regularFile = attributes != null && attributes.isRegularFile();
+			this.length = attributes == null ? 0 : attributes.size();
+			this.lastModified = attributes == null ? 0 : attributes.lastModifiedTime().toMillis();
+		}
+
+		@Override
+		public boolean isDirectory() {
+			return directory;
+		}
+
+		@Override
+		public boolean isFile() {
+			return regularFile;
+		}
+
+		@Override
+		public long length() {
+			return length;
+		}
+
+		@Override
+		public long lastModified() {
+			return lastModified;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package file;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JDK Flight Recorder events recorded around the operations of the editor
+ * whose speed the user notices, i.e reading and writing files, setting the text
+ * of a tab, undoing and inserting text. Each is a duration event, begun before
+ * the operation and committed after it, so a recording shows how long each
+ * took and on which thread.
+ *
+ * The events cost next to nothing whilst no recording is running, as they are
+ * only wrote once a recording is started, i.e with
+ * {@code -XX:StartFlightRecording} or from JDK Mission Control. Any recording
+ * takes every event of the editor unless given a threshold for it, such as
+ * {@code textual.DocumentInsert#threshold=1ms}.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see EditorMetrics
+ */
+public final class EditorEvents {
+	/** The category the events are listed under in a recording. */
+	private static final String CATEGORY = "Textual";
+
+	/**
+	 * The events are only created through their own classes.
+	 */
+	private EditorEvents() {
+	}
+
+	/**
+	 * Recorded each time a file, or a chunk of a file being opened, is read.
+	 */
+	@Name("textual.FileRead")
+	@Label("File Read")
+	@Category({ CATEGORY, "File" })
+	@Description("A file, or a chunk of a file being opened, was read")
+	public static class FileRead extends Event {
+		/** The file read. */
+		@Label("Path")
+		public String path;
+		/** The number of bytes read. */
+		@Label("Bytes Read")
+		@DataAmount
+		public long bytes;
+	}
+
+	/**
+	 * Recorded each time a file is wrote, i.e saved, exported or snapshotted.
+	 */
+	@Name("textual.FileWrite")
+	@Label("File Write")
+	@Category({ CATEGORY, "File" })
+	@Description("A file was wrote and moved into place")
+	public static class FileWrite extends Event {
+		/** The file wrote. */
+		@Label("Path")
+		public String path;
+		/** The number of bytes wrote. */
+		@Label("Bytes Written")
+		@DataAmount
+		public long bytes;
+		/** Whether the file was wrote, false if the write failed. */
+		@Label("Succeeded")
+		public boolean succeeded;
+	}
+
+	/**
+	 * Recorded each time the whole text of a tab is replaced.
+	 */
+	@Name("textual.SetText")
+	@Label("Set Text")
+	@Category({ CATEGORY, "Document" })
+	@Description("The whole text of a tab was replaced")
+	public static class SetText extends Event {
+		/** The number of characters the tab was given. */
+		@Label("Length")
+		public int length;
+	}
+
+	/**
+	 * Recorded each time a template is shown in a tab.
+	 */
+	@Name("textual.TemplateInsert")
+	@Label("Template Insert")
+	@Category({ CATEGORY, "Document" })
+	@Description("A template was shown in the tab in view")
+	public static class TemplateInsert extends Event {
+		/** The name of the template. */
+		@Label("Template")
+		public String template;
+		/** The number of characters of the template. */
+		@Label("Length")
+		public int length;
+	}
+
+	/**
+	 * Recorded each time text is inserted into a document, whether typed, pasted
+	 * or loaded from a file. The stack trace is left out, as typing records an
+	 * event for each character.
+	 */
+	@Name("textual.DocumentInsert")
+	@Label("Document Insert")
+	@Category({ CATEGORY, "Document" })
+	@Description("Text was inserted into a document")
+	@StackTrace(false)
+	public static class DocumentInsert extends Event {
+		/** The offset the text was inserted at. */
+		@Label("Offset")
+		public int offset;
+		/** The number of characters inserted. */
+		@Label("Length")
+		public int length;
+	}
+
+	/**
+	 * Recorded each time an edit is undone or re-done.
+	 */
+	@Name("textual.UndoRedo")
+	@Label("Undo or Redo")
+	@Category({ CATEGORY, "Document" })
+	@Description("An edit was undone or re-done")
+	public static class UndoRedo extends Event {
+		/** Whether the edit was re-done rather than undone. */
+		@Label("Redo")
+		public boolean redo;
+		/** Whether the edit had to be read back from the spill file. */
+		@Label("Read From Disk")
+		public boolean spilled;
+	}
+
+	/**
+	 * Recorded once a key that changed the document has been painted, lasting
+	 * from when the key was handed to the text pane until the paint ended.
+	 */
+	@Name("textual.KeystrokePaint")
+	@Label("Keystroke To Paint")
+	@Category({ CATEGORY, "Document" })
+	@Description("A key that changed the document was handled and painted")
+	@StackTrace(false)
+	public static class KeystrokePaint extends Event {
+		/** The time the key waited in the event queue before being handled. */
+		@Label("Queued")
+		@Timespan
+		public long queued;
+	}
+
+	/**
+	 * Recorded once the event dispatch thread has been stalled for longer than
+	 * the threshold of the {@code StallWatchdog}, lasting from when the stall was
+	 * noticed until it ended.
+	 */
+	@Name("textual.EdtStall")
+	@Label("Event Dispatch Thread Stall")
+	@Category({ CATEGORY, "User Interface" })
+	@Description("The event dispatch thread did not handle events for longer than the threshold")
+	@StackTrace(false)
+	public static class EdtStall extends Event {
+		/** How long the event dispatch thread was stalled for in all. */
+		@Label("Stalled For")
+		@Timespan
+		public long stalledFor;
+		/** The event being handled when the stall was noticed. */
+		@Label("Action")
+		public String action;
+		/** The method of the program seen most often in the samples. */
+		@Label("Hot Frame")
+		public String hotFrame;
+		/** The number of stacks sampled. */
+		@Label("Samples")
+		public int samples;
+	}
+}
@@ -0,0 +1,439 @@
+package file;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Keeps the latency of the operations of the editor whose speed the user
+ * notices, along with the bytes read and wrote and the size of the document in
+ * view, so a running session can be watched from JConsole without a profiler.
+ * The same operations are recorded as {@code EditorEvents} for the JDK Flight
+ * Recorder, which shows each one rather than a summary.
+ *
+ * Each latency is kept in a histogram of buckets a quarter of a power of two
+ * wide, so its percentiles are within a quarter of the true value whatever the
+ * range, from a keystroke of a few microseconds to a save of several seconds.
+ * Recording into the histogram is a few atomic additions with no lock, so it
+ * is safe to call from the event dispatch thread and the I/O executor at once.
+ *
+ * There is a single instance for the program, as JMX shows one set of metrics
+ * for the process. The sizes shown are those of the tab in view, given through
+ * {@code watch} each time the tab in view changes.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see EditorMetricsMXBean
+ * @see EditorEvents
+ */
+public class EditorMetrics implements EditorMetricsMXBean {
+	/** The name the metrics are registered under with the platform MBean server. */
+	public static final String OBJECT_NAME = "textual:type=EditorMetrics";
+	/** The metrics of the program. */
+	private static final EditorMetrics METRICS = new EditorMetrics();
+
+	/**
+	 * The operations whose latency is kept.
+	 */
+	public enum Operation {
+		/** Reading a file, or a chunk of a file being opened. */
+		FILE_READ,
+		/** Writing a file and moving it into place. */
+		FILE_WRITE,
+		/** Replacing the whole text of a tab. */
+		SET_TEXT,
+		/** Showing a template in a tab. */
+		TEMPLATE_INSERT,
+		/** Inserting text into a document. */
+		DOCUMENT_INSERT,
+		/** Undoing or re-doing an edit. */
+		UNDO_REDO,
+		/** Handling a key that changed the document until it has been painted. */
+		KEYSTROKE_PAINT
+	}
+
+	/** The latency of each operation, indexed by its ordinal. */
+	private final LatencyHistogram[] latencies = new LatencyHistogram[Operation.values().length];
+	/** The number of bytes read from files. */
+	private final LongAdder bytesRead = new LongAdder();
+	/** The number of bytes wrote to files. */
+	private final LongAdder bytesWritten = new LongAdder();
+	/** Returns the length of the document in view. */
+	private volatile LongSupplier documentSize = () -> 0;
+	/** Returns the number of edits in the undo history of the tab in view. */
+	private volatile LongSupplier undoEdits = () -> 0;
+	/** Returns the bytes used by the undo history of the tab in view. */
+	private volatile LongSupplier undoBytes = () -> 0;
+
+	/**
+	 * Class constructor that creates an empty histogram for each operation.
+	 */
+	private EditorMetrics() {
+		for (int i = 0; i < latencies.length; i++) {
+			latencies[i] = new LatencyHistogram();
+		}
+	}
+
+	/**
+	 * Returns the metrics of the program.
+	 *
+	 * @return the {@code EditorMetrics}
+	 */
+	public static EditorMetrics get() {
+		return METRICS;
+	}
+
+	/**
+	 * Registers the metrics with the platform MBean server under
+	 * {@code OBJECT_NAME}, so they can be read from JConsole.
+	 */
+	public void register() {
+		try {
+			ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+		} catch (JMException e) {
+			System.out.println("Error registering editor metrics.");
+		}
+	}
+
+	/**
+	 * Records an operation that has just ended.
+	 *
+	 * @param operation the {@code Operation} that ended
+	 * @param start     the value of {@code System.nanoTime()} when it started
+	 */
+	public void record(Operation operation, long start) {
+		latencies[operation.ordinal()].record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Adds to the number of bytes read from files.
+	 *
+	 * @param bytes the number of bytes read
+	 */
+	public void addBytesRead(long bytes) {
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * Adds to the number of bytes wrote to files.
+	 *
+	 * @param bytes the number of bytes wrote
+	 */
+	public void addBytesWritten(long bytes) {
+		bytesWritten.add(bytes);
+	}
+
+	/**
+	 * Sets where the sizes of the tab in view are read from, called each time the
+	 * tab in view changes. The suppliers are called on the thread reading the
+	 * attributes, so should not need the event dispatch thread.
+	 *
+	 * @param documentSize returns the length of the document
+	 * @param undoEdits    returns the number of edits in the undo history
+	 * @param undoBytes    returns the bytes used by the undo history
+	 */
+	public void watch(LongSupplier documentSize, LongSupplier undoEdits, LongSupplier undoBytes) {
+		this.documentSize = documentSize;
+		this.undoEdits = undoEdits;
+		this.undoBytes = undoBytes;
+	}
+
+	/**
+	 * Returns the latency of an operation.
+	 *
+	 * @param operation the {@code Operation}
+	 * @return the {@code LatencySnapshot} of the operation so far
+	 */
+	public LatencySnapshot getLatency(Operation operation) {
+		return latencies[operation.ordinal()].snapshot();
+	}
+
+	@Override
+	public LatencySnapshot getFileReadLatency() {
+		return getLatency(Operation.FILE_READ);
+	}
+
+	@Override
+	public LatencySnapshot getFileWriteLatency() {
+		return getLatency(Operation.FILE_WRITE);
+	}
+
+	@Override
+	public LatencySnapshot getSetTextLatency() {
+		return getLatency(Operation.SET_TEXT);
+	}
+
+	@Override
+	public LatencySnapshot getTemplateInsertLatency() {
+		return getLatency(Operation.TEMPLATE_INSERT);
+	}
+
+	@Override
+	public LatencySnapshot getDocumentInsertLatency() {
+		return getLatency(Operation.DOCUMENT_INSERT);
+	}
+
+	@Override
+	public LatencySnapshot getUndoRedoLatency() {
+		return getLatency(Operation.UNDO_REDO);
+	}
+
+	@Override
+	public LatencySnapshot getKeystrokePaintLatency() {
+		return getLatency(Operation.KEYSTROKE_PAINT);
+	}
+
+	@Override
+	public long getBytesRead() {
+		return bytesRead.sum();
+	}
+
+	@Override
+	public long getBytesWritten() {
+		return bytesWritten.sum();
+	}
+
+	@Override
+	public long getDocumentSize() {
+		return documentSize.getAsLong();
+	}
+
+	@Override
+	public long getUndoHistoryEdits() {
+		return undoEdits.getAsLong();
+	}
+
+	@Override
+	public long getUndoHistoryBytes() {
+		return undoBytes.getAsLong();
+	}
+
+	@Override
+	public void reset() {
+		for (LatencyHistogram latency : latencies) {
+			latency.reset();
+		}
+		bytesRead.reset();
+		bytesWritten.reset();
+	}
+
+	/**
+	 * A histogram of latencies in nanoseconds. Latencies below eight nanoseconds
+	 * have a bucket each, above that each power of two is split into four
+	 * buckets, so a bucket is never wider than a quarter of its lowest value.
+	 */
+	private static final class LatencyHistogram {
+		/** The number of buckets, enough for the largest {@code long}. */
+		private static final int BUCKETS = 8 + (63 - 3) * 4;
+
+		/** The number of latencies in each bucket. */
+		private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		/** The sum of the latencies, for the mean. */
+		private final LongAdder total = new LongAdder();
+		/** The largest latency. */
+		private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+		/**
+		 * Adds a latency to the histogram.
+		 *
+		 * @param nanos the latency in nanoseconds
+		 */
+		void record(long nanos) {
+			nanos = Math.max(0, nanos);
+			counts.incrementAndGet(bucket(nanos));
+			total.add(nanos);
+			max.accumulate(nanos);
+		}
+
+		/**
+		 * Empties the histogram. Latencies recorded whilst it is being emptied may
+		 * be kept in part.
+		 */
+		void reset() {
+			for (int i = 0; i < BUCKETS; i++) {
+				counts.set(i, 0);
+			}
+			total.reset();
+			max.reset();
+		}
+
+		/**
+		 * Returns the count, mean, percentiles and maximum of the latencies so far.
+		 * Each percentile is the highest latency its bucket holds, so it is never
+		 * below the true value.
+		 *
+		 * @return the {@code LatencySnapshot} of the histogram
+		 */
+		LatencySnapshot snapshot() {
+			long[] snapshot = new long[BUCKETS];
+			long count = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				snapshot[i] = counts.get(i);
+				count += snapshot[i];
+			}
+			long largest = max.get();
+			if (count == 0) {
+				return new LatencySnapshot(0, 0, 0, 0, 0, 0);
+			}
+			return new LatencySnapshot(count, total.sum() / count, percentile(snapshot, count, 0.5, largest),
+					percentile(snapshot, count, 0.9, largest), percentile(snapshot, count, 0.99, largest), largest);
+		}
+
+		/**
+		 * Finds the highest latency of the bucket holding a percentile.
+		 *
+		 * @param snapshot the count of each bucket
+		 * @param count    the sum of the counts
+		 * @param quantile the percentile as a fraction, i.e 0.99
+		 * @param largest  the largest latency, which no percentile is above
+		 * @return the latency of the percentile in nanoseconds
+		 */
+		private static long percentile(long[] snapshot, long count, double quantile, long largest) {
+			long rank = Math.max(1, (long) Math.ceil(quantile * count));
+			long seen = 0;
+			for (int i = 0; i < BUCKETS; i++) {
+				seen += snapshot[i];
+				if (seen >= rank) {
+					return Math.min(upperBound(i), largest);
+				}
+			}
+			return largest;
+		}
+
+		/**
+		 * Returns the bucket of a latency. Above eight, the bucket is found from
+		 * the highest set bit of the latency and the two bits below it.
+		 *
+		 * @param nanos the latency in nanoseconds, not negative
+		 * @return the index of the bucket
+		 */
+		static int bucket(long nanos) {
+			if (nanos < 8) {
+				return (int) nanos;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			return 8 + (exponent - 3) * 4 + (int) ((nanos >>> (exponent - 2)) & 3);
+		}
+
+		/**
+		 * Returns the highest latency a bucket holds.
+		 *
+		 * @param bucket the index of the bucket
+		 * @return the highest latency of the bucket in nanoseconds
+		 */
+		static long upperBound(int bucket) {
+			if (bucket < 8) {
+				return bucket;
+			}
+			int exponent = 3 + (bucket - 8) / 4;
+			int quarter = (bucket - 8) % 4;
+			return ((5L + quarter) << (exponent - 2)) - 1;
+		}
+	}
+
+	/**
+	 * The latencies of an operation at the time they were read, in microseconds.
+	 * Shown by JMX as a composite of its getters.
+	 */
+	public static class LatencySnapshot {
+		/** The number of nanoseconds in a microsecond. */
+		private static final long NANOS_PER_MICRO = 1000;
+
+		/** The number of times the operation was recorded. */
+		private final long count;
+		/** The mean latency in nanoseconds. */
+		private final long mean;
+		/** The median latency in nanoseconds. */
+		private final long p50;
+		/** The 90th percentile latency in nanoseconds. */
+		private final long p90;
+		/** The 99th percentile latency in nanoseconds. */
+		private final long p99;
+		/** The largest latency in nanoseconds. */
+		private final long max;
+
+		/**
+		 * Class constructor that accepts the latencies in nanoseconds.
+		 *
+		 * @param count the number of times the operation was recorded
+		 * @param mean  the mean latency
+		 * @param p50   the median latency
+		 * @param p90   the 90th percentile latency
+		 * @param p99   the 99th percentile latency
+		 * @param max   the largest latency
+		 */
+		LatencySnapshot(long count, long mean, long p50, long p90, long p99, long max) {
+			this.count = count;
+			this.mean = mean;
+			this.p50 = p50;
+			this.p90 = p90;
+			this.p99 = p99;
+			this.max = max;
+		}
+
+		/**
+		 * Returns the number of times the operation was recorded.
+		 *
+		 * @return the count of the operation
+		 */
+		public long getCount() {
+			return count;
+		}
+
+		/**
+		 * Returns the mean latency.
+		 *
+		 * @return the mean in microseconds
+		 */
+		public long getMeanMicros() {
+			return mean / NANOS_PER_MICRO;
+		}
+
+		/**
+		 * Returns the median latency.
+		 *
+		 * @return the median in microseconds
+		 */
+		public long getP50Micros() {
+			return p50 / NANOS_PER_MICRO;
+		}
+
+		/**
+		 * Returns the 90th percentile latency.
+		 *
+		 * @return the 90th percentile in microseconds
+		 */
+		public long getP90Micros() {
+			return p90 / NANOS_PER_MICRO;
+		}
+
+		/**
+		 * Returns the 99th percentile latency.
+		 *
+		 * @return the 99th percentile in microseconds
+		 */
+		public long getP99Micros() {
+			return p99 / NANOS_PER_MICRO;
+		}
+
+		/**
+		 * Returns the largest latency.
+		 *
+		 * @return the maximum in microseconds
+		 */
+		public long getMaxMicros() {
+			return max / NANOS_PER_MICRO;
+		}
+
+		@Override
+		public String toString() {
+			return "count=" + count + ", mean=" + getMeanMicros() + "us, p50=" + getP50Micros() + "us, p90="
+					+ getP90Micros() + "us, p99=" + getP99Micros() + "us, max=" + getMaxMicros() + "us";
+		}
+	}
+}
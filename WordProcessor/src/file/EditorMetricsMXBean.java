@@ -0,0 +1,105 @@
+package file;
+
+/**
+ * The management interface of the {@code EditorMetrics}, shown in JConsole and
+ * other JMX clients under {@code textual:type=EditorMetrics}. Each latency is a
+ * {@code LatencySnapshot} taken when the attribute is read, which JMX shows as
+ * a composite of its count, mean, percentiles and maximum.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see EditorMetrics#register()
+ */
+public interface EditorMetricsMXBean {
+	/**
+	 * Returns the latency of reading a file, or a chunk of a file being opened.
+	 *
+	 * @return the {@code LatencySnapshot} of the reads so far
+	 */
+	public EditorMetrics.LatencySnapshot getFileReadLatency();
+
+	/**
+	 * Returns the latency of writing a file, from creating the temporary file to
+	 * moving it into place.
+	 *
+	 * @return the {@code LatencySnapshot} of the writes so far
+	 */
+	public EditorMetrics.LatencySnapshot getFileWriteLatency();
+
+	/**
+	 * Returns the latency of replacing the whole text of a tab.
+	 *
+	 * @return the {@code LatencySnapshot} of setting the text so far
+	 */
+	public EditorMetrics.LatencySnapshot getSetTextLatency();
+
+	/**
+	 * Returns the latency of showing a template in a tab.
+	 *
+	 * @return the {@code LatencySnapshot} of the templates shown so far
+	 */
+	public EditorMetrics.LatencySnapshot getTemplateInsertLatency();
+
+	/**
+	 * Returns the latency of inserting text into a document.
+	 *
+	 * @return the {@code LatencySnapshot} of the inserts so far
+	 */
+	public EditorMetrics.LatencySnapshot getDocumentInsertLatency();
+
+	/**
+	 * Returns the latency of undoing or re-doing an edit.
+	 *
+	 * @return the {@code LatencySnapshot} of the undos and redos so far
+	 */
+	public EditorMetrics.LatencySnapshot getUndoRedoLatency();
+
+	/**
+	 * Returns the latency from a key being pressed until the change it made to
+	 * the document has been painted.
+	 *
+	 * @return the {@code LatencySnapshot} of the keystrokes so far
+	 */
+	public EditorMetrics.LatencySnapshot getKeystrokePaintLatency();
+
+	/**
+	 * Returns the number of bytes read from files.
+	 *
+	 * @return the bytes read so far
+	 */
+	public long getBytesRead();
+
+	/**
+	 * Returns the number of bytes wrote to files.
+	 *
+	 * @return the bytes wrote so far
+	 */
+	public long getBytesWritten();
+
+	/**
+	 * Returns the number of characters in the document of the tab in view.
+	 *
+	 * @return the length of the document, or 0 if there is none
+	 */
+	public long getDocumentSize();
+
+	/**
+	 * Returns the number of edits that can be undone in the tab in view.
+	 *
+	 * @return the number of edits in the undo history
+	 */
+	public long getUndoHistoryEdits();
+
+	/**
+	 * Returns the estimated number of bytes the undo history of the tab in view
+	 * holds in memory.
+	 *
+	 * @return the bytes used by the undo history
+	 */
+	public long getUndoHistoryBytes();
+
+	/**
+	 * Clears the latencies and byte counts, i.e before profiling a session.
+	 */
+	public void reset();
+}
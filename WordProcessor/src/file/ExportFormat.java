@@ -0,0 +1,120 @@
+package file;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyledDocument;
+
+/**
+ * A format a document can be exported to. The document is walked once by
+ * {@code FileManipulation}, which passes each paragraph, and each run of text
+ * with the same attributes within it, to the format in the order they occur.
+ * The format writes each straight to the {@code Writer} it is given, so nothing
+ * more than the markup of the run being wrote need be held, whatever the size
+ * of the document.
+ *
+ * The text of a run may be passed on in several pieces. The new line ending
+ * each paragraph is not passed on, the format marking the end of the paragraph
+ * in its own way instead.
+ *
+ * A new format is created for each attempt at an export, so a format may hold
+ * state from one call to the next. Only {@code startDocument} is called whilst
+ * the document is locked, the rest being called with copies of the attributes
+ * and text of the document.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManipulation#writeExportFile(Path, StyledDocument,
+ *      java.util.function.Supplier, java.util.function.UnaryOperator)
+ */
+public interface ExportFormat {
+	/**
+	 * Writes anything that comes before the first paragraph. Called whilst the
+	 * document is locked for reading, so the format may look through the
+	 * elements of the document first, i.e to list the fonts used.
+	 *
+	 * @param out      the {@code Writer} the export is wrote to
+	 * @param document the {@code StyledDocument} being exported
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void startDocument(Writer out, StyledDocument document) throws IOException;
+
+	/**
+	 * Writes the start of a paragraph.
+	 *
+	 * @param out        the {@code Writer} the export is wrote to
+	 * @param attributes the attributes of the paragraph
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void startParagraph(Writer out, AttributeSet attributes) throws IOException;
+
+	/**
+	 * Writes the start of a run of text within the paragraph.
+	 *
+	 * @param out        the {@code Writer} the export is wrote to
+	 * @param attributes the attributes of the run
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void startRun(Writer out, AttributeSet attributes) throws IOException;
+
+	/**
+	 * Writes a piece of the text of the run, escaping it as the format needs.
+	 *
+	 * @param out    the {@code Writer} the export is wrote to
+	 * @param text   the array holding the text
+	 * @param offset the index of the first character of the text
+	 * @param length the number of characters of the text
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void writeText(Writer out, char[] text, int offset, int length) throws IOException;
+
+	/**
+	 * Writes the end of the run started last.
+	 *
+	 * @param out the {@code Writer} the export is wrote to
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void endRun(Writer out) throws IOException;
+
+	/**
+	 * Writes the end of the paragraph started last.
+	 *
+	 * @param out the {@code Writer} the export is wrote to
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void endParagraph(Writer out) throws IOException;
+
+	/**
+	 * Writes anything that comes after the last paragraph.
+	 *
+	 * @param out the {@code Writer} the export is wrote to
+	 * @throws IOException if the export could not be wrote
+	 */
+	public void endDocument(Writer out) throws IOException;
+
+	/**
+	 * Returns a new format for the extension of the path provided.
+	 *
+	 * @param path the {@code Path} value of the file being exported to
+	 * @return the {@code ExportFormat} of the extension, or null if the
+	 *         extension is not that of a format that can be exported to
+	 */
+	public static ExportFormat forPath(Path path) {
+		String name = path.getFileName().toString();
+		String extension = name.substring(name.lastIndexOf('.') + 1).toLowerCase();
+		switch (extension) {
+		case "html":
+		case "htm":
+			return new HtmlExport(name.substring(0, Math.max(0, name.lastIndexOf('.'))));
+		case "rtf":
+			return new RtfExport();
+		case "md":
+		case "markdown":
+			return new MarkdownExport();
+		default:
+			return null;
+		}
+	}
+}
@@ -0,0 +1,149 @@
+package file;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Identifies the contents of a file at a point in time by its size,
+ * modification time and CRC-32C checksum, so the contents a document was
+ * loaded from or saved to can later be told apart from a file changed by
+ * another program.
+ *
+ * The size and modification time are cheap to read again and catch almost
+ * every change. The checksum is needed as a file can be changed without either
+ * of them changing, and is read at several gigabytes a second so costs far less
+ * than reading the file as text.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see SnapshotCache
+ */
+public final class FileFingerprint {
+	/** The number of bytes read at a time when working out a checksum. */
+	private static final int CHECKSUM_BUFFER_SIZE = 1024 * 1024;
+
+	/** The size of the file in bytes. */
+	private final long size;
+	/** The modification time of the file in nanoseconds. */
+	private final long modified;
+	/** The CRC-32C checksum of the contents of the file. */
+	private final long checksum;
+
+	/**
+	 * Class constructor that accepts each part of the fingerprint.
+	 *
+	 * @param size     the size of the file in bytes
+	 * @param modified the modification time of the file in nanoseconds
+	 * @param checksum the CRC-32C checksum of the contents of the file
+	 */
+	public FileFingerprint(long size, long modified, long checksum) {
+		this.size = size;
+		this.modified = modified;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Reads the fingerprint of a file, working out the checksum of its contents.
+	 *
+	 * @param path the {@code Path} value of the file
+	 * @return the {@code FileFingerprint} of the file, or null if the file
+	 *         changed whilst its checksum was being worked out
+	 * @throws IOException if the file could not be read
+	 */
+	public static FileFingerprint read(Path path) throws IOException {
+		BasicFileAttributes before = Files.readAttributes(path, BasicFileAttributes.class);
+		long checksum = checksum(path);
+		FileFingerprint fingerprint = new FileFingerprint(before.size(), modifiedTime(before), checksum);
+		return fingerprint.matches(Files.readAttributes(path, BasicFileAttributes.class)) ? fingerprint : null;
+	}
+
+	/**
+	 * Returns the size of the file in bytes.
+	 *
+	 * @return the size of the file
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the modification time of the file in nanoseconds.
+	 *
+	 * @return the modification time of the file
+	 */
+	public long getModified() {
+		return modified;
+	}
+
+	/**
+	 * Returns the CRC-32C checksum of the contents of the file.
+	 *
+	 * @return the checksum of the file
+	 */
+	public long getChecksum() {
+		return checksum;
+	}
+
+	/**
+	 * Determines whether the attributes of a file have the size and modification
+	 * time of the fingerprint, without reading the contents of the file.
+	 *
+	 * @param attributes the attributes of the file
+	 * @return true if the size and modification time are the same
+	 */
+	public boolean matches(BasicFileAttributes attributes) {
+		return attributes.size() == size && modifiedTime(attributes) == modified;
+	}
+
+	/**
+	 * Returns the modification time of a file in nanoseconds, as precisely as the
+	 * file system records it.
+	 *
+	 * @param attributes the attributes of the file
+	 * @return the modification time of the file
+	 */
+	public static long modifiedTime(BasicFileAttributes attributes) {
+		return attributes.lastModifiedTime().to(TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Works out the CRC-32C checksum of the contents of a file.
+	 *
+	 * @param path the {@code Path} value of the file
+	 * @return the checksum of the file
+	 * @throws IOException if the file could not be read
+	 */
+	static long checksum(Path path) throws IOException {
+		CRC32C crc = new CRC32C();
+		ByteBuffer buffer = ByteBuffer.allocateDirect(CHECKSUM_BUFFER_SIZE);
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			while (channel.read(buffer) >= 0) {
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		return crc.getValue();
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (!(other instanceof FileFingerprint)) {
+			return false;
+		}
+		FileFingerprint that = (FileFingerprint) other;
+		return size == that.size && modified == that.modified && checksum == that.checksum;
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(size) * 31 * 31 + Long.hashCode(modified) * 31 + Long.hashCode(checksum);
+	}
+}
@@ -2,6 +2,9 @@ package file;
 
 import java.nio.file.Path;
 
+import javax.swing.text.Document;
+import javax.swing.text.StyledDocument;
+
 /**
  * An interface that determines the operating a file manager class should be
  * able to achieve, related to a word processing application. 
@@ -37,6 +40,34 @@ public interface FileManagerInterface {
 	 */
 	public boolean saveFile(Path path, byte[] bytes);
 
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * Like the {@code saveFile} method this writes a file to disk, but the text is
+	 * read straight from the {@code Document} provided rather than an array of
+	 * bytes, so that no full copy of the document is made. The implementation
+	 * should write to a temporary file that then replaces the file at the path, so
+	 * that a failed save never leaves a partly wrote file behind.
+	 * 
+	 * @param path     the path of the location to save the file.
+	 * @param document the {@code Document} whose text is to be wrote to the file.
+	 * @return true if the file was wrote to successfully.
+	 */
+	public boolean saveDocument(Path path, Document document);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * Like the {@code saveDocument} method this writes the text of a document to
+	 * disk, but saves its formatting along with it as a {@code RichTextFile}, the
+	 * native format of the program.
+	 * 
+	 * @param path     the path of the location to save the file.
+	 * @param document the {@code StyledDocument} to be wrote to the file.
+	 * @return true if the file was wrote to successfully.
+	 */
+	public boolean saveRichDocument(Path path, StyledDocument document);
+
 	/**
 	 * Abstract method that is to be implemented via its child classes.
 	 * 
@@ -49,4 +80,57 @@ public interface FileManagerInterface {
 	 */
 	public byte[] getFileContents(Path path);
 
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * Unlike {@code getFileContents}, this opens the file so that its contents can
+	 * be read and decoded a chunk at a time, meaning a large file does not have to
+	 * be held in memory as a single byte array before it can be shown.
+	 * 
+	 * @param path the path of the location of the file to be read.
+	 * @return a {@code ChunkedFileReader} over the file, or null if it could not be
+	 *         opened.
+	 */
+	public ChunkedFileReader getFileReader(Path path);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * This opens a file that may be too large to be held in memory so that it can
+	 * be viewed a few lines at a time. The implementation should map the file using
+	 * {@code FileChannel.map} rather than reading its contents.
+	 * 
+	 * @param path the path of the location of the file to be viewed.
+	 * @return a {@code MappedTextFile} over the file, or null if it could not be
+	 *         opened.
+	 */
+	public MappedTextFile getMappedFile(Path path);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * This reads a document saved with {@code saveRichDocument}, its text along
+	 * with its formatting. The implementation should read the file in a single
+	 * sequential read rather than a chunk at a time.
+	 * 
+	 * @param path the path of the location of the document to be read.
+	 * @return a {@code RichTextFile} of the document, or null if it could not be
+	 *         read.
+	 */
+	public RichTextFile getRichTextFile(Path path);
+
+	/**
+	 * Abstract method that is to be implemented via its child classes.
+	 * 
+	 * This opens a dictionary of words used to check spelling, compiling the word
+	 * list into a compact {@code WordDictionary} file when needed. The compiled
+	 * file should be mapped rather than read onto the heap.
+	 * 
+	 * @param wordList the path of the word list, one word per line.
+	 * @param compiled the path of the compiled dictionary.
+	 * @return a {@code WordDictionary} of the words, or null if it could not be
+	 *         opened.
+	 */
+	public WordDictionary getDictionary(Path wordList, Path compiled);
+
 }
@@ -1,8 +1,46 @@
 package file;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileStore;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.DosFileAttributeView;
+import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
 
 /**
  * Handles the operations that enable a user to create a new file on disk, open
@@ -14,6 +52,20 @@ import java.nio.file.Path;
  */
 
 public class FileManipulation implements FileManagerInterface {
+	/** The size of the buffer the encoded text of a document is wrote through. */
+	private static final int SAVE_BUFFER_SIZE = 64 * 1024;
+	/** Reused buffer that the encoded text of a document is wrote through. */
+	private final ByteBuffer saveBuffer = ByteBuffer.allocateDirect(SAVE_BUFFER_SIZE);
+	/** Reused buffer the copied text of a document is encoded from a chunk at a time. */
+	private final char[] saveChars = new char[SAVE_BUFFER_SIZE / 2];
+	/** The number of characters of a document copied for export under each lock. */
+	private static final int EXPORT_BATCH_SIZE = 64 * 1024;
+	/** The attempts made at an export before the document is copied whole. */
+	private static final int MAX_EXPORT_ATTEMPTS = 3;
+	/** The dictionary loaded from each compiled file, shared by every instance. */
+	private static final Map<Path, WordDictionary> DICTIONARIES = new HashMap<>();
+	/** The encoder of each character set used so far, reset before each save. */
+	private final Map<Charset, CharsetEncoder> encoders = new HashMap<>();
 
 	/**
 	 * Handles the operation that enables the creation of a file at the specified
@@ -41,14 +93,897 @@ public class FileManipulation implements FileManagerInterface {
 	 * @return true if the file was created
 	 */
 	public boolean saveFile(Path path, byte[] bytes) {
+		EditorEvents.FileWrite event = new EditorEvents.FileWrite();
+		event.begin();
+		long start = System.nanoTime();
 		try {
 			Files.write(path, bytes);
+			event.bytes = bytes.length;
+			event.succeeded = true;
+			EditorMetrics.get().addBytesWritten(bytes.length);
+			return true;
+		} catch (IOException e) {
+			return false;
+		} finally {
+			event.path = path.toString();
+			event.commit();
+			EditorMetrics.get().record(EditorMetrics.Operation.FILE_WRITE, start);
+		}
+	}
+
+	/**
+	 * Handles the operation that enables the saving of a document at the specified
+	 * path. The text of the document is copied under its read lock, then encoded
+	 * as UTF-8 a chunk at a time into a reused buffer that is wrote to a
+	 * temporary file through a {@code FileChannel}. Once wrote, the temporary
+	 * file is moved over the file at the path in a single step, meaning the
+	 * existing file is never left truncated if the save fails part way through.
+	 * 
+	 * Only the copy is made under the read lock, so a consistent version is
+	 * saved without edits made whilst the file is being wrote having to wait for
+	 * the write to finish.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code Document} to be saved
+	 * @return true if the file was saved
+	 */
+	public boolean saveDocument(Path path, Document document) {
+		try {
+			writeDocumentFile(path, document);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Writes a document to a temporary file and moves it over the file at the path
+	 * provided, as described by {@code saveDocument}. Unlike {@code saveDocument}
+	 * the reason for a failure is thrown to the caller.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code Document} to be saved
+	 * @throws IOException if the file could not be saved
+	 */
+	public void writeDocumentFile(Path path, Document document) throws IOException {
+		writeDocumentFile(path, document, TextEncoding.DEFAULT);
+	}
+
+	/**
+	 * Writes a document to a temporary file in the encoding provided and moves it
+	 * over the file at the path provided. The byte order mark of the encoding is
+	 * wrote first if it has one, and each new line of the document is wrote as
+	 * the line ending of the encoding, so a file saved in the encoding it was
+	 * opened with is wrote back the way it was read.
+	 * 
+	 * If the document holds a character the character set cannot encode, an
+	 * {@code UnmappableCharacterException} is thrown and the existing file is left
+	 * unchanged, rather than the character being lost.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code Document} to be saved
+	 * @param encoding the {@code TextEncoding} the document is wrote in
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be saved
+	 */
+	public FileFingerprint writeDocumentFile(Path path, Document document, TextEncoding encoding)
+			throws IOException {
+		return writeDocumentFile(path, DocumentCopy.of(document), encoding);
+	}
+
+	/**
+	 * Writes the copy of a document to a temporary file in the encoding provided
+	 * and moves it over the file at the path provided, as described by
+	 * {@code writeDocumentFile}. No lock of the document is held, so it may be
+	 * edited whilst the copy is wrote.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param copy     the {@code DocumentCopy} of the document to be saved
+	 * @param encoding the {@code TextEncoding} the document is wrote in
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be saved
+	 */
+	public synchronized FileFingerprint writeDocumentFile(Path path, DocumentCopy copy, TextEncoding encoding)
+			throws IOException {
+		return replaceFile(path, channel -> writeText(channel, copy.text, encoding));
+	}
+
+	/**
+	 * Handles the operation that enables the saving of a document along with its
+	 * formatting at the specified path, as a {@code RichTextFile}.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code StyledDocument} to be saved
+	 * @return true if the file was saved
+	 */
+	public boolean saveRichDocument(Path path, StyledDocument document) {
+		try {
+			writeRichDocumentFile(path, document, UnaryOperator.identity());
 			return true;
 		} catch (IOException e) {
 			return false;
 		}
 	}
 
+	/**
+	 * Writes a document along with its formatting to a temporary file and moves
+	 * it over the file at the path provided, in the same way as
+	 * {@code writeDocumentFile}. The tables of the {@code RichTextFile} are wrote
+	 * first, followed by the text encoded as UTF-8 through the save buffer. Both
+	 * are copied under a single read lock of the document, so the formatting
+	 * always matches the text, and are wrote once it has been released.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code StyledDocument} to be saved
+	 * @param saved    returns the attributes of an element that are to be saved
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be saved
+	 * @see RichTextFile#formatting(StyledDocument, UnaryOperator)
+	 */
+	public FileFingerprint writeRichDocumentFile(Path path, StyledDocument document,
+			UnaryOperator<AttributeSet> saved) throws IOException {
+		return writeRichDocumentFile(path, DocumentCopy.of(document, saved));
+	}
+
+	/**
+	 * Writes the copy of a document, along with its formatting, to a temporary
+	 * file and moves it over the file at the path provided, as described by
+	 * {@code writeRichDocumentFile}.
+	 * 
+	 * @param path the {@code Path} value of the location the file should be wrote
+	 *             too
+	 * @param copy the {@code DocumentCopy} of the document, taken with its
+	 *             formatting
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be saved
+	 */
+	public synchronized FileFingerprint writeRichDocumentFile(Path path, DocumentCopy copy) throws IOException {
+		if (copy.formatting == null) {
+			throw new IllegalArgumentException("The copy was taken without its formatting.");
+		}
+		return replaceFile(path, channel -> {
+			ByteBuffer formatting = copy.formatting.duplicate();
+			while (formatting.hasRemaining()) {
+				channel.write(formatting);
+			}
+			writeText(channel, copy.text, TextEncoding.DEFAULT);
+		});
+	}
+
+	/**
+	 * Writes an array of bytes to a temporary file and moves it over the file at
+	 * the path provided, in the same way as {@code writeDocumentFile}, so the
+	 * file is either wholly replaced or left as it was.
+	 * 
+	 * @param path  the {@code Path} value of the location the file should be
+	 *              wrote too
+	 * @param bytes the bytes to be wrote
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be wrote
+	 */
+	public synchronized FileFingerprint writeBytesFile(Path path, byte[] bytes) throws IOException {
+		return replaceFile(path, channel -> {
+			ByteBuffer buffer = ByteBuffer.wrap(bytes);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		});
+	}
+
+	/**
+	 * Exports a document in the format provided to a temporary file and moves it
+	 * over the file at the path provided, in the same way as
+	 * {@code writeDocumentFile}.
+	 * 
+	 * The element tree of the document is walked in batches of around
+	 * {@code EXPORT_BATCH_SIZE} characters. Each batch is copied under the read
+	 * lock of the document, its paragraphs and runs along with their attributes
+	 * and text, and then passed to the format once the lock has been released,
+	 * so the user can carry on typing whilst the export is wrote. The format
+	 * writes through a {@code Writer} encoding UTF-8 into the save buffer, so the
+	 * memory used does not grow with the size of the document.
+	 * 
+	 * As the batches are copied at different times, a listener notes any change
+	 * made to the document during the export, which is then started again from
+	 * the beginning with a new format. After {@code MAX_EXPORT_ATTEMPTS} attempts
+	 * the whole document is copied under a single read lock instead, so the export
+	 * always finishes.
+	 * 
+	 * @param path     the {@code Path} value of the location the file should be
+	 *                 wrote too
+	 * @param document the {@code StyledDocument} to be exported
+	 * @param formats  creates the {@code ExportFormat} the document is wrote in,
+	 *                 called again for each attempt
+	 * @param exported returns the attributes of an element that are to be
+	 *                 exported
+	 * @throws IOException if the file could not be wrote
+	 */
+	public synchronized void writeExportFile(Path path, StyledDocument document, Supplier<ExportFormat> formats,
+			UnaryOperator<AttributeSet> exported) throws IOException {
+		AtomicBoolean edited = new AtomicBoolean();
+		DocumentListener listener = new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				edited.set(true);
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				edited.set(true);
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				edited.set(true);
+			}
+		};
+		document.addDocumentListener(listener);
+		try {
+			replaceFile(path, channel -> {
+				for (int attempt = 1;; attempt++) {
+					boolean whole = attempt == MAX_EXPORT_ATTEMPTS;
+					edited.set(false);
+					if (export(channel, document, formats.get(), exported, edited,
+							whole ? Integer.MAX_VALUE : EXPORT_BATCH_SIZE)) {
+						return;
+					}
+					channel.truncate(0);
+					channel.position(0);
+				}
+			});
+		} finally {
+			document.removeDocumentListener(listener);
+		}
+	}
+
+	/**
+	 * Makes a single attempt at exporting a document, as described by
+	 * {@code writeExportFile}.
+	 * 
+	 * @param channel   the {@code FileChannel} the export is wrote to
+	 * @param document  the {@code StyledDocument} to be exported
+	 * @param format    the {@code ExportFormat} the document is wrote in
+	 * @param exported  returns the attributes of an element that are to be
+	 *                  exported
+	 * @param edited    set whenever the document is changed
+	 * @param batchSize the number of characters copied under each read lock
+	 * @return true if the export was wrote, false if the document was changed
+	 *         part way through
+	 * @throws IOException if the export could not be wrote
+	 */
+	private boolean export(FileChannel channel, StyledDocument document, ExportFormat format,
+			UnaryOperator<AttributeSet> exported, AtomicBoolean edited, int batchSize) throws IOException {
+		ExportWriter out = new ExportWriter(channel);
+		ExportBatch batch = new ExportBatch();
+		IOException[] failure = { null };
+		boolean[] changed = { false };
+		do {
+			batch.steps.clear();
+			document.render(() -> {
+				if (edited.get()) {
+					changed[0] = true;
+					return;
+				}
+				try {
+					if (batch.paragraph == 0 && batch.offset < 0) {
+						format.startDocument(out, document);
+					}
+					batch.copy(document, exported, batchSize);
+				} catch (IOException e) {
+					failure[0] = e;
+				} catch (BadLocationException e) {
+					failure[0] = new IOException(e);
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			if (changed[0]) {
+				return false;
+			}
+			batch.write(out, format);
+		} while (!batch.finished);
+		format.endDocument(out);
+		out.finish();
+		return true;
+	}
+
+	/**
+	 * Writes a file through the writer provided to a temporary file in the same
+	 * folder, then moves it over the file at the path in a single step. If the
+	 * write fails the temporary file is removed and the existing file is left
+	 * unchanged.
+	 * 
+	 * A path that is a symbolic link is followed, so the file it links to is
+	 * replaced and the link is kept. The permissions, owner, group, access
+	 * control list and extended attributes of an existing file are copied onto
+	 * the temporary file before it is moved, so replacing a file does not change
+	 * who may read it. A new file is created with the default permissions of the
+	 * user, as the temporary file is not created private to them.
+	 * 
+	 * Every write of a document passes through here, so each is recorded as a
+	 * single {@code FileWrite} event and in the {@code EditorMetrics}, whether it
+	 * succeeds or not.
+	 * 
+	 * @param path   the {@code Path} value of the file to be replaced
+	 * @param writer writes the contents of the file to the channel it is given
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be wrote
+	 */
+	private FileFingerprint replaceFile(Path path, ChannelWriter writer) throws IOException {
+		EditorEvents.FileWrite event = new EditorEvents.FileWrite();
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			FileFingerprint fingerprint = writeAndMove(path, writer);
+			event.bytes = fingerprint.getSize();
+			event.succeeded = true;
+			EditorMetrics.get().addBytesWritten(event.bytes);
+			return fingerprint;
+		} finally {
+			event.path = path.toString();
+			event.commit();
+			EditorMetrics.get().record(EditorMetrics.Operation.FILE_WRITE, start);
+		}
+	}
+
+	/**
+	 * Writes a file through the writer provided to a temporary file and moves it
+	 * over the file at the path, as described by {@code replaceFile}. The
+	 * fingerprint is read from the temporary file before it is moved, as moving
+	 * it keeps its size and modification time, so the fingerprint can only be
+	 * that of the contents wrote.
+	 * 
+	 * @param path   the {@code Path} value of the file to be replaced
+	 * @param writer writes the contents of the file to the channel it is given
+	 * @return the {@code FileFingerprint} of the file as wrote
+	 * @throws IOException if the file could not be wrote
+	 */
+	private FileFingerprint writeAndMove(Path path, ChannelWriter writer) throws IOException {
+		boolean exists = Files.exists(path);
+		Path target = exists ? path.toRealPath() : path.toAbsolutePath();
+		Path temp = target.resolveSibling("." + target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW,
+					StandardOpenOption.WRITE)) {
+				writer.write(channel);
+				channel.force(false);
+			}
+			if (exists) {
+				copyAttributes(target, temp);
+			}
+			FileFingerprint fingerprint = FileFingerprint.read(temp);
+			if (fingerprint == null) {
+				throw new IOException("The file was changed whilst being saved.");
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return fingerprint;
+		} catch (IOException | UncheckedIOException e) {
+			try {
+				Files.deleteIfExists(temp);
+			} catch (IOException ex) {
+				System.out.println("Error removing temporary file.");
+			}
+			throw e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+		}
+	}
+
+	/**
+	 * Copies the attributes of the file being replaced onto the temporary file
+	 * that replaces it, for each kind of attribute the file store supports. The
+	 * permissions must be copied for the save to go ahead. The owner and group
+	 * can only be given away by a privileged user, so a failure to copy them, or
+	 * the access control list or extended attributes, is reported and the save
+	 * carries on.
+	 * 
+	 * @param source the {@code Path} value of the file being replaced
+	 * @param target the {@code Path} value of the temporary file
+	 * @throws IOException if the permissions could not be copied
+	 */
+	private static void copyAttributes(Path source, Path target) throws IOException {
+		FileStore store = Files.getFileStore(source);
+		if (store.supportsFileAttributeView(PosixFileAttributeView.class)) {
+			PosixFileAttributes attributes = Files.readAttributes(source, PosixFileAttributes.class);
+			PosixFileAttributeView view = Files.getFileAttributeView(target, PosixFileAttributeView.class);
+			view.setPermissions(attributes.permissions());
+			try {
+				if (!attributes.owner().equals(Files.getOwner(target))) {
+					view.setOwner(attributes.owner());
+				}
+				view.setGroup(attributes.group());
+			} catch (IOException e) {
+				System.out.println("Error keeping the owner of " + source.getFileName() + ".");
+			}
+		}
+		if (store.supportsFileAttributeView(DosFileAttributeView.class)) {
+			DosFileAttributes attributes = Files.readAttributes(source, DosFileAttributes.class);
+			DosFileAttributeView view = Files.getFileAttributeView(target, DosFileAttributeView.class);
+			view.setHidden(attributes.isHidden());
+			view.setSystem(attributes.isSystem());
+			view.setArchive(attributes.isArchive());
+		}
+		try {
+			if (store.supportsFileAttributeView(AclFileAttributeView.class)) {
+				Files.getFileAttributeView(target, AclFileAttributeView.class)
+						.setAcl(Files.getFileAttributeView(source, AclFileAttributeView.class).getAcl());
+			}
+			if (store.supportsFileAttributeView(UserDefinedFileAttributeView.class)) {
+				UserDefinedFileAttributeView from = Files.getFileAttributeView(source,
+						UserDefinedFileAttributeView.class);
+				UserDefinedFileAttributeView to = Files.getFileAttributeView(target,
+						UserDefinedFileAttributeView.class);
+				for (String name : from.list()) {
+					ByteBuffer value = ByteBuffer.allocate(from.size(name));
+					from.read(name, value);
+					to.write(name, value.flip());
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error keeping the attributes of " + source.getFileName() + ".");
+		}
+	}
+
+	/**
+	 * Writes the contents of a file being saved to the channel of the file.
+	 */
+	private interface ChannelWriter {
+		/**
+		 * Writes the contents of the file.
+		 * 
+		 * @param channel the {@code FileChannel} to be wrote to
+		 * @throws IOException if the channel could not be wrote to
+		 */
+		void write(FileChannel channel) throws IOException;
+	}
+
+	/**
+	 * A copy of the text of a document, and optionally its formatting, taken
+	 * under a single read lock so the document can be edited again whilst the
+	 * copy is wrote to a file.
+	 */
+	public static final class DocumentCopy {
+		/** The text of the document. */
+		private final String text;
+		/** The header and tables of the document as a Textual document, if taken. */
+		private final ByteBuffer formatting;
+
+		/**
+		 * Class constructor that holds a copy of a document.
+		 * 
+		 * @param text       the text of the document
+		 * @param formatting the header and tables of the document, or null
+		 */
+		private DocumentCopy(String text, ByteBuffer formatting) {
+			this.text = text;
+			this.formatting = formatting;
+		}
+
+		/**
+		 * Copies the text of a document under its read lock.
+		 * 
+		 * @param document the {@code Document} to be copied
+		 * @return the {@code DocumentCopy} of the text
+		 */
+		public static DocumentCopy of(Document document) {
+			String[] text = { null };
+			document.render(() -> text[0] = textOf(document));
+			return new DocumentCopy(text[0], null);
+		}
+
+		/**
+		 * Copies the text of a document along with its formatting, both under a
+		 * single read lock so they match.
+		 * 
+		 * @param document the {@code StyledDocument} to be copied
+		 * @param saved    returns the attributes of an element that are to be
+		 *                 saved
+		 * @return the {@code DocumentCopy} of the text and formatting
+		 * @throws IOException if the formatting could not be built
+		 * @see RichTextFile#formatting(StyledDocument, UnaryOperator)
+		 */
+		public static DocumentCopy of(StyledDocument document, UnaryOperator<AttributeSet> saved)
+				throws IOException {
+			DocumentCopy[] copy = { null };
+			IOException[] failure = { null };
+			document.render(() -> {
+				try {
+					copy[0] = new DocumentCopy(textOf(document), RichTextFile.formatting(document, saved));
+				} catch (IOException e) {
+					failure[0] = e;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			return copy[0];
+		}
+
+		/**
+		 * Returns the text of a document, which must be read locked by the caller.
+		 * 
+		 * @param document the {@code Document} being copied
+		 * @return the text of the document
+		 */
+		private static String textOf(Document document) {
+			try {
+				return document.getText(0, document.getLength());
+			} catch (BadLocationException e) {
+				throw new UncheckedIOException(new IOException(e));
+			}
+		}
+	}
+
+	/**
+	 * The part of a document being exported that has been copied under its read
+	 * lock, as the steps the format is to be called with, along with where the
+	 * next batch carries on from. A batch may end part way through a paragraph
+	 * or a run, the next carrying on from the same offset, as the document is
+	 * known not to have changed in between.
+	 */
+	private static final class ExportBatch {
+		/** Step starting a paragraph. */
+		private static final int START_PARAGRAPH = 0;
+		/** Step starting a run. */
+		private static final int START_RUN = 1;
+		/** Step writing a piece of the text of a run. */
+		private static final int TEXT = 2;
+		/** Step ending a run. */
+		private static final int END_RUN = 3;
+		/** Step ending a paragraph. */
+		private static final int END_PARAGRAPH = 4;
+
+		/** The steps of the batch, in the order they are to be wrote. */
+		private final List<ExportStep> steps = new ArrayList<>();
+		/** Reused segment the text of the document is read through. */
+		private final Segment segment = new Segment();
+		/** The index of the paragraph the next batch starts in. */
+		private int paragraph = 0;
+		/** The offset the next batch starts from, or -1 before the paragraph starts. */
+		private int offset = -1;
+		/** Whether the next batch starts part way through a run. */
+		private boolean runOpen = false;
+		/** Whether the whole document has been copied. */
+		private boolean finished = false;
+
+		/**
+		 * Copies the next batch of the document, which must be read locked by the
+		 * caller, stopping once about the number of characters provided have been
+		 * copied. The attributes of each element are copied, as the element may be
+		 * changed once the lock is released.
+		 * 
+		 * @param document  the {@code StyledDocument} being exported
+		 * @param exported  returns the attributes of an element that are exported
+		 * @param batchSize the number of characters to copy
+		 * @throws BadLocationException never, only the text of elements is read
+		 */
+		void copy(StyledDocument document, UnaryOperator<AttributeSet> exported, int batchSize)
+				throws BadLocationException {
+			Element root = document.getDefaultRootElement();
+			int last = root.getElementCount() - 1;
+			int copied = 0;
+			while (copied < batchSize && !finished) {
+				Element element = root.getElement(paragraph);
+				// The new line ending the paragraph is left for the format to mark.
+				int paragraphEnd = Math.min(element.getEndOffset() - 1, document.getLength());
+				if (offset < 0) {
+					if (paragraph == last && element.getStartOffset() >= paragraphEnd && paragraph > 0) {
+						// The document ends with a new line, which starts no paragraph of its own.
+						finished = true;
+						break;
+					}
+					steps.add(new ExportStep(START_PARAGRAPH, exported.apply(element.getAttributes()).copyAttributes(),
+							null));
+					offset = element.getStartOffset();
+				}
+				while (offset < paragraphEnd && copied < batchSize) {
+					Element run = element.getElement(element.getElementIndex(offset));
+					int runEnd = Math.min(run.getEndOffset(), paragraphEnd);
+					if (!runOpen) {
+						steps.add(new ExportStep(START_RUN, exported.apply(run.getAttributes()).copyAttributes(), null));
+						runOpen = true;
+					}
+					int length = Math.min(runEnd - offset, batchSize - copied);
+					document.getText(offset, length, segment);
+					steps.add(new ExportStep(TEXT, null,
+							Arrays.copyOfRange(segment.array, segment.offset, segment.offset + segment.count)));
+					offset += length;
+					copied += length;
+					if (offset == runEnd) {
+						steps.add(new ExportStep(END_RUN, null, null));
+						runOpen = false;
+					}
+				}
+				if (offset >= paragraphEnd) {
+					steps.add(new ExportStep(END_PARAGRAPH, null, null));
+					offset = -1;
+					finished = ++paragraph > last;
+				}
+			}
+		}
+
+		/**
+		 * Passes the steps of the batch to the format.
+		 * 
+		 * @param out    the {@code Writer} the export is wrote to
+		 * @param format the {@code ExportFormat} the document is wrote in
+		 * @throws IOException if the export could not be wrote
+		 */
+		void write(Writer out, ExportFormat format) throws IOException {
+			for (ExportStep step : steps) {
+				switch (step.kind) {
+				case START_PARAGRAPH:
+					format.startParagraph(out, step.attributes);
+					break;
+				case START_RUN:
+					format.startRun(out, step.attributes);
+					break;
+				case TEXT:
+					format.writeText(out, step.text, 0, step.text.length);
+					break;
+				case END_RUN:
+					format.endRun(out);
+					break;
+				default:
+					format.endParagraph(out);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * A single call to be made to the format of an export.
+	 */
+	private static final class ExportStep {
+		/** The kind of call, one of the steps of {@code ExportBatch}. */
+		private final int kind;
+		/** The attributes of the paragraph or run started, or null. */
+		private final AttributeSet attributes;
+		/** The text to be wrote, or null. */
+		private final char[] text;
+
+		/**
+		 * Class constructor that accepts each part of the step.
+		 * 
+		 * @param kind       the kind of call
+		 * @param attributes the attributes of the paragraph or run started, or null
+		 * @param text       the text to be wrote, or null
+		 */
+		ExportStep(int kind, AttributeSet attributes, char[] text) {
+			this.kind = kind;
+			this.attributes = attributes;
+			this.text = text;
+		}
+	}
+
+	/**
+	 * A {@code Writer} that encodes what is wrote to it as UTF-8 into the save
+	 * buffer, writing the buffer to a channel each time it fills. Small writes,
+	 * such as the markup of an export, are gathered into a character buffer
+	 * first, so the encoder is called once per buffer rather than once per write.
+	 * Characters that cannot be encoded, i.e an unpaired surrogate, are replaced.
+	 */
+	private class ExportWriter extends Writer {
+		/** The number of characters gathered before they are encoded. */
+		private static final int CHAR_BUFFER_SIZE = 8 * 1024;
+
+		/** The channel being wrote to. */
+		private final FileChannel channel;
+		/** Encodes the characters as UTF-8. */
+		private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+				.onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+		/** Holds a character carried over from the last write. */
+		private final CharBuffer carry = CharBuffer.allocate(2);
+		/** Holds the characters gathered from small writes. */
+		private final char[] chars = new char[CHAR_BUFFER_SIZE];
+		/** The number of characters gathered. */
+		private int count = 0;
+
+		/**
+		 * Class constructor that writes to the channel provided through the save
+		 * buffer, which is cleared first.
+		 * 
+		 * @param channel the {@code FileChannel} to be wrote to
+		 */
+		ExportWriter(FileChannel channel) {
+			this.channel = channel;
+			saveBuffer.clear();
+		}
+
+		@Override
+		public void write(char[] cbuf, int off, int len) throws IOException {
+			if (len >= CHAR_BUFFER_SIZE) {
+				flushChars();
+				FileManipulation.this.write(channel, encoder, carry, cbuf, off, len);
+				return;
+			}
+			if (count + len > CHAR_BUFFER_SIZE) {
+				flushChars();
+			}
+			System.arraycopy(cbuf, off, chars, count, len);
+			count += len;
+		}
+
+		@Override
+		public void write(String str, int off, int len) throws IOException {
+			while (len > 0) {
+				if (count == CHAR_BUFFER_SIZE) {
+					flushChars();
+				}
+				int n = Math.min(len, CHAR_BUFFER_SIZE - count);
+				str.getChars(off, off + n, chars, count);
+				count += n;
+				off += n;
+				len -= n;
+			}
+		}
+
+		@Override
+		public void write(int c) throws IOException {
+			if (count == CHAR_BUFFER_SIZE) {
+				flushChars();
+			}
+			chars[count++] = (char) c;
+		}
+
+		/**
+		 * Encodes the characters gathered into the save buffer.
+		 * 
+		 * @throws IOException if the channel could not be wrote to
+		 */
+		private void flushChars() throws IOException {
+			FileManipulation.this.write(channel, encoder, carry, chars, 0, count);
+			count = 0;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			flushChars();
+			drain(channel);
+		}
+
+		/**
+		 * Encodes everything left, including a character carried over, and writes
+		 * the save buffer to the channel.
+		 * 
+		 * @throws IOException if the channel could not be wrote to
+		 */
+		void finish() throws IOException {
+			flushChars();
+			carry.flip();
+			encode(channel, encoder, carry, true);
+			while (encoder.flush(saveBuffer).isOverflow()) {
+				drain(channel);
+			}
+			drain(channel);
+		}
+
+		@Override
+		public void close() throws IOException {
+			// The channel is closed by the caller once the file has been forced.
+			flush();
+		}
+	}
+
+	/**
+	 * Encodes the copied text of a document into the channel provided, a chunk
+	 * at a time, converting each new line to the line ending of the encoding.
+	 * 
+	 * @param channel  the {@code FileChannel} to be wrote to
+	 * @param text     the text of the document
+	 * @param encoding the {@code TextEncoding} the document is wrote in
+	 * @throws IOException if the channel could not be wrote to
+	 */
+	private void writeText(FileChannel channel, String text, TextEncoding encoding) throws IOException {
+		CharsetEncoder encoder = encoders.computeIfAbsent(encoding.getCharset(), c -> encoding.newEncoder());
+		encoder.reset();
+		char[] separator = encoding.getLineSeparator().toCharArray();
+		boolean convert = !encoding.getLineSeparator().equals("\n");
+		CharBuffer carry = CharBuffer.allocate(2);
+		saveBuffer.clear();
+		saveBuffer.put(encoding.getBom());
+		int length = text.length();
+		for (int offset = 0; offset < length; offset += saveChars.length) {
+			int end = Math.min(saveChars.length, length - offset);
+			text.getChars(offset, offset + end, saveChars, 0);
+			int start = 0;
+			if (convert) {
+				for (int i = 0; i < end; i++) {
+					if (saveChars[i] == '\n') {
+						write(channel, encoder, carry, saveChars, start, i - start);
+						write(channel, encoder, carry, separator, 0, separator.length);
+						start = i + 1;
+					}
+				}
+			}
+			write(channel, encoder, carry, saveChars, start, end - start);
+		}
+		carry.flip();
+		encode(channel, encoder, carry, true);
+		while (encoder.flush(saveBuffer).isOverflow()) {
+			drain(channel);
+		}
+		drain(channel);
+	}
+
+	/**
+	 * Encodes a run of characters into the channel provided. A character that is
+	 * split across two runs, i.e a surrogate pair split across two segments, is
+	 * carried over and encoded with the start of the next run.
+	 * 
+	 * @param channel the {@code FileChannel} to be wrote to
+	 * @param encoder the {@code CharsetEncoder} being used
+	 * @param carry   holds a character carried over from the last run
+	 * @param array   the array holding the characters
+	 * @param offset  the index of the first character of the run
+	 * @param length  the number of characters in the run
+	 * @throws IOException if the channel could not be wrote to
+	 */
+	private void write(FileChannel channel, CharsetEncoder encoder, CharBuffer carry, char[] array, int offset,
+			int length) throws IOException {
+		if (length == 0) {
+			return;
+		}
+		CharBuffer chars = CharBuffer.wrap(array, offset, length);
+		if (carry.position() > 0) {
+			// Complete the character carried over from the last run.
+			carry.put(chars.get());
+			carry.flip();
+			encode(channel, encoder, carry, false);
+			carry.clear();
+		}
+		encode(channel, encoder, chars, false);
+		if (chars.hasRemaining()) {
+			carry.put(chars);
+		}
+	}
+
+	/**
+	 * Encodes characters into the save buffer, writing the buffer to the channel
+	 * each time it fills.
+	 * 
+	 * @param channel    the {@code FileChannel} to be wrote to
+	 * @param encoder    the {@code CharsetEncoder} being used
+	 * @param chars      the characters to be encoded
+	 * @param endOfInput whether these are the last characters of the document
+	 * @throws IOException if the channel could not be wrote to, or a character
+	 *                     cannot be encoded
+	 */
+	private void encode(FileChannel channel, CharsetEncoder encoder, CharBuffer chars, boolean endOfInput)
+			throws IOException {
+		CoderResult result;
+		while ((result = encoder.encode(chars, saveBuffer, endOfInput)).isOverflow()) {
+			drain(channel);
+		}
+		if (result.isUnmappable()) {
+			result.throwException();
+		}
+	}
+
+	/**
+	 * Writes the contents of the save buffer to the channel and clears it.
+	 * 
+	 * @param channel the {@code FileChannel} to be wrote to
+	 * @throws IOException if the channel could not be wrote to
+	 */
+	private void drain(FileChannel channel) throws IOException {
+		saveBuffer.flip();
+		while (saveBuffer.hasRemaining()) {
+			channel.write(saveBuffer);
+		}
+		saveBuffer.clear();
+	}
+
 	/**
 	 * Handles the operation that gets the byte value of the file selected. Should
 	 * mainly be used on text files as large files can cause the program to hang
@@ -62,11 +997,151 @@ public class FileManipulation implements FileManagerInterface {
 	 * @return byte[] data of the file chosen converted to a byte array.
 	 */
 	public byte[] getFileContents(Path path) {
+		EditorEvents.FileRead event = new EditorEvents.FileRead();
+		event.begin();
+		long start = System.nanoTime();
 		try {
 			byte[] bytes = Files.readAllBytes(path);
+			event.bytes = bytes.length;
+			EditorMetrics.get().addBytesRead(bytes.length);
 			return bytes;
 		} catch (IOException | OutOfMemoryError e) {
 			return null;
+		} finally {
+			event.path = path.toString();
+			event.commit();
+			EditorMetrics.get().record(EditorMetrics.Operation.FILE_READ, start);
+		}
+	}
+
+	/**
+	 * Handles the operation that opens the file selected so it can be read in
+	 * chunks of {@code ChunkedFileReader.DEFAULT_CHUNK_SIZE} bytes. This should be
+	 * preferred over {@code getFileContents} for files that may be large, as only
+	 * a single chunk is held in memory at a time.
+	 * 
+	 * @param path the {@code Path} value of the location of the file to be read
+	 * @return {@code ChunkedFileReader} over the file, or null if it could not be
+	 *         opened
+	 */
+	public ChunkedFileReader getFileReader(Path path) {
+		try {
+			return new ChunkedFileReader(path, ChunkedFileReader.DEFAULT_CHUNK_SIZE);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Handles the operation that maps the file selected into memory so that it can
+	 * be viewed a page at a time in read-only mode. Used for files too large to be
+	 * loaded into the text pane.
+	 * 
+	 * @param path the {@code Path} value of the location of the file to be viewed
+	 * @return {@code MappedTextFile} over the file, or null if it could not be
+	 *         opened
+	 */
+	public MappedTextFile getMappedFile(Path path) {
+		try {
+			return new MappedTextFile(path);
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Handles the operation that reads a Textual document, the text of the file
+	 * along with its formatting.
+	 * 
+	 * @param path the {@code Path} value of the location of the document
+	 * @return {@code RichTextFile} of the document, or null if it could not be
+	 *         read or is not a Textual document
+	 */
+	public RichTextFile getRichTextFile(Path path) {
+		EditorEvents.FileRead event = new EditorEvents.FileRead();
+		event.begin();
+		long start = System.nanoTime();
+		try {
+			RichTextFile file = new RichTextFile(path);
+			event.bytes = path.toFile().length();
+			EditorMetrics.get().addBytesRead(event.bytes);
+			return file;
+		} catch (IOException | OutOfMemoryError e) {
+			return null;
+		} finally {
+			event.path = path.toString();
+			event.commit();
+			EditorMetrics.get().record(EditorMetrics.Operation.FILE_READ, start);
+		}
+	}
+
+	/**
+	 * Handles the operation that opens a dictionary of words for spell checking.
+	 * The word list is compiled into a {@code WordDictionary} the first time it
+	 * is used and again whenever it is modified, otherwise the compiled file is
+	 * mapped as it is, even if the word list has since been removed.
+	 * 
+	 * The dictionary is loaded once and shared by every caller, i.e the spell
+	 * checker of each tab, until the word list is next modified. Loading is done
+	 * under a single lock, so two tabs opened together never compile the same
+	 * word list at once.
+	 * 
+	 * @param wordList the {@code Path} value of the word list, one word per line
+	 * @param compiled the {@code Path} value of the compiled dictionary
+	 * @return {@code WordDictionary} of the words, or null if it could not be
+	 *         compiled or opened
+	 */
+	public WordDictionary getDictionary(Path wordList, Path compiled) {
+		Path key = compiled.toAbsolutePath().normalize();
+		synchronized (DICTIONARIES) {
+			try {
+				WordDictionary dictionary = DICTIONARIES.get(key);
+				if (Files.exists(wordList) && (!Files.exists(compiled)
+						|| Files.getLastModifiedTime(compiled).compareTo(Files.getLastModifiedTime(wordList)) < 0)) {
+					WordDictionary.compile(wordList, compiled);
+					dictionary = null;
+				}
+				if (dictionary == null) {
+					// A dictionary replaced here stays mapped for the checkers still using it.
+					dictionary = new WordDictionary(compiled);
+					DICTIONARIES.put(key, dictionary);
+				}
+				return dictionary;
+			} catch (IOException e) {
+				return null;
+			}
+		}
+	}
+
+	/**
+	 * Handles the operation that removes the file at the specified path, if it
+	 * exists, using the {@code Files} class and invoking the
+	 * {@code deleteIfExists} method.
+	 * 
+	 * @param path the {@code Path} value of the location of the file
+	 * @return true if the file no longer exists
+	 */
+	public boolean deleteFile(Path path) {
+		try {
+			Files.deleteIfExists(path);
+			return true;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Handles the operation that gets the size of the file selected using the
+	 * {@code Files} class and invoking the {@code size} method.
+	 * 
+	 * @param path the {@code Path} value of the location of the file
+	 * @return the size of the file in bytes, or -1 if it could not be read
+	 */
+	public long getFileSize(Path path) {
+		try {
+			return Files.size(path);
+		} catch (IOException e) {
+			return -1;
 		}
 	}
 }
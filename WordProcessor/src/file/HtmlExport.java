@@ -0,0 +1,207 @@
+package file;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Exports a document as a web page. Each paragraph becomes a {@code p} element
+ * and each run of formatted text is wrapped in the tags of its formatting, with
+ * the font, size and colours of the run set through the style of a
+ * {@code span}.
+ *
+ * The page keeps the white space of the text as it is, and has no margins
+ * between paragraphs, so it looks as the document does in the text pane.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ExportFormat
+ */
+public class HtmlExport implements ExportFormat {
+	/** The title of the page. */
+	private final String title;
+	/** The closing tags of the run being wrote, in the order they are wrote. */
+	private final StringBuilder closing = new StringBuilder();
+	/** Whether any text has been wrote in the paragraph being wrote. */
+	private boolean hasText = false;
+
+	/**
+	 * Class constructor that gives the page the title provided.
+	 *
+	 * @param title the title of the page, i.e the name of the file
+	 */
+	public HtmlExport(String title) {
+		this.title = title;
+	}
+
+	@Override
+	public void startDocument(Writer out, StyledDocument document) throws IOException {
+		out.write("<!DOCTYPE html>\n<html>\n<head>\n<meta charset=\"UTF-8\">\n<title>");
+		char[] chars = title.toCharArray();
+		escape(out, chars, 0, chars.length);
+		out.write("</title>\n<style>\nbody { white-space: pre-wrap; }\np { margin: 0; }\n</style>\n</head>\n<body>\n");
+	}
+
+	@Override
+	public void startParagraph(Writer out, AttributeSet attributes) throws IOException {
+		StringBuilder style = new StringBuilder();
+		switch (StyleConstants.getAlignment(attributes)) {
+		case StyleConstants.ALIGN_CENTER:
+			style.append("text-align: center; ");
+			break;
+		case StyleConstants.ALIGN_RIGHT:
+			style.append("text-align: right; ");
+			break;
+		case StyleConstants.ALIGN_JUSTIFIED:
+			style.append("text-align: justify; ");
+			break;
+		default:
+			break;
+		}
+		appendLength(style, "margin-left", StyleConstants.getLeftIndent(attributes));
+		appendLength(style, "margin-right", StyleConstants.getRightIndent(attributes));
+		appendLength(style, "text-indent", StyleConstants.getFirstLineIndent(attributes));
+		appendLength(style, "margin-top", StyleConstants.getSpaceAbove(attributes));
+		appendLength(style, "margin-bottom", StyleConstants.getSpaceBelow(attributes));
+		float spacing = StyleConstants.getLineSpacing(attributes);
+		if (spacing != 0) {
+			style.append("line-height: ").append(1 + spacing).append("; ");
+		}
+		out.write(style.length() == 0 ? "<p>" : "<p style=\"" + style.toString().trim() + "\">");
+		hasText = false;
+	}
+
+	@Override
+	public void startRun(Writer out, AttributeSet attributes) throws IOException {
+		closing.setLength(0);
+		StringBuilder style = new StringBuilder();
+		Object family = attributes.getAttribute(StyleConstants.FontFamily);
+		if (family != null) {
+			style.append("font-family: '").append(family.toString().replace("'", "")).append("'; ");
+		}
+		Object size = attributes.getAttribute(StyleConstants.FontSize);
+		if (size != null) {
+			style.append("font-size: ").append(size).append("pt; ");
+		}
+		Object foreground = attributes.getAttribute(StyleConstants.Foreground);
+		if (foreground instanceof Color) {
+			style.append("color: ").append(hex((Color) foreground)).append("; ");
+		}
+		Object background = attributes.getAttribute(StyleConstants.Background);
+		if (background instanceof Color) {
+			style.append("background-color: ").append(hex((Color) background)).append("; ");
+		}
+		if (style.length() > 0) {
+			out.write("<span style=\"" + style.toString().trim() + "\">");
+			closing.insert(0, "</span>");
+		}
+		open(out, StyleConstants.isBold(attributes), "b");
+		open(out, StyleConstants.isItalic(attributes), "i");
+		open(out, StyleConstants.isUnderline(attributes), "u");
+		open(out, StyleConstants.isStrikeThrough(attributes), "s");
+		open(out, StyleConstants.isSubscript(attributes), "sub");
+		open(out, StyleConstants.isSuperscript(attributes), "sup");
+	}
+
+	@Override
+	public void writeText(Writer out, char[] text, int offset, int length) throws IOException {
+		escape(out, text, offset, length);
+		hasText |= length > 0;
+	}
+
+	@Override
+	public void endRun(Writer out) throws IOException {
+		out.write(closing.toString());
+	}
+
+	@Override
+	public void endParagraph(Writer out) throws IOException {
+		// An empty paragraph would otherwise have no height.
+		out.write(hasText ? "</p>\n" : "<br></p>\n");
+	}
+
+	@Override
+	public void endDocument(Writer out) throws IOException {
+		out.write("</body>\n</html>\n");
+	}
+
+	/**
+	 * Writes the opening tag provided if the run has the formatting of the tag,
+	 * adding its closing tag to those of the run.
+	 *
+	 * @param out  the {@code Writer} the export is wrote to
+	 * @param has  whether the run has the formatting of the tag
+	 * @param name the name of the tag
+	 * @throws IOException if the export could not be wrote
+	 */
+	private void open(Writer out, boolean has, String name) throws IOException {
+		if (has) {
+			out.write("<" + name + ">");
+			closing.insert(0, "</" + name + ">");
+		}
+	}
+
+	/**
+	 * Writes text, replacing the characters that have a meaning in HTML with
+	 * their entities. The text between them is wrote in one piece.
+	 *
+	 * @param out    the {@code Writer} the export is wrote to
+	 * @param text   the array holding the text
+	 * @param offset the index of the first character of the text
+	 * @param length the number of characters of the text
+	 * @throws IOException if the export could not be wrote
+	 */
+	private static void escape(Writer out, char[] text, int offset, int length) throws IOException {
+		int start = offset;
+		for (int i = offset; i < offset + length; i++) {
+			String entity;
+			switch (text[i]) {
+			case '&':
+				entity = "&amp;";
+				break;
+			case '<':
+				entity = "&lt;";
+				break;
+			case '>':
+				entity = "&gt;";
+				break;
+			case '"':
+				entity = "&quot;";
+				break;
+			default:
+				continue;
+			}
+			out.write(text, start, i - start);
+			out.write(entity);
+			start = i + 1;
+		}
+		out.write(text, start, offset + length - start);
+	}
+
+	/**
+	 * Adds a length in points to a style, if it is not zero.
+	 *
+	 * @param style    the style being built
+	 * @param property the name of the property
+	 * @param points   the length in points
+	 */
+	private static void appendLength(StringBuilder style, String property, float points) {
+		if (points != 0) {
+			style.append(property).append(": ").append(points).append("pt; ");
+		}
+	}
+
+	/**
+	 * Returns a colour as a hexadecimal colour of CSS.
+	 *
+	 * @param color the {@code Color}
+	 * @return the colour in the form {@code #rrggbb}
+	 */
+	private static String hex(Color color) {
+		return String.format("#%02x%02x%02x", color.getRed(), color.getGreen(), color.getBlue());
+	}
+}
@@ -0,0 +1,403 @@
+package file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Provides read-only access to the lines of a text file that may be too large
+ * to be held on the heap, by mapping the file into memory with
+ * {@code FileChannel.map} rather than reading it into a byte array.
+ *
+ * The file is mapped in regions of {@code REGION_SIZE} bytes as each region is
+ * first needed. The starting offset of every {@code LINES_PER_CHECKPOINT}th
+ * line is recorded as the file is scanned, so the index stays small however
+ * many lines the file has, and any line can be found by scanning forward from
+ * the nearest checkpoint. The index is built lazily, only as far as the lines
+ * asked for, or a step at a time in the background through {@code indexStep}.
+ *
+ * Only the lines asked for are ever decoded, which allows a file of several
+ * gigabytes to be viewed and searched with a small heap.
+ *
+ * @author Aiden Parker
+ * @see FileManipulation#getMappedFile(Path)
+ */
+public class MappedTextFile implements Closeable {
+	/** The number of bits of an offset that address a byte within a region. */
+	private static final int REGION_SHIFT = 28;
+	/** The number of bytes of the file mapped per region. */
+	private static final long REGION_SIZE = 1L << REGION_SHIFT;
+	/** The number of lines between each recorded line offset. */
+	private static final int LINES_PER_CHECKPOINT = 1024;
+	/** The number of bytes scanned by a single call to {@code indexStep}. */
+	private static final long INDEX_STEP_SIZE = 16L * 1024 * 1024;
+	/** The most bytes decoded by a single call to {@code readLines}. */
+	private static final int MAX_READ_SIZE = 4 * 1024 * 1024;
+
+	/** The channel the file is mapped through. */
+	private final FileChannel channel;
+	/** The size of the file in bytes. */
+	private final long size;
+	/** Holds each region of the file that has been mapped so far. */
+	private final MappedByteBuffer[] regions;
+
+	/** Holds the offset of every {@code LINES_PER_CHECKPOINT}th line. */
+	private long[] checkpoints = new long[1024];
+	/** The number of lines whose starting offset is known. */
+	private long indexedLines = 1;
+	/** The offset the index has been built up to. */
+	private long indexedTo = 0;
+
+	/**
+	 * Class constructor that opens the file at the path provided for reading. No
+	 * part of the file is mapped or indexed until it is needed.
+	 *
+	 * @param path the {@code Path} value of the file to be viewed
+	 * @throws IOException if the file could not be opened
+	 */
+	public MappedTextFile(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		this.size = channel.size();
+		this.regions = new MappedByteBuffer[(int) ((size + REGION_SIZE - 1) >>> REGION_SHIFT)];
+		this.checkpoints[0] = 0;
+	}
+
+	/**
+	 * Returns the size of the file in bytes.
+	 *
+	 * @return the number of bytes in the file
+	 */
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the number of lines whose starting offset has been found so far.
+	 * Once {@code isIndexComplete} returns true this is the number of lines in the
+	 * file.
+	 *
+	 * @return the number of lines indexed
+	 */
+	public synchronized long getLineCount() {
+		return indexedLines;
+	}
+
+	/**
+	 * Returns whether the whole file has been scanned for lines.
+	 *
+	 * @return true if every line of the file has been indexed
+	 */
+	public synchronized boolean isIndexComplete() {
+		return indexedTo >= size;
+	}
+
+	/**
+	 * Returns the proportion of the file that has been scanned for lines.
+	 *
+	 * @return a value between 0 and 1
+	 */
+	public synchronized double getIndexProgress() {
+		return size == 0 ? 1 : (double) indexedTo / size;
+	}
+
+	/**
+	 * Scans the next part of the file for lines. Intended to be called repeatedly
+	 * from a background thread until the index is complete, the lock is released
+	 * between each step so lines can be read in the meantime.
+	 *
+	 * @return true if there is more of the file to be indexed
+	 */
+	public synchronized boolean indexStep() {
+		indexUntil(Math.min(size, indexedTo + INDEX_STEP_SIZE), Long.MAX_VALUE);
+		return indexedTo < size;
+	}
+
+	/**
+	 * Returns the offset in bytes that the line provided starts at, indexing the
+	 * file as far as is needed to find it.
+	 *
+	 * @param line the zero based number of the line
+	 * @return the offset of the line, or -1 if the file has fewer lines
+	 */
+	public synchronized long getLineOffset(long line) {
+		if (line < 0) {
+			return -1;
+		}
+		if (line >= indexedLines) {
+			indexUntil(size, line + 1);
+			if (line >= indexedLines) {
+				return -1;
+			}
+		}
+		long checkpoint = line / LINES_PER_CHECKPOINT;
+		long offset = checkpoints[(int) checkpoint];
+		for (long remaining = line - checkpoint * LINES_PER_CHECKPOINT; remaining > 0; remaining--) {
+			offset = nextLineOffset(offset);
+		}
+		return offset;
+	}
+
+	/**
+	 * Returns the number of the line the offset provided falls on. The end of
+	 * the file falls on the last line.
+	 *
+	 * @param offset the offset in bytes within the file
+	 * @return the zero based number of the line
+	 */
+	public synchronized long getLineOfOffset(long offset) {
+		offset = Math.max(0, Math.min(offset, size));
+		if (offset >= indexedTo) {
+			indexUntil(Math.min(size, offset + 1), Long.MAX_VALUE);
+		}
+		int checkpointCount = (int) ((indexedLines + LINES_PER_CHECKPOINT - 1) / LINES_PER_CHECKPOINT);
+		int checkpoint = Arrays.binarySearch(checkpoints, 0, checkpointCount, offset);
+		if (checkpoint < 0) {
+			checkpoint = -checkpoint - 2;
+		}
+		long line = (long) checkpoint * LINES_PER_CHECKPOINT;
+		long start = checkpoints[checkpoint];
+		while (true) {
+			long next = nextLineOffset(start);
+			if (next > offset || next >= size) {
+				return line;
+			}
+			start = next;
+			line++;
+		}
+	}
+
+	/**
+	 * Reads and decodes a number of lines from the file. A line ending with a
+	 * carriage return before the new line has it removed. At most
+	 * {@code MAX_READ_SIZE} bytes are decoded, so a file with extremely long lines
+	 * may have fewer lines returned than asked for.
+	 *
+	 * @param firstLine the zero based number of the first line to read
+	 * @param count     the number of lines to read
+	 * @return the text of the lines, or an empty string if the file has fewer
+	 *         lines
+	 */
+	public synchronized String readLines(long firstLine, int count) {
+		long start = getLineOffset(firstLine);
+		if (start < 0) {
+			return "";
+		}
+		long end = start;
+		for (int i = 0; i < count && end < size && end - start < MAX_READ_SIZE; i++) {
+			end = nextLineOffset(end);
+		}
+		return readRange(start, Math.min(end, start + MAX_READ_SIZE));
+	}
+
+	/**
+	 * Reads and decodes the bytes of the file between the two offsets provided.
+	 * Carriage returns before a new line are removed.
+	 *
+	 * @param start the offset of the first byte to read
+	 * @param end   the offset after the last byte to read
+	 * @return the text of the range
+	 */
+	public synchronized String readRange(long start, long end) {
+		start = Math.max(0, start);
+		end = Math.min(size, Math.min(end, start + MAX_READ_SIZE));
+		if (end <= start) {
+			return "";
+		}
+		byte[] bytes = new byte[(int) (end - start)];
+		read(start, bytes);
+
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		try {
+			return decoder.decode(ByteBuffer.wrap(bytes)).toString().replace("\r\n", "\n");
+		} catch (CharacterCodingException e) {
+			return "";
+		}
+	}
+
+	/**
+	 * Searches the file for the next occurrence of a sequence of bytes, starting
+	 * at the offset provided.
+	 *
+	 * @param pattern the bytes to be searched for
+	 * @param from    the offset to start searching from
+	 * @return the offset of the first byte of the match, or -1 if there is none
+	 */
+	public long find(byte[] pattern, long from) {
+		if (pattern.length == 0) {
+			return -1;
+		}
+		byte first = pattern[0];
+		long last = size - pattern.length;
+		long offset = Math.max(0, from);
+		while (offset <= last) {
+			ByteBuffer region = region(offset);
+			long regionStart = offset - (offset & (REGION_SIZE - 1));
+			int index = (int) (offset - regionStart);
+			int limit = (int) Math.min(region.limit(), last - regionStart + 1);
+			while (index < limit) {
+				// Only compare the rest of the pattern when the first byte matches.
+				if (region.get(index) == first && matches(pattern, regionStart + index)) {
+					return regionStart + index;
+				}
+				index++;
+			}
+			offset = regionStart + index;
+		}
+		return -1;
+	}
+
+	/**
+	 * Closes the channel the file is mapped through. Mapped regions are released
+	 * once they are no longer reachable.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Determines whether the bytes of the file at the offset provided match the
+	 * pattern.
+	 *
+	 * @param pattern the bytes to be compared
+	 * @param offset  the offset within the file to compare from
+	 * @return true if the bytes match
+	 */
+	private boolean matches(byte[] pattern, long offset) {
+		for (int i = 1; i < pattern.length; i++) {
+			if (byteAt(offset + i) != pattern[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Scans the file for line starts from where the index was last built up to,
+	 * stopping at the offset provided or once the number of lines provided is
+	 * known, whichever is first.
+	 *
+	 * @param limit the offset to scan up to
+	 * @param lines the number of lines needed
+	 */
+	private void indexUntil(long limit, long lines) {
+		while (indexedTo < limit && indexedLines < lines) {
+			ByteBuffer region = region(indexedTo);
+			int index = (int) (indexedTo & (REGION_SIZE - 1));
+			int end = (int) Math.min(region.limit(), limit - (indexedTo - index));
+			while (index < end && indexedLines < lines) {
+				if (region.get(index++) == '\n') {
+					long lineStart = indexedTo - (indexedTo & (REGION_SIZE - 1)) + index;
+					if (lineStart < size) {
+						addLine(lineStart);
+					}
+				}
+			}
+			indexedTo = indexedTo - (indexedTo & (REGION_SIZE - 1)) + index;
+		}
+	}
+
+	/**
+	 * Counts a newly found line, recording its offset if it falls on a
+	 * checkpoint.
+	 *
+	 * @param offset the offset the line starts at
+	 */
+	private void addLine(long offset) {
+		if (indexedLines % LINES_PER_CHECKPOINT == 0) {
+			int checkpoint = (int) (indexedLines / LINES_PER_CHECKPOINT);
+			if (checkpoint == checkpoints.length) {
+				checkpoints = Arrays.copyOf(checkpoints, checkpoints.length * 2);
+			}
+			checkpoints[checkpoint] = offset;
+		}
+		indexedLines++;
+	}
+
+	/**
+	 * Returns the offset of the start of the line following the one at the offset
+	 * provided, or the size of the file if it is the last line.
+	 *
+	 * @param offset the offset of the start of a line
+	 * @return the offset of the start of the next line
+	 */
+	private long nextLineOffset(long offset) {
+		while (offset < size) {
+			ByteBuffer region = region(offset);
+			int index = (int) (offset & (REGION_SIZE - 1));
+			int end = region.limit();
+			while (index < end) {
+				if (region.get(index++) == '\n') {
+					return offset - (offset & (REGION_SIZE - 1)) + index;
+				}
+			}
+			offset = offset - (offset & (REGION_SIZE - 1)) + index;
+		}
+		return size;
+	}
+
+	/**
+	 * Copies bytes of the file from the offset provided into an array, which may
+	 * span more than one region.
+	 *
+	 * @param offset the offset within the file to copy from
+	 * @param dst    the array to be filled
+	 */
+	private void read(long offset, byte[] dst) {
+		int copied = 0;
+		while (copied < dst.length) {
+			ByteBuffer region = region(offset + copied);
+			int index = (int) ((offset + copied) & (REGION_SIZE - 1));
+			int length = Math.min(dst.length - copied, region.limit() - index);
+			region.get(index, dst, copied, length);
+			copied += length;
+		}
+	}
+
+	/**
+	 * Returns the byte of the file at the offset provided.
+	 *
+	 * @param offset the offset within the file
+	 * @return the byte at the offset
+	 */
+	private byte byteAt(long offset) {
+		return region(offset).get((int) (offset & (REGION_SIZE - 1)));
+	}
+
+	/**
+	 * Returns the mapped region of the file containing the offset provided,
+	 * mapping it if it has not yet been mapped.
+	 *
+	 * @param offset the offset within the file
+	 * @return the {@code ByteBuffer} of the region
+	 */
+	private ByteBuffer region(long offset) {
+		int index = (int) (offset >>> REGION_SHIFT);
+		MappedByteBuffer region = regions[index];
+		if (region == null) {
+			long start = (long) index << REGION_SHIFT;
+			try {
+				region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+			} catch (IOException e) {
+				throw new IllegalStateException("Unable to map the file.", e);
+			}
+			synchronized (regions) {
+				if (regions[index] == null) {
+					regions[index] = region;
+				}
+				region = regions[index];
+			}
+		}
+		return region;
+	}
+}
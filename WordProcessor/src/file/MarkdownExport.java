@@ -0,0 +1,173 @@
+package file;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Exports a document as Markdown. Bold, italic and struck text are wrapped in
+ * the marks of Markdown, and underlined, subscript and superscript text in the
+ * HTML tags Markdown allows, as Markdown has no marks of its own for these.
+ *
+ * The text is wrote as it is, so any Markdown typed into the document, as shown
+ * by Markdown Styling, is kept rather than escaped. Each paragraph is wrote as a
+ * line, ending in a hard line break when followed by another line of text so
+ * the lines are not joined when shown.
+ *
+ * Marks only go around text that is not white space, as Markdown does not
+ * treat {@code ** bold **} as bold. The marks of neighbouring runs are shared
+ * where they can be, so two bold runs of different colours are wrote as one
+ * bold span.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ExportFormat
+ */
+public class MarkdownExport implements ExportFormat {
+	/** The mark of each kind of formatting, in the order they are opened. */
+	private static final String[] OPENING = { "**", "_", "~~", "<u>", "<sub>", "<sup>" };
+	/** The mark closing each kind of formatting. */
+	private static final String[] CLOSING = { "**", "_", "~~", "</u>", "</sub>", "</sup>" };
+
+	/** The formatting of the run being wrote, as indexes of the marks. */
+	private final List<Integer> wanted = new ArrayList<>();
+	/** The marks currently open, in the order they were opened. */
+	private final List<Integer> open = new ArrayList<>();
+	/** White space wrote after the last text, held until the marks are settled. */
+	private final StringBuilder space = new StringBuilder();
+	/** Whether a paragraph has been started. */
+	private boolean started = false;
+	/** Whether the line before the paragraph being wrote is yet to be ended. */
+	private boolean lineOpen = false;
+	/** Whether the last paragraph had any text. */
+	private boolean lastHadText = false;
+	/** Whether the paragraph being wrote has any text. */
+	private boolean hasText = false;
+
+	@Override
+	public void startDocument(Writer out, StyledDocument document) throws IOException {
+		// Markdown has nothing before the text.
+	}
+
+	@Override
+	public void startParagraph(Writer out, AttributeSet attributes) throws IOException {
+		lineOpen = started;
+		started = true;
+		hasText = false;
+	}
+
+	@Override
+	public void startRun(Writer out, AttributeSet attributes) throws IOException {
+		wanted.clear();
+		boolean[] has = { StyleConstants.isBold(attributes), StyleConstants.isItalic(attributes),
+				StyleConstants.isStrikeThrough(attributes), StyleConstants.isUnderline(attributes),
+				StyleConstants.isSubscript(attributes), StyleConstants.isSuperscript(attributes) };
+		for (int i = 0; i < has.length; i++) {
+			if (has[i]) {
+				wanted.add(i);
+			}
+		}
+	}
+
+	@Override
+	public void writeText(Writer out, char[] text, int offset, int length) throws IOException {
+		if (length > 0 && !hasText) {
+			endLine(out, lastHadText);
+			hasText = true;
+		}
+		int start = offset;
+		for (int i = offset; i < offset + length; i++) {
+			if (Character.isWhitespace(text[i])) {
+				if (!open.isEmpty()) {
+					// The marks may need closing before this space, once the next text is known.
+					out.write(text, start, i - start);
+					space.append(text[i]);
+					start = i + 1;
+				}
+			} else if (space.length() > 0 || !open.equals(wanted)) {
+				out.write(text, start, i - start);
+				settle(out);
+				start = i;
+			}
+		}
+		out.write(text, start, offset + length - start);
+	}
+
+	@Override
+	public void endRun(Writer out) throws IOException {
+		// The marks are closed when the next text shows whether they continue.
+	}
+
+	@Override
+	public void endParagraph(Writer out) throws IOException {
+		wanted.clear();
+		closeTo(out, 0);
+		out.write(space.toString());
+		space.setLength(0);
+		if (!hasText) {
+			endLine(out, false);
+		}
+		lastHadText = hasText;
+	}
+
+	@Override
+	public void endDocument(Writer out) throws IOException {
+		if (started) {
+			out.write('\n');
+		}
+	}
+
+	/**
+	 * Ends the line of the last paragraph, if it has not already been ended.
+	 *
+	 * @param out       the {@code Writer} the export is wrote to
+	 * @param hardBreak whether to end the line with a hard line break, used when
+	 *                  both it and the paragraph being wrote have text
+	 * @throws IOException if the export could not be wrote
+	 */
+	private void endLine(Writer out, boolean hardBreak) throws IOException {
+		if (lineOpen) {
+			out.write(hardBreak ? "  \n" : "\n");
+			lineOpen = false;
+		}
+	}
+
+	/**
+	 * Closes the marks the next text does not have, writes the white space held
+	 * back, then opens the marks the next text has that are not open.
+	 *
+	 * @param out the {@code Writer} the export is wrote to
+	 * @throws IOException if the export could not be wrote
+	 */
+	private void settle(Writer out) throws IOException {
+		int shared = 0;
+		while (shared < open.size() && shared < wanted.size() && open.get(shared).equals(wanted.get(shared))) {
+			shared++;
+		}
+		closeTo(out, shared);
+		out.write(space.toString());
+		space.setLength(0);
+		for (int i = shared; i < wanted.size(); i++) {
+			out.write(OPENING[wanted.get(i)]);
+			open.add(wanted.get(i));
+		}
+	}
+
+	/**
+	 * Closes the marks opened last until only the number provided are open.
+	 *
+	 * @param out  the {@code Writer} the export is wrote to
+	 * @param keep the number of marks to leave open
+	 * @throws IOException if the export could not be wrote
+	 */
+	private void closeTo(Writer out, int keep) throws IOException {
+		while (open.size() > keep) {
+			out.write(CLOSING[open.remove(open.size() - 1)]);
+		}
+	}
+}
@@ -1,5 +1,7 @@
 package file;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * This class handles the creating of a template specified. Instantiating this
  * class requires a {@code Temaplate} value to be passed into the constructor to
@@ -35,16 +37,24 @@ public class PopulatedTemplates {
 	 * @return {@code byte[]} data of the template chosen
 	 */
 	public byte[] createTemplate() {
+		String text = getText();
+		return text == null ? null : text.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Returns the text of the template chosen without encoding it, used by the
+	 * {@code TemplateRegistry} to cache the template once.
+	 * 
+	 * @return {@code String} text of the template chosen
+	 */
+	public String getText() {
 		switch (template) {
 		case DEAR:
-			String dearTemplate = "Dear Sir/Madam\n\n";
-			return dearTemplate.getBytes();
+			return "Dear Sir/Madam\n\n";
 		case KIND_REGARDS:
-			String regardsTemplate = "\n\nKind Regards,\n";
-			return regardsTemplate.getBytes();
+			return "\n\nKind Regards,\n";
 		case MANY_THANKS:
-			String thanksTemplate = "\n\nMany thanks,\n";
-			return thanksTemplate.getBytes();
+			return "\n\nMany thanks,\n";
 		}
 		return null;
 	}
@@ -0,0 +1,178 @@
+package file;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Holds the files most recently opened or saved, most recent first, so they
+ * can be opened again without going through the system explorer.
+ *
+ * The list is kept in a file of one path per line, which is read and wrote on
+ * a background thread so a slow home directory never holds up the window. The
+ * list in memory is updated straight away and can be read from any thread.
+ *
+ * @author Aiden Parker
+ * @version 1
+ */
+public class RecentFiles {
+	/** The most files held in the list. */
+	public static final int MAX_FILES = 10;
+
+	/** The file the list is kept in. */
+	private final Path store;
+	/** The files, most recent first. */
+	private volatile List<Path> files = Collections.emptyList();
+	/** Called each time the list changes. */
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	/** Reads and writes the file the list is kept in. */
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+		Thread thread = new Thread(r, "Recent Files Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Class constructor that keeps the list in the {@code recent.txt} file of
+	 * the {@code .textual} folder in the home directory of the user.
+	 */
+	public RecentFiles() {
+		this(Paths.get(System.getProperty("user.home"), ".textual", "recent.txt"));
+	}
+
+	/**
+	 * Class constructor that keeps the list in the file provided. The list is
+	 * empty until it is loaded.
+	 *
+	 * @param store the {@code Path} value of the file the list is kept in
+	 */
+	public RecentFiles(Path store) {
+		this.store = store;
+	}
+
+	/**
+	 * Returns the files, most recent first.
+	 *
+	 * @return an unmodifiable {@code List} of the files
+	 */
+	public List<Path> getFiles() {
+		return files;
+	}
+
+	/**
+	 * Adds a listener that is called, on the thread that changed the list or the
+	 * thread that loaded it, each time the list changes.
+	 *
+	 * @param listener the {@code Runnable} to be called
+	 */
+	public void addChangeListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Reads the list from its file on the background thread, replacing the list
+	 * held. Files added before the list is read are kept at the top.
+	 */
+	public void load() {
+		executor.execute(() -> {
+			List<Path> loaded = new ArrayList<>();
+			try {
+				for (String line : Files.readAllLines(store, StandardCharsets.UTF_8)) {
+					try {
+						if (!line.isEmpty()) {
+							loaded.add(Paths.get(line));
+						}
+					} catch (InvalidPathException e) {
+						System.out.println("Error reading recent file: " + line);
+					}
+				}
+			} catch (NoSuchFileException e) {
+				// No file has been opened yet.
+			} catch (IOException e) {
+				System.out.println("Error reading recent files.");
+			}
+			synchronized (this) {
+				List<Path> merged = new ArrayList<>(files);
+				for (Path file : loaded) {
+					if (!merged.contains(file)) {
+						merged.add(file);
+					}
+				}
+				publish(merged);
+			}
+		});
+	}
+
+	/**
+	 * Moves a file to the top of the list, adding it if it is not already in the
+	 * list, and removes the least recent files beyond {@code MAX_FILES}.
+	 *
+	 * @param file the {@code Path} value of the file opened or saved
+	 */
+	public synchronized void add(Path file) {
+		Path absolute = file.toAbsolutePath().normalize();
+		List<Path> updated = new ArrayList<>(files);
+		updated.remove(absolute);
+		updated.add(0, absolute);
+		publish(updated);
+		save();
+	}
+
+	/**
+	 * Removes a file from the list, such as one that no longer exists.
+	 *
+	 * @param file the {@code Path} value of the file to be removed
+	 */
+	public synchronized void remove(Path file) {
+		List<Path> updated = new ArrayList<>(files);
+		if (updated.remove(file.toAbsolutePath().normalize())) {
+			publish(updated);
+			save();
+		}
+	}
+
+	/**
+	 * Replaces the list with that provided, cut down to {@code MAX_FILES}, and
+	 * informs the listeners.
+	 *
+	 * @param updated the new list
+	 */
+	private void publish(List<Path> updated) {
+		while (updated.size() > MAX_FILES) {
+			updated.remove(updated.size() - 1);
+		}
+		files = Collections.unmodifiableList(updated);
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * Writes the list to its file on the background thread.
+	 */
+	private void save() {
+		List<Path> saved = files;
+		executor.execute(() -> {
+			List<String> lines = new ArrayList<>();
+			for (Path file : saved) {
+				lines.add(file.toString());
+			}
+			try {
+				Files.createDirectories(store.getParent());
+				Files.write(store, lines, StandardCharsets.UTF_8);
+			} catch (IOException e) {
+				System.out.println("Error saving recent files.");
+			}
+		});
+	}
+}
@@ -0,0 +1,513 @@
+package file;
+
+import java.awt.Color;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * A Textual document, the native file format of the program, which keeps the
+ * formatting of the text that is lost when saving as a text file.
+ *
+ * The file starts with a small header holding the number of characters, of
+ * paragraphs, of styles and of runs. The header is followed by the paragraph
+ * index, the length and style of each paragraph, then the table of styles and
+ * the runs of the text, each run being the length and style of a span of
+ * characters formatted the same way. Neighbouring spans of the same style are
+ * joined into a single run, so plain text takes a single run however long it
+ * is. The text itself comes last as a single block of UTF-8, the line ending of
+ * each paragraph being a new line.
+ *
+ * Only the attributes of {@code StyleConstants} the program can show are kept,
+ * any other attribute of the document is not saved. As every table comes before
+ * the text and is of a known length, the whole file is read with a single
+ * sequential read and decoded without searching through the text.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManipulation#writeRichDocumentFile(Path, StyledDocument, UnaryOperator)
+ */
+public class RichTextFile {
+	/** The file extension of a Textual document. */
+	public static final String EXTENSION = "tdoc";
+	/** Marks the start of a Textual document, the bytes "TXDC". */
+	private static final int MAGIC = 0x54584443;
+	/** The version of the file format. */
+	private static final int VERSION = 1;
+	/** The number of bytes of the header. */
+	private static final int HEADER_SIZE = 24;
+
+	/** The attributes that are saved, each found by its index in the file. */
+	private static final Object[] KEYS = { StyleConstants.Bold, StyleConstants.Italic, StyleConstants.Underline,
+			StyleConstants.StrikeThrough, StyleConstants.Subscript, StyleConstants.Superscript,
+			StyleConstants.FontFamily, StyleConstants.FontSize, StyleConstants.Foreground, StyleConstants.Background,
+			StyleConstants.Alignment, StyleConstants.FirstLineIndent, StyleConstants.LeftIndent,
+			StyleConstants.RightIndent, StyleConstants.LineSpacing, StyleConstants.SpaceAbove,
+			StyleConstants.SpaceBelow };
+	/** The type of value of each attribute that is saved. */
+	private static final Class<?>[] TYPES = { Boolean.class, Boolean.class, Boolean.class, Boolean.class,
+			Boolean.class, Boolean.class, String.class, Integer.class, Color.class, Color.class, Integer.class,
+			Float.class, Float.class, Float.class, Float.class, Float.class, Float.class };
+
+	/** The text of the document. */
+	private final char[] text;
+	/** The number of characters of the text. */
+	private final int length;
+	/** The styles of the document, found by their index. */
+	private final AttributeSet[] styles;
+	/** The length and style index of each paragraph. */
+	private final int[] paragraphs;
+	/** The length and style index of each run. */
+	private final int[] runs;
+
+	/**
+	 * Class constructor that reads the Textual document at the path provided with
+	 * a single sequential read of the file. An empty file, i.e one created by the
+	 * New menu item, is read as an empty document.
+	 *
+	 * @param path the {@code Path} value of the document
+	 * @throws IOException if the file could not be read or is not a Textual
+	 *                     document
+	 */
+	public RichTextFile(Path path) throws IOException {
+		ByteBuffer buffer;
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			if (channel.size() > Integer.MAX_VALUE) {
+				throw new IOException("Document too large: " + path);
+			}
+			buffer = ByteBuffer.allocate((int) channel.size());
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+				// Read until the buffer is full.
+			}
+			buffer.flip();
+		}
+		if (buffer.limit() == 0) {
+			this.text = new char[0];
+			this.length = 0;
+			this.styles = new AttributeSet[] { SimpleAttributeSet.EMPTY };
+			this.paragraphs = new int[2];
+			this.runs = new int[0];
+			return;
+		}
+		if (buffer.limit() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+			throw new IOException("Not a Textual document: " + path);
+		}
+		if (buffer.getInt() != VERSION) {
+			throw new IOException("Unsupported Textual document version: " + path);
+		}
+		try {
+			this.length = buffer.getInt();
+			int paragraphCount = buffer.getInt();
+			int styleCount = buffer.getInt();
+			int runCount = buffer.getInt();
+			if (length < 0 || paragraphCount < 1 || styleCount < 1 || runCount < 0) {
+				throw new IOException("Corrupt Textual document: " + path);
+			}
+			this.paragraphs = readSpans(buffer, paragraphCount, styleCount, path);
+			this.styles = new AttributeSet[styleCount];
+			for (int i = 0; i < styleCount; i++) {
+				styles[i] = readStyle(buffer, path);
+			}
+			this.runs = readSpans(buffer, runCount, styleCount, path);
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw new IOException("Truncated Textual document: " + path);
+		}
+		if (sum(paragraphs) != length || sum(runs) != length) {
+			throw new IOException("Corrupt Textual document: " + path);
+		}
+		CharBuffer chars = StandardCharsets.UTF_8.newDecoder().decode(buffer);
+		if (chars.remaining() != length) {
+			throw new IOException("Corrupt Textual document: " + path);
+		}
+		this.text = chars.arrayOffset() == 0 ? chars.array() : Arrays.copyOfRange(chars.array(),
+				chars.arrayOffset(), chars.arrayOffset() + length);
+		if (!matchesNewLines(text, paragraphs)) {
+			throw new IOException("Corrupt Textual document: " + path);
+		}
+	}
+
+	/**
+	 * Determines whether the paragraph index matches the new lines of the text,
+	 * every paragraph but the last ending with the only new line it holds.
+	 *
+	 * @param text       the text of the document
+	 * @param paragraphs the length and style index of each paragraph
+	 * @return true if each paragraph ends at a new line
+	 */
+	private static boolean matchesNewLines(char[] text, int[] paragraphs) {
+		int offset = 0;
+		for (int i = 0; i < paragraphs.length; i += 2) {
+			int end = offset + paragraphs[i];
+			boolean last = i == paragraphs.length - 2;
+			if (!last && (end == offset || text[end - 1] != '\n')) {
+				return false;
+			}
+			for (int j = offset, newLine = last ? end : end - 1; j < newLine; j++) {
+				if (text[j] == '\n') {
+					return false;
+				}
+			}
+			offset = end;
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a table of spans, each being a length and the index of a style.
+	 *
+	 * @param buffer     the buffer the table is read from
+	 * @param count      the number of spans in the table
+	 * @param styleCount the number of styles of the document
+	 * @param path       the path of the document, used to report a corrupt file
+	 * @return the length and style index of each span
+	 * @throws IOException if a span has a negative length or unknown style
+	 */
+	private static int[] readSpans(ByteBuffer buffer, int count, int styleCount, Path path) throws IOException {
+		if (count > buffer.remaining() / (2 * Integer.BYTES)) {
+			throw new IOException("Truncated Textual document: " + path);
+		}
+		int[] spans = new int[count * 2];
+		buffer.asIntBuffer().get(spans);
+		buffer.position(buffer.position() + spans.length * Integer.BYTES);
+		for (int i = 0; i < spans.length; i += 2) {
+			if (spans[i] < 0 || spans[i + 1] < 0 || spans[i + 1] >= styleCount) {
+				throw new IOException("Corrupt Textual document: " + path);
+			}
+		}
+		return spans;
+	}
+
+	/**
+	 * Reads a single style of the table of styles.
+	 *
+	 * @param buffer the buffer the style is read from
+	 * @param path   the path of the document, used to report a corrupt file
+	 * @return the attributes of the style
+	 * @throws IOException if the style holds an unknown attribute
+	 */
+	private static AttributeSet readStyle(ByteBuffer buffer, Path path) throws IOException {
+		SimpleAttributeSet style = new SimpleAttributeSet();
+		int count = buffer.get() & 0xFF;
+		for (int i = 0; i < count; i++) {
+			int key = buffer.get() & 0xFF;
+			if (key >= KEYS.length) {
+				throw new IOException("Corrupt Textual document: " + path);
+			}
+			Object value;
+			if (TYPES[key] == Boolean.class) {
+				value = buffer.get() != 0;
+			} else if (TYPES[key] == Integer.class) {
+				value = buffer.getInt();
+			} else if (TYPES[key] == Float.class) {
+				value = buffer.getFloat();
+			} else if (TYPES[key] == Color.class) {
+				value = new Color(buffer.getInt(), true);
+			} else {
+				byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+				buffer.get(bytes);
+				value = new String(bytes, StandardCharsets.UTF_8);
+			}
+			style.addAttribute(KEYS[key], value);
+		}
+		return style;
+	}
+
+	/**
+	 * Adds up the lengths of a table of spans.
+	 *
+	 * @param spans the length and style index of each span
+	 * @return the total length of the spans
+	 */
+	private static long sum(int[] spans) {
+		long total = 0;
+		for (int i = 0; i < spans.length; i += 2) {
+			total += spans[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Returns the text of the document. The array is not copied, so must not be
+	 * changed.
+	 *
+	 * @return the characters of the text, of which the first {@code getLength}
+	 *         are used
+	 */
+	public char[] getText() {
+		return text;
+	}
+
+	/**
+	 * Returns the number of characters of the text.
+	 *
+	 * @return the length of the text
+	 */
+	public int getLength() {
+		return length;
+	}
+
+	/**
+	 * Returns the number of paragraphs of the document, which is always at least
+	 * one.
+	 *
+	 * @return the number of paragraphs
+	 */
+	public int getParagraphCount() {
+		return paragraphs.length / 2;
+	}
+
+	/**
+	 * Returns the number of characters of a paragraph, including its new line.
+	 * The last paragraph has no new line.
+	 *
+	 * @param index the index of the paragraph
+	 * @return the length of the paragraph
+	 */
+	public int getParagraphLength(int index) {
+		return paragraphs[index * 2];
+	}
+
+	/**
+	 * Returns the paragraph attributes of a paragraph, i.e its alignment.
+	 *
+	 * @param index the index of the paragraph
+	 * @return the attributes of the paragraph
+	 */
+	public AttributeSet getParagraphAttributes(int index) {
+		return styles[paragraphs[index * 2 + 1]];
+	}
+
+	/**
+	 * Returns the number of runs the text is split into.
+	 *
+	 * @return the number of runs
+	 */
+	public int getRunCount() {
+		return runs.length / 2;
+	}
+
+	/**
+	 * Returns the number of characters of a run.
+	 *
+	 * @param index the index of the run
+	 * @return the length of the run
+	 */
+	public int getRunLength(int index) {
+		return runs[index * 2];
+	}
+
+	/**
+	 * Returns the character attributes of a run, i.e whether it is bold.
+	 *
+	 * @param index the index of the run
+	 * @return the attributes of the run
+	 */
+	public AttributeSet getRunAttributes(int index) {
+		return styles[runs[index * 2 + 1]];
+	}
+
+	/**
+	 * Determines whether a file is a Textual document from its extension.
+	 *
+	 * @param path the {@code Path} value of the file
+	 * @return true if the file has the extension of a Textual document
+	 */
+	public static boolean isRichTextFile(Path path) {
+		String name = path.getFileName().toString();
+		return name.regionMatches(true, name.length() - EXTENSION.length() - 1, "." + EXTENSION, 0,
+				EXTENSION.length() + 1);
+	}
+
+	/**
+	 * Builds the header and tables of a Textual document for the document
+	 * provided, which is everything but the text. The text is then to be wrote
+	 * after them as UTF-8, with nothing done to its new lines.
+	 *
+	 * The document must be read locked by the caller, so the tables match the
+	 * text that is wrote after them.
+	 *
+	 * @param document the {@code StyledDocument} being saved
+	 * @param saved    returns the attributes of an element that are to be saved,
+	 *                 i.e leaving out attributes that are not set by the user
+	 * @return the buffer holding the header and tables, ready to be wrote
+	 * @throws IOException if the tables could not be built
+	 */
+	public static ByteBuffer formatting(StyledDocument document, UnaryOperator<AttributeSet> saved)
+			throws IOException {
+		Tables tables = new Tables(document.getLength(), saved);
+		Element root = document.getDefaultRootElement();
+		for (int i = 0; i < root.getElementCount(); i++) {
+			Element paragraph = root.getElement(i);
+			tables.addParagraph(paragraph);
+			tables.addRuns(paragraph);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_SIZE + tables.styleTable.size()
+				+ (tables.paragraphCount + tables.runCount) * 2 * Integer.BYTES);
+		DataOutputStream output = new DataOutputStream(bytes);
+		output.writeInt(MAGIC);
+		output.writeInt(VERSION);
+		output.writeInt(tables.length);
+		output.writeInt(tables.paragraphCount);
+		output.writeInt(tables.styles.size());
+		output.writeInt(tables.runCount);
+		for (int i = 0; i < tables.paragraphCount * 2; i++) {
+			output.writeInt(tables.paragraphs[i]);
+		}
+		tables.styleTable.writeTo(output);
+		for (int i = 0; i < tables.runCount * 2; i++) {
+			output.writeInt(tables.runs[i]);
+		}
+		output.flush();
+		return ByteBuffer.wrap(bytes.toByteArray());
+	}
+
+	/**
+	 * The tables of a document being saved, built up a paragraph at a time.
+	 */
+	private static class Tables {
+		/** The number of characters of the document. */
+		private final int length;
+		/** Returns the attributes of an element that are saved. */
+		private final UnaryOperator<AttributeSet> saved;
+		/** The index of each style, found by its encoded attributes. */
+		private final Map<ByteBuffer, Integer> styles = new HashMap<>();
+		/** The encoded attributes of each style, in order of index. */
+		private final ByteArrayOutputStream styleTable = new ByteArrayOutputStream();
+		/** The length and style index of each paragraph. */
+		private int[] paragraphs = new int[64];
+		/** The number of paragraphs added. */
+		private int paragraphCount = 0;
+		/** The length and style index of each run. */
+		private int[] runs = new int[64];
+		/** The number of runs added. */
+		private int runCount = 0;
+
+		/**
+		 * Class constructor that starts the tables of a document.
+		 *
+		 * @param length the number of characters of the document
+		 * @param saved  returns the attributes of an element that are saved
+		 */
+		Tables(int length, UnaryOperator<AttributeSet> saved) {
+			this.length = length;
+			this.saved = saved;
+		}
+
+		/**
+		 * Adds a paragraph to the paragraph index. The implied new line at the end
+		 * of the document is left out of the last paragraph.
+		 *
+		 * @param paragraph the element of the paragraph
+		 * @throws IOException if the style of the paragraph could not be encoded
+		 */
+		void addParagraph(Element paragraph) throws IOException {
+			if (paragraphCount * 2 == paragraphs.length) {
+				paragraphs = Arrays.copyOf(paragraphs, paragraphs.length * 2);
+			}
+			int end = Math.min(paragraph.getEndOffset(), length);
+			paragraphs[paragraphCount * 2] = end - paragraph.getStartOffset();
+			paragraphs[paragraphCount * 2 + 1] = styleIndex(paragraph.getAttributes());
+			paragraphCount++;
+		}
+
+		/**
+		 * Adds the runs of each leaf within an element, joining a run onto the last
+		 * when both are of the same style.
+		 *
+		 * @param element the element whose leaves are added
+		 * @throws IOException if the style of a leaf could not be encoded
+		 */
+		void addRuns(Element element) throws IOException {
+			if (!element.isLeaf()) {
+				for (int i = 0; i < element.getElementCount(); i++) {
+					addRuns(element.getElement(i));
+				}
+				return;
+			}
+			int runLength = Math.min(element.getEndOffset(), length) - element.getStartOffset();
+			if (runLength <= 0) {
+				return;
+			}
+			int style = styleIndex(element.getAttributes());
+			if (runCount > 0 && runs[runCount * 2 - 1] == style) {
+				runs[runCount * 2 - 2] += runLength;
+				return;
+			}
+			if (runCount * 2 == runs.length) {
+				runs = Arrays.copyOf(runs, runs.length * 2);
+			}
+			runs[runCount * 2] = runLength;
+			runs[runCount * 2 + 1] = style;
+			runCount++;
+		}
+
+		/**
+		 * Returns the index of the style of the attributes provided, adding the
+		 * style to the table if it is new. Only the attributes defined by the
+		 * element itself are saved, not those it resolves through its parent.
+		 *
+		 * @param attributes the attributes of an element
+		 * @return the index of the style
+		 * @throws IOException if the style could not be encoded
+		 */
+		private int styleIndex(AttributeSet attributes) throws IOException {
+			attributes = saved.apply(attributes);
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream output = new DataOutputStream(bytes);
+			int count = 0;
+			for (Object key : KEYS) {
+				if (attributes.isDefined(key)) {
+					count++;
+				}
+			}
+			output.writeByte(count);
+			for (int i = 0; i < KEYS.length; i++) {
+				if (!attributes.isDefined(KEYS[i])) {
+					continue;
+				}
+				Object value = attributes.getAttribute(KEYS[i]);
+				output.writeByte(i);
+				if (TYPES[i] == Boolean.class) {
+					output.writeBoolean(Boolean.TRUE.equals(value));
+				} else if (TYPES[i] == Integer.class) {
+					output.writeInt(value instanceof Number ? ((Number) value).intValue() : 0);
+				} else if (TYPES[i] == Float.class) {
+					output.writeFloat(value instanceof Number ? ((Number) value).floatValue() : 0);
+				} else if (TYPES[i] == Color.class) {
+					output.writeInt(value instanceof Color ? ((Color) value).getRGB() : 0);
+				} else {
+					byte[] string = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+					int stringLength = Math.min(string.length, 0xFFFF);
+					output.writeShort(stringLength);
+					output.write(string, 0, stringLength);
+				}
+			}
+			ByteBuffer style = ByteBuffer.wrap(bytes.toByteArray());
+			Integer index = styles.get(style);
+			if (index == null) {
+				index = styles.size();
+				styles.put(style, index);
+				styleTable.write(style.array());
+			}
+			return index;
+		}
+	}
+}
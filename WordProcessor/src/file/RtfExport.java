@@ -0,0 +1,205 @@
+package file;
+
+import java.awt.Color;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.Element;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Exports a document in the Rich Text Format, which can be opened by most word
+ * processors. Each paragraph is wrote with its alignment, indents and spacing,
+ * and each run of formatted text as a group holding its formatting.
+ *
+ * The tables of fonts and colours come first in the format, so the elements of
+ * the document are looked through for them before the text is wrote, which
+ * only reads the attributes and not the text. Any character outside ASCII is
+ * wrote as a Unicode escape, so the export is plain ASCII.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ExportFormat
+ */
+public class RtfExport implements ExportFormat {
+	/** The font used by text without a font of its own. */
+	private static final String DEFAULT_FONT = "Arial";
+	/** The number of twips, the unit of lengths in the format, in a point. */
+	private static final int TWIPS_PER_POINT = 20;
+
+	/** The index in the font table of each font used. */
+	private final Map<String, Integer> fonts = new LinkedHashMap<>();
+	/** The index in the colour table of each colour used, starting from one. */
+	private final Map<Color, Integer> colors = new LinkedHashMap<>();
+
+	@Override
+	public void startDocument(Writer out, StyledDocument document) throws IOException {
+		fonts.put(DEFAULT_FONT, 0);
+		collect(document.getDefaultRootElement());
+		out.write("{\\rtf1\\ansi\\deff0\\uc1\n{\\fonttbl");
+		for (Map.Entry<String, Integer> font : fonts.entrySet()) {
+			out.write("{\\f" + font.getValue() + "\\fnil ");
+			char[] name = font.getKey().toCharArray();
+			writeText(out, name, 0, name.length);
+			out.write(";}");
+		}
+		out.write("}\n{\\colortbl;");
+		for (Color color : colors.keySet()) {
+			out.write("\\red" + color.getRed() + "\\green" + color.getGreen() + "\\blue" + color.getBlue() + ";");
+		}
+		out.write("}\n");
+	}
+
+	/**
+	 * Adds the fonts and colours of an element and each element within it to
+	 * the tables.
+	 *
+	 * @param element the {@code Element} to be looked through
+	 */
+	private void collect(Element element) {
+		AttributeSet attributes = element.getAttributes();
+		Object family = attributes.getAttribute(StyleConstants.FontFamily);
+		if (family != null) {
+			fonts.putIfAbsent(family.toString(), fonts.size());
+		}
+		for (Object key : new Object[] { StyleConstants.Foreground, StyleConstants.Background }) {
+			Object color = attributes.getAttribute(key);
+			if (color instanceof Color) {
+				colors.putIfAbsent((Color) color, colors.size() + 1);
+			}
+		}
+		for (int i = 0; i < element.getElementCount(); i++) {
+			collect(element.getElement(i));
+		}
+	}
+
+	@Override
+	public void startParagraph(Writer out, AttributeSet attributes) throws IOException {
+		StringBuilder control = new StringBuilder("\\pard");
+		switch (StyleConstants.getAlignment(attributes)) {
+		case StyleConstants.ALIGN_CENTER:
+			control.append("\\qc");
+			break;
+		case StyleConstants.ALIGN_RIGHT:
+			control.append("\\qr");
+			break;
+		case StyleConstants.ALIGN_JUSTIFIED:
+			control.append("\\qj");
+			break;
+		default:
+			break;
+		}
+		appendLength(control, "\\li", StyleConstants.getLeftIndent(attributes));
+		appendLength(control, "\\ri", StyleConstants.getRightIndent(attributes));
+		appendLength(control, "\\fi", StyleConstants.getFirstLineIndent(attributes));
+		appendLength(control, "\\sb", StyleConstants.getSpaceAbove(attributes));
+		appendLength(control, "\\sa", StyleConstants.getSpaceBelow(attributes));
+		float spacing = StyleConstants.getLineSpacing(attributes);
+		if (spacing != 0) {
+			// Line spacing is given in 240ths of a single line.
+			control.append("\\sl").append(Math.round(240 * (1 + spacing))).append("\\slmult1");
+		}
+		out.write(control.append(' ').toString());
+	}
+
+	@Override
+	public void startRun(Writer out, AttributeSet attributes) throws IOException {
+		StringBuilder control = new StringBuilder("{");
+		appendFlag(control, StyleConstants.isBold(attributes), "\\b");
+		appendFlag(control, StyleConstants.isItalic(attributes), "\\i");
+		appendFlag(control, StyleConstants.isUnderline(attributes), "\\ul");
+		appendFlag(control, StyleConstants.isStrikeThrough(attributes), "\\strike");
+		appendFlag(control, StyleConstants.isSubscript(attributes), "\\sub");
+		appendFlag(control, StyleConstants.isSuperscript(attributes), "\\super");
+		Object family = attributes.getAttribute(StyleConstants.FontFamily);
+		if (family != null && fonts.containsKey(family.toString())) {
+			control.append("\\f").append(fonts.get(family.toString()));
+		}
+		Object size = attributes.getAttribute(StyleConstants.FontSize);
+		if (size instanceof Number) {
+			// Font sizes are given in half points.
+			control.append("\\fs").append(Math.round(((Number) size).floatValue() * 2));
+		}
+		Object foreground = attributes.getAttribute(StyleConstants.Foreground);
+		if (colors.containsKey(foreground)) {
+			control.append("\\cf").append(colors.get(foreground));
+		}
+		Object background = attributes.getAttribute(StyleConstants.Background);
+		if (colors.containsKey(background)) {
+			control.append("\\cb").append(colors.get(background));
+		}
+		if (control.length() > 1) {
+			control.append(' ');
+		}
+		out.write(control.toString());
+	}
+
+	@Override
+	public void writeText(Writer out, char[] text, int offset, int length) throws IOException {
+		int start = offset;
+		for (int i = offset; i < offset + length; i++) {
+			char c = text[i];
+			String escaped;
+			if (c == '\\' || c == '{' || c == '}') {
+				escaped = "\\" + c;
+			} else if (c == '\t') {
+				escaped = "\\tab ";
+			} else if (c > 127) {
+				// The escape takes a signed 16-bit value, followed by a character shown
+				// by readers that do not understand it.
+				escaped = "\\u" + (short) c + "?";
+			} else {
+				continue;
+			}
+			out.write(text, start, i - start);
+			out.write(escaped);
+			start = i + 1;
+		}
+		out.write(text, start, offset + length - start);
+	}
+
+	@Override
+	public void endRun(Writer out) throws IOException {
+		out.write('}');
+	}
+
+	@Override
+	public void endParagraph(Writer out) throws IOException {
+		out.write("\\par\n");
+	}
+
+	@Override
+	public void endDocument(Writer out) throws IOException {
+		out.write("}\n");
+	}
+
+	/**
+	 * Adds a control word if the run has the formatting it stands for.
+	 *
+	 * @param control the control words being built
+	 * @param has     whether the run has the formatting
+	 * @param word    the control word
+	 */
+	private static void appendFlag(StringBuilder control, boolean has, String word) {
+		if (has) {
+			control.append(word);
+		}
+	}
+
+	/**
+	 * Adds a control word taking a length in twips, if the length is not zero.
+	 *
+	 * @param control the control words being built
+	 * @param word    the control word
+	 * @param points  the length in points
+	 */
+	private static void appendLength(StringBuilder control, String word, float points) {
+		if (points != 0) {
+			control.append(word).append(Math.round(points * TWIPS_PER_POINT));
+		}
+	}
+}
@@ -0,0 +1,461 @@
+package file;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.function.UnaryOperator;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Holds snapshots of the documents most recently closed, so reopening one of
+ * them loads its snapshot in a single step rather than reading and decoding the
+ * file again, and puts the caret and scroll position back where they were.
+ *
+ * Each snapshot is a {@code RichTextFile} of the document, holding its text and
+ * formatting ready to be loaded, along with a small properties file recording
+ * the file it was taken of, the {@code FileFingerprint} of that file when the
+ * document was loaded from or saved to it, the encoding it was read in, and the
+ * position of the caret and of the top of the view. A snapshot is only used if
+ * the file still has the same fingerprint, and is removed as soon as it is
+ * found not to, so a file changed by another program is always read again.
+ *
+ * The snapshots are kept in the {@code snapshots} folder of the
+ * {@code .textual} folder in the home directory of the user. Once they take up
+ * more than {@code maxBytes}, those used least recently are removed. The
+ * folder is read the first time the cache is used, so this is best done off the
+ * event dispatch thread, as is every other method of the cache.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RichTextFile
+ */
+public class SnapshotCache {
+	/** The number of bytes the snapshots may take up if none is given. */
+	public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+	/** The extension of the properties file of each snapshot. */
+	private static final String PROPERTIES_EXTENSION = ".properties";
+
+	/** The folder the snapshots are kept in. */
+	private final Path directory;
+	/** The number of bytes the snapshots may take up. */
+	private final long maxBytes;
+	/** Writes the snapshots. */
+	private final FileManipulation fileManip = new FileManipulation();
+	/** The snapshot of each file, in the order they were last used. */
+	private final Map<Path, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+	/** The number of bytes the snapshots take up. */
+	private long usedBytes = 0;
+	/** Whether the folder of snapshots has been read. */
+	private boolean loaded = false;
+
+	/**
+	 * Class constructor that keeps up to {@code DEFAULT_MAX_BYTES} of snapshots
+	 * in the {@code snapshots} folder of the {@code .textual} folder in the home
+	 * directory of the user.
+	 */
+	public SnapshotCache() {
+		this(Paths.get(System.getProperty("user.home"), ".textual", "snapshots"), DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * Class constructor that keeps up to the number of bytes of snapshots
+	 * provided in the folder provided.
+	 *
+	 * @param directory the {@code Path} value of the folder of snapshots
+	 * @param maxBytes  the number of bytes the snapshots may take up
+	 */
+	public SnapshotCache(Path directory, long maxBytes) {
+		this.directory = directory;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * Returns the snapshot of a file, read and ready to be loaded, if the file has
+	 * not changed since it was taken. A snapshot of a file that has changed, or
+	 * that cannot be read, is removed. The time the snapshot is used is recorded,
+	 * so it is kept over those used less recently.
+	 *
+	 * @param file the {@code Path} value of the file being opened
+	 * @return the {@code Snapshot} of the file, or null if there is none
+	 */
+	public Snapshot find(Path file) {
+		Path source = file.toAbsolutePath().normalize();
+		Snapshot snapshot;
+		synchronized (this) {
+			load();
+			snapshot = snapshots.get(source);
+		}
+		if (snapshot == null) {
+			return null;
+		}
+		try {
+			if (snapshot.fingerprint.equals(FileFingerprint.read(source))) {
+				snapshot.document = new RichTextFile(snapshot.getDocumentPath());
+				if (snapshot.document.getLength() == snapshot.length) {
+					snapshot.used = System.currentTimeMillis();
+					writeProperties(snapshot);
+					return snapshot;
+				}
+			}
+		} catch (IOException e) {
+			// The file or its snapshot can no longer be read.
+		}
+		synchronized (this) {
+			if (snapshots.get(source) == snapshot) {
+				remove(snapshot);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Takes a snapshot of a document matching the file provided, replacing any
+	 * snapshot already held of the file, then removes the snapshots used least
+	 * recently until the cache is within its size.
+	 *
+	 * The document must hold exactly the contents the file had when the
+	 * fingerprint was read, i.e it must not have been edited since it was loaded
+	 * or saved. No snapshot is taken if the size or modification time of the file
+	 * no longer match the fingerprint, as the file has since been changed by
+	 * another program. A change that keeps both is caught by the checksum when
+	 * the snapshot is next found.
+	 *
+	 * @param file        the {@code Path} value of the file the document was
+	 *                    loaded from or saved to
+	 * @param fingerprint the {@code FileFingerprint} of the file when the
+	 *                    document was loaded from or saved to it
+	 * @param document    the {@code StyledDocument} of the file
+	 * @param saved       returns the attributes of an element that are to be kept
+	 * @param encoding    the {@code TextEncoding} the file is in
+	 * @param caret       the position of the caret in the document
+	 * @param topOffset   the offset of the first character in view
+	 * @return true if the snapshot was taken
+	 */
+	public boolean store(Path file, FileFingerprint fingerprint, StyledDocument document,
+			UnaryOperator<AttributeSet> saved, TextEncoding encoding, int caret, int topOffset) {
+		Path source = file.toAbsolutePath().normalize();
+		Snapshot snapshot = new Snapshot(source);
+		try {
+			if (!fingerprint.matches(Files.readAttributes(source, BasicFileAttributes.class))) {
+				return false;
+			}
+			snapshot.fingerprint = fingerprint;
+			snapshot.encoding = encoding;
+			snapshot.caret = caret;
+			snapshot.topOffset = topOffset;
+			snapshot.length = document.getLength();
+			synchronized (this) {
+				load();
+				Snapshot old = snapshots.get(source);
+				if (old != null) {
+					remove(old);
+				}
+			}
+			Files.createDirectories(directory);
+			fileManip.writeRichDocumentFile(snapshot.getDocumentPath(), document, saved);
+			snapshot.bytes = Files.size(snapshot.getDocumentPath());
+			writeProperties(snapshot);
+		} catch (IOException e) {
+			System.out.println("Error storing snapshot.");
+			deleteFiles(snapshot);
+			return false;
+		}
+		synchronized (this) {
+			snapshots.put(source, snapshot);
+			usedBytes += snapshot.bytes;
+			Iterator<Snapshot> oldest = snapshots.values().iterator();
+			while (usedBytes > maxBytes && oldest.hasNext()) {
+				Snapshot evicted = oldest.next();
+				oldest.remove();
+				usedBytes -= evicted.bytes;
+				deleteFiles(evicted);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of bytes the snapshots take up.
+	 *
+	 * @return the bytes taken up by the snapshots
+	 */
+	public synchronized long getUsedBytes() {
+		load();
+		return usedBytes;
+	}
+
+	/**
+	 * Reads the properties of each snapshot in the folder of snapshots, the first
+	 * time the cache is used. A snapshot whose properties or document are missing
+	 * or cannot be read is removed. Must be called whilst holding the lock of the
+	 * cache.
+	 */
+	private void load() {
+		if (loaded) {
+			return;
+		}
+		loaded = true;
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		List<Snapshot> found = new ArrayList<>();
+		List<Path> documents = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path entry : stream) {
+				String name = entry.getFileName().toString();
+				if (name.endsWith(PROPERTIES_EXTENSION)) {
+					Snapshot snapshot = readProperties(entry);
+					if (snapshot != null && Files.isRegularFile(snapshot.getDocumentPath())) {
+						found.add(snapshot);
+					} else {
+						deleteFile(entry);
+					}
+				} else {
+					documents.add(entry);
+				}
+			}
+		} catch (IOException e) {
+			System.out.println("Error reading snapshots.");
+		}
+		found.sort((a, b) -> Long.compare(a.used, b.used));
+		for (Snapshot snapshot : found) {
+			snapshots.put(snapshot.source, snapshot);
+			usedBytes += snapshot.bytes;
+			documents.remove(snapshot.getDocumentPath());
+		}
+		// Remove the documents left without properties by a snapshot that failed.
+		for (Path document : documents) {
+			deleteFile(document);
+		}
+	}
+
+	/**
+	 * Removes a snapshot from the cache along with its files. Must be called
+	 * whilst holding the lock of the cache.
+	 *
+	 * @param snapshot the {@code Snapshot} to be removed
+	 */
+	private void remove(Snapshot snapshot) {
+		snapshots.remove(snapshot.source);
+		usedBytes -= snapshot.bytes;
+		deleteFiles(snapshot);
+	}
+
+	/**
+	 * Writes the properties of a snapshot to a temporary file and moves it into
+	 * place, so its properties are either wrote in full or not at all.
+	 *
+	 * @param snapshot the {@code Snapshot} whose properties are wrote
+	 * @throws IOException if the properties could not be wrote
+	 */
+	private void writeProperties(Snapshot snapshot) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty("source", snapshot.source.toString());
+		properties.setProperty("size", Long.toString(snapshot.fingerprint.getSize()));
+		properties.setProperty("modified", Long.toString(snapshot.fingerprint.getModified()));
+		properties.setProperty("checksum", Long.toString(snapshot.fingerprint.getChecksum()));
+		properties.setProperty("charset", snapshot.encoding.getCharset().name());
+		properties.setProperty("bom", Boolean.toString(snapshot.encoding.hasBom()));
+		properties.setProperty("lineSeparator", snapshot.encoding.getLineSeparator());
+		properties.setProperty("lossy", Boolean.toString(snapshot.encoding.isLossy()));
+		properties.setProperty("length", Integer.toString(snapshot.length));
+		properties.setProperty("caret", Integer.toString(snapshot.caret));
+		properties.setProperty("topOffset", Integer.toString(snapshot.topOffset));
+		properties.setProperty("bytes", Long.toString(snapshot.bytes));
+		properties.setProperty("used", Long.toString(snapshot.used));
+		Path path = snapshot.getPropertiesPath();
+		Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+		try {
+			try (OutputStream output = Files.newOutputStream(temp)) {
+				properties.store(output, "Textual snapshot");
+			}
+			try {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Reads the properties file of a snapshot.
+	 *
+	 * @param path the {@code Path} value of the properties file
+	 * @return the {@code Snapshot} described, or null if the file is not a valid
+	 *         snapshot
+	 */
+	private Snapshot readProperties(Path path) {
+		Properties properties = new Properties();
+		try (InputStream input = Files.newInputStream(path)) {
+			properties.load(input);
+			Snapshot snapshot = new Snapshot(Paths.get(properties.getProperty("source")));
+			if (!snapshot.getPropertiesPath().equals(path)) {
+				return null;
+			}
+			snapshot.fingerprint = new FileFingerprint(Long.parseLong(properties.getProperty("size")),
+					Long.parseLong(properties.getProperty("modified")),
+					Long.parseLong(properties.getProperty("checksum")));
+			snapshot.encoding = new TextEncoding(Charset.forName(properties.getProperty("charset")),
+					Boolean.parseBoolean(properties.getProperty("bom")), properties.getProperty("lineSeparator"),
+					Boolean.parseBoolean(properties.getProperty("lossy")));
+			snapshot.length = Integer.parseInt(properties.getProperty("length"));
+			snapshot.caret = Integer.parseInt(properties.getProperty("caret"));
+			snapshot.topOffset = Integer.parseInt(properties.getProperty("topOffset"));
+			snapshot.bytes = Long.parseLong(properties.getProperty("bytes"));
+			snapshot.used = Long.parseLong(properties.getProperty("used"));
+			return snapshot;
+		} catch (IOException | IllegalArgumentException | NullPointerException e) {
+			// A property is missing, or is not a number, charset or path.
+			return null;
+		}
+	}
+
+	/**
+	 * Removes the files of a snapshot.
+	 *
+	 * @param snapshot the {@code Snapshot} whose files are removed
+	 */
+	private void deleteFiles(Snapshot snapshot) {
+		deleteFile(snapshot.getPropertiesPath());
+		deleteFile(snapshot.getDocumentPath());
+	}
+
+	/**
+	 * Removes a file, ignoring a file that does not exist.
+	 *
+	 * @param path the {@code Path} value of the file
+	 */
+	private static void deleteFile(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		} catch (IOException e) {
+			System.out.println("Error removing snapshot.");
+		}
+	}
+
+	/**
+	 * The snapshot of a file, with the document to be loaded in place of the file
+	 * and the position of the caret and view to be put back.
+	 *
+	 * @author Aiden Parker
+	 * @version 1
+	 */
+	public class Snapshot {
+		/** The absolute path of the file the snapshot was taken of. */
+		private final Path source;
+		/** The name the files of the snapshot are named after. */
+		private final String name;
+		/** The fingerprint of the file the snapshot was taken of. */
+		private FileFingerprint fingerprint;
+		/** The encoding the file is in. */
+		private TextEncoding encoding;
+		/** The number of characters of the document. */
+		private int length;
+		/** The position of the caret. */
+		private int caret;
+		/** The offset of the first character in view. */
+		private int topOffset;
+		/** The number of bytes of the document of the snapshot. */
+		private long bytes;
+		/** When the snapshot was last taken or used, in milliseconds. */
+		private long used = System.currentTimeMillis();
+		/** The document of the snapshot, read once the snapshot is found. */
+		private RichTextFile document;
+
+		/**
+		 * Class constructor that names the files of the snapshot after the path of
+		 * the file it is taken of.
+		 *
+		 * @param source the absolute {@code Path} value of the file
+		 */
+		private Snapshot(Path source) {
+			this.source = source;
+			this.name = UUID.nameUUIDFromBytes(source.toString().getBytes(StandardCharsets.UTF_8)).toString();
+		}
+
+		/**
+		 * Returns the document of the snapshot, holding the text and formatting of
+		 * the file.
+		 *
+		 * @return the {@code RichTextFile} of the snapshot
+		 */
+		public RichTextFile getDocument() {
+			return document;
+		}
+
+		/**
+		 * Returns the fingerprint of the file the snapshot was taken of, which the
+		 * file was found to still have.
+		 *
+		 * @return the {@code FileFingerprint} of the file
+		 */
+		public FileFingerprint getFingerprint() {
+			return fingerprint;
+		}
+
+		/**
+		 * Returns the encoding the file is in, which the document is saved in.
+		 *
+		 * @return the {@code TextEncoding} of the file
+		 */
+		public TextEncoding getEncoding() {
+			return encoding;
+		}
+
+		/**
+		 * Returns the position the caret was at.
+		 *
+		 * @return the position of the caret
+		 */
+		public int getCaret() {
+			return caret;
+		}
+
+		/**
+		 * Returns the offset of the first character that was in view.
+		 *
+		 * @return the offset at the top of the view
+		 */
+		public int getTopOffset() {
+			return topOffset;
+		}
+
+		/**
+		 * Returns the path of the document of the snapshot.
+		 *
+		 * @return the {@code Path} value of the document
+		 */
+		private Path getDocumentPath() {
+			return directory.resolve(name + "." + RichTextFile.EXTENSION);
+		}
+
+		/**
+		 * Returns the path of the properties of the snapshot.
+		 *
+		 * @return the {@code Path} value of the properties
+		 */
+		private Path getPropertiesPath() {
+			return directory.resolve(name + PROPERTIES_EXTENSION);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A single template held by the {@code TemplateRegistry}. A template is
+ * immutable, its text and the UTF-8 encoding of its text are created once when
+ * the template is loaded, so applying a template does not need to convert it
+ * again.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see TemplateRegistry
+ */
+public final class Template {
+	/** The name the template is looked up by. */
+	private final String name;
+	/** The name of the template shown in the menu. */
+	private final String label;
+	/** The text of the template. */
+	private final String text;
+	/** The UTF-8 encoding of the text, never exposed as a writable array. */
+	private final ByteBuffer bytes;
+
+	/**
+	 * Class constructor that accepts the name and text of the template, encoding
+	 * the text straight away.
+	 *
+	 * @param name  the name the template is looked up by
+	 * @param label the name of the template shown in the menu
+	 * @param text  the text of the template
+	 */
+	public Template(String name, String label, String text) {
+		this.name = name;
+		this.label = label;
+		this.text = text;
+		this.bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Returns the name the template is looked up by.
+	 *
+	 * @return the name of the template
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the name of the template shown in the menu.
+	 *
+	 * @return the label of the template
+	 */
+	public String getLabel() {
+		return label;
+	}
+
+	/**
+	 * Returns the text of the template.
+	 *
+	 * @return the {@code String} text of the template
+	 */
+	public String getText() {
+		return text;
+	}
+
+	/**
+	 * Returns a read only view of the UTF-8 encoding of the template. Each call
+	 * returns a new view so its position can be changed freely.
+	 *
+	 * @return {@code ByteBuffer} of the encoded template
+	 */
+	public ByteBuffer getBytes() {
+		return bytes.duplicate();
+	}
+
+	/**
+	 * Returns the number of bytes of the UTF-8 encoding of the template.
+	 *
+	 * @return the encoded size of the template
+	 */
+	public int getSize() {
+		return bytes.capacity();
+	}
+}
@@ -0,0 +1,407 @@
+package file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Holds every template available to the user, the pre-defined {@code Templates}
+ * followed by any templates imported into the template directory, looked up by
+ * name in constant time.
+ *
+ * Each file in the template directory is a template named after the file,
+ * without its extension. Where several files share a name, such as
+ * {@code letter.md} and {@code letter.txt}, the first in order of file name is
+ * the template. The directory is read on a background thread when the
+ * registry is started and is then watched with a {@code WatchService}, so only
+ * the templates whose files are created, changed or deleted are read again. The
+ * templates are held in an immutable map that is replaced as a whole on each
+ * change, so a template can be looked up from any thread without locking.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see Template
+ */
+public class TemplateRegistry implements Closeable {
+	/** The largest file, in bytes, that is loaded as a template. */
+	private static final long MAX_TEMPLATE_SIZE = 1024 * 1024;
+
+	/** The directory imported templates are read from. */
+	private final Path directory;
+	/** The templates, by name, in the order they are shown in the menu. */
+	private volatile Map<String, Template> templates;
+	/** Called each time the templates change. */
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	/** Watches the template directory for changes, null until started. */
+	private WatchService watcher;
+	/** The thread reading and watching the template directory. */
+	private Thread thread;
+
+	/**
+	 * Class constructor that reads templates from the {@code templates} folder of
+	 * the {@code .textual} folder in the home directory of the user.
+	 */
+	public TemplateRegistry() {
+		this(Paths.get(System.getProperty("user.home"), ".textual", "templates"));
+	}
+
+	/**
+	 * Class constructor that reads templates from the directory provided. Only the
+	 * pre-defined templates are available until the registry is started or
+	 * loaded.
+	 *
+	 * @param directory the {@code Path} value of the template directory
+	 */
+	public TemplateRegistry(Path directory) {
+		this.directory = directory;
+		Map<String, Template> builtIn = new LinkedHashMap<>();
+		for (Templates template : Templates.values()) {
+			builtIn.put(template.name(), createBuiltIn(template));
+		}
+		this.templates = Collections.unmodifiableMap(builtIn);
+	}
+
+	/**
+	 * Returns the directory imported templates are read from.
+	 *
+	 * @return the {@code Path} value of the template directory
+	 */
+	public Path getDirectory() {
+		return directory;
+	}
+
+	/**
+	 * Returns the template with the name provided.
+	 *
+	 * @param name the name of the template
+	 * @return the {@code Template}, or null if there is no such template
+	 */
+	public Template get(String name) {
+		return templates.get(name);
+	}
+
+	/**
+	 * Returns the pre-defined template of the {@code Templates} value provided.
+	 *
+	 * @param template the pre-defined template
+	 * @return the {@code Template} of the pre-defined template
+	 */
+	public Template get(Templates template) {
+		return templates.get(template.name());
+	}
+
+	/**
+	 * Returns every template, pre-defined templates first followed by imported
+	 * templates in order of name.
+	 *
+	 * @return an unmodifiable {@code Collection} of the templates
+	 */
+	public Collection<Template> getTemplates() {
+		return templates.values();
+	}
+
+	/**
+	 * Adds a listener that is called, on the thread of the registry, each time the
+	 * templates change.
+	 *
+	 * @param listener the {@code Runnable} to be called
+	 */
+	public void addChangeListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Reads every template in the template directory on the calling thread,
+	 * replacing any imported templates already loaded.
+	 */
+	public synchronized void load() {
+		Map<String, Template> loaded = new LinkedHashMap<>();
+		for (Templates template : Templates.values()) {
+			loaded.put(template.name(), templates.get(template.name()));
+		}
+		if (Files.isDirectory(directory)) {
+			List<Path> files = new ArrayList<>();
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+				stream.forEach(files::add);
+			} catch (IOException e) {
+				System.out.println("Error reading template directory.");
+			}
+			Collections.sort(files);
+			for (Path file : files) {
+				Template template = readTemplate(file);
+				if (template != null && !loaded.containsKey(template.getName())) {
+					loaded.put(template.getName(), template);
+				}
+			}
+		}
+		publish(loaded);
+	}
+
+	/**
+	 * Starts a background thread that loads the template directory and then
+	 * watches it for changes until the registry is closed. The directory is
+	 * created if it does not exist, so the user has somewhere to import templates
+	 * to.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		thread = new Thread(this::watch, "Template Thread");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Stops watching the template directory.
+	 */
+	@Override
+	public synchronized void close() {
+		if (thread != null) {
+			thread.interrupt();
+			thread = null;
+		}
+		if (watcher != null) {
+			try {
+				watcher.close();
+			} catch (IOException e) {
+				System.out.println("Error closing template watcher.");
+			}
+			watcher = null;
+		}
+	}
+
+	/**
+	 * Loads the template directory and reads again each template whose file
+	 * changes. If events are lost the whole directory is read again.
+	 */
+	private void watch() {
+		WatchService service;
+		try {
+			Files.createDirectories(directory);
+			service = directory.getFileSystem().newWatchService();
+			directory.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY,
+					StandardWatchEventKinds.ENTRY_DELETE);
+		} catch (IOException e) {
+			System.out.println("Error watching template directory.");
+			load();
+			return;
+		}
+		synchronized (this) {
+			if (thread != Thread.currentThread()) {
+				closeQuietly(service);
+				return;
+			}
+			watcher = service;
+		}
+		load();
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				WatchKey key = service.take();
+				boolean overflow = false;
+				List<Path> changed = new ArrayList<>();
+				for (WatchEvent<?> event : key.pollEvents()) {
+					if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+						overflow = true;
+					} else {
+						changed.add(directory.resolve((Path) event.context()));
+					}
+				}
+				if (overflow) {
+					load();
+				} else if (!changed.isEmpty()) {
+					reload(changed);
+				}
+				if (!key.reset()) {
+					break;
+				}
+			}
+		} catch (InterruptedException | ClosedWatchServiceException e) {
+			// The registry has been closed.
+		}
+	}
+
+	/**
+	 * Reads again the templates named after the files provided, removing those
+	 * that no longer have a file. As several files may share a name, every file
+	 * of the name is looked at again, so deleting one file falls back to another
+	 * of the same name as loading the directory would. Every other template is
+	 * kept as it is.
+	 *
+	 * @param files the files that have changed
+	 */
+	private synchronized void reload(List<Path> files) {
+		Map<String, Template> updated = new LinkedHashMap<>(templates);
+		Set<String> names = new LinkedHashSet<>();
+		for (Path file : files) {
+			names.add(nameOf(file));
+		}
+		for (String name : names) {
+			if (isBuiltIn(name)) {
+				continue;
+			}
+			Template template = readTemplate(name);
+			if (template == null) {
+				updated.remove(name);
+			} else {
+				updated.put(name, template);
+			}
+		}
+		List<Template> imported = new ArrayList<>();
+		for (Template template : updated.values()) {
+			if (!isBuiltIn(template.getName())) {
+				imported.add(template);
+			}
+		}
+		imported.sort((a, b) -> a.getName().compareTo(b.getName()));
+		Map<String, Template> ordered = new LinkedHashMap<>();
+		for (Templates template : Templates.values()) {
+			ordered.put(template.name(), updated.get(template.name()));
+		}
+		for (Template template : imported) {
+			ordered.put(template.getName(), template);
+		}
+		publish(ordered);
+	}
+
+	/**
+	 * Replaces the templates with those provided and informs the listeners.
+	 *
+	 * @param updated the new templates
+	 */
+	private void publish(Map<String, Template> updated) {
+		templates = Collections.unmodifiableMap(updated);
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * Reads the template of the name provided from the first file in the template
+	 * directory, in order of file name, that is named after it and can be read as
+	 * a template.
+	 *
+	 * @param name the name of the template
+	 * @return the {@code Template}, or null if no file is a template of the name
+	 */
+	private Template readTemplate(String name) {
+		List<Path> files = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory,
+				file -> nameOf(file).equals(name))) {
+			stream.forEach(files::add);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.out.println("Error reading template directory.");
+			return null;
+		}
+		Collections.sort(files);
+		for (Path file : files) {
+			Template template = readTemplate(file);
+			if (template != null) {
+				return template;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Reads the file provided as a template. Line endings are converted to new
+	 * lines as they are when opening a file.
+	 *
+	 * @param file the {@code Path} value of the template file
+	 * @return the {@code Template}, or null if the file is not a template
+	 */
+	private static Template readTemplate(Path file) {
+		String fileName = file.getFileName().toString();
+		if (fileName.startsWith(".") || !Files.isRegularFile(file)) {
+			return null;
+		}
+		try {
+			if (Files.size(file) > MAX_TEMPLATE_SIZE) {
+				System.out.println("Error template too large: " + fileName);
+				return null;
+			}
+			String text = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+			text = text.replace("\r\n", "\n").replace('\r', '\n');
+			String name = nameOf(file);
+			return new Template(name, name, text);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			System.out.println("Error reading template: " + fileName);
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the name of the template of a file, the name of the file without
+	 * its extension.
+	 *
+	 * @param file the {@code Path} value of the template file
+	 * @return the name of the template
+	 */
+	private static String nameOf(Path file) {
+		String fileName = file.getFileName().toString();
+		int dot = fileName.lastIndexOf('.');
+		return dot > 0 ? fileName.substring(0, dot) : fileName;
+	}
+
+	/**
+	 * Determines whether a name belongs to a pre-defined template, which cannot be
+	 * replaced by an imported template.
+	 *
+	 * @param name the name of the template
+	 * @return true if the name is of a pre-defined template
+	 */
+	private static boolean isBuiltIn(String name) {
+		for (Templates template : Templates.values()) {
+			if (template.name().equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Creates the {@code Template} of a pre-defined template.
+	 *
+	 * @param template the pre-defined template
+	 * @return the {@code Template} of the pre-defined template
+	 */
+	private static Template createBuiltIn(Templates template) {
+		return new Template(template.name(), template.getLabel(), new PopulatedTemplates(template).getText());
+	}
+
+	/**
+	 * Closes a watch service, ignoring any failure.
+	 *
+	 * @param service the watch service to be closed
+	 */
+	private static void closeQuietly(WatchService service) {
+		try {
+			service.close();
+		} catch (IOException e) {
+			System.out.println("Error closing template watcher.");
+		}
+	}
+}
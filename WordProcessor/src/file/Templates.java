@@ -1,18 +1,41 @@
 package file;
 
 /**
- * Enumeration file used to store the different types of Templates available.
+ * Enumeration file used to store the different types of Templates built into
+ * the program. These are always available in the {@code TemplateRegistry},
+ * alongside any templates the user has imported.
  * 
  * @author aiden
- *
+ * @see TemplateRegistry
  */
 public enum Templates {
 	
 	/**	Enumerated value for the Dear template */
-	DEAR, 
+	DEAR("Dear Sir/Madam"), 
 	/**	Enumerated value for the Kind Regards template */
-	KIND_REGARDS, 
+	KIND_REGARDS("Kind Regards"), 
 	/**	Enumerated value for the Many Thanks template */
-	MANY_THANKS;
+	MANY_THANKS("Many Thanks");
+
+	/** The name of the template shown in the menu. */
+	private final String label;
+
+	/**
+	 * Enum constructor that accepts the name of the template shown in the menu.
+	 * 
+	 * @param label the name shown in the menu
+	 */
+	Templates(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * Returns the name of the template shown in the menu.
+	 * 
+	 * @return the label of the template
+	 */
+	public String getLabel() {
+		return label;
+	}
 
 }
@@ -0,0 +1,326 @@
+package file;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Describes how the text of a file is stored on disk, its character set, whether
+ * it starts with a byte order mark and the line ending it uses. The encoding of
+ * a file is detected when it is opened and kept with the document, so saving
+ * the document writes it back the way it was read.
+ *
+ * Detection looks at the start of the file only. A byte order mark decides the
+ * character set outright, otherwise the sample is checked for the zero bytes of
+ * UTF-16 text, then decoded strictly as UTF-8, and if neither fits the file is
+ * taken to be windows-1252, or ISO-8859-1 if it holds a byte windows-1252 does
+ * not define so that every byte is still read and wrote back unchanged. The line
+ * ending is the first one found in the sample.
+ *
+ * As only the sample is checked, the rest of the file may still hold bytes the
+ * character set cannot decode. Those bytes are replaced when read, and the
+ * encoding is then marked as lossy, as saving the text back over the file would
+ * not write the bytes it was read from.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ChunkedFileReader#getEncoding()
+ * @see FileManipulation#writeDocumentFile(java.nio.file.Path,
+ *      javax.swing.text.Document, TextEncoding)
+ */
+public final class TextEncoding {
+	/** The number of bytes at the start of a file used to detect its encoding. */
+	public static final int SAMPLE_SIZE = 64 * 1024;
+	/** The encoding of a new document, UTF-8 with new lines and no mark. */
+	public static final TextEncoding DEFAULT = new TextEncoding(StandardCharsets.UTF_8, false, "\n");
+
+	/** The byte order mark of UTF-8. */
+	private static final byte[] UTF_8_BOM = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+	/** The byte order mark of big endian UTF-16. */
+	private static final byte[] UTF_16BE_BOM = { (byte) 0xFE, (byte) 0xFF };
+	/** The byte order mark of little endian UTF-16. */
+	private static final byte[] UTF_16LE_BOM = { (byte) 0xFF, (byte) 0xFE };
+	/** The character set assumed for single byte text. */
+	private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+	/** The character set of the text. */
+	private final Charset charset;
+	/** Whether the text starts with a byte order mark. */
+	private final boolean bom;
+	/** The characters ending each line. */
+	private final String lineSeparator;
+	/** Whether bytes of the file were replaced when it was read. */
+	private final boolean lossy;
+
+	/**
+	 * Class constructor that accepts each part of the encoding.
+	 *
+	 * @param charset       the character set of the text
+	 * @param bom           whether the text starts with a byte order mark
+	 * @param lineSeparator the characters ending each line
+	 */
+	public TextEncoding(Charset charset, boolean bom, String lineSeparator) {
+		this(charset, bom, lineSeparator, false);
+	}
+
+	/**
+	 * Class constructor that accepts each part of the encoding, along with
+	 * whether the text was read from the file exactly.
+	 *
+	 * @param charset       the character set of the text
+	 * @param bom           whether the text starts with a byte order mark
+	 * @param lineSeparator the characters ending each line
+	 * @param lossy         whether bytes of the file were replaced when read
+	 */
+	public TextEncoding(Charset charset, boolean bom, String lineSeparator, boolean lossy) {
+		this.charset = charset;
+		this.bom = bom && markOf(charset).length > 0;
+		this.lineSeparator = lineSeparator;
+		this.lossy = lossy;
+	}
+
+	/**
+	 * Returns the character set of the text.
+	 *
+	 * @return the {@code Charset} of the text
+	 */
+	public Charset getCharset() {
+		return charset;
+	}
+
+	/**
+	 * Returns whether the text starts with a byte order mark.
+	 *
+	 * @return true if a byte order mark is read and wrote
+	 */
+	public boolean hasBom() {
+		return bom;
+	}
+
+	/**
+	 * Returns the characters ending each line.
+	 *
+	 * @return the line separator, one of "\n", "\r\n" or "\r"
+	 */
+	public String getLineSeparator() {
+		return lineSeparator;
+	}
+
+	/**
+	 * Returns whether bytes of the file could not be decoded and were replaced
+	 * when it was read, so the text no longer holds every byte of the file.
+	 *
+	 * @return true if saving over the file would change bytes the user did not
+	 *         edit
+	 */
+	public boolean isLossy() {
+		return lossy;
+	}
+
+	/**
+	 * Returns the byte order mark wrote before the text, empty if there is none.
+	 *
+	 * @return the bytes of the byte order mark
+	 */
+	public byte[] getBom() {
+		return bom ? markOf(charset).clone() : new byte[0];
+	}
+
+	/**
+	 * Creates a decoder of the character set. Malformed input is reported rather
+	 * than replaced, so the reader can tell the file was not read exactly.
+	 *
+	 * @return a new {@code CharsetDecoder}
+	 */
+	public CharsetDecoder newDecoder() {
+		return charset.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+	}
+
+	/**
+	 * Creates an encoder of the character set. A character the character set
+	 * cannot hold is reported rather than replaced, so text is never lost
+	 * silently on save.
+	 *
+	 * @return a new {@code CharsetEncoder}
+	 */
+	public CharsetEncoder newEncoder() {
+		return charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+	}
+
+	/**
+	 * Returns an encoding the same as this one in a different character set,
+	 * keeping the line ending.
+	 *
+	 * @param other the character set of the new encoding
+	 * @return the {@code TextEncoding} with the character set provided
+	 */
+	public TextEncoding withCharset(Charset other) {
+		return new TextEncoding(other, false, lineSeparator, lossy);
+	}
+
+	/**
+	 * Returns an encoding the same as this one, marked as lossy or not.
+	 *
+	 * @param replaced whether bytes of the file were replaced when read
+	 * @return the {@code TextEncoding} marked as provided
+	 */
+	public TextEncoding withLoss(boolean replaced) {
+		return replaced == lossy ? this : new TextEncoding(charset, bom, lineSeparator, replaced);
+	}
+
+	/**
+	 * Detects the encoding of a file from the bytes at its start.
+	 *
+	 * @param sample     the bytes at the start of the file, from its position to
+	 *                   its limit, which are left unchanged
+	 * @param endOfInput whether the sample holds the whole file
+	 * @return the {@code TextEncoding} of the file
+	 */
+	public static TextEncoding detect(ByteBuffer sample, boolean endOfInput) {
+		sample = sample.duplicate();
+		Charset charset;
+		boolean bom = true;
+		if (startsWith(sample, UTF_8_BOM)) {
+			charset = StandardCharsets.UTF_8;
+		} else if (startsWith(sample, UTF_16BE_BOM)) {
+			charset = StandardCharsets.UTF_16BE;
+		} else if (startsWith(sample, UTF_16LE_BOM)) {
+			charset = StandardCharsets.UTF_16LE;
+		} else {
+			bom = false;
+			charset = detectCharset(sample, endOfInput);
+		}
+		if (bom) {
+			sample.position(sample.position() + markOf(charset).length);
+		}
+		return new TextEncoding(charset, bom, detectLineSeparator(sample, charset));
+	}
+
+	/**
+	 * Detects the character set of a sample without a byte order mark.
+	 *
+	 * @param sample     the bytes at the start of the file
+	 * @param endOfInput whether the sample holds the whole file
+	 * @return the {@code Charset} of the sample
+	 */
+	private static Charset detectCharset(ByteBuffer sample, boolean endOfInput) {
+		int start = sample.position();
+		int pairs = sample.remaining() / 2;
+		if (pairs > 0) {
+			// Mostly ASCII UTF-16 text has a zero byte in every other position.
+			int evenZeros = 0;
+			int oddZeros = 0;
+			for (int i = 0; i < pairs; i++) {
+				if (sample.get(start + i * 2) == 0) {
+					evenZeros++;
+				}
+				if (sample.get(start + i * 2 + 1) == 0) {
+					oddZeros++;
+				}
+			}
+			if (oddZeros > pairs * 3 / 10 && evenZeros < pairs / 20) {
+				return StandardCharsets.UTF_16LE;
+			}
+			if (evenZeros > pairs * 3 / 10 && oddZeros < pairs / 20) {
+				return StandardCharsets.UTF_16BE;
+			}
+		}
+		CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder().onMalformedInput(CodingErrorAction.REPORT)
+				.onUnmappableCharacter(CodingErrorAction.REPORT);
+		CharBuffer chars = CharBuffer.allocate(1024);
+		ByteBuffer bytes = sample.duplicate();
+		while (true) {
+			CoderResult result = decoder.decode(bytes, chars, endOfInput);
+			if (result.isError()) {
+				break;
+			}
+			if (result.isUnderflow()) {
+				// Only a character cut off by the end of the sample may be left.
+				return StandardCharsets.UTF_8;
+			}
+			chars.clear();
+		}
+		for (int i = start; i < sample.limit(); i++) {
+			int b = sample.get(i) & 0xFF;
+			if (b == 0x81 || b == 0x8D || b == 0x8F || b == 0x90 || b == 0x9D) {
+				return StandardCharsets.ISO_8859_1;
+			}
+		}
+		return WINDOWS_1252;
+	}
+
+	/**
+	 * Finds the first line ending of a sample.
+	 *
+	 * @param sample  the bytes at the start of the file, after any byte order mark
+	 * @param charset the character set of the sample
+	 * @return the first line ending, or a new line if there is none
+	 */
+	private static String detectLineSeparator(ByteBuffer sample, Charset charset) {
+		CharsetDecoder decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE)
+				.onUnmappableCharacter(CodingErrorAction.REPLACE);
+		CharBuffer chars = CharBuffer.allocate((int) (sample.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+		decoder.decode(sample.duplicate(), chars, true);
+		chars.flip();
+		while (chars.hasRemaining()) {
+			char c = chars.get();
+			if (c == '\n') {
+				return "\n";
+			}
+			if (c == '\r') {
+				return chars.hasRemaining() && chars.get() != '\n' ? "\r" : "\r\n";
+			}
+		}
+		return "\n";
+	}
+
+	/**
+	 * Returns the byte order mark of a character set.
+	 *
+	 * @param charset the character set
+	 * @return the bytes of its mark, empty if it has none
+	 */
+	private static byte[] markOf(Charset charset) {
+		if (charset.equals(StandardCharsets.UTF_8)) {
+			return UTF_8_BOM;
+		} else if (charset.equals(StandardCharsets.UTF_16BE)) {
+			return UTF_16BE_BOM;
+		} else if (charset.equals(StandardCharsets.UTF_16LE)) {
+			return UTF_16LE_BOM;
+		}
+		return new byte[0];
+	}
+
+	/**
+	 * Determines whether the remaining bytes of a buffer start with those
+	 * provided.
+	 *
+	 * @param buffer the bytes to be checked
+	 * @param prefix the bytes expected at the start
+	 * @return true if the buffer starts with the prefix
+	 */
+	private static boolean startsWith(ByteBuffer buffer, byte[] prefix) {
+		if (buffer.remaining() < prefix.length) {
+			return false;
+		}
+		for (int i = 0; i < prefix.length; i++) {
+			if (buffer.get(buffer.position() + i) != prefix[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		String ending = lineSeparator.equals("\r\n") ? "CRLF" : lineSeparator.equals("\r") ? "CR" : "LF";
+		return charset.name() + (bom ? " with BOM" : "") + ", " + ending;
+	}
+}
@@ -0,0 +1,383 @@
+package file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A read-only set of words used to check spelling, stored as a directed acyclic
+ * word graph (DAWG) in a compiled file that is mapped into memory with
+ * {@code FileChannel.map} rather than read onto the heap.
+ *
+ * The graph is the minimal automaton accepting the words, so words sharing a
+ * prefix share the arcs of that prefix and words sharing a suffix share the
+ * arcs of that suffix. Each arc is held in a single {@code long}, its label in
+ * the low 16 bits, a flag marking the end of a word, a flag marking the last
+ * arc leaving a node, and the index of the first arc of the node it leads to in
+ * the high 32 bits. The arcs leaving a node are stored together, sorted by
+ * label. A few hundred thousand words take around a megabyte, against the tens
+ * of megabytes of a {@code HashSet<String>}, and looking up a word reads only
+ * the arcs along its path.
+ *
+ * The compiled file is built from a plain word list, one word per line, by
+ * {@code compile}. Anything after a '/' on a line is ignored, so a hunspell
+ * dictionary can be used as it is. The word list is held in memory while it is
+ * compiled, which is done once and again only when the word list changes.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManipulation#getDictionary(Path, Path)
+ */
+public class WordDictionary implements Closeable {
+	/** Marks the start of a compiled dictionary, the bytes "TXDG". */
+	private static final int MAGIC = 0x54584447;
+	/** The version of the compiled format. */
+	private static final int VERSION = 1;
+	/** The number of bytes before the first arc. */
+	private static final int HEADER_SIZE = 16;
+	/** Set on an arc that ends a word. */
+	private static final long FINAL = 1L << 16;
+	/** Set on the last arc leaving a node. */
+	private static final long LAST = 1L << 17;
+	/** The most characters of a line of the word list read as a word. */
+	private static final int MAX_WORD_LENGTH = 64;
+
+	/** The channel the compiled file is mapped through. */
+	private final FileChannel channel;
+	/** The arcs of the graph, the first of which is unused. */
+	private final LongBuffer arcs;
+	/** The index of the first arc leaving the root, 0 if there are no words. */
+	private final int root;
+
+	/**
+	 * Class constructor that maps the compiled dictionary at the path provided.
+	 *
+	 * @param path the {@code Path} value of the compiled dictionary
+	 * @throws IOException if the file could not be mapped or is not a compiled
+	 *                     dictionary
+	 */
+	public WordDictionary(Path path) throws IOException {
+		this.channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (map.limit() < HEADER_SIZE || map.getInt(0) != MAGIC || map.getInt(4) != VERSION) {
+				throw new IOException("Not a compiled dictionary: " + path);
+			}
+			int count = map.getInt(8);
+			if (map.limit() != HEADER_SIZE + (long) count * Long.BYTES) {
+				throw new IOException("Truncated dictionary: " + path);
+			}
+			this.root = map.getInt(12);
+			this.arcs = map.position(HEADER_SIZE).slice().asLongBuffer();
+		} catch (IOException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Determines whether a region of a character sequence is a word of the
+	 * dictionary, exactly as it is spelt.
+	 *
+	 * @param text  the sequence holding the word
+	 * @param start the index of the first character of the word
+	 * @param end   the index after the last character of the word
+	 * @return true if the dictionary holds the word
+	 */
+	public boolean contains(CharSequence text, int start, int end) {
+		int node = root;
+		for (int i = start; i < end; i++) {
+			if (node == 0) {
+				return false;
+			}
+			char c = text.charAt(i);
+			long arc;
+			while (true) {
+				arc = arcs.get(node);
+				char label = (char) arc;
+				if (label == c) {
+					break;
+				}
+				if (label > c || (arc & LAST) != 0) {
+					return false;
+				}
+				node++;
+			}
+			if (i == end - 1) {
+				return (arc & FINAL) != 0;
+			}
+			node = (int) (arc >>> 32);
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether a word is held in the dictionary.
+	 *
+	 * @param word the word to be found
+	 * @return true if the dictionary holds the word
+	 */
+	public boolean contains(CharSequence word) {
+		return contains(word, 0, word.length());
+	}
+
+	/**
+	 * Closes the channel the dictionary was mapped through. The mapping itself is
+	 * released once the dictionary is no longer referenced.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	/**
+	 * Builds a compiled dictionary from a word list. The dictionary is wrote to a
+	 * temporary file of its own in the same folder and moved into place once
+	 * complete, so a dictionary being read is never seen half wrote, nor can two
+	 * compiles write to the same temporary file.
+	 *
+	 * @param wordList the {@code Path} value of the word list, one word per line
+	 * @param target   the {@code Path} value the compiled dictionary is wrote to
+	 * @throws IOException if the word list could not be read or the dictionary
+	 *                     could not be wrote
+	 */
+	public static void compile(Path wordList, Path target) throws IOException {
+		List<String> words = readWords(wordList);
+		Collections.sort(words);
+
+		// Daciuk's incremental construction over the sorted words, each state
+		// being replaced by an equal one already registered once it is complete.
+		Map<State, State> register = new HashMap<>();
+		State[] path = new State[MAX_WORD_LENGTH + 1];
+		path[0] = new State();
+		String previous = "";
+		for (String word : words) {
+			if (word.equals(previous)) {
+				continue;
+			}
+			int common = 0;
+			while (common < previous.length() && common < word.length()
+					&& previous.charAt(common) == word.charAt(common)) {
+				common++;
+			}
+			minimise(path, previous.length(), common, register);
+			for (int i = common; i < word.length(); i++) {
+				path[i + 1] = new State();
+				path[i].add(word.charAt(i), path[i + 1]);
+			}
+			path[word.length()].isFinal = true;
+			previous = word;
+		}
+		minimise(path, previous.length(), 0, register);
+
+		long[][] written = { new long[1024] };
+		int[] count = { 1 };
+		int root = write(path[0], new IdentityHashMap<>(), written, count);
+
+		Path directory = target.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temp = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + count[0] * Long.BYTES);
+				buffer.putInt(MAGIC).putInt(VERSION).putInt(count[0]).putInt(root);
+				buffer.asLongBuffer().put(written[0], 0, count[0]);
+				buffer.rewind();
+				while (buffer.hasRemaining()) {
+					out.write(buffer);
+				}
+			}
+			try {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Reads the words of a word list, decoded in the encoding detected from the
+	 * start of the file. Blank lines, lines holding only digits such as the word
+	 * count at the start of a hunspell dictionary, and anything after a '/' are
+	 * skipped.
+	 *
+	 * @param wordList the {@code Path} value of the word list
+	 * @return the words of the list, in the order read
+	 * @throws IOException if the word list could not be read
+	 */
+	private static List<String> readWords(Path wordList) throws IOException {
+		List<String> words = new ArrayList<>();
+		StringBuilder line = new StringBuilder();
+		try (ChunkedFileReader reader = new ChunkedFileReader(wordList, ChunkedFileReader.DEFAULT_CHUNK_SIZE)) {
+			for (String chunk = reader.readChunk(); chunk != null; chunk = reader.readChunk()) {
+				for (int i = 0; i < chunk.length(); i++) {
+					char c = chunk.charAt(i);
+					if (c == '\n') {
+						addWord(line, words);
+						line.setLength(0);
+					} else {
+						line.append(c);
+					}
+				}
+			}
+		}
+		addWord(line, words);
+		return words;
+	}
+
+	/**
+	 * Adds the word held on a line of the word list, if any.
+	 *
+	 * @param line  the text of the line
+	 * @param words the words read so far
+	 */
+	private static void addWord(StringBuilder line, List<String> words) {
+		int end = line.indexOf("/");
+		String word = (end < 0 ? line.toString() : line.substring(0, end)).strip().replace('\u2019', '\'');
+		if (word.isEmpty() || word.length() > MAX_WORD_LENGTH || word.chars().allMatch(Character::isDigit)) {
+			return;
+		}
+		words.add(word);
+	}
+
+	/**
+	 * Replaces each state of the path below the prefix shared with the next word
+	 * by an equal state already registered, or registers it if there is none. The
+	 * states are visited from the end of the path, so the children of a state are
+	 * always registered before the state itself.
+	 *
+	 * @param path     the states along the previous word
+	 * @param length   the length of the previous word
+	 * @param common   the length of the prefix shared with the next word
+	 * @param register the states registered so far
+	 */
+	private static void minimise(State[] path, int length, int common, Map<State, State> register) {
+		for (int i = length; i > common; i--) {
+			State state = path[i];
+			State existing = register.putIfAbsent(state, state);
+			if (existing != null) {
+				path[i - 1].targets[path[i - 1].count - 1] = existing;
+			}
+		}
+	}
+
+	/**
+	 * Writes the arcs of a state and each state reachable from it, the arcs of a
+	 * state being wrote after those of its children so that the index of every
+	 * target is already known.
+	 *
+	 * @param state   the state to be wrote
+	 * @param offsets the index of the first arc of each state already wrote
+	 * @param arcs    a single element array holding the arcs wrote so far, grown
+	 *                as needed
+	 * @param count   a single element array holding the number of arcs wrote
+	 * @return the index of the first arc of the state, 0 if it has no arcs
+	 */
+	private static int write(State state, Map<State, Integer> offsets, long[][] arcs, int[] count) {
+		if (state.count == 0) {
+			return 0;
+		}
+		Integer offset = offsets.get(state);
+		if (offset != null) {
+			return offset;
+		}
+		int[] targets = new int[state.count];
+		for (int i = 0; i < state.count; i++) {
+			targets[i] = write(state.targets[i], offsets, arcs, count);
+		}
+		offset = count[0];
+		if (arcs[0].length < offset + state.count) {
+			arcs[0] = Arrays.copyOf(arcs[0], Math.max(arcs[0].length * 2, offset + state.count));
+		}
+		for (int i = 0; i < state.count; i++) {
+			long arc = state.labels[i] | (long) targets[i] << 32;
+			if (state.targets[i].isFinal) {
+				arc |= FINAL;
+			}
+			if (i == state.count - 1) {
+				arc |= LAST;
+			}
+			arcs[0][count[0]++] = arc;
+		}
+		offsets.put(state, offset);
+		return offset;
+	}
+
+	/**
+	 * A state of the graph while it is being built.
+	 */
+	private static class State {
+		/** The label of each arc leaving the state, in order. */
+		char[] labels = new char[2];
+		/** The state each arc leads to. */
+		State[] targets = new State[2];
+		/** The number of arcs leaving the state. */
+		int count;
+		/** Whether a word ends at the state. */
+		boolean isFinal;
+
+		/**
+		 * Adds an arc leaving the state, its label following those already added.
+		 *
+		 * @param label  the label of the arc
+		 * @param target the state the arc leads to
+		 */
+		void add(char label, State target) {
+			if (count == labels.length) {
+				labels = Arrays.copyOf(labels, count * 2);
+				targets = Arrays.copyOf(targets, count * 2);
+			}
+			labels[count] = label;
+			targets[count] = target;
+			count++;
+		}
+
+		/**
+		 * Two states are equal if they are both final or not, and their arcs have
+		 * the same labels leading to the same states. The states the arcs lead to
+		 * have already been registered, so are compared by identity.
+		 */
+		@Override
+		public boolean equals(Object other) {
+			if (!(other instanceof State)) {
+				return false;
+			}
+			State state = (State) other;
+			if (isFinal != state.isFinal || count != state.count) {
+				return false;
+			}
+			for (int i = 0; i < count; i++) {
+				if (labels[i] != state.labels[i] || targets[i] != state.targets[i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = isFinal ? 1 : 0;
+			for (int i = 0; i < count; i++) {
+				hash = hash * 31 + labels[i];
+				hash = hash * 31 + System.identityHashCode(targets[i]);
+			}
+			return hash;
+		}
+	}
+}
@@ -0,0 +1,418 @@
+package gui;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import file.FileManipulation;
+import file.Template;
+import file.TemplateRegistry;
+import file.TextEncoding;
+
+/**
+ * Headless entry point that stamps the pre-defined templates onto many files at
+ * once, without opening the editor window. Each file is read and wrote through
+ * {@code FileManipulation} and the templates come from the same
+ * {@code TemplateRegistry} as the template menu, so the files produced are
+ * identical to those produced by choosing the template in the editor and
+ * saving.
+ *
+ * As in the editor, the encoding of each file is detected with
+ * {@code TextEncoding}, here from the whole file. The templates are encoded in
+ * the character set and line ending of the file and wrote after its byte order
+ * mark, if it has one. A file the detected encoding cannot decode is reported
+ * and left unchanged, rather than having text of another encoding added to it.
+ *
+ * The files are split between the cores of the device by a
+ * {@code ForkJoinPool}, halving the list of files until each task has no more
+ * than {@code FILES_PER_TASK} files. Once finished, the number of characters in
+ * the files is reported using the same rules as the character count of the
+ * editor, along with the throughput in files and megabytes per second.
+ *
+ * Usage, with the compiled sources on the class path:
+ *
+ * <pre>
+ * java gui.BatchProcessor [--prepend TEMPLATE] [--append TEMPLATE] [--count] [--list] PATH...
+ * </pre>
+ *
+ * Each {@code PATH} is a file, a directory whose files are processed
+ * recursively, or {@code @FILE} naming a file that lists one path per line.
+ * {@code TEMPLATE} is one of the names of {@code Templates}, i.e
+ * {@code KIND_REGARDS}, or the name of an imported template. With
+ * {@code --count} the files are only counted and not changed, with
+ * {@code --list} the count of each file is printed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see CharacterCounter#countCharacters(char[], int, int)
+ */
+public class BatchProcessor {
+	/** The most files handled by a single task before it is split. */
+	private static final int FILES_PER_TASK = 8;
+	/** The number of bytes in a megabyte. */
+	private static final double MEGABYTE = 1024 * 1024;
+	/** Exit status when every file was processed. */
+	private static final int EXIT_OK = 0;
+	/** Exit status when one or more files could not be processed. */
+	private static final int EXIT_FAILED = 1;
+	/** Exit status when the arguments could not be understood. */
+	private static final int EXIT_USAGE = 2;
+
+	/** Handles the reading and writing of each file. */
+	private final FileManipulation fileManip = new FileManipulation();
+	/** The text wrote to the start of each file, empty if none. */
+	private final String prefix;
+	/** The text wrote to the end of each file, empty if none. */
+	private final String suffix;
+	/** Whether the files are only counted and left unchanged. */
+	private final boolean countOnly;
+
+	/**
+	 * Class constructor that accepts the templates to be stamped onto each file.
+	 *
+	 * @param prepend   the template wrote to the start of each file, or null
+	 * @param append    the template wrote to the end of each file, or null
+	 * @param countOnly whether the files are only counted and left unchanged
+	 */
+	public BatchProcessor(Template prepend, Template append, boolean countOnly) {
+		this.prefix = prepend == null ? "" : prepend.getText();
+		this.suffix = append == null ? "" : append.getText();
+		this.countOnly = countOnly;
+	}
+
+	/**
+	 * Processes every file in the list on the pool provided, waiting until all of
+	 * them have finished.
+	 *
+	 * @param files the {@code Path} values of the files to be processed
+	 * @param pool  the {@code ForkJoinPool} the work is split across
+	 * @return the result of each file, in the order of the list
+	 */
+	public List<Result> process(List<Path> files, ForkJoinPool pool) {
+		return pool.invoke(new BatchTask(files, 0, files.size()));
+	}
+
+	/**
+	 * Processes a single file, stamping the templates onto it unless only counting,
+	 * and counting the characters of the text that is left in the file. The file
+	 * is decoded in the encoding detected from it before anything is wrote, and
+	 * is left unchanged if it cannot be decoded, or if a template holds a
+	 * character its character set cannot hold.
+	 *
+	 * @param path the {@code Path} value of the file to be processed
+	 * @return the {@code Result} of the file
+	 */
+	public Result processFile(Path path) {
+		byte[] bytes = fileManip.getFileContents(path);
+		if (bytes == null) {
+			return new Result(path, 0, -1, "could not be read");
+		}
+		TextEncoding encoding = TextEncoding.detect(ByteBuffer.wrap(bytes), true);
+		String charset = encoding.getCharset().name();
+		int bom = encoding.getBom().length;
+		CharBuffer text;
+		try {
+			text = encoding.newDecoder().decode(ByteBuffer.wrap(bytes, bom, bytes.length - bom));
+		} catch (CharacterCodingException e) {
+			return new Result(path, bytes.length, -1, "is not valid " + charset + " text");
+		}
+		int count = CharacterCounter.countCharacters(text.array(), text.arrayOffset(), text.remaining());
+		if (countOnly || prefix.isEmpty() && suffix.isEmpty()) {
+			return new Result(path, bytes.length, count, null);
+		}
+		ByteBuffer start;
+		ByteBuffer end;
+		try {
+			start = encode(prefix, encoding);
+			end = encode(suffix, encoding);
+		} catch (CharacterCodingException e) {
+			return new Result(path, bytes.length, -1, "cannot hold the template in " + charset);
+		}
+		byte[] stamped = new byte[bytes.length + start.remaining() + end.remaining()];
+		ByteBuffer.wrap(stamped).put(bytes, 0, bom).put(start).put(bytes, bom, bytes.length - bom).put(end);
+		if (!fileManip.saveFile(path, stamped)) {
+			return new Result(path, bytes.length, -1, "could not be saved");
+		}
+		count += CharacterCounter.countCharacters(prefix.toCharArray(), 0, prefix.length());
+		count += CharacterCounter.countCharacters(suffix.toCharArray(), 0, suffix.length());
+		return new Result(path, stamped.length, count, null);
+	}
+
+	/**
+	 * Encodes the text of a template in the character set of a file, converting
+	 * each new line to the line ending of the file as a save from the editor
+	 * does.
+	 *
+	 * @param text     the text of the template
+	 * @param encoding the {@code TextEncoding} of the file
+	 * @return the encoded bytes, from the position to the limit of the buffer
+	 * @throws CharacterCodingException if the character set cannot hold a
+	 *                                  character of the template
+	 */
+	private static ByteBuffer encode(String text, TextEncoding encoding) throws CharacterCodingException {
+		if (text.isEmpty()) {
+			return ByteBuffer.allocate(0);
+		}
+		String converted = text.replace("\n", encoding.getLineSeparator());
+		return encoding.newEncoder().encode(CharBuffer.wrap(converted));
+	}
+
+	/**
+	 * A task processing a range of the list of files, splitting itself in half
+	 * until the range is small enough to be processed directly.
+	 */
+	private class BatchTask extends RecursiveTask<List<Result>> {
+		/** Serial version of the task. */
+		private static final long serialVersionUID = 1L;
+		/** The files being processed. */
+		private final List<Path> files;
+		/** The index of the first file of the range. */
+		private final int start;
+		/** The index after the last file of the range. */
+		private final int end;
+
+		/**
+		 * Class constructor that accepts the range of files to be processed.
+		 *
+		 * @param files the files being processed
+		 * @param start the index of the first file of the range
+		 * @param end   the index after the last file of the range
+		 */
+		BatchTask(List<Path> files, int start, int end) {
+			this.files = files;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected List<Result> compute() {
+			if (end - start <= FILES_PER_TASK) {
+				List<Result> results = new ArrayList<>(end - start);
+				for (int i = start; i < end; i++) {
+					results.add(processFile(files.get(i)));
+				}
+				return results;
+			}
+			int middle = (start + end) >>> 1;
+			BatchTask left = new BatchTask(files, start, middle);
+			left.fork();
+			List<Result> results = new BatchTask(files, middle, end).compute();
+			List<Result> joined = left.join();
+			joined.addAll(results);
+			return joined;
+		}
+	}
+
+	/**
+	 * The outcome of processing a single file.
+	 */
+	public static class Result {
+		/** The file that was processed. */
+		private final Path path;
+		/** The size of the file in bytes once processed. */
+		private final long size;
+		/** The number of counted characters, or -1 if the file failed. */
+		private final int charCount;
+		/** The reason the file failed, or null. */
+		private final String error;
+
+		/**
+		 * Class constructor that accepts the outcome of a file.
+		 *
+		 * @param path      the file that was processed
+		 * @param size      the size of the file in bytes
+		 * @param charCount the number of counted characters, or -1 if failed
+		 * @param error     the reason the file failed, or null
+		 */
+		Result(Path path, long size, int charCount, String error) {
+			this.path = path;
+			this.size = size;
+			this.charCount = charCount;
+			this.error = error;
+		}
+
+		/**
+		 * Returns the file that was processed.
+		 *
+		 * @return the {@code Path} value of the file
+		 */
+		public Path getPath() {
+			return path;
+		}
+
+		/**
+		 * Returns the size of the file once processed.
+		 *
+		 * @return the size in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * Returns the number of counted characters of the file.
+		 *
+		 * @return the character count, or -1 if the file failed
+		 */
+		public int getCharCount() {
+			return charCount;
+		}
+
+		/**
+		 * Returns the reason the file could not be processed.
+		 *
+		 * @return the reason, or null if the file was processed
+		 */
+		public String getError() {
+			return error;
+		}
+	}
+
+	/**
+	 * Collects the files named by the arguments, walking directories and reading
+	 * the lines of {@code @FILE} lists.
+	 *
+	 * @param paths the {@code String} values of the paths provided
+	 * @return the {@code Path} value of every file to be processed
+	 * @throws IOException if a directory or list could not be read
+	 */
+	private static List<Path> collectFiles(List<String> paths) throws IOException {
+		List<Path> files = new ArrayList<>();
+		for (String value : paths) {
+			if (value.startsWith("@")) {
+				try (Stream<String> lines = Files.lines(Paths.get(value.substring(1)))) {
+					lines.map(String::trim).filter(line -> !line.isEmpty()).map(Paths::get).forEach(files::add);
+				}
+				continue;
+			}
+			Path path = Paths.get(value);
+			if (Files.isDirectory(path)) {
+				try (Stream<Path> walk = Files.walk(path)) {
+					files.addAll(walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList()));
+				}
+			} else {
+				files.add(path);
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * Parses the name of a template given on the command line. Imported templates
+	 * are matched exactly, pre-defined templates ignoring case.
+	 *
+	 * @param registry the registry the template is looked up in
+	 * @param name     the name of the template
+	 * @return the {@code Template}, or null if there is no such template
+	 */
+	private static Template parseTemplate(TemplateRegistry registry, String name) {
+		Template template = registry.get(name);
+		return template != null ? template : registry.get(name.toUpperCase(Locale.ROOT));
+	}
+
+	/**
+	 * Prints how the batch processor should be run.
+	 */
+	private static void printUsage() {
+		System.out.println("Usage: java gui.BatchProcessor [--prepend TEMPLATE] [--append TEMPLATE] [--count]"
+				+ " [--list] PATH...");
+		System.out.println("PATH is a file, a directory or @FILE listing one path per line.");
+		System.out.println("TEMPLATE is one of DEAR, KIND_REGARDS, MANY_THANKS or an imported template.");
+	}
+
+	/**
+	 * Main point of the batch processor. Parses the arguments, processes the files
+	 * across every core and prints the totals, exiting with a non zero status if
+	 * any file failed.
+	 *
+	 * @param args the {@code String} array of arguments, as described above.
+	 */
+	public static void main(String[] args) {
+		TemplateRegistry registry = new TemplateRegistry();
+		registry.load();
+		Template prepend = null;
+		Template append = null;
+		boolean countOnly = false;
+		boolean list = false;
+		List<String> paths = new ArrayList<>();
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+			case "--prepend":
+			case "--append":
+				Template template = i + 1 < args.length ? parseTemplate(registry, args[i + 1]) : null;
+				if (template == null) {
+					printUsage();
+					System.exit(EXIT_USAGE);
+				}
+				if (args[i++].equals("--prepend")) {
+					prepend = template;
+				} else {
+					append = template;
+				}
+				break;
+			case "--count":
+				countOnly = true;
+				break;
+			case "--list":
+				list = true;
+				break;
+			default:
+				paths.add(args[i]);
+			}
+		}
+		if (paths.isEmpty() || (!countOnly && prepend == null && append == null)) {
+			printUsage();
+			System.exit(EXIT_USAGE);
+		}
+
+		List<Path> files;
+		try {
+			files = collectFiles(paths);
+		} catch (IOException e) {
+			System.out.println("Error collecting files: " + e.getMessage());
+			System.exit(EXIT_USAGE);
+			return;
+		}
+
+		BatchProcessor processor = new BatchProcessor(prepend, append, countOnly);
+		ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		long start = System.nanoTime();
+		List<Result> results = processor.process(files, pool);
+		double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+		pool.shutdown();
+
+		long bytes = 0;
+		long chars = 0;
+		int failed = 0;
+		for (Result result : results) {
+			if (result.getError() != null) {
+				failed++;
+				System.out.println("Error: " + result.getPath() + " " + result.getError() + ".");
+				continue;
+			}
+			bytes += result.getSize();
+			chars += result.getCharCount();
+			if (list) {
+				System.out.println(result.getPath() + ": " + result.getCharCount() + " characters");
+			}
+		}
+		int processed = results.size() - failed;
+		System.out.printf("%d files %s, %d failed, %d characters%n", processed, countOnly ? "counted" : "stamped",
+				failed, chars);
+		System.out.printf("%.1f files/s, %.1f MB/s over %d threads%n", processed / seconds,
+				bytes / MEGABYTE / seconds, pool.getParallelism());
+		System.exit(failed == 0 ? EXIT_OK : EXIT_FAILED);
+	}
+
+}
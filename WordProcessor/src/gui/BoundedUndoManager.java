@@ -0,0 +1,1156 @@
+package gui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DocumentFilter;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.CompoundEdit;
+import javax.swing.undo.UndoManager;
+import javax.swing.undo.UndoableEdit;
+
+import file.EditorEvents;
+import file.EditorMetrics;
+
+/**
+ * An {@code UndoManager} that merges consecutive typing or deleting into a
+ * single edit per word, and limits the memory used by the undo history to a
+ * number of bytes rather than a number of edits.
+ *
+ * Each edit is held as the edit made by the document, so undoing recent edits
+ * restores the text and its formatting exactly, along with a plain text record
+ * of the characters inserted or removed. Once the history uses more than its
+ * budget, the oldest edits are moved to a temporary file holding only their text
+ * records and are read back one at a time if the user undoes that far. Edits
+ * waiting to be re-done are moved to a second file in the same way. Edits
+ * read back from a file are applied through the document, as the edits of the
+ * document cannot be used once the text around them has been changed by other
+ * means. For the same reason, once an edit has been read back from a file, every
+ * edit still held in memory is reduced to its text record.
+ *
+ * The text of a removal is no longer in the document by the time the edit is
+ * reported, so the manager also installs a {@code DocumentFilter} in front of
+ * the existing filter of the document to read the text about to be removed.
+ * The same filter times each insert passing through it, and each undo and redo
+ * is timed, both being recorded as {@code EditorEvents} and in the
+ * {@code EditorMetrics}.
+ *
+ * Formatting applied by the program is made through {@code runUnrecorded}. It
+ * is not a step of the history of its own, but is held by the newest step so
+ * the structure of the document is the same when each held edit is undone or
+ * re-done as when it was made.
+ *
+ * Listeners of the document are told of an undo or redo through an event the
+ * document makes for the purpose, which does not let them know which edit it
+ * reverses, so the edit being undone or re-done, as reported to the undoable
+ * edit listeners of the document, is available from {@code getAppliedEdit}
+ * whilst they are told.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see Textual#getUndoRedoManager()
+ */
+public class BoundedUndoManager extends UndoManager {
+	/** Version of the serialisable class. */
+	private static final long serialVersionUID = 1L;
+	/** The default number of bytes the history may use in memory. */
+	public static final long DEFAULT_BUDGET = 4L * 1024 * 1024;
+	/** The most characters merged into a single typing or deleting edit. */
+	private static final int MAX_MERGED = 64;
+	/** The estimated bytes used by an entry regardless of its text. */
+	private static final int ENTRY_OVERHEAD = 64;
+	/** The estimated bytes used by each text record regardless of its text. */
+	private static final int RECORD_OVERHEAD = 32;
+	/** The estimated bytes used by each edit of the document. */
+	private static final int EDIT_OVERHEAD = 256;
+
+	/** The number of bytes the history may use in memory. */
+	private final long budget;
+	/** The document being recorded, null until attached. */
+	private transient AbstractDocument document;
+	/** The entries that can be undone, oldest first. */
+	private final Deque<Entry> undoStack = new ArrayDeque<>();
+	/** The entries that can be re-done, the next to be re-done first. */
+	private final Deque<Entry> redoStack = new ArrayDeque<>();
+	/** The entry further edits may be merged into, or null. */
+	private transient Entry open;
+	/** The estimated bytes used by the entries of both stacks. */
+	private long memoryUsed;
+	/** Holds the oldest entries once they no longer fit in the budget. */
+	private transient SpillFile undoSpill;
+	/** Holds the entries furthest from being re-done once they do not fit. */
+	private transient SpillFile redoSpill;
+
+	/** The text about to be removed, read by the filter, or null. */
+	private transient String pendingText;
+	/** The offset of the text about to be removed. */
+	private int pendingOffset;
+	/** Whether the next insert is part of a replacement already recorded. */
+	private boolean replacing;
+	/** Whether the manager is making edits itself, which are not recorded. */
+	private boolean applying;
+	/** Whether the program is making a change held by the newest entry. */
+	private boolean unrecorded;
+	/** The edit of the document being undone or re-done, or null. */
+	private transient volatile UndoableEdit appliedEdit;
+
+	/**
+	 * Class constructor that limits the history to {@code DEFAULT_BUDGET} bytes.
+	 */
+	public BoundedUndoManager() {
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Class constructor that limits the history to the number of bytes provided.
+	 *
+	 * @param budget the number of bytes the history may use in memory
+	 */
+	public BoundedUndoManager(long budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Starts recording the edits of the document provided. The filter reading
+	 * removed text is installed in front of any filter the document already has,
+	 * so this should be called once the other filters are in place.
+	 *
+	 * @param document the {@code AbstractDocument} to be recorded
+	 */
+	public void attach(AbstractDocument document) {
+		this.document = document;
+		document.setDocumentFilter(new RemovalFilter(document.getDocumentFilter()));
+		document.addUndoableEditListener(this);
+	}
+
+	/**
+	 * Returns the estimated number of bytes used by the history in memory.
+	 *
+	 * @return the bytes used by the history
+	 */
+	public synchronized long getMemoryUsed() {
+		return memoryUsed;
+	}
+
+	/**
+	 * Returns the number of edits that can be undone, including those moved to
+	 * the spill file.
+	 *
+	 * @return the number of edits in the history
+	 */
+	public synchronized int getEditCount() {
+		return undoStack.size() + (undoSpill == null ? 0 : undoSpill.count);
+	}
+
+	/**
+	 * Returns whether a change is being made through {@code runUnrecorded}, i.e
+	 * formatting applied by the program rather than the user.
+	 *
+	 * @return true whilst a change is made without being recorded
+	 */
+	public synchronized boolean isUnrecorded() {
+		return unrecorded;
+	}
+
+	/**
+	 * Returns the edit of the document being undone or re-done, letting the
+	 * listeners of the document know which edit they were told of is being
+	 * reversed. Not synchronized, as the listeners are told whilst the document
+	 * is locked, which an undo or redo locks after the manager.
+	 *
+	 * @return the {@code UndoableEdit} being undone or re-done, or null
+	 */
+	public UndoableEdit getAppliedEdit() {
+		return appliedEdit;
+	}
+
+	/**
+	 * Makes a change to the document without recording it as a step of the
+	 * history, used for formatting applied by the program rather than the user.
+	 * The edits of the change are held by the newest step, so undoing that step
+	 * first undoes the change. The steps waiting to be re-done were undone before
+	 * the change, so if the change alters the document they are reduced to their
+	 * text records, along with the rest of the history.
+	 *
+	 * @param change the change to be made to the document
+	 * @see RestyleEngine
+	 */
+	public synchronized void runUnrecorded(Runnable change) {
+		boolean wasApplying = applying;
+		boolean wasUnrecorded = unrecorded;
+		applying = true;
+		unrecorded = true;
+		try {
+			change.run();
+		} finally {
+			applying = wasApplying;
+			unrecorded = wasUnrecorded;
+		}
+	}
+
+	@Override
+	public void undoableEditHappened(UndoableEditEvent e) {
+		addEdit(e.getEdit());
+	}
+
+	@Override
+	public synchronized boolean addEdit(UndoableEdit edit) {
+		if (unrecorded) {
+			hold(edit);
+			return true;
+		}
+		if (applying) {
+			return false;
+		}
+		Record record = null;
+		boolean known = true;
+		int kind = Entry.OTHER;
+		if (edit instanceof DocumentEvent) {
+			DocumentEvent event = (DocumentEvent) edit;
+			if (event.getType() == DocumentEvent.EventType.INSERT) {
+				try {
+					record = new Record(true, event.getOffset(), document.getText(event.getOffset(), event.getLength()));
+				} catch (BadLocationException ex) {
+					known = false;
+				}
+				kind = event.getLength() == 1 ? Entry.TYPING : Entry.OTHER;
+			} else if (event.getType() == DocumentEvent.EventType.REMOVE) {
+				if (pendingText != null && pendingOffset == event.getOffset()
+						&& pendingText.length() == event.getLength()) {
+					record = new Record(false, event.getOffset(), pendingText);
+				} else {
+					known = false;
+				}
+				pendingText = null;
+				kind = replacing ? Entry.REPLACE : event.getLength() == 1 ? Entry.DELETING : Entry.OTHER;
+			}
+		} else {
+			known = false;
+		}
+
+		clearRedo();
+		if (!merge(edit, record)) {
+			closeOpen();
+			open = new Entry(kind);
+			undoStack.addLast(open);
+			memoryUsed += open.size;
+			add(open, edit, record, known);
+		}
+		if (open != null && open.kind == Entry.OTHER) {
+			closeOpen();
+		}
+		trim();
+		return true;
+	}
+
+	/**
+	 * Adds an edit to the open entry if it continues the typing, deleting or
+	 * replacement of that entry.
+	 *
+	 * @param edit   the edit made by the document
+	 * @param record the text record of the edit, or null
+	 * @return true if the edit was merged
+	 */
+	private boolean merge(UndoableEdit edit, Record record) {
+		if (open == null || record == null || open.records.isEmpty()) {
+			return false;
+		}
+		Record last = open.records.get(open.records.size() - 1);
+		String text = record.text;
+		switch (open.kind) {
+		case Entry.TYPING:
+			if (!record.insert || text.length() != 1 || record.offset != last.offset + last.text.length()
+					|| last.text.length() >= MAX_MERGED) {
+				return false;
+			}
+			// A word and the spaces after it form one edit.
+			char previous = last.text.charAt(last.text.length() - 1);
+			if (Character.isWhitespace(previous) && !Character.isWhitespace(text.charAt(0))) {
+				return false;
+			}
+			add(open, edit, null, true);
+			resize(open, () -> last.text += text);
+			return true;
+		case Entry.DELETING:
+			if (record.insert || text.length() != 1 || last.text.length() >= MAX_MERGED) {
+				return false;
+			}
+			if (record.offset + 1 == last.offset) {
+				// Backspace, the removed character is before the last one.
+				add(open, edit, null, true);
+				resize(open, () -> {
+					last.text = text + last.text;
+					last.offset = record.offset;
+				});
+				return true;
+			} else if (record.offset == last.offset) {
+				// Delete, the removed character was after the last one.
+				add(open, edit, null, true);
+				resize(open, () -> last.text += text);
+				return true;
+			}
+			return false;
+		case Entry.REPLACE:
+			if (!replacing || !record.insert || record.offset != last.offset) {
+				return false;
+			}
+			add(open, edit, record, true);
+			closeOpen();
+			return true;
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Adds an edit made through {@code runUnrecorded} to the newest entry, after
+	 * the edits it already holds. The edit is released instead if there is no
+	 * entry holding edits of the document to undo it with, as the entries are
+	 * then applied through their text records, which do not depend on the
+	 * structure of the document.
+	 *
+	 * @param edit the edit made by the document
+	 */
+	private void hold(UndoableEdit edit) {
+		Entry next = redoStack.peekFirst();
+		if (next != null && next.edit != null) {
+			reduceToText();
+		}
+		Entry last = undoStack.peekLast();
+		if (last == null || last.edit == null) {
+			edit.die();
+			return;
+		}
+		long before = last.size;
+		last.edit.append(new HeldEdit(edit));
+		last.edits++;
+		last.measure();
+		memoryUsed += last.size - before;
+		trim();
+	}
+
+	/**
+	 * Adds an edit of the document and its text record to an entry, updating the
+	 * memory used.
+	 *
+	 * @param entry  the entry to add to
+	 * @param edit   the edit made by the document
+	 * @param record the text record of the edit, or null if merged into the last
+	 * @param known  whether the text of the edit is known
+	 */
+	private void add(Entry entry, UndoableEdit edit, Record record, boolean known) {
+		long before = entry.size;
+		entry.edit.addEdit(new HeldEdit(edit));
+		entry.edits++;
+		if (record != null) {
+			entry.records.add(record);
+		}
+		entry.known &= known;
+		entry.measure();
+		memoryUsed += entry.size - before;
+	}
+
+	/**
+	 * Changes the text record of an entry, updating the memory used.
+	 *
+	 * @param entry  the entry being changed
+	 * @param change the change to its records
+	 */
+	private void resize(Entry entry, Runnable change) {
+		long before = entry.size;
+		change.run();
+		entry.measure();
+		memoryUsed += entry.size - before;
+	}
+
+	/**
+	 * Stops further edits being merged into the open entry.
+	 */
+	private void closeOpen() {
+		if (open != null) {
+			open.close();
+			open = null;
+		}
+	}
+
+	/**
+	 * Removes every entry that can be re-done, as a new edit has been made.
+	 */
+	private void clearRedo() {
+		for (Entry entry : redoStack) {
+			memoryUsed -= entry.size;
+			entry.die();
+		}
+		redoStack.clear();
+		clear(redoSpill);
+	}
+
+	/**
+	 * Moves the oldest entries to the undo spill file until the history fits its
+	 * budget. If the history still does not fit, the entries furthest from being
+	 * re-done are moved to the redo spill file.
+	 */
+	private void trim() {
+		while (memoryUsed > budget && !undoStack.isEmpty()) {
+			Entry entry = undoStack.removeFirst();
+			if (entry == open) {
+				open = null;
+			}
+			memoryUsed -= entry.size;
+			entry.close();
+			undoSpill = spill(entry, undoSpill);
+			entry.die();
+		}
+		while (memoryUsed > budget && !redoStack.isEmpty()) {
+			Entry entry = redoStack.removeLast();
+			memoryUsed -= entry.size;
+			redoSpill = spill(entry, redoSpill);
+			entry.die();
+		}
+	}
+
+	/**
+	 * Writes the text records of an entry to a spill file, creating the file if
+	 * needed. An entry whose text is not known cannot be applied once it leaves
+	 * memory, so the entries already in the file, which depend on it, are removed
+	 * instead.
+	 *
+	 * @param entry the entry to be spilled
+	 * @param file  the spill file to write to, or null if not yet created
+	 * @return the spill file, or null if it could not be created
+	 */
+	private static SpillFile spill(Entry entry, SpillFile file) {
+		if (!entry.known) {
+			clear(file);
+			return file;
+		}
+		if (entry.records.isEmpty()) {
+			// Formatting alone is not kept once it leaves memory.
+			return file;
+		}
+		try {
+			if (file == null) {
+				file = new SpillFile();
+			}
+			file.push(entry.records);
+		} catch (IOException e) {
+			System.out.println("Error writing undo history.");
+			clear(file);
+		}
+		return file;
+	}
+
+	/**
+	 * Removes every entry from a spill file, if it has been created.
+	 *
+	 * @param file the spill file to be cleared, or null
+	 */
+	private static void clear(SpillFile file) {
+		if (file != null) {
+			file.clear();
+		}
+	}
+
+	/**
+	 * Reduces every entry held in memory to its text record, removing the entries
+	 * whose text is not known along with those they depend on.
+	 */
+	private void reduceToText() {
+		closeOpen();
+		// An unknown undo entry can no longer be undone, nor can anything older.
+		Entry unknown = null;
+		for (Entry entry : undoStack) {
+			if (!entry.known) {
+				unknown = entry;
+			}
+		}
+		if (unknown != null) {
+			Entry entry;
+			do {
+				entry = undoStack.removeFirst();
+				memoryUsed -= entry.size;
+				entry.die();
+			} while (entry != unknown);
+			clear(undoSpill);
+		}
+		// An unknown redo entry can no longer be re-done, nor can anything newer.
+		boolean remove = false;
+		for (Iterator<Entry> it = redoStack.iterator(); it.hasNext();) {
+			Entry entry = it.next();
+			remove |= !entry.known;
+			if (remove) {
+				memoryUsed -= entry.size;
+				entry.die();
+				it.remove();
+			}
+		}
+		if (remove) {
+			clear(redoSpill);
+		}
+		for (Entry entry : undoStack) {
+			reduce(entry);
+		}
+		for (Entry entry : redoStack) {
+			reduce(entry);
+		}
+	}
+
+	/**
+	 * Replaces the edits of the document held by an entry with its text record.
+	 *
+	 * @param entry the entry to be reduced
+	 */
+	private void reduce(Entry entry) {
+		long before = entry.size;
+		entry.die();
+		entry.edit = null;
+		entry.edits = 0;
+		entry.measure();
+		memoryUsed += entry.size - before;
+	}
+
+	@Override
+	public synchronized boolean canUndo() {
+		return !undoStack.isEmpty() || (undoSpill != null && !undoSpill.isEmpty());
+	}
+
+	@Override
+	public synchronized boolean canRedo() {
+		return !redoStack.isEmpty() || (redoSpill != null && !redoSpill.isEmpty());
+	}
+
+	@Override
+	public synchronized void undo() throws CannotUndoException {
+		EditorEvents.UndoRedo event = new EditorEvents.UndoRedo();
+		event.begin();
+		long start = System.nanoTime();
+		closeOpen();
+		Entry entry = undoStack.pollLast();
+		if (entry == null) {
+			event.spilled = true;
+			entry = readSpilled(undoSpill);
+			if (entry == null) {
+				throw new CannotUndoException();
+			}
+			reduceToText();
+			memoryUsed += entry.size;
+		}
+		applying = true;
+		try {
+			entry.undo(document);
+		} catch (BadLocationException e) {
+			memoryUsed -= entry.size;
+			throw new CannotUndoException();
+		} finally {
+			applying = false;
+		}
+		redoStack.addFirst(entry);
+		trim();
+		event.commit();
+		EditorMetrics.get().record(EditorMetrics.Operation.UNDO_REDO, start);
+	}
+
+	@Override
+	public synchronized void redo() throws CannotRedoException {
+		EditorEvents.UndoRedo event = new EditorEvents.UndoRedo();
+		event.begin();
+		long start = System.nanoTime();
+		event.redo = true;
+		closeOpen();
+		Entry entry = redoStack.pollFirst();
+		if (entry == null) {
+			event.spilled = true;
+			entry = readSpilled(redoSpill);
+			if (entry == null) {
+				throw new CannotRedoException();
+			}
+			reduceToText();
+			memoryUsed += entry.size;
+		}
+		applying = true;
+		try {
+			entry.redo(document);
+		} catch (BadLocationException e) {
+			memoryUsed -= entry.size;
+			throw new CannotRedoException();
+		} finally {
+			applying = false;
+		}
+		undoStack.addLast(entry);
+		trim();
+		event.commit();
+		EditorMetrics.get().record(EditorMetrics.Operation.UNDO_REDO, start);
+	}
+
+	/**
+	 * Reads the entry last wrote to a spill file back from the file.
+	 *
+	 * @param file the spill file to read from, or null
+	 * @return the {@code Entry} read, or null if there are no spilled entries
+	 */
+	private static Entry readSpilled(SpillFile file) {
+		if (file == null || file.isEmpty()) {
+			return null;
+		}
+		try {
+			Entry entry = new Entry(Entry.OTHER);
+			entry.close();
+			entry.edit = null;
+			entry.records.addAll(file.pop());
+			entry.measure();
+			return entry;
+		} catch (IOException e) {
+			System.out.println("Error reading undo history.");
+			file.clear();
+			return null;
+		}
+	}
+
+	/**
+	 * Moves every entry held in memory to the spill files, used whilst the text of
+	 * the document is held elsewhere so the history takes no memory. The entries
+	 * are read back from the files as they are undone or re-done once the text is
+	 * back in the document, exactly as entries trimmed to fit the budget are. As
+	 * when trimmed, a step that only changed formatting is not kept.
+	 */
+	public synchronized void spillAll() {
+		closeOpen();
+		while (!undoStack.isEmpty()) {
+			Entry entry = undoStack.removeFirst();
+			memoryUsed -= entry.size;
+			undoSpill = spill(entry, undoSpill);
+			entry.die();
+		}
+		while (!redoStack.isEmpty()) {
+			Entry entry = redoStack.removeLast();
+			memoryUsed -= entry.size;
+			redoSpill = spill(entry, redoSpill);
+			entry.die();
+		}
+	}
+
+	@Override
+	public synchronized void discardAllEdits() {
+		open = null;
+		for (Entry entry : undoStack) {
+			entry.die();
+		}
+		undoStack.clear();
+		clearRedo();
+		memoryUsed = 0;
+		clear(undoSpill);
+	}
+
+	/**
+	 * Discards every edit and closes and deletes the spill files, used when the
+	 * tab of the document is closed. A spill file is created again if the manager
+	 * is used afterwards.
+	 */
+	public synchronized void close() {
+		discardAllEdits();
+		close(undoSpill);
+		close(redoSpill);
+		undoSpill = null;
+		redoSpill = null;
+	}
+
+	/**
+	 * Closes and deletes a spill file, if it has been created.
+	 *
+	 * @param file the spill file to be closed, or null
+	 */
+	private static void close(SpillFile file) {
+		if (file != null) {
+			file.close();
+		}
+	}
+
+	@Override
+	public synchronized String getUndoPresentationName() {
+		return "Undo";
+	}
+
+	@Override
+	public synchronized String getRedoPresentationName() {
+		return "Redo";
+	}
+
+	/**
+	 * Reads the text about to be removed from the document, before passing the
+	 * removal on to the filter it was installed in front of.
+	 */
+	private class RemovalFilter extends DocumentFilter {
+		/** The filter of the document before this was installed, may be null. */
+		private final DocumentFilter next;
+
+		/**
+		 * Class constructor that accepts the filter to pass each change on to.
+		 *
+		 * @param next the existing filter of the document, or null
+		 */
+		RemovalFilter(DocumentFilter next) {
+			this.next = next;
+		}
+
+		@Override
+		public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+			readRemoval(offset, length);
+			if (next != null) {
+				next.remove(fb, offset, length);
+			} else {
+				fb.remove(offset, length);
+			}
+		}
+
+		@Override
+		public void insertString(FilterBypass fb, int offset, String string, AttributeSet attr)
+				throws BadLocationException {
+			EditorEvents.DocumentInsert event = new EditorEvents.DocumentInsert();
+			event.begin();
+			long start = System.nanoTime();
+			if (next != null) {
+				next.insertString(fb, offset, string, attr);
+			} else {
+				fb.insertString(offset, string, attr);
+			}
+			recordInsert(event, start, offset, string);
+		}
+
+		@Override
+		public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
+				throws BadLocationException {
+			readRemoval(offset, length);
+			synchronized (BoundedUndoManager.this) {
+				replacing = length > 0 && text != null && !text.isEmpty();
+			}
+			try {
+				EditorEvents.DocumentInsert event = new EditorEvents.DocumentInsert();
+				event.begin();
+				long start = System.nanoTime();
+				if (next != null) {
+					next.replace(fb, offset, length, text, attrs);
+				} else {
+					fb.replace(offset, length, text, attrs);
+				}
+				recordInsert(event, start, offset, text);
+			} finally {
+				synchronized (BoundedUndoManager.this) {
+					replacing = false;
+				}
+			}
+		}
+
+		/**
+		 * Holds the text of the range about to be removed until its edit is
+		 * reported.
+		 *
+		 * @param offset the offset of the range
+		 * @param length the length of the range
+		 * @throws BadLocationException if the range is not within the document
+		 */
+		private void readRemoval(int offset, int length) throws BadLocationException {
+			synchronized (BoundedUndoManager.this) {
+				if (length > 0 && !applying) {
+					pendingText = document.getText(offset, length);
+					pendingOffset = offset;
+				}
+			}
+		}
+
+		/**
+		 * Records an insert that has just been made, unless no text was inserted,
+		 * i.e a replacement that only removed text.
+		 *
+		 * @param event  the {@code DocumentInsert} event begun before the insert
+		 * @param start  the value of {@code System.nanoTime()} before the insert
+		 * @param offset the offset the text was inserted at
+		 * @param text   the text inserted, may be null
+		 */
+		private void recordInsert(EditorEvents.DocumentInsert event, long start, int offset, String text) {
+			if (text == null || text.isEmpty()) {
+				return;
+			}
+			event.offset = offset;
+			event.length = text.length();
+			event.commit();
+			EditorMetrics.get().record(EditorMetrics.Operation.DOCUMENT_INSERT, start);
+		}
+	}
+
+	/**
+	 * The characters inserted or removed at an offset by an edit.
+	 */
+	private static class Record {
+		/** Whether the text was inserted, otherwise it was removed. */
+		private final boolean insert;
+		/** The offset the text was inserted at or removed from. */
+		private int offset;
+		/** The text inserted or removed. */
+		private String text;
+
+		/**
+		 * Class constructor that accepts the change made.
+		 *
+		 * @param insert whether the text was inserted
+		 * @param offset the offset of the change
+		 * @param text   the text inserted or removed
+		 */
+		Record(boolean insert, int offset, String text) {
+			this.insert = insert;
+			this.offset = offset;
+			this.text = text;
+		}
+	}
+
+	/**
+	 * A single step of the history, one or more edits of the document undone and
+	 * re-done together, along with their text records.
+	 */
+	private static class Entry {
+		/** An entry of single characters typed. */
+		static final int TYPING = 0;
+		/** An entry of single characters deleted. */
+		static final int DELETING = 1;
+		/** An entry of text removed and replaced. */
+		static final int REPLACE = 2;
+		/** Any other entry, which nothing is merged into. */
+		static final int OTHER = 3;
+
+		/** The kind of edits the entry holds. */
+		private final int kind;
+		/** The edits of the document, or null once reduced to text. */
+		private EntryEdit edit = new EntryEdit();
+		/** The number of edits of the document held. */
+		private int edits;
+		/** The text records of the edits, in the order made. */
+		private final List<Record> records = new ArrayList<>();
+		/** Whether the text of every edit is known. */
+		private boolean known = true;
+		/** The estimated bytes used by the entry. */
+		private long size = ENTRY_OVERHEAD;
+
+		/**
+		 * Class constructor that accepts the kind of edits the entry holds.
+		 *
+		 * @param kind the kind of edits
+		 */
+		Entry(int kind) {
+			this.kind = kind;
+		}
+
+		/**
+		 * Works out the estimated bytes used by the entry.
+		 */
+		void measure() {
+			long total = ENTRY_OVERHEAD;
+			for (Record record : records) {
+				total += RECORD_OVERHEAD + 2L * record.text.length();
+				if (edit != null && !record.insert) {
+					// The edit of the document also holds the removed text.
+					total += 2L * record.text.length();
+				}
+			}
+			size = total + (long) edits * EDIT_OVERHEAD;
+		}
+
+		/**
+		 * Stops further edits being added to the entry.
+		 */
+		void close() {
+			if (edit != null && edit.isInProgress()) {
+				edit.end();
+			}
+		}
+
+		/**
+		 * Releases the edits of the document held by the entry.
+		 */
+		void die() {
+			if (edit != null) {
+				close();
+				edit.die();
+			}
+		}
+
+		/**
+		 * Undoes the entry, through its edits of the document if held, otherwise
+		 * by reversing its text records in the document.
+		 *
+		 * @param document the document the entry was made in
+		 * @throws BadLocationException if a record is outside the document
+		 */
+		void undo(AbstractDocument document) throws BadLocationException {
+			close();
+			if (edit != null) {
+				edit.undo();
+				return;
+			}
+			for (int i = records.size() - 1; i >= 0; i--) {
+				Record record = records.get(i);
+				if (record.insert) {
+					document.remove(record.offset, record.text.length());
+				} else {
+					document.insertString(record.offset, record.text, null);
+				}
+			}
+		}
+
+		/**
+		 * Re-does the entry, through its edits of the document if held, otherwise by
+		 * applying its text records to the document again.
+		 *
+		 * @param document the document the entry was made in
+		 * @throws BadLocationException if a record is outside the document
+		 */
+		void redo(AbstractDocument document) throws BadLocationException {
+			if (edit != null) {
+				edit.redo();
+				return;
+			}
+			for (Record record : records) {
+				if (record.insert) {
+					document.insertString(record.offset, record.text, null);
+				} else {
+					document.remove(record.offset, record.text.length());
+				}
+			}
+		}
+	}
+
+	/**
+	 * The edits of the document held by an entry, to which the edits of the
+	 * program may still be added once the entry is closed.
+	 */
+	private static class EntryEdit extends CompoundEdit {
+		/** Version of the serialisable class. */
+		private static final long serialVersionUID = 1L;
+
+		/**
+		 * Adds an edit after those already held, whether or not the entry is
+		 * closed.
+		 *
+		 * @param edit the edit to be added
+		 */
+		void append(UndoableEdit edit) {
+			edits.addElement(edit);
+		}
+	}
+
+	/**
+	 * An edit of the document held by an entry, noted as the edit being applied
+	 * whilst it is undone or re-done.
+	 */
+	private class HeldEdit implements UndoableEdit {
+		/** The edit made by the document. */
+		private final UndoableEdit edit;
+
+		/**
+		 * Class constructor that accepts the edit to be held.
+		 *
+		 * @param edit the edit made by the document
+		 */
+		HeldEdit(UndoableEdit edit) {
+			this.edit = edit;
+		}
+
+		@Override
+		public void undo() throws CannotUndoException {
+			UndoableEdit previous = appliedEdit;
+			appliedEdit = edit;
+			try {
+				edit.undo();
+			} finally {
+				appliedEdit = previous;
+			}
+		}
+
+		@Override
+		public boolean canUndo() {
+			return edit.canUndo();
+		}
+
+		@Override
+		public void redo() throws CannotRedoException {
+			UndoableEdit previous = appliedEdit;
+			appliedEdit = edit;
+			try {
+				edit.redo();
+			} finally {
+				appliedEdit = previous;
+			}
+		}
+
+		@Override
+		public boolean canRedo() {
+			return edit.canRedo();
+		}
+
+		@Override
+		public void die() {
+			edit.die();
+		}
+
+		@Override
+		public boolean addEdit(UndoableEdit anEdit) {
+			return false;
+		}
+
+		@Override
+		public boolean replaceEdit(UndoableEdit anEdit) {
+			return false;
+		}
+
+		@Override
+		public boolean isSignificant() {
+			return edit.isSignificant();
+		}
+
+		@Override
+		public String getPresentationName() {
+			return edit.getPresentationName();
+		}
+
+		@Override
+		public String getUndoPresentationName() {
+			return edit.getUndoPresentationName();
+		}
+
+		@Override
+		public String getRedoPresentationName() {
+			return edit.getRedoPresentationName();
+		}
+	}
+
+	/**
+	 * A temporary file holding the text records of the oldest entries as a stack,
+	 * the newest entry at the end of the file. Reading an entry back truncates the
+	 * file to where the entry began. The file is deleted when it is closed, or
+	 * when the program exits if it never is.
+	 */
+	private static class SpillFile {
+		/** The location of the file. */
+		private final Path path;
+		/** The file the entries are wrote to. */
+		private final RandomAccessFile file;
+		/** The offset in the file of the start of each entry. */
+		private long[] starts = new long[16];
+		/** The number of entries in the file. */
+		private int count;
+
+		/**
+		 * Class constructor that creates the temporary file.
+		 *
+		 * @throws IOException if the file could not be created
+		 */
+		SpillFile() throws IOException {
+			path = Files.createTempFile("textual-undo", ".bin");
+			path.toFile().deleteOnExit();
+			file = new RandomAccessFile(path.toFile(), "rw");
+		}
+
+		/**
+		 * Determines whether the file holds no entries.
+		 *
+		 * @return true if there are no entries
+		 */
+		boolean isEmpty() {
+			return count == 0;
+		}
+
+		/**
+		 * Writes the records of an entry to the end of the file. Each record is its
+		 * type, offset and the length and UTF-8 bytes of its text.
+		 *
+		 * @param records the records of the entry
+		 * @throws IOException if the file could not be wrote
+		 */
+		void push(List<Record> records) throws IOException {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(records.size());
+			for (Record record : records) {
+				byte[] text = record.text.getBytes(StandardCharsets.UTF_8);
+				out.writeBoolean(record.insert);
+				out.writeInt(record.offset);
+				out.writeInt(text.length);
+				out.write(text);
+			}
+			long start = file.length();
+			file.seek(start);
+			file.write(bytes.toByteArray());
+			if (count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+			}
+			starts[count++] = start;
+		}
+
+		/**
+		 * Reads the newest entry from the end of the file and removes it.
+		 *
+		 * @return the records of the entry
+		 * @throws IOException if the file could not be read
+		 */
+		List<Record> pop() throws IOException {
+			long start = starts[--count];
+			byte[] bytes = new byte[(int) (file.length() - start)];
+			file.seek(start);
+			file.readFully(bytes);
+			file.setLength(start);
+			DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+			int size = in.readInt();
+			List<Record> records = new ArrayList<>(size);
+			for (int i = 0; i < size; i++) {
+				boolean insert = in.readBoolean();
+				int offset = in.readInt();
+				byte[] text = new byte[in.readInt()];
+				in.readFully(text);
+				records.add(new Record(insert, offset, new String(text, StandardCharsets.UTF_8)));
+			}
+			return records;
+		}
+
+		/**
+		 * Removes every entry from the file.
+		 */
+		void clear() {
+			count = 0;
+			try {
+				file.setLength(0);
+			} catch (IOException e) {
+				System.out.println("Error clearing undo history.");
+			}
+		}
+
+		/**
+		 * Closes the file and deletes it.
+		 */
+		void close() {
+			count = 0;
+			try {
+				file.close();
+				Files.deleteIfExists(path);
+			} catch (IOException e) {
+				System.out.println("Error removing undo history.");
+			}
+		}
+	}
+}
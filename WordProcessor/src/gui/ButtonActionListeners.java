@@ -1,17 +1,42 @@
 package gui;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnmappableCharacterException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.UnaryOperator;
+
 import javax.swing.JButton;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JToggleButton;
+import javax.swing.SwingUtilities;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyledDocument;
 import javax.swing.text.StyledEditorKit;
 import javax.swing.undo.CannotRedoException;
 import javax.swing.undo.CannotUndoException;
 
+import file.AsyncFileManipulation;
+import file.ChunkedFileReader;
+import file.EditorEvents;
+import file.EditorMetrics;
+import file.ExportFormat;
+import file.FileFingerprint;
 import file.FileManipulation;
+import file.MappedTextFile;
+import file.MarkdownExport;
 import file.PathValidation;
-import file.PopulatedTemplates;
-import file.Templates;
+import file.RichTextFile;
+import file.Template;
+import file.TextEncoding;
 
 
 /**
@@ -25,22 +50,33 @@ import file.Templates;
  * @see Textual
  */
 public class ButtonActionListeners {
-	/** Allows instances of the pre-defined templates to be acquired. */
-	private PopulatedTemplates templates;
 	/** Allows the getter and setter methods to be accessed in this class. */
 	private Textual gui = new Textual();
 	/** Handles disk operations i.e writing and getting byte value of document. */
 	private FileManipulation fileManip = new FileManipulation();
+	/** Handles disk operations on the I/O executor so the window never blocks. */
+	private AsyncFileManipulation asyncManip = new AsyncFileManipulation();
 	/** Handles the system dialog operation i.e showing the open/save system explorer dialog. */
 	private SystemExplorer sysExplorer;
 	/** Handles path validation operations and whether a path to a file exists. */
 	private PathValidation path = new PathValidation();
+	/**
+	 * The size in bytes above which a file is offered in read-only mode rather
+	 * than being loaded into the text pane. As each byte can take up to two bytes
+	 * as a character, plus the overhead of the document, this is kept well below
+	 * the memory available to the JVM.
+	 */
+	private static final long LARGE_FILE_SIZE = Math.min(Integer.MAX_VALUE / 2,
+			Runtime.getRuntime().maxMemory() / 8);
 
 	/**
 	 * Used to handle the action of the newMenuItem button being triggered. When
 	 * invoked, a new file is attempted to be created, first checking if it already
 	 * exists and if the location specified is valid.
 	 * 
+	 * The file is created on the I/O executor and shown in a tab, if it could not
+	 * be created the user is told why once the attempt has finished.
+	 * 
 	 * @param menuNew the {@code JMenuItem} button that triggers this method
 	 */
 	public void newFile(JMenuItem menuNew) {
@@ -48,16 +84,21 @@ public class ButtonActionListeners {
 			sysExplorer = new SaveExplorer();
 			sysExplorer.showDialog();
 			String value = sysExplorer.getFileSelected();
-			if (value != null) {
-				// If a location has been specified by the user.
-				if (path.isPathValid(value) && !(path.doesPathExist(path.getPathValue()))) {
-					// If the path is valid and does not exist.
-					fileManip.newFile(path.getPathValue());
-					gui.setTextPane(null);
-				}
-			} else {
-				JOptionPane.showMessageDialog(null, "A file already exists with that name.", "File Already Exists",
-						JOptionPane.ERROR_MESSAGE);
+			if (value != null && path.isPathValid(value)) {
+				// If a valid location has been specified by the user.
+				Path file = path.getPathValue();
+				asyncManip.newFile(file).whenCompleteAsync((v, ex) -> {
+					if (ex == null) {
+						SystemExplorer.fileChanged(file);
+						gui.getRecentFiles().add(file);
+						gui.openTab().setFile(file);
+					} else if (unwrap(ex) instanceof FileAlreadyExistsException) {
+						JOptionPane.showMessageDialog(null, "A file already exists with that name.",
+								"File Already Exists", JOptionPane.ERROR_MESSAGE);
+					} else {
+						showError("The file could not be created.", "Error Creating File", ex);
+					}
+				}, SwingUtilities::invokeLater);
 			}
 
 		});
@@ -67,11 +108,28 @@ public class ButtonActionListeners {
 	 * Used to handle the action of the newMenuOpen button being triggered. When
 	 * invoked, the file chosen is attempted to be opened, first checking if it
 	 * already exists and if the location specified is valid. If the file can be
-	 * opened, the byte value of the file is passed into the {@code setTextArea}
-	 * method of the GUI class.
+	 * opened, a reader of the file is passed into the {@code loadTextPane} method
+	 * of the tab it is opened in, which loads the file in chunks off the event
+	 * dispatch thread. The file is opened in the tab in view if it is unused,
+	 * otherwise in a new tab.
+	 * 
+	 * A file larger than {@code LARGE_FILE_SIZE} cannot be held in the text pane,
+	 * so the user is instead offered to open it in a {@code LargeFileViewer}.
+	 * 
+	 * A Textual document is instead read in full and prepared into the structure
+	 * of the document on the I/O executor, then loaded in a single step. A
+	 * document too large to be held in the text pane cannot be viewed in
+	 * read-only mode, so the user is told it cannot be opened.
+	 * 
+	 * A file closed recently is opened from its snapshot instead, if the file has
+	 * not changed since, loading it in a single step with the caret and view
+	 * where they were left.
+	 * 
+	 * The size of the file is read and the file opened on the I/O executor, so a
+	 * slow disk does not freeze the window.
 	 * 
 	 * @param menuOpen the {@code JMenuItem} button that triggers this method
-	 * @see Textual#setTextPane(byte[])
+	 * @see #open(Path)
 	 */
 	public void openFile(JMenuItem menuOpen) {
 		menuOpen.addActionListener(e -> {
@@ -80,12 +138,202 @@ public class ButtonActionListeners {
 			String value = sysExplorer.getFileSelected();
 			if (path.isPathValid(value)) {
 				// If the path is valid
-				byte[] bytes = fileManip.getFileContents(path.getPathValue());
-				gui.setTextPane(bytes);
+				open(path.getPathValue());
 			}
 		});
 	}
 
+	/**
+	 * Handles the action of a recent file menu item being triggered, opening the
+	 * file whose path is held in the action command of the item straight away,
+	 * without showing the system explorer.
+	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see file.RecentFiles
+	 * @see #open(Path)
+	 */
+	public void openRecentFile(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> {
+			if (path.isPathValid(e.getActionCommand())) {
+				open(path.getPathValue());
+			}
+		});
+	}
+
+	/**
+	 * Opens a file as described by {@code openFile}. Once the file is being
+	 * opened it is moved to the top of the recent files, and if it no longer
+	 * exists it is removed from them.
+	 * 
+	 * @param file the {@code Path} value of the file to be opened
+	 * @see #openSnapshot(Path)
+	 * @see LargeFileViewer
+	 */
+	private void open(Path file) {
+		asyncManip.supply(() -> Files.size(file) > LARGE_FILE_SIZE).whenCompleteAsync((large, ex) -> {
+			if (ex != null) {
+				if (unwrap(ex) instanceof NoSuchFileException) {
+					gui.getRecentFiles().remove(file);
+				}
+				showError("The file could not be opened.", "Error Opening File", ex);
+			} else if (RichTextFile.isRichTextFile(file)) {
+				if (large) {
+					openRichTextFile(file, true);
+				} else {
+					openSnapshot(file);
+				}
+			} else if (large) {
+				openLargeFile(file);
+			} else {
+				openSnapshot(file);
+			}
+		}, SwingUtilities::invokeLater);
+	}
+
+	/**
+	 * Opens a file from its snapshot in the {@code SnapshotCache}, if it has one
+	 * and the file has not changed since it was taken, which loads it in a single
+	 * step and puts back the caret and view. The snapshot is found, checked and
+	 * read on the I/O executor, then prepared for the tab it is opened in. If
+	 * there is no snapshot the file is read as described by {@code openFile}.
+	 * 
+	 * @param file the {@code Path} value of the file to be opened
+	 * @see DocumentTab#loadSnapshot(RichDocument.Contents, file.SnapshotCache.Snapshot, Path)
+	 */
+	private void openSnapshot(Path file) {
+		asyncManip.supply(() -> gui.getSnapshotCache().find(file)).whenCompleteAsync((snapshot, ex) -> {
+			if (ex != null || snapshot == null) {
+				openFromDisk(file);
+				return;
+			}
+			DocumentTab tab = gui.openTab();
+			RichDocument document = tab.getRichDocument();
+			asyncManip.supply(() -> document.prepare(snapshot.getDocument())).whenCompleteAsync((contents, failure) -> {
+				if (failure == null) {
+					gui.getRecentFiles().add(file);
+					tab.loadSnapshot(contents, snapshot, file);
+				} else {
+					// The tab is still unused, so the file is read into it.
+					openFromDisk(file);
+				}
+			}, SwingUtilities::invokeLater);
+		}, SwingUtilities::invokeLater);
+	}
+
+	/**
+	 * Reads a file that is small enough to be edited into a tab, as described by
+	 * {@code openFile}, without looking for a snapshot of it.
+	 * 
+	 * @param file the {@code Path} value of the file to be opened
+	 * @see Textual#openTab()
+	 * @see DocumentTab#loadTextPane(ChunkedFileReader, Path, java.util.concurrent.Executor)
+	 * @see DocumentTab#loadRichTextPane(RichDocument.Contents, Path, FileFingerprint)
+	 */
+	private void openFromDisk(Path file) {
+		if (RichTextFile.isRichTextFile(file)) {
+			openRichTextFile(file, false);
+			return;
+		}
+		asyncManip.supply(() -> new ChunkedFileReader(file, ChunkedFileReader.DEFAULT_CHUNK_SIZE))
+				.whenCompleteAsync((reader, failure) -> {
+					if (failure == null) {
+						gui.getRecentFiles().add(file);
+						gui.openTab().loadTextPane(reader, file, asyncManip.getExecutor());
+					} else {
+						showError("The file could not be opened.", "Error Opening File", failure);
+					}
+				}, SwingUtilities::invokeLater);
+	}
+
+	/**
+	 * Handles the opening of a Textual document. The document is read and
+	 * prepared on the I/O executor, then loaded into the text pane of its tab on
+	 * the event dispatch thread. As the document is prepared for the tab it is
+	 * opened in, the tab is opened first and closed again if the document cannot
+	 * be read.
+	 * 
+	 * @param file  the {@code Path} value of the document to be opened
+	 * @param large whether the document is too large to be held in the text pane
+	 */
+	private void openRichTextFile(Path file, boolean large) {
+		if (large) {
+			JOptionPane.showMessageDialog(null, "This document is too large to be opened.", "Error Opening File",
+					JOptionPane.ERROR_MESSAGE);
+			return;
+		}
+		DocumentTab current = gui.getCurrentTab();
+		DocumentTab tab = gui.openTab();
+		RichDocument document = tab.getRichDocument();
+		FileFingerprint[] fingerprint = { null };
+		asyncManip.supply(() -> {
+			// Read first, so a change made whilst the file is read is never missed.
+			fingerprint[0] = FileFingerprint.read(file);
+			return document.prepare(new RichTextFile(file));
+		}).whenCompleteAsync((contents, ex) -> {
+			if (ex == null) {
+				gui.getRecentFiles().add(file);
+				tab.loadRichTextPane(contents, file, fingerprint[0]);
+			} else {
+				if (tab != current) {
+					gui.closeTab(tab);
+				}
+				showError("The file could not be opened.", "Error Opening File", ex);
+			}
+		}, SwingUtilities::invokeLater);
+	}
+
+	/**
+	 * Handles the opening of a file too large to be edited. The user is asked
+	 * whether they would like to view the file in read-only mode, if Yes the file
+	 * is mapped and shown in a {@code LargeFileViewer}.
+	 * 
+	 * @param file the {@code Path} value of the file to be opened
+	 */
+	private void openLargeFile(Path file) {
+		int opt = JOptionPane.showConfirmDialog(null,
+				"This file is too large to be edited.\nWould you like to open it in read-only mode?",
+				"Large File", JOptionPane.YES_NO_OPTION);
+		if (opt == JOptionPane.YES_OPTION) {
+			MappedTextFile mappedFile = fileManip.getMappedFile(file);
+			if (mappedFile != null) {
+				gui.getRecentFiles().add(file);
+				new LargeFileViewer(mappedFile, file.getFileName().toString()).show();
+			} else {
+				JOptionPane.showMessageDialog(null, "The file could not be opened.", "Error Opening File",
+						JOptionPane.ERROR_MESSAGE);
+			}
+		}
+	}
+
+	/**
+	 * Shows an error dialog informing the user that an operation failed and the
+	 * reason it failed.
+	 * 
+	 * @param message the message describing the operation that failed
+	 * @param title   the title of the dialog
+	 * @param ex      the exception the operation failed with
+	 */
+	private void showError(String message, String title, Throwable ex) {
+		Throwable cause = unwrap(ex);
+		String reason = cause.getMessage() == null ? cause.getClass().getSimpleName()
+				: cause.getClass().getSimpleName() + ": " + cause.getMessage();
+		JOptionPane.showMessageDialog(null, message + "\n" + reason, title, JOptionPane.ERROR_MESSAGE);
+	}
+
+	/**
+	 * Returns the exception that caused a {@code CompletableFuture} to fail,
+	 * removing the {@code CompletionException} it may be wrapped in.
+	 * 
+	 * @param ex the exception the future failed with
+	 * @return the cause of the failure
+	 */
+	private static Throwable unwrap(Throwable ex) {
+		while ((ex instanceof CompletionException || ex instanceof ExecutionException) && ex.getCause() != null) {
+			ex = ex.getCause();
+		}
+		return ex;
+	}
+
 	/**
 	 * Handles the action event being triggered for the saveMenuItem button. When
 	 * invoked, the {@code showSaveDialog} method in called to handles the save
@@ -101,80 +349,387 @@ public class ButtonActionListeners {
 	}
 
 	/**
-	 * Handles the saving of a file when triggered. First Checks if the path
-	 * provided is valid and that there is text in the text area of the GUI, if
-	 * satisfied checks if the file already exists. If file exists, the user is
-	 * prompted on whether they wish to overwrite the current file, if Yes then the
-	 * file is overwrite.
+	 * Handles the action of the new tab menu item being triggered, opening a new
+	 * empty tab.
 	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see Textual#newTab()
+	 */
+	public void newTab(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> gui.newTab());
+	}
+
+	/**
+	 * Handles the action of the close tab menu item being triggered, closing the
+	 * tab in view once the user has been given the chance to save it.
 	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see Textual#closeTab(DocumentTab)
+	 */
+	public void closeTab(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> gui.closeTab(gui.getCurrentTab()));
+	}
+
+	/**
+	 * Handles the saving of the document of the tab in view when triggered. First
+	 * Checks if the path provided is valid and that there is text in the text
+	 * area of the tab, if satisfied checks if the file already exists. If file
+	 * exists, the user is prompted on whether they wish to overwrite the current
+	 * file, if Yes then the file is overwrite. If the document is being saved
+	 * over the file it was read from, and bytes of that file could not be read in
+	 * its encoding, the user is also warned that saving will replace them.
+	 * 
+	 * The file is wrote on the I/O executor straight from the document of the
+	 * text pane, so the user interface is not blocked whilst a large document is
+	 * being saved.
+	 * 
+	 * @return the {@code CompletableFuture} of the save, completed once the tab
+	 *         has been updated, or null if no save was started
+	 * @see FileManipulation#writeDocumentFile(Path, javax.swing.text.Document)
 	 */
-	public void showSaveDialog() {
+	public CompletableFuture<Void> showSaveDialog() {
 		sysExplorer = new SaveExplorer();
 		sysExplorer.showDialog();
 		String value = sysExplorer.getFileSelected();
 
-		if (path.isPathValid(value) && gui.getTextAreaBytes() != null) {
+		DocumentTab tab = gui.getCurrentTab();
+		if (path.isPathValid(value) && !tab.isTextPaneBlank()) {
 			if (path.doesPathExist(path.getPathValue())) {
-				System.out.println("outside of opt if = " + path.getPathValue());
-				int opt = JOptionPane.showConfirmDialog(null, "This File already exists\nDo you want to overwrite it?");
-				if (opt == 0) {
-					fileManip.saveFile(path.getPathValue(), gui.getTextAreaBytes());
-					gui.setIsSaved(true);
-					JOptionPane.showMessageDialog(null, "File Saved");
+				if (confirmOverwrite(tab, path.getPathValue()) && confirmLossy(tab, path.getPathValue())) {
+					return saveInBackground(tab, path.getPathValue(), true);
 				}
 			} else {
-				fileManip.saveFile(path.getPathValue(), gui.getTextAreaBytes());
-				gui.setIsSaved(true);
+				return saveInBackground(tab, path.getPathValue(), false);
+			}
+
+		}
+		return null;
+	}
+
+	/**
+	 * Handles the export menu item, exporting the document of the tab in view as
+	 * a web page, Rich Text Format or Markdown file, chosen by the extension of
+	 * the file.
+	 * 
+	 * The document is exported on the I/O executor, copied a batch at a time and
+	 * streamed to the file, so a large document neither blocks the user interface
+	 * nor is copied whole in memory. A Markdown export leaves out the styling
+	 * added by the {@code RestyleEngine}, as that styling comes from the Markdown
+	 * already in the text.
+	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see FileManipulation#writeExportFile(Path, StyledDocument,
+	 *      java.util.function.Supplier, UnaryOperator)
+	 */
+	public void exportFile(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> {
+			sysExplorer = new ExportExplorer();
+			sysExplorer.showDialog();
+			String value = sysExplorer.getFileSelected();
+			if (value == null || !path.isPathValid(value)) {
+				return;
+			}
+			Path file = path.getPathValue();
+			ExportFormat format = ExportFormat.forPath(file);
+			if (format == null) {
+				JOptionPane.showMessageDialog(null, "A document can only be exported as .html, .rtf or .md.",
+						"Error Exporting File", JOptionPane.ERROR_MESSAGE);
+				return;
 			}
+			if (path.doesPathExist(file) && JOptionPane.showConfirmDialog(null,
+					"This File already exists\nDo you want to overwrite it?", "File Already Exists",
+					JOptionPane.YES_NO_OPTION) != JOptionPane.YES_OPTION) {
+				return;
+			}
+			StyledDocument document = gui.getCurrentTab().getDocument();
+			UnaryOperator<AttributeSet> exported = format instanceof MarkdownExport
+					? RestyleEngine::getUserAttributes
+					: UnaryOperator.identity();
+			asyncManip.supply(() -> {
+				fileManip.writeExportFile(file, document, () -> ExportFormat.forPath(file), exported);
+				return null;
+			}).whenCompleteAsync((v, ex) -> {
+				if (ex == null) {
+					SystemExplorer.fileChanged(file);
+					JOptionPane.showMessageDialog(null, "File Exported");
+				} else {
+					showError("The file could not be exported.", "Error Exporting File", ex);
+				}
+			}, SwingUtilities::invokeLater);
+		});
+	}
 
+	/**
+	 * Asks the user whether to overwrite a file that already exists. Choosing
+	 * Compare shows the differences between the document and the file in a
+	 * {@code CompareView}, which offers to overwrite the file in turn.
+	 * 
+	 * @param tab  the {@code DocumentTab} being saved
+	 * @param file the {@code Path} value of the file that already exists
+	 * @return true if the file is to be overwritten
+	 */
+	private boolean confirmOverwrite(DocumentTab tab, Path file) {
+		Object[] options = { "Overwrite", "Compare", "Cancel" };
+		int opt = JOptionPane.showOptionDialog(null, "This File already exists\nDo you want to overwrite it?",
+				"File Already Exists", JOptionPane.YES_NO_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE, null, options,
+				options[0]);
+		if (opt == 1) {
+			return compare(tab, file, true);
 		}
+		return opt == 0;
+	}
+
+	/**
+	 * Asks the user whether to save a document over the file it was read from
+	 * when bytes of the file could not be decoded and were replaced, as the
+	 * replacement characters would then be wrote in place of those bytes.
+	 * 
+	 * @param tab  the {@code DocumentTab} being saved
+	 * @param file the {@code Path} value of the file being overwrote
+	 * @return true if the file is to be overwritten
+	 * @see TextEncoding#isLossy()
+	 */
+	private boolean confirmLossy(DocumentTab tab, Path file) {
+		if (!tab.getDocumentEncoding().isLossy() || tab.getFile() == null || RichTextFile.isRichTextFile(file)) {
+			return true;
+		}
+		try {
+			if (!Files.isSameFile(file, tab.getFile())) {
+				return true;
+			}
+		} catch (IOException e) {
+			return true;
+		}
+		int opt = JOptionPane.showConfirmDialog(null,
+				"Parts of this file could not be read as " + tab.getDocumentEncoding().getCharset().name()
+						+ " and were replaced.\nSaving over it will lose the original bytes. Do you want to save anyway?",
+				"File Not Read Exactly", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+		return opt == JOptionPane.YES_OPTION;
+	}
+
+	/**
+	 * Handles the compare menu item, showing the differences between the
+	 * document of the tab in view and a file the user chooses.
+	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see CompareView
+	 */
+	public void compareFile(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> {
+			sysExplorer = new OpenExplorer();
+			sysExplorer.showDialog();
+			String value = sysExplorer.getFileSelected();
+			if (value != null && path.isPathValid(value)) {
+				compare(gui.getCurrentTab(), path.getPathValue(), false);
+			}
+		});
+	}
+
+	/**
+	 * Compares the document of a tab with a file on the I/O executor, showing the
+	 * differences in a {@code CompareView} once found. The view is shown straight
+	 * away and waits for the comparison, so the window can be closed before it
+	 * has finished.
+	 * 
+	 * @param tab            the {@code DocumentTab} being compared
+	 * @param file           the {@code Path} value of the file
+	 * @param offerOverwrite whether to offer to overwrite the file
+	 * @return true if the user chose to overwrite the file
+	 * @see LineDiff#compare(Path, javax.swing.text.Document)
+	 */
+	private boolean compare(DocumentTab tab, Path file, boolean offerOverwrite) {
+		CompareView view = new CompareView(file.getFileName().toString(), offerOverwrite);
+		StyledDocument document = tab.getDocument();
+		asyncManip.supply(() -> LineDiff.compare(file, document)).whenCompleteAsync((diff, ex) -> {
+			if (ex == null) {
+				view.showDiff(diff);
+			} else {
+				Throwable cause = unwrap(ex);
+				view.showError("The file could not be compared. "
+						+ (cause.getMessage() == null ? cause.getClass().getSimpleName() : cause.getMessage()));
+			}
+		}, SwingUtilities::invokeLater);
+		return view.show();
+	}
 
+	/**
+	 * Saves the document of a tab to the path provided on the I/O executor. Once
+	 * finished, the save state and file of the tab are updated on the event
+	 * dispatch thread and the user is informed if the save failed, and why.
+	 * 
+	 * The document is copied under its read lock and the copy wrote once the
+	 * lock is released, so the user can carry on typing whilst the file is wrote.
+	 * The number of edits made to the document is read along with the copy. If
+	 * it is unchanged once the file has been wrote, the {@code EditJournal} is
+	 * started again from the saved file and the tab marked saved, both whilst the
+	 * document is locked so no edit can be missed. Otherwise the journal is
+	 * compacted into a snapshot of the document, as the edits made since the copy
+	 * are not based on either version of the file, and the tab is left unsaved.
+	 * 
+	 * The document is wrote in the encoding it was read in. If it now holds a
+	 * character that encoding cannot hold, the user is asked whether to save it as
+	 * UTF-8 instead, the file being left unchanged otherwise. The future returned
+	 * then completes with the outcome of the save as UTF-8.
+	 * 
+	 * A file with the extension of a Textual document is saved along with its
+	 * formatting instead, leaving out any styling added by the
+	 * {@code RestyleEngine} as the rules style the text again once it is opened.
+	 * 
+	 * @param tab     the {@code DocumentTab} being saved
+	 * @param file    the {@code Path} value of the location to save to
+	 * @param confirm whether to show a message once the file has been saved
+	 * @return the {@code CompletableFuture} of the save, completed once the tab
+	 *         has been updated on the event dispatch thread
+	 */
+	private CompletableFuture<Void> saveInBackground(DocumentTab tab, Path file, boolean confirm) {
+		StyledDocument document = tab.getDocument();
+		TextEncoding encoding = tab.getDocumentEncoding();
+		boolean rich = RichTextFile.isRichTextFile(file);
+		FileFingerprint[] fingerprint = { null };
+		long[] edits = { 0 };
+		CompletableFuture<Void> save = asyncManip.supply(() -> {
+			FileManipulation.DocumentCopy[] copy = { null };
+			IOException[] failure = { null };
+			document.render(() -> {
+				try {
+					copy[0] = rich ? FileManipulation.DocumentCopy.of(document, RestyleEngine::getUserAttributes)
+							: FileManipulation.DocumentCopy.of(document);
+					edits[0] = tab.getEditCount();
+				} catch (IOException ex) {
+					failure[0] = ex;
+				}
+			});
+			if (failure[0] != null) {
+				throw failure[0];
+			}
+			fingerprint[0] = rich ? fileManip.writeRichDocumentFile(file, copy[0])
+					: fileManip.writeDocumentFile(file, copy[0], encoding);
+			document.render(() -> {
+				if (tab.getEditCount() == edits[0]) {
+					tab.getJournal().rebase(file, fingerprint[0]);
+				} else {
+					tab.getJournal().compact();
+				}
+			});
+			return null;
+		});
+		return save.thenRunAsync(() -> {
+			SystemExplorer.fileChanged(file);
+			gui.getRecentFiles().add(file);
+			tab.setFile(file);
+			tab.setFingerprint(fingerprint[0]);
+			// Edits made whilst the file was wrote are not in it.
+			tab.setIsSaved(tab.getEditCount() == edits[0]);
+			// The file now holds exactly the text of the document.
+			tab.setDocumentEncoding(tab.getDocumentEncoding().withLoss(false));
+			if (confirm) {
+				JOptionPane.showMessageDialog(null, "File Saved");
+			}
+		}, SwingUtilities::invokeLater).exceptionallyComposeAsync(ex -> {
+			if (unwrap(ex) instanceof UnmappableCharacterException && !RichTextFile.isRichTextFile(file)) {
+				int opt = JOptionPane.showConfirmDialog(null,
+						"The document contains characters that cannot be saved as " + encoding.getCharset().name()
+								+ ".\nDo you want to save it as UTF-8 instead?",
+						"Error Saving File", JOptionPane.YES_NO_OPTION);
+				if (opt == JOptionPane.YES_OPTION) {
+					tab.setDocumentEncoding(encoding.withCharset(StandardCharsets.UTF_8));
+					// The caller is told the outcome of the save as UTF-8.
+					return saveInBackground(tab, file, confirm);
+				}
+			} else {
+				showError("The file could not be saved.", "Error Saving File", ex);
+			}
+			return CompletableFuture.failedFuture(ex);
+		}, SwingUtilities::invokeLater);
 	}
 
 	/**
 	 * Handles the operation that shows a template the user chooses. This is
-	 * achieved by getting the action command of the button triggering the event and
-	 * handling the template that is requested accordingly. The templates Enum value
-	 * is passed into the instantiation process of the {@code PopulatedTemplates}
-	 * object, this then allows the byte values of the template to be fetched and
-	 * passed into the GUI {@code setTextArea} method.
+	 * achieved by getting the action command of the button triggering the event,
+	 * which holds the name of the template, and looking the template up in the
+	 * {@code TemplateRegistry}. The cached text of the template is then passed
+	 * into the {@code setTextPane} method of the tab in view, so nothing is
+	 * converted on each click. The time taken is recorded as a
+	 * {@code TemplateInsert} event and in the {@code EditorMetrics}.
 	 * 
 	 * @param menuItem the {@code JMenuItem} button that triggers this method
-	 * @see PopulatedTemplates
-	 * @see Textual#setTextPane(byte[])
+	 * @see file.TemplateRegistry
+	 * @see DocumentTab#setTextPane(String)
 	 */
 	public void showTemplate(JMenuItem menuItem) {
 		menuItem.addActionListener(e -> {
-			String action = e.getActionCommand();
-			byte[] bytes;
-
-			switch (action) {
-			case "dear":
-				// Dear Sir/Madam template
-				templates = new PopulatedTemplates(Templates.DEAR);
-				bytes = templates.createTemplate();
-				gui.setTextPane(bytes);
-				break;
-			case "regards":
-				// Kind regards template
-				templates = new PopulatedTemplates(Templates.KIND_REGARDS);
-				bytes = templates.createTemplate();
-				gui.setTextPane(bytes);
-				break;
-
-			case "thanks":
-				// Many Thanks template
-				templates = new PopulatedTemplates(Templates.MANY_THANKS);
-				bytes = templates.createTemplate();
-				gui.setTextPane(bytes);
-				break;
-				
+			Template template = gui.getTemplateRegistry().get(e.getActionCommand());
+			if (template != null) {
+				EditorEvents.TemplateInsert event = new EditorEvents.TemplateInsert();
+				event.begin();
+				long start = System.nanoTime();
+				gui.getCurrentTab().setTextPane(template.getText());
+				event.template = e.getActionCommand();
+				event.length = template.getText().length();
+				event.commit();
+				EditorMetrics.get().record(EditorMetrics.Operation.TEMPLATE_INSERT, start);
 			}
 		});
 
 	}
 
+	/**
+	 * Handles the go to line menu item. When triggered, the user is asked for the
+	 * number of the line to move the caret to. Numbers outside of the document are
+	 * moved to the first or last line, and anything other than a number is
+	 * reported back to the user.
+	 * 
+	 * @param menuItem the {@code JMenuItem} button that triggers this method
+	 * @see DocumentTab#goToLine(int)
+	 */
+	public void goToLine(JMenuItem menuItem) {
+		menuItem.addActionListener(e -> {
+			String input = JOptionPane.showInputDialog(null,
+					"Line number (1 - " + gui.getCurrentTab().getLineCount() + "):", "Go to Line", JOptionPane.QUESTION_MESSAGE);
+			if (input == null || input.isBlank()) {
+				return;
+			}
+			try {
+				gui.getCurrentTab().goToLine(Integer.parseInt(input.trim()));
+			} catch (NumberFormatException ex) {
+				JOptionPane.showMessageDialog(null, "\"" + input.trim() + "\" is not a line number.");
+			}
+		});
+	}
+
+	/**
+	 * Handles the line numbers menu item, showing the line numbers beside the text
+	 * pane whilst the item is selected.
+	 * 
+	 * @param menuItem the {@code JCheckBoxMenuItem} that triggers this method
+	 * @see LineNumberGutter
+	 */
+	public void showLineNumbers(JCheckBoxMenuItem menuItem) {
+		menuItem.addActionListener(e -> gui.setLineNumbersShown(menuItem.isSelected()));
+	}
+
+	/**
+	 * Handles the spell checking menu item, underlining misspelt words whilst the
+	 * item is selected.
+	 * 
+	 * @param menuItem the {@code JCheckBoxMenuItem} that triggers this method
+	 * @see SpellChecker
+	 */
+	public void checkSpelling(JCheckBoxMenuItem menuItem) {
+		menuItem.addActionListener(e -> gui.setSpellCheckEnabled(menuItem.isSelected()));
+	}
+
+	/**
+	 * Handles the Markdown styling menu item, styling headings and emphasis
+	 * marked in the text whilst the item is selected.
+	 * 
+	 * @param menuItem the {@code JCheckBoxMenuItem} that triggers this method
+	 * @see StyleRules
+	 */
+	public void styleMarkdown(JCheckBoxMenuItem menuItem) {
+		menuItem.addActionListener(e -> gui.setMarkdownStyled(menuItem.isSelected()));
+	}
+
 	/**
 	 * Handles setting text bold on a button click. this is done by creating a new
 	 * instance of the {@code StyledEditorKit} class and accessing the
@@ -212,41 +767,41 @@ public class ButtonActionListeners {
 	}
 
 	/**
-	 * Handles the undo button action event. When triggered, a call to the GUI
-	 * UndoManager variable is called to check if the text pane has an undo flagged
+	 * Handles the undo button action event. When triggered, the UndoManager of the
+	 * tab in view is called to check if the text pane has an undo flagged
 	 * available. If satisfied, the undoAction method is called.
 	 * 
 	 * @param button the {@code JButton} that triggers this method
 	 */
 	public void undoButton(JButton button) {
 		button.addActionListener(e -> {
-			if (gui.getUndoRedoManager().canUndo())
+			if (gui.getCurrentTab().getUndoRedoManager().canUndo())
 				undoAction();
 		});
 	}
 
 	/**
-	 * Handles the re-do button action event. When triggered, a call to the GUI
-	 * UndoManager variable is called to check if the text pane has an re-do flagged
+	 * Handles the re-do button action event. When triggered, the UndoManager of
+	 * the tab in view is called to check if the text pane has an re-do flagged
 	 * available. If satisfied, the redoAction method is called.
 	 * 
 	 * @param button the {@code JButton} that triggers this method
 	 */
 	public void redoButton(JButton button) {
 		button.addActionListener(e -> {
-			if (gui.getUndoRedoManager().canRedo())
+			if (gui.getCurrentTab().getUndoRedoManager().canRedo())
 				redoAction();
 		});
 	}
 
 	/**
 	 * Handles the undo action. Attempts to undo an action of the text pane of the
-	 * GUI class by calling the {@code getUndoRedoManager} in the GUI class and
+	 * tab in view by calling the {@code getUndoRedoManager} of the tab and
 	 * invoking the undo method of the manager
 	 */
 	protected void undoAction() {
 		try {
-			gui.getUndoRedoManager().undo();
+			gui.getCurrentTab().getUndoRedoManager().undo();
 		} catch (CannotUndoException ex) {
 			System.out.println("failed to undo");
 		}
@@ -254,12 +809,12 @@ public class ButtonActionListeners {
 
 	/**
 	 * Handles the re-do action. Attempts to re-do an action of the text pane of the
-	 * GUI class by calling the {@code getUndoRedoManager} in the GUI class and
+	 * tab in view by calling the {@code getUndoRedoManager} of the tab and
 	 * invoking the re-do method of the manager
 	 */
 	protected void redoAction() {
 		try {
-			gui.getUndoRedoManager().redo();
+			gui.getCurrentTab().getUndoRedoManager().redo();
 		} catch (CannotRedoException ex) {
 			System.out.println("failed to redo");
 		}
@@ -276,9 +831,17 @@ public class ButtonActionListeners {
 			JOptionPane.showMessageDialog(null,
 					"A simple word processing program\n Type into the text area in the centre to start creating a document.\n"
 							+ "Creating, Opening or Saving the file can be done via the \"File\" menu item in the top left.\n"
+							+ "Save as a Textual Document (.tdoc) to keep bold, italic and underlined text, a Text File (.txt) keeps only the text.\n"
+							+ "Each file is opened in a tab of its own, New Tab (Ctrl+T) and Close Tab (Ctrl+W) are also in the \"File\" menu.\n"
+							+ "The files you last opened or saved can be opened again straight away from \"Open Recent\" in the \"File\" menu.\n"
+							+ "\"Export...\" in the \"File\" menu writes the document as a web page (.html), Rich Text Format (.rtf) or Markdown (.md) file.\n"
+							+ "\"Compare With File\" in the \"File\" menu shows what differs between the document and a file, as does Compare when saving over a file.\n"
 							+ "To Cut, Copy or Paste simply use the \"Edit\" menu tab or use shortcut keys to perform the same action.\n"
+							+ "Find (Ctrl+F) and Go to Line (Ctrl+G) are also in the \"Edit\" menu, line numbers can be shown from the \"View\" menu.\n"
+							+ "Misspelt words are underlined in red, checked against \".textual/dictionary.txt\" in your home folder if present, one word per line.\n"
+							+ "Markdown Styling in the \"View\" menu shows lines starting with # as headings, and **bold**, *italic* and ~~struck~~ text as marked.\n"
 							+ "Templates are provided via the \"Pre-defined Templates\" menu item with the optio to import your own or "
-							+ "save one that has been created. \nThe ability to undo and redo is provided via the arrows on the tool bar.\n"
+							+ "save one that has been created. \nImported templates are read from the \".textual/templates\" folder in your home folder.\nThe ability to undo and redo is provided via the arrows on the tool bar.\n"
 							+ "A character counter can be seen on the bottom of the window to show how many characters have been entered (not including spaces).");
 		});
 
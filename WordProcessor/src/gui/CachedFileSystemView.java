@@ -0,0 +1,198 @@
+package gui;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.Icon;
+import javax.swing.filechooser.FileSystemView;
+
+import file.DirectoryCache;
+
+/**
+ * The {@code FileSystemView} of the file chooser, which lists the folders of
+ * the file system through a {@code DirectoryCache} rather than reading them
+ * again each time they are shown. Everything else is passed on to the
+ * {@code FileSystemView} of the platform.
+ *
+ * Folders that are not on the file system, such as the virtual folders of
+ * Windows, are listed by the platform as they would be otherwise, as is any
+ * folder the cache cannot read.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see SystemExplorer
+ */
+public class CachedFileSystemView extends FileSystemView {
+	/** The view of the platform everything else is passed on to. */
+	private final FileSystemView platform;
+	/** Holds the listings of the folders. */
+	private final DirectoryCache directories;
+
+	/**
+	 * Class constructor that lists folders through the cache provided.
+	 *
+	 * @param directories the {@code DirectoryCache} folders are listed through
+	 */
+	public CachedFileSystemView(DirectoryCache directories) {
+		this.platform = FileSystemView.getFileSystemView();
+		this.directories = directories;
+	}
+
+	/**
+	 * Returns the files of a folder from the cache, leaving out hidden files if
+	 * file hiding is used. The list stops early if the file chooser interrupts
+	 * the thread loading it.
+	 */
+	@Override
+	public File[] getFiles(File dir, boolean useFileHiding) {
+		if (!platform.isFileSystem(dir)) {
+			return platform.getFiles(dir, useFileHiding);
+		}
+		File[] entries;
+		try {
+			entries = directories.list(dir.toPath());
+		} catch (IOException | InvalidPathException e) {
+			return platform.getFiles(dir, useFileHiding);
+		}
+		List<File> files = new ArrayList<>(entries.length);
+		for (File f : entries) {
+			if (Thread.currentThread().isInterrupted()) {
+				break;
+			}
+			if (!useFileHiding || !platform.isHiddenFile(f)) {
+				files.add(f);
+			}
+		}
+		return files.toArray(new File[files.size()]);
+	}
+
+	/**
+	 * Creates a new folder, dropping the listing of the folder it is created in
+	 * so it is shown straight away.
+	 */
+	@Override
+	public File createNewFolder(File containingDir) throws IOException {
+		File folder = platform.createNewFolder(containingDir);
+		directories.invalidate(containingDir.toPath());
+		return folder;
+	}
+
+	@Override
+	public boolean isRoot(File f) {
+		return platform.isRoot(f);
+	}
+
+	@Override
+	public Boolean isTraversable(File f) {
+		return platform.isTraversable(f);
+	}
+
+	@Override
+	public String getSystemDisplayName(File f) {
+		return platform.getSystemDisplayName(f);
+	}
+
+	@Override
+	public String getSystemTypeDescription(File f) {
+		return platform.getSystemTypeDescription(f);
+	}
+
+	@Override
+	public Icon getSystemIcon(File f) {
+		return platform.getSystemIcon(f);
+	}
+
+	@Override
+	public Icon getSystemIcon(File f, int width, int height) {
+		return platform.getSystemIcon(f, width, height);
+	}
+
+	@Override
+	public boolean isParent(File folder, File file) {
+		return platform.isParent(folder, file);
+	}
+
+	@Override
+	public File getChild(File parent, String fileName) {
+		return platform.getChild(parent, fileName);
+	}
+
+	@Override
+	public boolean isFileSystem(File f) {
+		return platform.isFileSystem(f);
+	}
+
+	@Override
+	public boolean isHiddenFile(File f) {
+		return platform.isHiddenFile(f);
+	}
+
+	@Override
+	public boolean isFileSystemRoot(File dir) {
+		return platform.isFileSystemRoot(dir);
+	}
+
+	@Override
+	public boolean isDrive(File dir) {
+		return platform.isDrive(dir);
+	}
+
+	@Override
+	public boolean isFloppyDrive(File dir) {
+		return platform.isFloppyDrive(dir);
+	}
+
+	@Override
+	public boolean isComputerNode(File dir) {
+		return platform.isComputerNode(dir);
+	}
+
+	@Override
+	public File[] getRoots() {
+		return platform.getRoots();
+	}
+
+	@Override
+	public File getHomeDirectory() {
+		return platform.getHomeDirectory();
+	}
+
+	@Override
+	public File getDefaultDirectory() {
+		return platform.getDefaultDirectory();
+	}
+
+	@Override
+	public File createFileObject(File dir, String filename) {
+		return platform.createFileObject(dir, filename);
+	}
+
+	@Override
+	public File createFileObject(String path) {
+		return platform.createFileObject(path);
+	}
+
+	@Override
+	public File getParentDirectory(File dir) {
+		return platform.getParentDirectory(dir);
+	}
+
+	@Override
+	public File[] getChooserComboBoxFiles() {
+		return platform.getChooserComboBoxFiles();
+	}
+
+	@Override
+	public boolean isLink(File file) {
+		return platform.isLink(file);
+	}
+
+	@Override
+	public File getLinkLocation(File file) throws FileNotFoundException {
+		return platform.getLinkLocation(file);
+	}
+}
@@ -0,0 +1,298 @@
+package gui;
+
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.event.UndoableEditEvent;
+import javax.swing.event.UndoableEditListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.DocumentFilter;
+import javax.swing.text.Segment;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * Keeps a running count of the characters in a document, not including spaces,
+ * new lines or carriage returns, by listening to the insert and remove events
+ * of the document rather than rescanning the whole text on every change.
+ *
+ * Inserted text is counted straight from the document via a {@code Segment} so
+ * no copy of the text is made. As the text of a removal has already gone by the
+ * time the {@code removeUpdate} event is fired, the counter is also installed as
+ * a {@code DocumentFilter} so the range about to be removed can be counted
+ * first. The counter is installed in front of any filter the document already
+ * has, passing each change on to it.
+ *
+ * Removals that do not pass through the filter are an undo or re-do of an
+ * earlier edit, which removes exactly the text that edit inserted or removed.
+ * The counter also listens for the undoable edit of each change, reported
+ * straight after the change, and keeps the counted characters of the change
+ * against it, weakly so they are let go along with the edit. They are
+ * subtracted when the {@code BoundedUndoManager} of the document reports the
+ * edit as being undone or re-done. Only a removal of text never seen falls back
+ * to a single recount of the document.
+ *
+ * Label updates are coalesced onto the event dispatch thread, so a burst of
+ * edits results in one repaint of the label.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see Textual#updateCharCount()
+ */
+public class CharacterCounter extends DocumentFilter implements DocumentListener, UndoableEditListener {
+	/** Ordinal value of a newline character. */
+	private static final char NEW_LINE = '\n';
+	/** Ordinal value of a carriage return character. */
+	private static final char CARRIAGE_RETURN = '\r';
+	/** Ordinal value of a space character. */
+	private static final char SPACE = ' ';
+
+	/** The document being counted. */
+	private final Document document;
+	/** The label the count is shown on, may be null. */
+	private final JLabel label;
+	/** The filter of the document before the counter was installed, may be null. */
+	private final DocumentFilter next;
+	/** The undo manager of the document, may be null. */
+	private final BoundedUndoManager manager;
+	/** Reused segment the document text is read through. */
+	private final Segment segment = new Segment();
+	/**
+	 * The counted characters of the text inserted or removed by each edit that
+	 * can be undone, only used under the write lock of the document.
+	 */
+	private final Map<UndoableEdit, Integer> editCounts = new WeakHashMap<>();
+	/** The counted characters of the last change, or -1 if not known. */
+	private int lastCount = -1;
+
+	/** Holds the current number of counted characters in the document. */
+	private volatile int charCount = 0;
+	/** The counted characters of the range about to be removed. */
+	private int pendingRemoval = -1;
+	/** The length of the range about to be removed. */
+	private int pendingLength = -1;
+	/** Whether a label update has already been posted to the EDT. */
+	private boolean labelUpdatePending = false;
+
+	/**
+	 * Class constructor that attaches the counter to the document provided and
+	 * performs an initial count of its content.
+	 *
+	 * @param document the {@code AbstractDocument} to be counted
+	 * @param label    the {@code JLabel} the count is shown on
+	 */
+	public CharacterCounter(AbstractDocument document, JLabel label) {
+		this(document, label, null);
+	}
+
+	/**
+	 * Class constructor that attaches the counter to the document provided and
+	 * performs an initial count of its content, counting the edits undone and
+	 * re-done by the undo manager provided without a recount.
+	 *
+	 * @param document the {@code AbstractDocument} to be counted
+	 * @param label    the {@code JLabel} the count is shown on
+	 * @param manager  the {@code BoundedUndoManager} of the document
+	 */
+	public CharacterCounter(AbstractDocument document, JLabel label, BoundedUndoManager manager) {
+		this.document = document;
+		this.label = label;
+		this.manager = manager;
+		this.next = document.getDocumentFilter();
+		document.setDocumentFilter(this);
+		document.addDocumentListener(this);
+		document.addUndoableEditListener(this);
+		recount();
+	}
+
+	/**
+	 * Determines whether a character should be included in the character count.
+	 * Spaces, new lines and carriage returns are not counted.
+	 *
+	 * @param c the character to be checked
+	 * @return true if the character is counted
+	 */
+	public static boolean isCounted(char c) {
+		return c != SPACE && c != NEW_LINE && c != CARRIAGE_RETURN;
+	}
+
+	/**
+	 * Counts the characters of a region of a character array that would be
+	 * included in the character count.
+	 *
+	 * @param chars  the array holding the characters
+	 * @param offset the index of the first character to check
+	 * @param length the number of characters to check
+	 * @return the number of counted characters in the region
+	 */
+	public static int countCharacters(char[] chars, int offset, int length) {
+		int count = 0;
+		for (int i = offset, end = offset + length; i < end; i++) {
+			if (isCounted(chars[i])) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Returns the current character count of the document.
+	 *
+	 * @return the number of counted characters
+	 */
+	public int getCharCount() {
+		return charCount;
+	}
+
+	/**
+	 * Counts the whole document again from the start. Used when the counter is
+	 * first attached and when a removal has been made that the counter was not
+	 * told about in advance.
+	 */
+	public void recount() {
+		document.render(() -> {
+			charCount = countRange(0, document.getLength());
+		});
+		scheduleLabelUpdate();
+	}
+
+	@Override
+	public void remove(FilterBypass fb, int offset, int length) throws BadLocationException {
+		prepareRemoval(offset, length);
+		if (next != null) {
+			next.remove(fb, offset, length);
+		} else {
+			fb.remove(offset, length);
+		}
+	}
+
+	@Override
+	public void insertString(FilterBypass fb, int offset, String string, AttributeSet attr)
+			throws BadLocationException {
+		if (next != null) {
+			next.insertString(fb, offset, string, attr);
+		} else {
+			fb.insertString(offset, string, attr);
+		}
+	}
+
+	@Override
+	public void replace(FilterBypass fb, int offset, int length, String text, AttributeSet attrs)
+			throws BadLocationException {
+		prepareRemoval(offset, length);
+		if (next != null) {
+			next.replace(fb, offset, length, text, attrs);
+		} else {
+			fb.replace(offset, length, text, attrs);
+		}
+	}
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		lastCount = countRange(e.getOffset(), e.getLength());
+		charCount += lastCount;
+		scheduleLabelUpdate();
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		UndoableEdit applied = manager == null ? null : manager.getAppliedEdit();
+		Integer count = applied == null ? null : editCounts.get(applied);
+		lastCount = -1;
+		if (pendingLength == e.getLength()) {
+			charCount -= pendingRemoval;
+			lastCount = pendingRemoval;
+			scheduleLabelUpdate();
+		} else if (count != null) {
+			// An undo or re-do, removing the text the edit was counted with.
+			charCount -= count;
+			scheduleLabelUpdate();
+		} else {
+			// The removed text was never seen.
+			SwingUtilities.invokeLater(this::recount);
+		}
+		pendingRemoval = -1;
+		pendingLength = -1;
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Attribute changes do not affect the character count.
+		lastCount = -1;
+	}
+
+	/**
+	 * Keeps the counted characters of the change just made against its edit, so
+	 * they are known once the edit is undone or re-done.
+	 */
+	@Override
+	public void undoableEditHappened(UndoableEditEvent e) {
+		if (lastCount >= 0) {
+			editCounts.put(e.getEdit(), lastCount);
+			lastCount = -1;
+		}
+	}
+
+	/**
+	 * Counts the range of the document that is about to be removed so it can be
+	 * subtracted once the {@code removeUpdate} event is fired.
+	 *
+	 * @param offset the start of the range being removed
+	 * @param length the length of the range being removed
+	 */
+	private void prepareRemoval(int offset, int length) {
+		if (length > 0) {
+			pendingRemoval = countRange(offset, length);
+			pendingLength = length;
+		}
+	}
+
+	/**
+	 * Counts the characters of a range of the document by reading it through the
+	 * reused {@code Segment}, allowing partial returns so that no copy of the
+	 * document text is made.
+	 *
+	 * @param offset the start of the range
+	 * @param length the length of the range
+	 * @return the number of counted characters in the range
+	 */
+	private int countRange(int offset, int length) {
+		int count = 0;
+		segment.setPartialReturn(true);
+		try {
+			while (length > 0) {
+				document.getText(offset, length, segment);
+				count += countCharacters(segment.array, segment.offset, segment.count);
+				offset += segment.count;
+				length -= segment.count;
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error counting characters.");
+		}
+		return count;
+	}
+
+	/**
+	 * Posts a single update of the label to the event dispatch thread if one is
+	 * not already waiting to be run.
+	 */
+	private synchronized void scheduleLabelUpdate() {
+		if (label == null || labelUpdatePending) {
+			return;
+		}
+		labelUpdatePending = true;
+		SwingUtilities.invokeLater(() -> {
+			synchronized (this) {
+				labelUpdatePending = false;
+			}
+			label.setText("Characters: " + charCount);
+		});
+	}
+
+}
@@ -0,0 +1,492 @@
+package gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Font;
+import java.awt.Frame;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JDialog;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTable;
+import javax.swing.JToggleButton;
+import javax.swing.ListSelectionModel;
+import javax.swing.table.AbstractTableModel;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableColumn;
+
+/**
+ * A window showing the differences between the document of a tab and a file on
+ * the disk, found by a {@code LineDiff}. The changes are shown either side by
+ * side, the file on the left and the document on the right, or inline with the
+ * removed lines above the added lines, along with a few unchanged lines around
+ * each change.
+ *
+ * The lines are shown in a {@code JTable}, which only paints the rows in view,
+ * so a comparison with many changes is as quick to scroll as one with few. The
+ * Previous and Next buttons move between the changes.
+ *
+ * The window is modal. When opened before overwriting a file it also offers to
+ * overwrite the file, the choice being returned by {@code show} once the window
+ * is closed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LineDiff
+ */
+public class CompareView {
+	/** The background of a line removed from the file. */
+	private static final Color REMOVED_COLOUR = new Color(255, 220, 220);
+	/** The background of a line added in the document. */
+	private static final Color ADDED_COLOUR = new Color(220, 255, 220);
+	/** The background of the header above each group of changes. */
+	private static final Color HEADER_COLOUR = new Color(225, 230, 240);
+
+	/** The window of the view. */
+	private final JDialog dialog;
+	/** Shows the rows of the comparison. */
+	private final JTable table = new JTable();
+	/** The rows of the table. */
+	private final CompareModel model = new CompareModel();
+	/** Shows a summary of the changes, or the progress of the comparison. */
+	private final JLabel statusLBL = new JLabel("Comparing...");
+	/** Moves to the change before the one selected. */
+	private final JButton previousBTN = new JButton("Previous");
+	/** Moves to the change after the one selected. */
+	private final JButton nextBTN = new JButton("Next");
+	/** Switches between side by side and inline rows. */
+	private final JToggleButton inlineBTN = new JToggleButton("Inline");
+
+	/** The comparison shown, null until it has finished. */
+	private LineDiff diff;
+	/** The row of the first changed line of each change shown. */
+	private int[] hunkRows = new int[0];
+	/** The index of the change last moved to. */
+	private int currentHunk = -1;
+	/** Whether the user chose to overwrite the file. */
+	private boolean overwrite = false;
+
+	/**
+	 * Class constructor that creates the window of the view. The comparison is
+	 * shown once it has finished by calling {@code showDiff}.
+	 *
+	 * @param name           the name of the file shown in the title of the window
+	 * @param offerOverwrite whether to offer to overwrite the file
+	 */
+	public CompareView(String name, boolean offerOverwrite) {
+		dialog = new JDialog((Frame) null, "Compare - " + name, true);
+		dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+
+		table.setModel(model);
+		table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+		table.setShowGrid(false);
+		table.setIntercellSpacing(new Dimension(0, 0));
+		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		table.setDefaultRenderer(Object.class, new RowRenderer());
+		table.getTableHeader().setReorderingAllowed(false);
+
+		previousBTN.setMnemonic(KeyEvent.VK_P);
+		previousBTN.addActionListener(e -> moveTo(currentHunk - 1));
+		nextBTN.setMnemonic(KeyEvent.VK_N);
+		nextBTN.addActionListener(e -> moveTo(currentHunk + 1));
+		inlineBTN.addActionListener(e -> showRows());
+		previousBTN.setEnabled(false);
+		nextBTN.setEnabled(false);
+
+		JPanel navigation = new JPanel(new FlowLayout(FlowLayout.LEFT));
+		navigation.add(previousBTN);
+		navigation.add(nextBTN);
+		navigation.add(inlineBTN);
+		navigation.add(statusLBL);
+
+		JPanel actions = new JPanel(new FlowLayout(FlowLayout.RIGHT));
+		if (offerOverwrite) {
+			JButton overwriteBTN = new JButton("Overwrite");
+			overwriteBTN.addActionListener(e -> {
+				overwrite = true;
+				dialog.dispose();
+			});
+			actions.add(overwriteBTN);
+		}
+		JButton closeBTN = new JButton(offerOverwrite ? "Cancel" : "Close");
+		closeBTN.addActionListener(e -> dialog.dispose());
+		actions.add(closeBTN);
+
+		JPanel bottom = new JPanel(new BorderLayout());
+		bottom.add(navigation, BorderLayout.CENTER);
+		bottom.add(actions, BorderLayout.EAST);
+
+		dialog.add(new JScrollPane(table), BorderLayout.CENTER);
+		dialog.add(bottom, BorderLayout.SOUTH);
+		dialog.setPreferredSize(new Dimension(1000, 650));
+		dialog.pack();
+		dialog.setLocationRelativeTo(null);
+	}
+
+	/**
+	 * Shows the window, waiting until it is closed.
+	 *
+	 * @return true if the user chose to overwrite the file
+	 */
+	public boolean show() {
+		dialog.setVisible(true);
+		return overwrite;
+	}
+
+	/**
+	 * Shows a finished comparison and moves to its first change. Must be called
+	 * on the event dispatch thread.
+	 *
+	 * @param diff the {@code LineDiff} of the file and document
+	 */
+	public void showDiff(LineDiff diff) {
+		this.diff = diff;
+		List<LineDiff.Hunk> hunks = diff.getHunks();
+		if (hunks.isEmpty()) {
+			statusLBL.setText("The document is the same as the file.");
+		} else {
+			long removed = 0;
+			long added = 0;
+			for (LineDiff.Hunk hunk : hunks) {
+				removed += hunk.getFileLength();
+				added += hunk.getDocumentLength();
+			}
+			statusLBL.setText(hunks.size() + (hunks.size() == 1 ? " change, " : " changes, ") + removed
+					+ " lines removed and " + added + " added.");
+		}
+		showRows();
+	}
+
+	/**
+	 * Shows that the comparison failed. Must be called on the event dispatch
+	 * thread.
+	 *
+	 * @param message the reason the comparison failed
+	 */
+	public void showError(String message) {
+		statusLBL.setText(message);
+	}
+
+	/**
+	 * Builds the rows of the comparison for the layout selected, keeping the
+	 * change last moved to in view.
+	 */
+	private void showRows() {
+		if (diff == null) {
+			model.setRows(new ArrayList<>(), inlineBTN.isSelected());
+			return;
+		}
+		boolean inline = inlineBTN.isSelected();
+		List<Row> rows = new ArrayList<>();
+		List<LineDiff.Hunk> hunks = diff.getHunks();
+		int shown = diff.getShownHunkCount();
+		hunkRows = new int[shown];
+		int i = 0;
+		while (i < shown) {
+			// Changes whose unchanged lines would overlap are shown as one group.
+			LineDiff.Hunk first = hunks.get(i);
+			int header = rows.size();
+			rows.add(null);
+			int fileStart = Math.max(0, first.getFileStart() - LineDiff.CONTEXT_LINES);
+			int documentStart = fileStart - first.getFileStart() + first.getDocumentStart();
+			addContext(rows, fileStart, first.getFileStart(), documentStart);
+			LineDiff.Hunk hunk;
+			while (true) {
+				hunk = hunks.get(i);
+				hunkRows[i] = rows.size();
+				addHunk(rows, hunk, inline);
+				i++;
+				if (i < shown && hunks.get(i).getFileStart() - hunk.getFileEnd() <= 2 * LineDiff.CONTEXT_LINES) {
+					addContext(rows, hunk.getFileEnd(), hunks.get(i).getFileStart(), hunk.getDocumentEnd());
+				} else {
+					break;
+				}
+			}
+			int fileEnd = Math.min(diff.getFileLineCount(), hunk.getFileEnd() + LineDiff.CONTEXT_LINES);
+			addContext(rows, hunk.getFileEnd(), fileEnd, hunk.getDocumentEnd());
+			int documentEnd = fileEnd - hunk.getFileEnd() + hunk.getDocumentEnd();
+			rows.set(header, Row.header("@@ -" + (fileStart + 1) + "," + (fileEnd - fileStart) + " +"
+					+ (documentStart + 1) + "," + (documentEnd - documentStart) + " @@"));
+		}
+		if (shown < hunks.size()) {
+			rows.add(Row.header("The other " + (hunks.size() - shown) + " changes are not shown."));
+		}
+		model.setRows(rows, inline);
+		setColumnWidths(inline);
+		previousBTN.setEnabled(shown > 0);
+		nextBTN.setEnabled(shown > 0);
+		if (shown > 0) {
+			moveTo(Math.max(0, currentHunk));
+		}
+	}
+
+	/**
+	 * Adds a row for each unchanged line of a range of the file.
+	 *
+	 * @param rows          the rows being built
+	 * @param fileStart     the first line of the file
+	 * @param fileEnd       the line after the last line of the file
+	 * @param documentStart the line of the document matching the first line
+	 */
+	private void addContext(List<Row> rows, int fileStart, int fileEnd, int documentStart) {
+		for (int line = fileStart; line < fileEnd; line++) {
+			String text = diff.getFileLine(line);
+			rows.add(new Row(Row.CONTEXT, line, text, documentStart + line - fileStart, text));
+		}
+	}
+
+	/**
+	 * Adds the rows of a change. Side by side, each removed line is shown beside
+	 * the added line it is replaced by. Inline, the removed lines are shown above
+	 * the added lines.
+	 *
+	 * @param rows   the rows being built
+	 * @param hunk   the change
+	 * @param inline whether the rows are inline
+	 */
+	private void addHunk(List<Row> rows, LineDiff.Hunk hunk, boolean inline) {
+		int removed = Math.min(hunk.getFileLength(), LineDiff.MAX_HUNK_LINES);
+		int added = Math.min(hunk.getDocumentLength(), LineDiff.MAX_HUNK_LINES);
+		if (inline) {
+			for (int i = 0; i < removed; i++) {
+				int line = hunk.getFileStart() + i;
+				rows.add(new Row(Row.REMOVED, line, diff.getFileLine(line), -1, null));
+			}
+			for (int i = 0; i < added; i++) {
+				int line = hunk.getDocumentStart() + i;
+				rows.add(new Row(Row.ADDED, -1, null, line, diff.getDocumentLine(line)));
+			}
+		} else {
+			for (int i = 0; i < Math.max(removed, added); i++) {
+				int fileLine = i < removed ? hunk.getFileStart() + i : -1;
+				int documentLine = i < added ? hunk.getDocumentStart() + i : -1;
+				rows.add(new Row(Row.CHANGED, fileLine, fileLine < 0 ? null : diff.getFileLine(fileLine),
+						documentLine, documentLine < 0 ? null : diff.getDocumentLine(documentLine)));
+			}
+		}
+		if (removed < hunk.getFileLength() || added < hunk.getDocumentLength()) {
+			rows.add(Row.header("... " + (hunk.getFileLength() - removed) + " removed and "
+					+ (hunk.getDocumentLength() - added) + " added lines are not shown."));
+		}
+	}
+
+	/**
+	 * Sizes the line number columns to fit their numbers, leaving the rest of
+	 * the width to the text.
+	 *
+	 * @param inline whether the rows are inline
+	 */
+	private void setColumnWidths(boolean inline) {
+		int digits = String.valueOf(Math.max(diff.getFileLineCount(), diff.getDocumentLineCount())).length();
+		int width = table.getFontMetrics(table.getFont()).charWidth('0') * (digits + 2);
+		for (int column : inline ? new int[] { 0, 1 } : new int[] { 0, 2 }) {
+			TableColumn tableColumn = table.getColumnModel().getColumn(column);
+			tableColumn.setMinWidth(width);
+			tableColumn.setMaxWidth(width);
+		}
+	}
+
+	/**
+	 * Selects the first changed line of a change and scrolls it into view, along
+	 * with the unchanged lines above it.
+	 *
+	 * @param index the index of the change, wrapping around at either end
+	 */
+	private void moveTo(int index) {
+		if (hunkRows.length == 0) {
+			return;
+		}
+		currentHunk = Math.floorMod(index, hunkRows.length);
+		int row = hunkRows[currentHunk];
+		table.setRowSelectionInterval(row, row);
+		Rectangle rect = table.getCellRect(Math.max(0, row - LineDiff.CONTEXT_LINES - 1), 0, true);
+		rect.height = table.getVisibleRect().height;
+		table.scrollRectToVisible(rect);
+	}
+
+	/**
+	 * A row of the comparison, holding a line of the file, a line of the
+	 * document, or both.
+	 */
+	private static class Row {
+		/** A line that is the same in the file and the document. */
+		static final int CONTEXT = 0;
+		/** A line removed from the file, shown inline. */
+		static final int REMOVED = 1;
+		/** A line added in the document, shown inline. */
+		static final int ADDED = 2;
+		/** A line of the file replaced by a line of the document, side by side. */
+		static final int CHANGED = 3;
+		/** A header above a group of changes, or a note. */
+		static final int HEADER = 4;
+
+		/** The kind of the row. */
+		final int kind;
+		/** The index of the line of the file, or -1 if none. */
+		final int fileLine;
+		/** The text of the line of the file. */
+		final String fileText;
+		/** The index of the line of the document, or -1 if none. */
+		final int documentLine;
+		/** The text of the line of the document. */
+		final String documentText;
+
+		/**
+		 * Class constructor that holds the lines of the row.
+		 *
+		 * @param kind         the kind of the row
+		 * @param fileLine     the index of the line of the file, or -1 if none
+		 * @param fileText     the text of the line of the file
+		 * @param documentLine the index of the line of the document, or -1 if none
+		 * @param documentText the text of the line of the document
+		 */
+		Row(int kind, int fileLine, String fileText, int documentLine, String documentText) {
+			this.kind = kind;
+			this.fileLine = fileLine;
+			this.fileText = fileText;
+			this.documentLine = documentLine;
+			this.documentText = documentText;
+		}
+
+		/**
+		 * Creates a header row showing the text provided.
+		 *
+		 * @param text the text of the header
+		 * @return the header {@code Row}
+		 */
+		static Row header(String text) {
+			return new Row(HEADER, -1, text, -1, text);
+		}
+	}
+
+	/**
+	 * The rows of the comparison as a table, with a line number and text column
+	 * for each side when side by side, or both line numbers then the text when
+	 * inline.
+	 */
+	private static class CompareModel extends AbstractTableModel {
+		private static final long serialVersionUID = 1L;
+
+		/** The rows of the table. */
+		private List<Row> rows = new ArrayList<>();
+		/** Whether the rows are inline. */
+		private boolean inline = false;
+
+		/**
+		 * Replaces the rows of the table.
+		 *
+		 * @param rows   the new rows
+		 * @param inline whether the rows are inline
+		 */
+		void setRows(List<Row> rows, boolean inline) {
+			this.rows = rows;
+			this.inline = inline;
+			fireTableStructureChanged();
+		}
+
+		/**
+		 * Returns a row of the table.
+		 *
+		 * @param row the index of the row
+		 * @return the {@code Row}
+		 */
+		Row getRow(int row) {
+			return rows.get(row);
+		}
+
+		@Override
+		public int getRowCount() {
+			return rows.size();
+		}
+
+		@Override
+		public int getColumnCount() {
+			return inline ? 3 : 4;
+		}
+
+		@Override
+		public String getColumnName(int column) {
+			if (inline) {
+				return new String[] { "File", "Document", "" }[column];
+			}
+			return new String[] { "", "File", "", "Document" }[column];
+		}
+
+		@Override
+		public Object getValueAt(int rowIndex, int column) {
+			Row row = rows.get(rowIndex);
+			if (row.kind == Row.HEADER) {
+				return column == (inline ? 2 : 1) ? row.fileText : "";
+			}
+			if (inline) {
+				switch (column) {
+				case 0:
+					return row.fileLine < 0 ? "" : String.valueOf(row.fileLine + 1);
+				case 1:
+					return row.documentLine < 0 ? "" : String.valueOf(row.documentLine + 1);
+				default:
+					String prefix = row.kind == Row.REMOVED ? "- " : row.kind == Row.ADDED ? "+ " : "  ";
+					return prefix + (row.kind == Row.ADDED ? row.documentText : row.fileText);
+				}
+			}
+			switch (column) {
+			case 0:
+				return row.fileLine < 0 ? "" : String.valueOf(row.fileLine + 1);
+			case 1:
+				return row.fileLine < 0 ? "" : row.fileText;
+			case 2:
+				return row.documentLine < 0 ? "" : String.valueOf(row.documentLine + 1);
+			default:
+				return row.documentLine < 0 ? "" : row.documentText;
+			}
+		}
+	}
+
+	/**
+	 * Colours each cell by the kind of its row, red for the lines of the file
+	 * that are removed and green for the lines of the document that are added.
+	 */
+	private class RowRenderer extends DefaultTableCellRenderer {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected,
+				boolean hasFocus, int rowIndex, int column) {
+			super.getTableCellRendererComponent(table, value, isSelected, false, rowIndex, column);
+			setBorder(BorderFactory.createEmptyBorder(0, 4, 0, 4));
+			if (isSelected) {
+				return this;
+			}
+			Row row = model.getRow(rowIndex);
+			boolean fileSide = model.inline ? row.kind == Row.REMOVED : column < 2;
+			switch (row.kind) {
+			case Row.HEADER:
+				setBackground(HEADER_COLOUR);
+				break;
+			case Row.REMOVED:
+				setBackground(REMOVED_COLOUR);
+				break;
+			case Row.ADDED:
+				setBackground(ADDED_COLOUR);
+				break;
+			case Row.CHANGED:
+				boolean present = fileSide ? row.fileLine >= 0 : row.documentLine >= 0;
+				setBackground(!present ? table.getBackground() : fileSide ? REMOVED_COLOUR : ADDED_COLOUR);
+				break;
+			default:
+				setBackground(table.getBackground());
+			}
+			return this;
+		}
+	}
+}
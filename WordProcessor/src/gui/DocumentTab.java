@@ -0,0 +1,903 @@
+package gui;
+
+import java.awt.BorderLayout;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.KeyEvent;
+import java.awt.geom.Rectangle2D;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.swing.BorderFactory;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
+import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+import javax.swing.text.StyledDocument;
+
+import file.ChunkedFileReader;
+import file.EditorEvents;
+import file.EditorMetrics;
+import file.FileFingerprint;
+import file.FileManipulation;
+import file.RichTextFile;
+import file.SnapshotCache;
+import file.TextEncoding;
+
+/**
+ * A tab of the workspace, holding one document along with everything kept of
+ * it, i.e its undo history, {@code EditJournal}, indexes, find bar and whether
+ * it has been saved. The text pane is shown above the find bar and the count of
+ * the document, so switching tabs shows the count of the document in view.
+ *
+ * The document is marked as not saved by each insert, removal or change of
+ * formatting made by the user, and as saved once it has been loaded from or
+ * saved to a file. Loads and the eviction of the tab are not counted as edits,
+ * nor is the formatting applied by the {@code RestyleEngine}.
+ *
+ * Whilst the tab is in the background its text may be evicted to a cache file
+ * by the {@code TabEvictor}, leaving the document empty until the tab is
+ * selected again. The undo history is moved to its spill files along with the
+ * text, so it can still be undone once the tab is back, and the journal is
+ * paused, rather than recording the removal, so the unsaved work of the tab can
+ * still be recovered from it.
+ *
+ * The text pane times each key that changes the document, from when the key
+ * was queued until the change has been painted, recording it as a
+ * {@code KeystrokePaint} event and in the {@code EditorMetrics}.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see TabEvictor
+ */
+public class DocumentTab extends JPanel {
+	private static final long serialVersionUID = 1L;
+	/** The title of a tab whose document has no file. */
+	private static final String UNTITLED = "Untitled";
+
+	/** The text pane the user types into. */
+	private final JTextPane textPane;
+	/** The scroll pane the text pane is shown in. */
+	private final JScrollPane scrollPane;
+	/** The undo history of the document. */
+	private final BoundedUndoManager manager = new BoundedUndoManager();
+	/** Records the edits of the document so unsaved work can be recovered. */
+	private final EditJournal journal;
+	/** Finds text within the text pane, shown below it when opened. */
+	private final FindBar findBar;
+	/** Keeps the offset of the start of each line of the document. */
+	private final LineIndex lineIndex;
+	/** Shows the number of each line beside the text pane when turned on. */
+	private final LineNumberGutter lineGutter;
+	/** Underlines the misspelt words in view. */
+	private final SpellChecker spellChecker;
+	/** Styles the paragraphs of the document by the style rules turned on. */
+	private final RestyleEngine restyleEngine;
+	/** Keeps the character count up to date from the document events. */
+	private final CharacterCounter charCounter;
+	/** Holds the text value of the characters. */
+	private final JLabel charCountLBL = new JLabel("Characters: 0");
+	/** Told each time the title of the tab changes. */
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+
+	/** The location of the journal of the tab. */
+	private final Path journalPath;
+	/** The file the document was loaded from or saved to, null if none. */
+	private Path file;
+	/** Holds the save state of the document, an empty tab having nothing to save. */
+	private boolean isSaved = true;
+	/** Whether edits are made by the user, marking it unsaved. */
+	private boolean tracking = true;
+	/** Counts the inserts, removals and changes of formatting made to the document. */
+	private long edits = 0;
+	/** The encoding the document was read in, used when it is saved. */
+	private TextEncoding documentEncoding = TextEncoding.DEFAULT;
+	/** The fingerprint of the file when the document was loaded or saved, or null. */
+	private FileFingerprint fingerprint;
+	/** Holds the load of a file into the text pane that is in progress, if any. */
+	private FileLoader fileLoader;
+	/** The cache file the text was evicted to, null whilst the text is held. */
+	private Path evictedTo;
+	/** The number of the last time the tab was selected, used to find the least recent. */
+	private long lastUsed;
+
+	/**
+	 * Class constructor that creates the text pane of the tab along with its
+	 * document, which is a {@code RichDocument} shown through a
+	 * {@code LazyEditorKit}. The {@code FindBar} of the text pane is created here
+	 * along with the {@code TextIndex} of its document, the {@code LineIndex} of
+	 * the document along with the {@code LineNumberGutter} that is shown when
+	 * turned on, the {@code SpellChecker} of the text pane and the
+	 * {@code RestyleEngine} of the document, which applies no rules until they
+	 * are turned on.
+	 *
+	 * The journal is attached to the document but does not record edits until
+	 * resumed, so that any unsaved work left in it can be recovered first.
+	 *
+	 * @param journalPath the {@code Path} value of the journal of the tab
+	 */
+	public DocumentTab(Path journalPath) {
+		super(new BorderLayout());
+		textPane = new EditorPane();
+		textPane.setEditorKit(new LazyEditorKit());
+		this.journalPath = journalPath;
+		journal = new EditJournal(journalPath);
+		journal.attach(textPane.getDocument());
+
+		scrollPane = new JScrollPane(textPane);
+		scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
+		scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
+		findBar = new FindBar(textPane, scrollPane, new TextIndex(textPane.getDocument()));
+		lineIndex = new LineIndex(textPane.getDocument());
+		lineGutter = new LineNumberGutter(textPane, lineIndex);
+		spellChecker = new SpellChecker(textPane, scrollPane);
+		restyleEngine = new RestyleEngine(textPane.getStyledDocument(), manager);
+		textPane.getDocument().addDocumentListener(new EditListener());
+
+		add(scrollPane, BorderLayout.CENTER);
+		add(createCountPanel(), BorderLayout.SOUTH);
+		charCounter = new CharacterCounter((AbstractDocument) textPane.getDocument(), charCountLBL, manager);
+		// Attached last so its filter sees each removal before the counter does.
+		manager.attach((AbstractDocument) textPane.getDocument());
+	}
+
+	/**
+	 * Creates the panel shown below the text pane, holding the {@code FindBar},
+	 * which is placed above the count when it is opened, and the count of the
+	 * document. The line and column of the caret are shown beside the count,
+	 * found through the {@code LineIndex} each time the caret moves.
+	 *
+	 * @return {@code JPanel} the find bar and count panel
+	 */
+	private JPanel createCountPanel() {
+		JPanel southPanel = new JPanel(new BorderLayout());
+		JPanel countPanel = new JPanel();
+
+		charCountLBL.setHorizontalAlignment(SwingConstants.CENTER);
+
+		JLabel caretLBL = new JLabel("Ln 1, Col 1");
+		caretLBL.setBorder(BorderFactory.createEmptyBorder(0, 20, 0, 0));
+		textPane.addCaretListener(e -> {
+			int line = lineIndex.getLineOfOffset(e.getDot());
+			int column = e.getDot() - lineIndex.getLineStartOffset(line);
+			caretLBL.setText("Ln " + (line + 1) + ", Col " + (column + 1));
+		});
+
+		countPanel.add(charCountLBL);
+		countPanel.add(caretLBL);
+		southPanel.add(findBar, BorderLayout.NORTH);
+		southPanel.add(countPanel, BorderLayout.SOUTH);
+
+		return southPanel;
+	}
+
+	/**
+	 * Adds a listener told each time the title of the tab changes, i.e once the
+	 * document is saved or first edited.
+	 *
+	 * @param listener the {@code Runnable} to be run on the event dispatch thread
+	 */
+	public void addTitleListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Returns the name of the document, the name of its file or
+	 * {@code UNTITLED} if it has none.
+	 *
+	 * @return the name of the document
+	 */
+	public String getDisplayName() {
+		return file == null ? UNTITLED : file.getFileName().toString();
+	}
+
+	/**
+	 * Returns the title of the tab, the name of the document marked with a '*'
+	 * whilst it has unsaved edits.
+	 *
+	 * @return the title of the tab
+	 */
+	public String getTitle() {
+		return isSaved ? getDisplayName() : "*" + getDisplayName();
+	}
+
+	/**
+	 * Returns the file the document was loaded from or saved to.
+	 *
+	 * @return the {@code Path} value of the file, or null if there is none
+	 */
+	public Path getFile() {
+		return file;
+	}
+
+	/**
+	 * Sets the file the document was loaded from or saved to, shown as the title
+	 * of the tab.
+	 *
+	 * @param file the {@code Path} value of the file
+	 */
+	public void setFile(Path file) {
+		this.file = file;
+		fireTitleChanged();
+	}
+
+	/**
+	 * Returns the text pane the user types into.
+	 *
+	 * @return the {@code JTextPane} of the tab
+	 */
+	public JTextPane getTextPane() {
+		return textPane;
+	}
+
+	/**
+	 * A getter method that returns the {@code BoundedUndoManager} of the document.
+	 *
+	 * @return manager the undo history of the document.
+	 */
+	public BoundedUndoManager getUndoRedoManager() {
+		return manager;
+	}
+
+	/**
+	 * A getter method that returns the {@code EditJournal} of the document.
+	 *
+	 * @return journal the {@code EditJournal} of the document.
+	 */
+	public EditJournal getJournal() {
+		return journal;
+	}
+
+	/**
+	 * Returns the location of the journal of the tab.
+	 *
+	 * @return the {@code Path} value of the journal
+	 */
+	public Path getJournalPath() {
+		return journalPath;
+	}
+
+	/**
+	 * Returns whether the document has been saved since it was last edited.
+	 *
+	 * @return true if the document has no unsaved edits
+	 */
+	public boolean isSaved() {
+		return isSaved;
+	}
+
+	/**
+	 * A setter method used to set the save state of the document.
+	 *
+	 * @param value whether the document has no unsaved edits
+	 */
+	public void setIsSaved(boolean value) {
+		if (isSaved != value) {
+			isSaved = value;
+			fireTitleChanged();
+		}
+	}
+
+	/**
+	 * Returns the encoding the document was read in, which it is wrote back in
+	 * when saved. A new document is UTF-8 with new lines.
+	 *
+	 * @return the {@code TextEncoding} of the document
+	 */
+	public TextEncoding getDocumentEncoding() {
+		return documentEncoding;
+	}
+
+	/**
+	 * Sets the encoding the document is saved in.
+	 *
+	 * @param encoding the {@code TextEncoding} of the document
+	 */
+	public void setDocumentEncoding(TextEncoding encoding) {
+		documentEncoding = encoding;
+	}
+
+	/**
+	 * Returns the document of the text pane, allowing its text to be read without
+	 * copying it into a single {@code String}.
+	 *
+	 * @return the {@code StyledDocument} of the text pane
+	 */
+	public StyledDocument getDocument() {
+		return textPane.getStyledDocument();
+	}
+
+	/**
+	 * Returns the document of the text pane as a {@code RichDocument}, which is
+	 * able to be loaded from a Textual document.
+	 *
+	 * @return the {@code RichDocument} of the text pane
+	 */
+	public RichDocument getRichDocument() {
+		return (RichDocument) textPane.getStyledDocument();
+	}
+
+	/**
+	 * Determines whether the text pane is blank, i.e it is empty or contains only
+	 * white space. The document is read a {@code Segment} at a time so no copy of
+	 * its text is made. The text of an evicted tab is not blank.
+	 *
+	 * @return true if there is no text other than white space in the text pane
+	 */
+	public boolean isTextPaneBlank() {
+		if (evictedTo != null) {
+			return false;
+		}
+		Document document = textPane.getDocument();
+		boolean[] blank = { true };
+		document.render(() -> {
+			Segment segment = new Segment();
+			segment.setPartialReturn(true);
+			int offset = 0;
+			int length = document.getLength();
+			try {
+				while (blank[0] && offset < length) {
+					document.getText(offset, length - offset, segment);
+					for (char c = segment.first(); c != Segment.DONE; c = segment.next()) {
+						if (!Character.isWhitespace(c)) {
+							blank[0] = false;
+							break;
+						}
+					}
+					offset += segment.count;
+				}
+			} catch (BadLocationException e) {
+				System.out.println("Error reading text pane.");
+			}
+		});
+		return blank[0];
+	}
+
+	/**
+	 * Determines whether the tab is unused, i.e it has no file, no text and
+	 * nothing being loaded into it, so a file being opened can be shown in it
+	 * rather than in a tab of its own.
+	 *
+	 * @return true if the tab is unused
+	 */
+	public boolean isUnused() {
+		return file == null && fileLoader == null && evictedTo == null && textPane.getDocument().getLength() == 0;
+	}
+
+	/**
+	 * Sets the text area content by decoding a byte array argument if not equal
+	 * null. The encoding of the bytes is detected in the same way as a file that
+	 * is opened, and becomes the encoding the document is saved in.
+	 *
+	 * @param content a byte array with the byte value of each character to be added
+	 *                to the text pane.
+	 * @see TextEncoding#detect(ByteBuffer, boolean)
+	 */
+	public void setTextPane(byte[] content) {
+		if (content != null) {
+			TextEncoding encoding = TextEncoding.detect(ByteBuffer.wrap(content), true);
+			int bom = encoding.getBom().length;
+			setText(new String(content, bom, content.length - bom, encoding.getCharset()));
+			documentEncoding = encoding;
+		}
+	}
+
+	/**
+	 * Sets the text area content to the text provided if not equal null.
+	 *
+	 * @param content the text to be shown in the text pane.
+	 */
+	public void setTextPane(String content) {
+		if (content != null) {
+			setText(content);
+		}
+	}
+
+	/**
+	 * Replaces the text of the text pane, recording how long it took as a
+	 * {@code SetText} event and in the {@code EditorMetrics}.
+	 *
+	 * @param content the text to be shown in the text pane
+	 */
+	private void setText(String content) {
+		EditorEvents.SetText event = new EditorEvents.SetText();
+		event.begin();
+		long start = System.nanoTime();
+		textPane.setText(content);
+		event.length = content.length();
+		event.commit();
+		EditorMetrics.get().record(EditorMetrics.Operation.SET_TEXT, start);
+	}
+
+	/**
+	 * Moves the caret to the start of a line and scrolls it into view. The start
+	 * of the line is found through the {@code LineIndex} rather than by reading
+	 * the text.
+	 *
+	 * @param line the one based number of the line, clamped to the lines of the
+	 *             document
+	 * @see LineIndex#getLineStartOffset(int)
+	 */
+	public void goToLine(int line) {
+		textPane.setCaretPosition(lineIndex.getLineStartOffset(line - 1));
+		try {
+			textPane.scrollRectToVisible(textPane.modelToView2D(textPane.getCaretPosition()).getBounds());
+		} catch (BadLocationException e) {
+			System.out.println("Error scrolling to line.");
+		}
+		textPane.requestFocusInWindow();
+	}
+
+	/**
+	 * Returns the number of lines in the document of the text pane.
+	 *
+	 * @return the number of lines
+	 */
+	public int getLineCount() {
+		return lineIndex.getLineCount();
+	}
+
+	/**
+	 * Returns the offset of the first character in view, which is kept in the
+	 * snapshot of the document so the view can be put back when it is reopened.
+	 *
+	 * @return the offset at the top of the view
+	 */
+	public int getTopOffset() {
+		Rectangle view = scrollPane.getViewport().getViewRect();
+		return Math.max(0, textPane.viewToModel2D(new Point(0, view.y)));
+	}
+
+	/**
+	 * Determines whether a snapshot can be taken of the document, i.e it holds
+	 * exactly the contents of its file. An evicted document, or one still being
+	 * loaded, does not.
+	 *
+	 * @return true if the document matches its file
+	 */
+	public boolean isSnapshotReady() {
+		return file != null && fingerprint != null && isSaved && !isEvicted() && !isLoading();
+	}
+
+	/**
+	 * Returns the fingerprint the file had when the document was loaded from or
+	 * saved to it, which a snapshot of the document is stored under.
+	 *
+	 * @return the {@code FileFingerprint} of the file, or null if not known
+	 */
+	public FileFingerprint getFingerprint() {
+		return fingerprint;
+	}
+
+	/**
+	 * Sets the fingerprint of the file the document has just been saved to.
+	 *
+	 * @param fingerprint the {@code FileFingerprint} of the file as saved
+	 */
+	public void setFingerprint(FileFingerprint fingerprint) {
+		this.fingerprint = fingerprint;
+	}
+
+	/**
+	 * Shows the find bar of the tab.
+	 */
+	public void openFindBar() {
+		findBar.open();
+	}
+
+	/**
+	 * Shows or hides the line numbers beside the text pane.
+	 *
+	 * @param shown whether the line numbers are shown
+	 */
+	public void setLineNumbersShown(boolean shown) {
+		scrollPane.setRowHeaderView(shown ? lineGutter : null);
+	}
+
+	/**
+	 * Turns the underlining of misspelt words on or off.
+	 *
+	 * @param enabled whether misspelt words are underlined
+	 * @see SpellChecker#setEnabled(boolean)
+	 */
+	public void setSpellCheckEnabled(boolean enabled) {
+		spellChecker.setEnabled(enabled);
+	}
+
+	/**
+	 * Sets the style rules applied to the document, restyling the whole document.
+	 *
+	 * @param rules the {@code StyleRule}s to be applied, in order
+	 * @see RestyleEngine#setRules(List)
+	 */
+	public void setStyleRules(List<StyleRule> rules) {
+		restyleEngine.setRules(rules);
+	}
+
+	/**
+	 * This method handles the updating of the count of the document by counting
+	 * the whole document again.
+	 *
+	 * @see CharacterCounter#recount()
+	 */
+	public void updateCharCount() {
+		charCounter.recount();
+	}
+
+	/**
+	 * Replaces the content of the text area with the contents of the file being
+	 * read by the reader provided. The file is loaded in chunks on a worker thread
+	 * so the first part of the file is shown straight away, and the user is able
+	 * to cancel the load of a large file. Any load already in progress is
+	 * cancelled first.
+	 *
+	 * The encoding detected by the reader becomes the encoding the document is
+	 * saved in. The undo history is cleared once the load has finished so that the
+	 * loaded chunks cannot be undone one at a time. The chunks are not recorded in the
+	 * {@code EditJournal}, which instead starts again from the file once loaded,
+	 * and the document is then marked as saved to the file.
+	 *
+	 * @param reader   the {@code ChunkedFileReader} of the file to be shown.
+	 * @param path     the {@code Path} value of the file being loaded.
+	 * @param executor the {@code Executor} the file is read on.
+	 * @see FileLoader
+	 */
+	public void loadTextPane(ChunkedFileReader reader, Path path, Executor executor) {
+		if (fileLoader != null) {
+			fileLoader.cancel(true);
+		}
+		journal.suspend();
+		tracking = false;
+		textPane.setText("");
+		documentEncoding = reader.getEncoding();
+		fingerprint = null;
+		file = path;
+		FileLoader loader = new FileLoader(reader, textPane.getStyledDocument(), loaded -> {
+			// Input that could not be decoded is only found once it has been read.
+			documentEncoding = reader.getEncoding();
+			fingerprint = loaded ? reader.getFingerprint() : null;
+			manager.discardAllEdits();
+			if (loaded) {
+				journal.rebase(path, fingerprint);
+			} else {
+				journal.resume();
+			}
+			tracking = true;
+			fileLoader = null;
+			setIsSaved(loaded);
+			fireTitleChanged();
+		});
+		fileLoader = loader;
+		fireTitleChanged();
+		try {
+			executor.execute(loader);
+		} catch (RejectedExecutionException e) {
+			// Too many file operations are waiting, read on a thread of its own.
+			loader.execute();
+		}
+	}
+
+	/**
+	 * Replaces the content of the text area with a Textual document prepared by
+	 * {@code RichDocument.prepare}, its text along with its formatting. The whole
+	 * document is built in a single step, so unlike {@code loadTextPane} it is
+	 * not loaded in chunks. Any load of a file already in progress is cancelled
+	 * first.
+	 *
+	 * A Textual document is always UTF-8, which becomes the encoding the document
+	 * is saved in if it is later saved as a text file. The load is kept out of
+	 * the undo history, so its text is not copied into it, and the history is
+	 * cleared. The {@code EditJournal} starts again from the document once
+	 * loaded.
+	 *
+	 * @param contents    the contents of the Textual document.
+	 * @param path        the {@code Path} value of the document being loaded.
+	 * @param fingerprint the {@code FileFingerprint} of the document when read,
+	 *                    or null if not known
+	 * @see RichDocument#load(RichDocument.Contents)
+	 */
+	public void loadRichTextPane(RichDocument.Contents contents, Path path, FileFingerprint fingerprint) {
+		if (fileLoader != null) {
+			fileLoader.cancel(true);
+		}
+		journal.suspend();
+		tracking = false;
+		manager.runUnrecorded(() -> getRichDocument().load(contents));
+		tracking = true;
+		documentEncoding = TextEncoding.DEFAULT;
+		manager.discardAllEdits();
+		journal.rebase(path, fingerprint);
+		file = path;
+		this.fingerprint = fingerprint;
+		isSaved = true;
+		fireTitleChanged();
+	}
+
+	/**
+	 * Replaces the content of the text area with the snapshot of a file, prepared
+	 * by {@code RichDocument.prepare}, in the same way as
+	 * {@code loadRichTextPane}. The document keeps the encoding of the file so it
+	 * is saved back exactly as it was read, and once it has been laid out the
+	 * caret and the view are put back where they were when the snapshot was
+	 * taken.
+	 *
+	 * @param contents the contents of the document of the snapshot
+	 * @param snapshot the {@code Snapshot} being loaded
+	 * @param path     the {@code Path} value of the file the snapshot was taken of
+	 * @see SnapshotCache#find(Path)
+	 */
+	public void loadSnapshot(RichDocument.Contents contents, SnapshotCache.Snapshot snapshot, Path path) {
+		loadRichTextPane(contents, path, snapshot.getFingerprint());
+		documentEncoding = snapshot.getEncoding();
+		int length = getDocument().getLength();
+		textPane.setCaretPosition(Math.min(snapshot.getCaret(), length));
+		int top = Math.min(snapshot.getTopOffset(), length);
+		SwingUtilities.invokeLater(() -> {
+			try {
+				Rectangle2D bounds = textPane.modelToView2D(top);
+				if (bounds != null) {
+					scrollPane.getViewport().setViewPosition(new Point(0, (int) bounds.getY()));
+				}
+			} catch (BadLocationException e) {
+				System.out.println("Error restoring view.");
+			}
+		});
+	}
+
+	/**
+	 * Replays the unsaved work left in the journal of the tab by a previous
+	 * session into the document, then starts recording edits again. The document
+	 * is not marked as saved, as the work recovered was not.
+	 *
+	 * @param fileManip used to read the file the journal was based on
+	 * @return true if the whole journal was recovered
+	 * @see EditJournal#recover(FileManipulation)
+	 */
+	public boolean recover(FileManipulation fileManip) {
+		tracking = false;
+		boolean recovered = journal.recover(fileManip);
+		tracking = true;
+		if (journal.getRecoveredEncoding() != null) {
+			documentEncoding = journal.getRecoveredEncoding();
+		}
+		manager.discardAllEdits();
+		journal.resume();
+		fingerprint = null;
+		isSaved = textPane.getDocument().getLength() == 0;
+		fireTitleChanged();
+		return recovered;
+	}
+
+	/**
+	 * Returns the number of the last time the tab was selected.
+	 *
+	 * @return the number of the last time the tab was selected
+	 */
+	long getLastUsed() {
+		return lastUsed;
+	}
+
+	/**
+	 * Records the time the tab was selected as a number increasing with each
+	 * selection.
+	 *
+	 * @param lastUsed the number of the time the tab was selected
+	 */
+	void setLastUsed(long lastUsed) {
+		this.lastUsed = lastUsed;
+	}
+
+	/**
+	 * Returns the number of inserts, removals and changes of formatting made to the
+	 * document, used to tell whether it changed whilst being evicted or saved.
+	 *
+	 * @return the number of edits made to the document
+	 */
+	long getEditCount() {
+		return edits;
+	}
+
+	/**
+	 * Returns whether the text of the tab has been evicted to a cache file.
+	 *
+	 * @return true if the document does not hold its text
+	 */
+	public boolean isEvicted() {
+		return evictedTo != null;
+	}
+
+	/**
+	 * Returns whether a file is being loaded into the tab.
+	 *
+	 * @return true if a load is in progress
+	 */
+	boolean isLoading() {
+		return fileLoader != null;
+	}
+
+	/**
+	 * Empties the document once its text has been wrote to a cache file, moving
+	 * its undo history to the spill files of the {@code BoundedUndoManager} so it
+	 * holds no memory either. The journal is paused rather than recording the
+	 * removal, and the tab is left marked as saved or not as it was. Must be
+	 * called on the event dispatch thread.
+	 *
+	 * @param cache the {@code Path} value of the cache file holding the text
+	 */
+	void evict(Path cache) {
+		journal.pause();
+		tracking = false;
+		manager.spillAll();
+		manager.runUnrecorded(() -> {
+			try {
+				textPane.getDocument().remove(0, textPane.getDocument().getLength());
+			} catch (BadLocationException e) {
+				System.out.println("Error evicting document.");
+			}
+		});
+		tracking = true;
+		evictedTo = cache;
+	}
+
+	/**
+	 * Loads the text of an evicted tab back from its cache file, along with its
+	 * formatting, and starts recording edits to the journal again. The cache
+	 * file is removed once loaded. If the cache file cannot be read, the text is
+	 * recovered from the journal instead, without its formatting. The undo
+	 * history spilled when the tab was evicted is kept, as the text is the same
+	 * as when it was evicted, unless the text could not be wholly restored. Must
+	 * be called on the event dispatch thread.
+	 *
+	 * @param fileManip used to read the cache file
+	 * @return true if the whole text was restored
+	 */
+	boolean restore(FileManipulation fileManip) {
+		Path cache = evictedTo;
+		RichTextFile cached = fileManip.getRichTextFile(cache);
+		boolean[] restored = { true };
+		tracking = false;
+		if (cached != null) {
+			RichDocument document = getRichDocument();
+			manager.runUnrecorded(() -> document.load(document.prepare(cached)));
+		} else {
+			manager.runUnrecorded(() -> restored[0] = journal.recover(fileManip));
+		}
+		tracking = true;
+		if (!restored[0]) {
+			manager.discardAllEdits();
+		}
+		evictedTo = null;
+		journal.continueRecording();
+		fileManip.deleteFile(cache);
+		return restored[0];
+	}
+
+	/**
+	 * Stops everything kept of the document once the tab has been closed. Any
+	 * load in progress is cancelled, the background threads of the tab are
+	 * stopped, and the undo history, along with any spill files it was moved out
+	 * to, and the cache file of an evicted tab are removed. The journal is
+	 * removed unless asked to be kept, i.e when the program is closing with the
+	 * work of the tab unsaved.
+	 *
+	 * @param fileManip   used to remove the cache file
+	 * @param keepJournal whether the journal is left to be recovered
+	 */
+	public void dispose(FileManipulation fileManip, boolean keepJournal) {
+		if (fileLoader != null) {
+			fileLoader.cancel(true);
+		}
+		findBar.close();
+		spellChecker.dispose();
+		restyleEngine.dispose();
+		journal.close();
+		if (!keepJournal) {
+			journal.clear();
+		}
+		manager.close();
+		if (evictedTo != null) {
+			fileManip.deleteFile(evictedTo);
+		}
+	}
+
+	/**
+	 * Tells each title listener the title of the tab may have changed.
+	 */
+	private void fireTitleChanged() {
+		for (Runnable listener : listeners) {
+			listener.run();
+		}
+	}
+
+	/**
+	 * Marks the document as not saved on each insert, removal or change of
+	 * formatting made by the user.
+	 */
+	private class EditListener implements DocumentListener {
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			edited();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			edited();
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// The restyle engine styles the text again whenever it is opened.
+			if (!manager.isUnrecorded()) {
+				edited();
+			}
+		}
+
+		/**
+		 * Counts an edit, marking the document as not saved if made by the user.
+		 */
+		private void edited() {
+			edits++;
+			if (tracking) {
+				setIsSaved(false);
+			}
+		}
+	}
+
+	/**
+	 * The text pane of the tab, which times each key that changes the document
+	 * until the change has been painted. The time starts from when the key was
+	 * queued, so time spent waiting behind other events on the event dispatch
+	 * thread is counted. A key that changes nothing, i.e moving the caret, is not
+	 * timed, as there may be no paint following it.
+	 */
+	private class EditorPane extends JTextPane {
+		private static final long serialVersionUID = 1L;
+		/** The number of nanoseconds in a millisecond. */
+		private static final long NANOS_PER_MILLI = 1_000_000;
+
+		/** The event of the key waiting to be painted, or null. */
+		private transient EditorEvents.KeystrokePaint pending;
+		/** The value of {@code System.nanoTime()} when the key waiting was queued. */
+		private long keyStart;
+
+		@Override
+		protected void processKeyEvent(KeyEvent e) {
+			long handled = System.nanoTime();
+			// The time the key was queued is only known to the millisecond.
+			long queued = Math.max(0, System.currentTimeMillis() - e.getWhen()) * NANOS_PER_MILLI;
+			EditorEvents.KeystrokePaint event = new EditorEvents.KeystrokePaint();
+			event.begin();
+			long before = edits;
+			super.processKeyEvent(e);
+			if (edits != before && pending == null) {
+				event.queued = queued;
+				pending = event;
+				keyStart = handled - queued;
+			}
+		}
+
+		@Override
+		protected void paintComponent(Graphics g) {
+			super.paintComponent(g);
+			if (pending != null) {
+				pending.commit();
+				EditorMetrics.get().record(EditorMetrics.Operation.KEYSTROKE_PAINT, keyStart);
+				pending = null;
+			}
+		}
+	}
+}
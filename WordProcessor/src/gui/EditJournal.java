@@ -0,0 +1,615 @@
+package gui;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+import file.ChunkedFileReader;
+import file.FileFingerprint;
+import file.FileManipulation;
+import file.RichTextFile;
+import file.TextEncoding;
+
+/**
+ * Records every edit made to the document of the text pane in an append-only
+ * journal on disk, so that unsaved work can be recovered if the program closes
+ * without the user saving.
+ *
+ * Each insert or removal is added as a small record to an in-memory buffer,
+ * which is group committed to the journal file every {@code COMMIT_INTERVAL}
+ * milliseconds on a background thread. The cost of the journal is therefore
+ * proportional to the amount of text typed rather than the size of the
+ * document. Once the journal grows larger than the document itself it is
+ * compacted into a single snapshot record.
+ *
+ * The journal starts either from an empty document, from a file on disk whose
+ * path and {@code FileFingerprint} are recorded in a base record, or from a
+ * snapshot. On the next start up the records are replayed on top of that
+ * starting point to restore the document. The edits are only replayed on top
+ * of a file that still matches its fingerprint, as edits replayed on a file
+ * changed since would not give back the text the user typed.
+ *
+ * Undo and re-do do not pass through the {@code UndoableEditListener} of the
+ * document, so the journal listens to the insert and remove events of the
+ * document instead, which are fired for every change to its text. Formatting is
+ * not recorded, so a document based on a Textual document is recovered with
+ * the formatting it was saved with, along with the text typed since.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see Textual#recoverUnsavedWork()
+ */
+public class EditJournal implements DocumentListener {
+	/** The number of milliseconds between each commit of the journal. */
+	private static final long COMMIT_INTERVAL = 250;
+	/** The smallest size in bytes the journal must reach to be compacted. */
+	private static final long MIN_COMPACT_SIZE = 1024 * 1024;
+	/** Record type of text inserted into the document. */
+	private static final byte INSERT = 1;
+	/** Record type of text removed from the document. */
+	private static final byte REMOVE = 2;
+	/** Record type of the file the document was loaded from. */
+	private static final byte BASE = 3;
+	/** Record type of the whole text of the document. */
+	private static final byte SNAPSHOT = 4;
+	/** The number of bytes of a snapshot wrote to the journal at a time. */
+	private static final int SNAPSHOT_BUFFER_SIZE = 256 * 1024;
+
+	/** The location of the journal file. */
+	private final Path journalPath;
+	/** The document being recorded. */
+	private Document document;
+	/** Holds the records yet to be committed to the journal. */
+	private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+	/** Writes the records into the pending buffer. */
+	private DataOutputStream records = new DataOutputStream(pending);
+	/** Guards the journal file, held whilst it is wrote to. */
+	private final Object ioLock = new Object();
+	/** The channel of the journal file, opened when first needed. */
+	private FileChannel channel;
+	/** Whether edits are currently being recorded. */
+	private volatile boolean recording = false;
+	/** Whether the text of the document is held elsewhere, so it is not compacted. */
+	private volatile boolean paused = false;
+	/** Whether a compaction was skipped whilst paused, to be made once continued. */
+	private boolean compactSkipped = false;
+	/** The encoding of the file the recovered journal was based on, if any. */
+	private TextEncoding recoveredEncoding;
+	/** The file the recovered journal was based on, if it no longer matched. */
+	private Path changedBase;
+	/** Commits the journal in the background. */
+	private final ScheduledExecutorService committer = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Journal Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Class constructor that creates a journal in the {@code .textual} folder of
+	 * the users home directory.
+	 */
+	public EditJournal() {
+		this(Paths.get(System.getProperty("user.home"), ".textual", "journal.bin"));
+	}
+
+	/**
+	 * Class constructor that creates a journal at the path provided.
+	 *
+	 * @param journalPath the {@code Path} value of the journal file
+	 */
+	public EditJournal(Path journalPath) {
+		this.journalPath = journalPath;
+	}
+
+	/**
+	 * Attaches the journal to the document provided and starts committing in the
+	 * background. Edits are not recorded until {@code resume} is called, allowing
+	 * any journal left from a previous session to be recovered or cleared first.
+	 *
+	 * @param document the {@code Document} to be recorded
+	 */
+	public void attach(Document document) {
+		this.document = document;
+		document.addDocumentListener(this);
+		committer.scheduleWithFixedDelay(this::commit, COMMIT_INTERVAL, COMMIT_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Returns whether a journal from a previous session exists that has edits that
+	 * could be recovered.
+	 *
+	 * @return true if there is unsaved work in the journal
+	 */
+	public boolean hasRecovery() {
+		try {
+			return Files.size(journalPath) > 0;
+		} catch (IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Replays the journal from a previous session into the document. Edits must
+	 * not be being recorded whilst the journal is replayed, {@code resume} should
+	 * be called afterwards to compact the journal to a snapshot of the recovered
+	 * document. Replay stops at the first record that is incomplete, i.e the last
+	 * records being wrote when the program closed.
+	 *
+	 * The file the journal was based on is read in the encoding detected from it,
+	 * which is then available from {@code getRecoveredEncoding}. A Textual
+	 * document is loaded along with its formatting. If the file can no longer be
+	 * read, or no longer matches the fingerprint it was recorded with, nothing is
+	 * recovered, the document is left empty and the file is available from
+	 * {@code getChangedBase}.
+	 *
+	 * @param fileManip used to read the file the journal was based on
+	 * @return true if the journal was replayed
+	 */
+	public boolean recover(FileManipulation fileManip) {
+		boolean recovered = true;
+		changedBase = null;
+		try (InputStream stream = Files.newInputStream(journalPath);
+				DataInputStream input = new DataInputStream(new BufferedInputStream(stream))) {
+			while (true) {
+				byte type;
+				try {
+					type = input.readByte();
+				} catch (EOFException e) {
+					break;
+				}
+				switch (type) {
+				case INSERT:
+					int offset = input.readInt();
+					document.insertString(offset, readChars(input, input.readInt()), null);
+					break;
+				case REMOVE:
+					document.remove(input.readInt(), input.readInt());
+					break;
+				case BASE:
+					Path base = Paths.get(input.readUTF());
+					FileFingerprint fingerprint = new FileFingerprint(input.readLong(), input.readLong(),
+							input.readLong());
+					document.remove(0, document.getLength());
+					recoveredEncoding = null;
+					if (!loadBase(base, fingerprint, fileManip)) {
+						// The edits that follow were made to a different file.
+						document.remove(0, document.getLength());
+						recoveredEncoding = null;
+						changedBase = base;
+						return false;
+					}
+					break;
+				case SNAPSHOT:
+					document.remove(0, document.getLength());
+					document.insertString(0, readChars(input, input.readInt()), null);
+					break;
+				default:
+					throw new IOException("Unknown journal record.");
+				}
+			}
+		} catch (EOFException e) {
+			// The last record was only partly wrote.
+		} catch (IOException | BadLocationException e) {
+			recovered = false;
+		}
+		return recovered;
+	}
+
+	/**
+	 * Loads the file a journal was based on into the document, if it still
+	 * matches the fingerprint recorded with it.
+	 *
+	 * @param base        the {@code Path} value of the file
+	 * @param fingerprint the {@code FileFingerprint} of the file when recorded
+	 * @param fileManip   used to read the file
+	 * @return true if the file was loaded, false if it could not be read or has
+	 *         changed
+	 * @throws IOException          if the file could not be read part way through
+	 * @throws BadLocationException never, the text is added to the end
+	 */
+	private boolean loadBase(Path base, FileFingerprint fingerprint, FileManipulation fileManip)
+			throws IOException, BadLocationException {
+		if (RichTextFile.isRichTextFile(base) && document instanceof RichDocument) {
+			FileFingerprint current;
+			try {
+				current = FileFingerprint.read(base);
+			} catch (IOException e) {
+				return false;
+			}
+			RichTextFile file = fingerprint.equals(current) ? fileManip.getRichTextFile(base) : null;
+			if (file == null) {
+				return false;
+			}
+			RichDocument richDocument = (RichDocument) document;
+			richDocument.load(richDocument.prepare(file));
+			recoveredEncoding = TextEncoding.DEFAULT;
+			return true;
+		}
+		ChunkedFileReader reader = fileManip.getFileReader(base);
+		if (reader == null) {
+			return false;
+		}
+		try (reader) {
+			String chunk;
+			while ((chunk = reader.readChunk()) != null) {
+				document.insertString(document.getLength(), chunk, null);
+			}
+		}
+		recoveredEncoding = reader.getEncoding();
+		// The fingerprint is worked out from the bytes read, so checked once read.
+		return fingerprint.equals(reader.getFingerprint());
+	}
+
+	/**
+	 * Returns the file the recovered journal was based on if it could not be
+	 * read or had changed since, so the journal could not be recovered.
+	 *
+	 * @return the {@code Path} value of the file, or null if the journal was not
+	 *         refused because of it
+	 */
+	public Path getChangedBase() {
+		return changedBase;
+	}
+
+	/**
+	 * Returns the encoding of the file the recovered journal was based on.
+	 *
+	 * @return the {@code TextEncoding} of the file, or null if the recovered
+	 *         document was not based on a file
+	 */
+	public TextEncoding getRecoveredEncoding() {
+		return recoveredEncoding;
+	}
+
+	/**
+	 * Stops recording edits, used whilst the document is being replaced.
+	 */
+	public void suspend() {
+		recording = false;
+	}
+
+	/**
+	 * Starts recording edits again after the document has been changed without
+	 * them being recorded. The journal is replaced with a snapshot of the document
+	 * as it is now.
+	 */
+	public void resume() {
+		committer.execute(() -> compact(true));
+	}
+
+	/**
+	 * Stops recording edits whilst the text of the document is held elsewhere,
+	 * i.e whilst its tab is evicted to disk. Unlike {@code suspend}, the journal
+	 * is left as it is rather than being compacted from the document, so the
+	 * document can still be recovered from it. {@code continueRecording} should be
+	 * called once the text is back in the document.
+	 */
+	public void pause() {
+		paused = true;
+		recording = false;
+	}
+
+	/**
+	 * Starts recording edits again once the text of a paused document is back in
+	 * it, making any compaction skipped whilst paused.
+	 */
+	public void continueRecording() {
+		synchronized (ioLock) {
+			paused = false;
+			if (compactSkipped) {
+				compactSkipped = false;
+				committer.execute(() -> compact(true));
+			} else {
+				recording = true;
+			}
+		}
+	}
+
+	/**
+	 * Starts the journal again from the file provided, used once the document has
+	 * been loaded from or saved to that file. Edits are recorded from here on.
+	 * The fingerprint of the file is recorded along with it, so the file can be
+	 * checked before the edits are replayed on top of it. If the fingerprint is
+	 * not known the journal starts from a snapshot of the document instead.
+	 *
+	 * @param base        the {@code Path} value of the file matching the document
+	 * @param fingerprint the {@code FileFingerprint} of the file, or null if not
+	 *                    known
+	 */
+	public void rebase(Path base, FileFingerprint fingerprint) {
+		synchronized (ioLock) {
+			paused = false;
+			compactSkipped = false;
+			if (fingerprint == null) {
+				resume();
+				return;
+			}
+			synchronized (this) {
+				pending.reset();
+				try {
+					records.writeByte(BASE);
+					records.writeUTF(base.toAbsolutePath().toString());
+					records.writeLong(fingerprint.getSize());
+					records.writeLong(fingerprint.getModified());
+					records.writeLong(fingerprint.getChecksum());
+				} catch (IOException e) {
+					System.out.println("Error writing journal.");
+				}
+				truncate();
+				recording = true;
+			}
+		}
+	}
+
+	/**
+	 * Replaces the journal with a snapshot of the document on the journal thread,
+	 * used once the document has been saved whilst being edited, as the edits
+	 * recorded since are based on neither the file the journal started from nor
+	 * the file as saved.
+	 */
+	public void compact() {
+		committer.execute(() -> compact(false));
+	}
+
+	/**
+	 * Stops committing the journal, used when the tab of the document is closed.
+	 * Any records still pending are committed first, waiting a short while for
+	 * them to reach the disk so they are not lost when the program exits, and the
+	 * journal is left on disk unless it is also cleared.
+	 */
+	public void close() {
+		recording = false;
+		if (document != null) {
+			document.removeDocumentListener(this);
+		}
+		committer.execute(this::commit);
+		committer.shutdown();
+		try {
+			if (!committer.awaitTermination(COMMIT_INTERVAL * 4, TimeUnit.MILLISECONDS)) {
+				System.out.println("Error committing journal.");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Removes the journal, used when the program is closed with the user having
+	 * either saved or discarded their work, or when the user chooses not to
+	 * recover the journal of a previous session.
+	 */
+	public void clear() {
+		synchronized (ioLock) {
+			synchronized (this) {
+				pending.reset();
+				try {
+					if (channel != null) {
+						channel.close();
+						channel = null;
+					}
+					Files.deleteIfExists(journalPath);
+				} catch (IOException e) {
+					System.out.println("Error removing journal.");
+				}
+			}
+		}
+	}
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		if (!recording) {
+			return;
+		}
+		Segment segment = new Segment();
+		try {
+			document.getText(e.getOffset(), e.getLength(), segment);
+			synchronized (this) {
+				records.writeByte(INSERT);
+				records.writeInt(e.getOffset());
+				records.writeInt(segment.count);
+				for (char c = segment.first(); c != Segment.DONE; c = segment.next()) {
+					records.writeChar(c);
+				}
+			}
+		} catch (BadLocationException | IOException ex) {
+			System.out.println("Error writing journal.");
+		}
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		if (!recording) {
+			return;
+		}
+		synchronized (this) {
+			try {
+				records.writeByte(REMOVE);
+				records.writeInt(e.getOffset());
+				records.writeInt(e.getLength());
+			} catch (IOException ex) {
+				System.out.println("Error writing journal.");
+			}
+		}
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting is not recorded.
+	}
+
+	/**
+	 * Writes the records that have built up since the last commit to the journal
+	 * and forces them to disk. Compacts the journal if it has grown larger than
+	 * the document.
+	 */
+	private void commit() {
+		long size;
+		synchronized (ioLock) {
+			byte[] bytes;
+			synchronized (this) {
+				if (pending.size() == 0) {
+					return;
+				}
+				bytes = pending.toByteArray();
+				pending.reset();
+			}
+			try {
+				FileChannel journal = openChannel();
+				journal.write(ByteBuffer.wrap(bytes));
+				journal.force(false);
+				size = journal.size();
+			} catch (IOException e) {
+				System.out.println("Error committing journal.");
+				return;
+			}
+		}
+		if (size > Math.max(MIN_COMPACT_SIZE, document.getLength() * 4L)) {
+			compact(false);
+		}
+	}
+
+	/**
+	 * Replaces the journal with a single snapshot of the document. The text of the
+	 * document is copied under its read lock so no edits are made part way
+	 * through, any records still pending being included in the copy and
+	 * discarded. The copy is then wrote to a temporary file, once the lock has
+	 * been released so the user can carry on typing, and moved over the journal.
+	 * The journal is held throughout, so records of edits made whilst the copy is
+	 * wrote are only committed once it has replaced the journal. An empty
+	 * document has nothing to recover, so the journal is removed instead. Whilst
+	 * paused the document no longer holds the text, so the compaction is left
+	 * until recording continues.
+	 * 
+	 * @param startRecording whether to start recording edits once the copy is
+	 *                       taken, done before the read lock is released so no
+	 *                       edit can be missed in between
+	 */
+	private void compact(boolean startRecording) {
+		synchronized (ioLock) {
+			String[] text = { null };
+			document.render(() -> {
+				if (paused) {
+					compactSkipped |= startRecording;
+					return;
+				}
+				synchronized (this) {
+					pending.reset();
+				}
+				if (startRecording) {
+					recording = true;
+				}
+				try {
+					text[0] = document.getText(0, document.getLength());
+				} catch (BadLocationException e) {
+					System.out.println("Error compacting journal.");
+				}
+			});
+			if (text[0] == null) {
+				return;
+			}
+			if (text[0].isEmpty()) {
+				clear();
+				return;
+			}
+			Path temp = journalPath.resolveSibling(journalPath.getFileName() + ".tmp");
+			try {
+				Files.createDirectories(journalPath.getParent());
+				try (FileChannel output = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+						StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer buffer = ByteBuffer.allocateDirect(SNAPSHOT_BUFFER_SIZE);
+					buffer.put(SNAPSHOT).putInt(text[0].length());
+					// A char buffer over the bytes writes each char as writeChar does.
+					CharBuffer chars = buffer.asCharBuffer();
+					for (int offset = 0; offset < text[0].length();) {
+						int end = Math.min(text[0].length(), offset + chars.remaining());
+						chars.put(text[0], offset, end);
+						buffer.position(buffer.position() + (end - offset) * 2).flip();
+						while (buffer.hasRemaining()) {
+							output.write(buffer);
+						}
+						buffer.clear();
+						chars = buffer.asCharBuffer();
+						offset = end;
+					}
+				}
+				if (channel != null) {
+					channel.close();
+					channel = null;
+				}
+				try {
+					Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				} catch (AtomicMoveNotSupportedException e) {
+					Files.move(temp, journalPath, StandardCopyOption.REPLACE_EXISTING);
+				}
+			} catch (IOException e) {
+				System.out.println("Error compacting journal.");
+			}
+		}
+	}
+
+	/**
+	 * Empties the journal file, leaving the pending records to be committed.
+	 */
+	private void truncate() {
+		try {
+			openChannel().truncate(0);
+		} catch (IOException e) {
+			System.out.println("Error truncating journal.");
+		}
+	}
+
+	/**
+	 * Returns the channel of the journal file, opening it to be appended to if it
+	 * is not already open.
+	 *
+	 * @return the {@code FileChannel} of the journal
+	 * @throws IOException if the journal could not be opened
+	 */
+	private FileChannel openChannel() throws IOException {
+		if (channel == null) {
+			Files.createDirectories(journalPath.getParent());
+			channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.APPEND);
+		}
+		return channel;
+	}
+
+	/**
+	 * Reads a number of characters from the journal.
+	 *
+	 * @param input  the stream of the journal
+	 * @param length the number of characters to read
+	 * @return the characters read
+	 * @throws IOException if the journal ends before all of them are read
+	 */
+	private static String readChars(DataInputStream input, int length) throws IOException {
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = input.readChar();
+		}
+		return new String(chars);
+	}
+
+}
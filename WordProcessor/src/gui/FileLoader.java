@@ -0,0 +1,138 @@
+package gui;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+import javax.swing.JOptionPane;
+import javax.swing.ProgressMonitor;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+
+import file.ChunkedFileReader;
+
+/**
+ * Loads the contents of a file into the document of the text pane on a worker
+ * thread, so the user interface remains responsive whilst a large file is being
+ * opened.
+ *
+ * The file is read a chunk at a time through a {@code ChunkedFileReader}, which
+ * decodes it in the encoding detected and converts its line endings. Each
+ * decoded chunk is published to the event dispatch thread, where any chunks
+ * that have built up are appended to the {@code StyledDocument} in a single
+ * insert. The first chunk is therefore shown as soon as it is read rather than
+ * once the whole file has been loaded. A {@code ProgressMonitor} shows how much
+ * of the file has been read and allows the user to cancel the load.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ButtonActionListeners#openFile(javax.swing.JMenuItem)
+ */
+public class FileLoader extends SwingWorker<Void, String> {
+	/** The most chunks that can be waiting to be appended to the document. */
+	private static final int MAX_PENDING_CHUNKS = 16;
+
+	/** The reader the file is read through. */
+	private final ChunkedFileReader reader;
+	/** The document the contents of the file are appended to. */
+	private final StyledDocument document;
+	/** Shows the progress of the load and allows it to be cancelled. */
+	private final ProgressMonitor monitor;
+	/** Limits the chunks read ahead of the document so memory stays bounded. */
+	private final Semaphore pendingChunks = new Semaphore(MAX_PENDING_CHUNKS);
+	/** Is told whether the whole file was loaded once the load has ended. */
+	private final Consumer<Boolean> onFinished;
+
+	/**
+	 * Class constructor that prepares a load of the file being read by the reader
+	 * into the document provided. The load is started by calling {@code execute}.
+	 *
+	 * @param reader     the {@code ChunkedFileReader} of the file to be loaded
+	 * @param document   the {@code StyledDocument} the file is appended to
+	 * @param onFinished a {@code Consumer} run on the EDT once the load ends, told
+	 *                   whether the whole file was loaded
+	 */
+	public FileLoader(ChunkedFileReader reader, StyledDocument document, Consumer<Boolean> onFinished) {
+		this.reader = reader;
+		this.document = document;
+		this.onFinished = onFinished;
+		this.monitor = new ProgressMonitor(null, "Opening file...", null, 0, 100);
+		this.monitor.setMillisToDecideToPopup(250);
+
+		addPropertyChangeListener(e -> {
+			if ("progress".equals(e.getPropertyName())) {
+				monitor.setProgress((Integer) e.getNewValue());
+			}
+			if (monitor.isCanceled()) {
+				cancel(true);
+			}
+		});
+	}
+
+	/**
+	 * Reads the file a chunk at a time, publishing each chunk to be appended to
+	 * the document. Stops early if the load is cancelled.
+	 */
+	@Override
+	protected Void doInBackground() throws IOException, InterruptedException {
+		try (reader) {
+			long size = Math.max(1, reader.getSize());
+			String chunk;
+			while (!isCancelled() && (chunk = reader.readChunk()) != null) {
+				pendingChunks.acquire();
+				publish(chunk);
+				setProgress((int) Math.min(100, reader.getPosition() * 100 / size));
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Appends the chunks that have been published since the last call to the end
+	 * of the document as a single insert.
+	 *
+	 * @param chunks the text of each chunk waiting to be appended
+	 */
+	@Override
+	protected void process(List<String> chunks) {
+		pendingChunks.release(chunks.size());
+		if (isCancelled()) {
+			return;
+		}
+		StringBuilder batch = new StringBuilder();
+		for (String chunk : chunks) {
+			batch.append(chunk);
+		}
+		try {
+			document.insertString(document.getLength(), batch.toString(), null);
+		} catch (BadLocationException e) {
+			System.out.println("Error appending file contents.");
+		}
+		if (monitor.isCanceled()) {
+			cancel(true);
+		}
+	}
+
+	/**
+	 * Closes the progress monitor and informs the user if the file could not be
+	 * read.
+	 */
+	@Override
+	protected void done() {
+		monitor.close();
+		boolean loaded = false;
+		if (!isCancelled()) {
+			try {
+				get();
+				loaded = true;
+			} catch (Exception e) {
+				JOptionPane.showMessageDialog(null, "The file could not be read.", "Error Opening File",
+						JOptionPane.ERROR_MESSAGE);
+			}
+		}
+		onFinished.accept(loaded);
+	}
+
+}
@@ -0,0 +1,337 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.FlowLayout;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.swing.AbstractAction;
+import javax.swing.JButton;
+import javax.swing.JCheckBox;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.JTextPane;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+
+/**
+ * A bar shown below the text pane used to find text within the document. Each
+ * search is answered by the {@code TextIndex} of the document, so finding the
+ * next match does not read the whole document.
+ *
+ * Every match is highlighted, but only the matches within the part of the
+ * document currently in view are looked up and painted. The highlights are
+ * worked out again when the view is scrolled, the document changes or the query
+ * changes, with a burst of such changes resulting in one update.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see TextIndex
+ */
+public class FindBar extends JPanel {
+	private static final long serialVersionUID = 1L;
+
+	/** The largest number of matches highlighted at once. */
+	private static final int MAX_HIGHLIGHTS = 1000;
+	/** Paints each match in view. */
+	private static final Highlighter.HighlightPainter MATCH_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(
+			Color.YELLOW);
+	/** Paints the match last found. */
+	private static final Highlighter.HighlightPainter CURRENT_PAINTER = new DefaultHighlighter.DefaultHighlightPainter(
+			Color.ORANGE);
+
+	/** The text pane being searched. */
+	private final JTextPane textPane;
+	/** The scroll pane the text pane is shown in. */
+	private final JScrollPane scrollPane;
+	/** The index of the document of the text pane. */
+	private final TextIndex index;
+	/** Holds the text to be found. */
+	private final JTextField findField = new JTextField(20);
+	/** Whether the case of the letters must match. */
+	private final JCheckBox matchCaseBox = new JCheckBox("Match case");
+	/** Whether the match must not be part of a larger word. */
+	private final JCheckBox wholeWordBox = new JCheckBox("Whole word");
+	/** Shows whether the text was found. */
+	private final JLabel statusLBL = new JLabel();
+	/** The highlights currently painted in the text pane. */
+	private final List<Object> highlights = new ArrayList<>();
+	/** The offset of the match last found, or -1 if there is none. */
+	private int current = -1;
+	/** Whether an update of the highlights has already been posted to the EDT. */
+	private boolean updatePending = false;
+
+	/**
+	 * Class constructor that creates the find bar of the text pane provided,
+	 * hidden until it is opened.
+	 *
+	 * @param textPane   the {@code JTextPane} to be searched
+	 * @param scrollPane the {@code JScrollPane} the text pane is shown in
+	 * @param index      the {@code TextIndex} of the document of the text pane
+	 */
+	public FindBar(JTextPane textPane, JScrollPane scrollPane, TextIndex index) {
+		super(new FlowLayout(FlowLayout.LEFT));
+		this.textPane = textPane;
+		this.scrollPane = scrollPane;
+		this.index = index;
+
+		add(new JLabel("Find:"));
+		add(findField);
+		JButton button = new JButton("Previous");
+		button.addActionListener(e -> find(false));
+		add(button);
+		button = new JButton("Next");
+		button.addActionListener(e -> find(true));
+		add(button);
+		add(matchCaseBox);
+		add(wholeWordBox);
+		add(statusLBL);
+		button = new JButton("Close");
+		button.addActionListener(e -> close());
+		add(button);
+
+		// Enter finds the next match, Shift+Enter the previous match.
+		findField.addActionListener(e -> find(true));
+		findField.getDocument().addDocumentListener(new Listener(true));
+		matchCaseBox.addActionListener(e -> queryChanged());
+		wholeWordBox.addActionListener(e -> queryChanged());
+		getInputMap(JComponent.WHEN_ANCESTOR_OF_FOCUSED_COMPONENT)
+				.put(KeyStroke.getKeyStroke(KeyEvent.VK_ESCAPE, 0), "close");
+		findField.getInputMap().put(KeyStroke.getKeyStroke(KeyEvent.VK_ENTER, InputEvent.SHIFT_DOWN_MASK),
+				"previous");
+		findField.getActionMap().put("previous", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				find(false);
+			}
+		});
+		getActionMap().put("close", new AbstractAction() {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				close();
+			}
+		});
+
+		scrollPane.getViewport().addChangeListener(e -> scheduleUpdate());
+		textPane.getDocument().addDocumentListener(new Listener(false));
+		setVisible(false);
+	}
+
+	/**
+	 * Shows the find bar and moves the focus to the find field, starting with the
+	 * text selected in the text pane if there is any.
+	 */
+	public void open() {
+		String selected = textPane.getSelectedText();
+		if (selected != null && !selected.isEmpty() && selected.indexOf('\n') < 0) {
+			findField.setText(selected);
+		}
+		setVisible(true);
+		revalidate();
+		findField.selectAll();
+		findField.requestFocusInWindow();
+		scheduleUpdate();
+	}
+
+	/**
+	 * Hides the find bar, removing every highlight and returning the focus to the
+	 * text pane.
+	 */
+	public void close() {
+		setVisible(false);
+		revalidate();
+		clearHighlights();
+		current = -1;
+		textPane.requestFocusInWindow();
+	}
+
+	/**
+	 * Finds the next or previous match of the query from the caret, wrapping
+	 * around the document if there is no match before the end or start. The
+	 * match found is selected and scrolled into view.
+	 *
+	 * @param forward whether to find the next match rather than the previous
+	 */
+	private void find(boolean forward) {
+		String query = findField.getText();
+		if (query.isEmpty()) {
+			return;
+		}
+		Document document = textPane.getDocument();
+		boolean matchCase = matchCaseBox.isSelected();
+		boolean wholeWord = wholeWordBox.isSelected();
+		int from = forward ? textPane.getSelectionStart() + (current >= 0 ? 1 : 0)
+				: textPane.getSelectionStart() - 1;
+		int[] match = { -1 };
+		boolean[] wrapped = { false };
+		document.render(() -> {
+			match[0] = index.find(query, from, forward, matchCase, wholeWord);
+			if (match[0] < 0) {
+				wrapped[0] = true;
+				match[0] = index.find(query, forward ? 0 : document.getLength(), forward, matchCase, wholeWord);
+			}
+		});
+		select(match[0], query.length());
+		if (match[0] < 0) {
+			statusLBL.setText("Not found");
+		} else {
+			statusLBL.setText(wrapped[0] ? "Wrapped" : "");
+		}
+	}
+
+	/**
+	 * Finds the query again from the start of the current match or selection as
+	 * the query is typed, so the match found grows with the query.
+	 */
+	private void queryChanged() {
+		if (current >= 0) {
+			textPane.setCaretPosition(current);
+		}
+		current = -1;
+		if (findField.getText().isEmpty()) {
+			statusLBL.setText("");
+			scheduleUpdate();
+		} else {
+			find(true);
+		}
+	}
+
+	/**
+	 * Selects a match and scrolls it into view.
+	 *
+	 * @param offset the offset of the match, or -1 if none was found
+	 * @param length the length of the match
+	 */
+	private void select(int offset, int length) {
+		current = offset;
+		if (offset >= 0) {
+			textPane.setCaretPosition(offset);
+			textPane.moveCaretPosition(offset + length);
+			try {
+				Rectangle bounds = textPane.modelToView2D(offset).getBounds();
+				textPane.scrollRectToVisible(bounds);
+			} catch (BadLocationException e) {
+				System.out.println("Error scrolling to match.");
+			}
+		}
+		scheduleUpdate();
+	}
+
+	/**
+	 * Posts an update of the highlights to the EDT, unless one is already posted.
+	 */
+	private void scheduleUpdate() {
+		if (!updatePending) {
+			updatePending = true;
+			SwingUtilities.invokeLater(this::updateHighlights);
+		}
+	}
+
+	/**
+	 * Highlights the matches of the query within the part of the document in
+	 * view. A match partly in view at the top of the view is included.
+	 */
+	private void updateHighlights() {
+		updatePending = false;
+		clearHighlights();
+		String query = findField.getText();
+		if (!isVisible() || query.isEmpty()) {
+			return;
+		}
+		Rectangle view = scrollPane.getViewport().getViewRect();
+		int start = textPane.viewToModel2D(new Point(view.x, view.y));
+		int end = textPane.viewToModel2D(new Point(view.x + view.width, view.y + view.height));
+		Document document = textPane.getDocument();
+		List<Integer> matches = new ArrayList<>();
+		document.render(() -> {
+			int from = Math.max(0, start - query.length() + 1);
+			int to = Math.min(document.getLength(), end + 1);
+			matches.addAll(index.findAll(query, from, to, matchCaseBox.isSelected(), wholeWordBox.isSelected()));
+		});
+		Highlighter highlighter = textPane.getHighlighter();
+		try {
+			for (int match : matches) {
+				if (highlights.size() == MAX_HIGHLIGHTS) {
+					break;
+				}
+				highlights.add(highlighter.addHighlight(match, match + query.length(),
+						match == current ? CURRENT_PAINTER : MATCH_PAINTER));
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error highlighting match.");
+		}
+	}
+
+	/**
+	 * Removes every highlight painted by the find bar.
+	 */
+	private void clearHighlights() {
+		Highlighter highlighter = textPane.getHighlighter();
+		for (Object highlight : highlights) {
+			highlighter.removeHighlight(highlight);
+		}
+		highlights.clear();
+	}
+
+	/**
+	 * Listens to the find field, finding the query again as it changes, or to
+	 * the document being searched, updating the highlights as it changes.
+	 */
+	private class Listener implements DocumentListener {
+		/** Whether the find field rather than the searched document is listened to. */
+		private final boolean query;
+
+		/**
+		 * Class constructor that accepts which document is listened to.
+		 *
+		 * @param query whether the find field is listened to
+		 */
+		Listener(boolean query) {
+			this.query = query;
+		}
+
+		@Override
+		public void insertUpdate(DocumentEvent e) {
+			changed();
+		}
+
+		@Override
+		public void removeUpdate(DocumentEvent e) {
+			changed();
+		}
+
+		@Override
+		public void changedUpdate(DocumentEvent e) {
+			// Formatting does not change the text.
+		}
+
+		/**
+		 * Responds to a change of the document listened to.
+		 */
+		private void changed() {
+			if (query) {
+				queryChanged();
+			} else if (isVisible()) {
+				scheduleUpdate();
+			}
+		}
+	}
+}
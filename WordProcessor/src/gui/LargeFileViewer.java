@@ -0,0 +1,297 @@
+package gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JOptionPane;
+import javax.swing.JPanel;
+import javax.swing.JScrollBar;
+import javax.swing.JScrollPane;
+import javax.swing.JTextField;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+
+import file.MappedTextFile;
+
+/**
+ * A read-only window used to view and search files that are too large to be
+ * loaded into the text pane of the main window.
+ *
+ * Rather than holding the whole file in a document, the text pane of the viewer
+ * only ever holds the lines that fit in the window plus a small read-ahead,
+ * which are decoded from a {@code MappedTextFile} as the user scrolls. A
+ * separate {@code JScrollBar} represents the position within the whole file.
+ * The lines of the file are indexed on a background thread, with the range of
+ * the scroll bar growing as more of the file is indexed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see MappedTextFile
+ */
+public class LargeFileViewer {
+	/** The number of lines decoded below the bottom of the window. */
+	private static final int READ_AHEAD_LINES = 16;
+
+	/** The file being viewed. */
+	private final MappedTextFile file;
+	/** The frame of the viewer. */
+	private final JFrame frame = new JFrame();
+	/** Shows the lines of the file currently in view. */
+	private final JTextPane textPane = new JTextPane();
+	/** Represents the position of the view within the whole file. */
+	private final JScrollBar scrollBar = new JScrollBar(JScrollBar.VERTICAL);
+	/** Holds the text to be searched for. */
+	private final JTextField findField = new JTextField(20);
+	/** Shows the current line and how much of the file has been indexed. */
+	private final JLabel statusLBL = new JLabel();
+
+	/** The number of the first line shown in the text pane. */
+	private long firstLine = -1;
+	/** The number of lines shown in the text pane. */
+	private int pageLines = 0;
+	/** The offset of the last match found, the next search starts after it. */
+	private long lastMatch = -1;
+	/** Set once the viewer is closed, stopping the indexing thread. */
+	private volatile boolean closed = false;
+
+	/**
+	 * Class constructor that creates the viewer window for the file provided.
+	 * The window is shown by calling {@code show}.
+	 *
+	 * @param file the {@code MappedTextFile} to be viewed
+	 * @param name the name of the file shown in the title of the window
+	 */
+	public LargeFileViewer(MappedTextFile file, String name) {
+		this.file = file;
+
+		textPane.setEditable(false);
+		JScrollPane scrollPane = new JScrollPane(textPane);
+		scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_NEVER);
+		scrollPane.setWheelScrollingEnabled(false);
+		scrollPane.addMouseWheelListener(e -> {
+			scrollBar.setValue(scrollBar.getValue() + e.getWheelRotation() * 3);
+		});
+		scrollPane.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				showPage(scrollBar.getValue(), true);
+			}
+		});
+		scrollBar.addAdjustmentListener(e -> showPage(e.getValue(), false));
+
+		frame.setTitle("Textual - " + name + " (Read Only)");
+		frame.setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		frame.add(createFindPanel(), BorderLayout.NORTH);
+		frame.add(scrollPane, BorderLayout.CENTER);
+		frame.add(scrollBar, BorderLayout.EAST);
+		frame.add(statusLBL, BorderLayout.SOUTH);
+		frame.setPreferredSize(new Dimension(800, 600));
+		frame.addWindowListener(new WindowAdapter() {
+			@Override
+			public void windowClosed(WindowEvent e) {
+				close();
+			}
+		});
+	}
+
+	/**
+	 * Shows the viewer window and starts indexing the lines of the file in the
+	 * background.
+	 */
+	public void show() {
+		frame.pack();
+		frame.setLocationRelativeTo(null);
+		frame.setVisible(true);
+		updateScrollRange();
+
+		Thread indexThread = new Thread(() -> {
+			try {
+				while (!closed && file.indexStep()) {
+					SwingUtilities.invokeLater(this::updateScrollRange);
+				}
+				SwingUtilities.invokeLater(this::updateScrollRange);
+			} catch (IllegalStateException e) {
+				// The file was closed part way through a step.
+			}
+		});
+		indexThread.setName("Index Thread");
+		indexThread.setDaemon(true);
+		indexThread.start();
+	}
+
+	/**
+	 * Creates the panel at the top of the viewer holding the find field and its
+	 * button.
+	 *
+	 * @return {@code JPanel} the populated find panel
+	 */
+	private JPanel createFindPanel() {
+		JPanel findPanel = new JPanel();
+		findPanel.add(new JLabel("Find:"));
+		findPanel.add(findField);
+		JButton findButton = new JButton("Find Next");
+		findButton.addActionListener(e -> findNext());
+		findField.addActionListener(e -> findNext());
+		findPanel.add(findButton);
+		return findPanel;
+	}
+
+	/**
+	 * Updates the range of the scroll bar to the number of lines indexed so far
+	 * and shows the progress of the indexing.
+	 */
+	private void updateScrollRange() {
+		int lines = (int) Math.min(Integer.MAX_VALUE - pageLines, file.getLineCount());
+		scrollBar.setMaximum(lines + Math.max(1, pageLines - 1));
+		updateStatus();
+	}
+
+	/**
+	 * Updates the status label with the current line and the indexing progress.
+	 */
+	private void updateStatus() {
+		String status = "Line " + (firstLine + 1) + " of " + file.getLineCount();
+		if (!file.isIndexComplete()) {
+			status += " (indexing " + (int) (file.getIndexProgress() * 100) + "%)";
+		}
+		statusLBL.setText(status);
+	}
+
+	/**
+	 * Shows the page of lines starting at the line provided. Only the lines that
+	 * fit in the window and the read-ahead are decoded.
+	 *
+	 * @param line  the number of the first line to be shown
+	 * @param force whether to decode the page even if the first line is unchanged
+	 */
+	private void showPage(long line, boolean force) {
+		FontMetrics metrics = textPane.getFontMetrics(textPane.getFont());
+		int visibleLines = Math.max(1, textPane.getParent().getHeight() / metrics.getHeight());
+		if (!force && line == firstLine) {
+			return;
+		}
+		firstLine = line;
+		pageLines = visibleLines;
+		scrollBar.setVisibleAmount(visibleLines);
+		scrollBar.setBlockIncrement(visibleLines);
+		textPane.setText(file.readLines(line, visibleLines + READ_AHEAD_LINES));
+		textPane.setCaretPosition(0);
+		updateStatus();
+	}
+
+	/**
+	 * Searches the file for the next occurrence of the text in the find field on a
+	 * worker thread, moving the view to the line of the match and highlighting it
+	 * once found. The line and column of the match are worked out on the worker
+	 * thread too, as finding the line may index the file up to the match.
+	 */
+	private void findNext() {
+		String query = findField.getText();
+		if (query.isEmpty()) {
+			return;
+		}
+		byte[] pattern = query.getBytes(StandardCharsets.UTF_8);
+		long previous = lastMatch;
+		long shownLine = firstLine;
+		new SwingWorker<Match, Void>() {
+			@Override
+			protected Match doInBackground() {
+				long from = previous >= 0 ? previous + 1 : file.getLineOffset(shownLine);
+				long offset = file.find(pattern, from);
+				if (offset < 0) {
+					return null;
+				}
+				long line = file.getLineOfOffset(offset);
+				int column = file.readRange(file.getLineOffset(line), offset).length();
+				return new Match(offset, line, column);
+			}
+
+			@Override
+			protected void done() {
+				try {
+					showMatch(get(), query);
+				} catch (Exception e) {
+					System.out.println("Error searching file.");
+				}
+			}
+		}.execute();
+	}
+
+	/**
+	 * Moves the view to the line of a match and highlights it.
+	 *
+	 * @param match the {@code Match} found, or null if none
+	 * @param query the text that was searched for
+	 */
+	private void showMatch(Match match, String query) {
+		if (match == null) {
+			lastMatch = -1;
+			JOptionPane.showMessageDialog(frame, "No more matches found.");
+			return;
+		}
+		lastMatch = match.offset;
+		updateScrollRange();
+		scrollBar.setValue((int) Math.min(Integer.MAX_VALUE, match.line));
+		showPage(match.line, true);
+
+		int column = match.column;
+		try {
+			textPane.getHighlighter().addHighlight(column, column + query.length(),
+					new DefaultHighlighter.DefaultHighlightPainter(Color.YELLOW));
+		} catch (BadLocationException e) {
+			System.out.println("Error highlighting match.");
+		}
+	}
+
+	/**
+	 * Stops the indexing thread and closes the file.
+	 */
+	private void close() {
+		closed = true;
+		try {
+			file.close();
+		} catch (IOException e) {
+			System.out.println("Error closing file.");
+		}
+	}
+
+	/**
+	 * A match found by a search, along with where it falls in the view.
+	 */
+	private static final class Match {
+		/** The offset of the match within the file. */
+		final long offset;
+		/** The zero based number of the line of the match. */
+		final long line;
+		/** The number of characters before the match on its line. */
+		final int column;
+
+		/**
+		 * Class constructor that records where a match was found.
+		 *
+		 * @param offset the offset of the match within the file
+		 * @param line   the zero based number of the line of the match
+		 * @param column the number of characters before the match on its line
+		 */
+		Match(long offset, long line, int column) {
+			this.offset = offset;
+			this.line = line;
+			this.column = column;
+		}
+	}
+
+}
@@ -0,0 +1,47 @@
+package gui;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.Document;
+import javax.swing.text.StyledEditorKit;
+import javax.swing.text.ViewFactory;
+
+/**
+ * The editor kit of the text pane, a {@code StyledEditorKit} whose sections are
+ * shown by a {@code LazyLayoutView}, so that only the paragraphs in view are
+ * laid out. Every other element is shown by the views of the
+ * {@code StyledEditorKit}.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LazyLayoutView
+ */
+public class LazyEditorKit extends StyledEditorKit {
+	private static final long serialVersionUID = 1L;
+
+	/** Creates the views of the elements of the document. */
+	private final ViewFactory factory;
+
+	/**
+	 * Class constructor that creates the view factory of the kit.
+	 */
+	public LazyEditorKit() {
+		ViewFactory styled = super.getViewFactory();
+		factory = element -> AbstractDocument.SectionElementName.equals(element.getName())
+				? new LazyLayoutView(element)
+				: styled.create(element);
+	}
+
+	@Override
+	public ViewFactory getViewFactory() {
+		return factory;
+	}
+
+	/**
+	 * Creates an empty {@code RichDocument}, so that the text pane can load
+	 * Textual documents.
+	 */
+	@Override
+	public Document createDefaultDocument() {
+		return new RichDocument();
+	}
+}
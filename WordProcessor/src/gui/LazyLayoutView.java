@@ -0,0 +1,531 @@
+package gui;
+
+import java.awt.Container;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.util.Arrays;
+
+import javax.swing.JComponent;
+import javax.swing.JViewport;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import javax.swing.text.CompositeView;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.View;
+
+/**
+ * The view of the section of a styled document, stacking its paragraphs from
+ * top to bottom like the {@code BoxView} it replaces, but only laying out the
+ * paragraphs that are shown.
+ *
+ * A {@code BoxView} measures every paragraph, breaking each into lines, before
+ * anything is shown, and again each time its width changes, so opening or
+ * resizing a long document takes time in proportion to its length. Instead the
+ * height of each paragraph is first estimated from its number of characters
+ * and the font of the text pane. A paragraph is only laid out once it is
+ * painted, or its position is needed, i.e for the caret, at which point its
+ * estimated height is replaced by its measured height. A resize therefore only
+ * lays out the paragraphs in view, the rest being estimated again.
+ *
+ * The estimates are refined whilst the program is idle, a few milliseconds of
+ * paragraphs at a time every {@code REFINE_INTERVAL} milliseconds, starting
+ * with those within a screen of the viewport. As views may only be used on the
+ * event dispatch thread, this is done by a Swing {@code Timer} rather than a
+ * thread of its own. When paragraphs above the viewport change height, the
+ * viewport is moved by the same amount, so the text in view does not jump.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LazyEditorKit
+ */
+public class LazyLayoutView extends CompositeView {
+	/** The number of milliseconds between each refinement of the estimates. */
+	static final int REFINE_INTERVAL = 40;
+	/** The most nanoseconds spent laying out paragraphs in one refinement. */
+	private static final long REFINE_BUDGET = 4_000_000;
+	/** The line height estimates are made with before the font is known. */
+	private static final int DEFAULT_LINE_HEIGHT = 16;
+	/** The character width estimates are made with before the font is known. */
+	private static final int DEFAULT_CHAR_WIDTH = 7;
+	/** The characters per line estimates are made with before the width is known. */
+	private static final int DEFAULT_LINE_LENGTH = 80;
+
+	/** The measured or estimated height of each paragraph. */
+	private int[] heights = new int[16];
+	/** The number of characters of each paragraph when last estimated or measured. */
+	private int[] lengths = new int[16];
+	/** Whether the height of each paragraph has been measured at this width. */
+	private boolean[] measured = new boolean[16];
+	/** The offset of the top of each paragraph, valid up to {@code validOffsets}. */
+	private int[] offsets = new int[16];
+	/** The number of paragraphs from the first whose offsets are valid. */
+	private int validOffsets = 0;
+	/** The sum of the heights of the paragraphs. */
+	private long totalHeight = 0;
+	/** The number of paragraphs whose height is estimated. */
+	private int unmeasured = 0;
+	/** Whether the total height has changed since the parent was last told. */
+	private boolean heightChanged = false;
+
+	/** The width each paragraph is laid out at, -1 until first set. */
+	private int width = -1;
+	/** The widest preferred width of the paragraphs measured. */
+	private float preferredWidth = 0;
+	/** The widest minimum width of the paragraphs measured. */
+	private float minimumWidth = 0;
+	/** The height of a line of text, used to estimate heights. */
+	private int lineHeight = DEFAULT_LINE_HEIGHT;
+	/** The width of a character, used to estimate heights. */
+	private int charWidth = DEFAULT_CHAR_WIDTH;
+
+	/** The index of the paragraph being measured, -1 if none. */
+	private int measuring = -1;
+	/** Whether paragraphs are being replaced, their heights not yet known. */
+	private boolean replacing = false;
+	/** The index of the next paragraph to be measured by a refinement. */
+	private int refineCursor = 0;
+	/** Refines the estimated heights whilst the program is idle. */
+	private final Timer refiner = new Timer(REFINE_INTERVAL, e -> refine());
+
+	/**
+	 * Class constructor that creates the view of a section.
+	 *
+	 * @param element the section element
+	 */
+	public LazyLayoutView(Element element) {
+		super(element);
+	}
+
+	@Override
+	public void setParent(View parent) {
+		super.setParent(parent);
+		if (parent == null) {
+			refiner.stop();
+		} else {
+			updateMetrics();
+			startRefining();
+		}
+	}
+
+	/**
+	 * Replaces child views, the new paragraphs being given an estimated height
+	 * until they are laid out.
+	 */
+	@Override
+	public void replace(int offset, int length, View[] views) {
+		replacing = true;
+		try {
+			super.replace(offset, length, views);
+		} finally {
+			replacing = false;
+		}
+		int added = views == null ? 0 : views.length;
+		int count = getViewCount();
+		int oldCount = count - added + length;
+		for (int i = offset; i < offset + length; i++) {
+			totalHeight -= heights[i];
+			if (!measured[i]) {
+				unmeasured--;
+			}
+		}
+		if (count > heights.length) {
+			int capacity = Math.max(count, heights.length * 2);
+			heights = Arrays.copyOf(heights, capacity);
+			lengths = Arrays.copyOf(lengths, capacity);
+			measured = Arrays.copyOf(measured, capacity);
+			offsets = Arrays.copyOf(offsets, capacity);
+		}
+		System.arraycopy(heights, offset + length, heights, offset + added, oldCount - offset - length);
+		System.arraycopy(lengths, offset + length, lengths, offset + added, oldCount - offset - length);
+		System.arraycopy(measured, offset + length, measured, offset + added, oldCount - offset - length);
+		for (int i = offset; i < offset + added; i++) {
+			View child = getView(i);
+			lengths[i] = child.getEndOffset() - child.getStartOffset();
+			heights[i] = estimate(i);
+			measured[i] = false;
+			totalHeight += heights[i];
+		}
+		unmeasured += added;
+		validOffsets = Math.min(validOffsets, offset);
+		heightChanged = true;
+		startRefining();
+	}
+
+	/**
+	 * Marks a paragraph whose preferred size has changed, i.e as text was typed
+	 * into it, to be measured again. The paragraph being measured itself is
+	 * ignored, as are the paragraphs being added, which are estimated once added.
+	 */
+	@Override
+	public void preferenceChanged(View child, boolean width, boolean height) {
+		if (replacing) {
+			return;
+		}
+		if (child != null) {
+			int index = getViewIndex(child.getStartOffset(), Position.Bias.Forward);
+			if (index >= 0 && index < getViewCount() && getView(index) == child) {
+				if (index == measuring) {
+					return;
+				}
+				if (measured[index]) {
+					measured[index] = false;
+					unmeasured++;
+					startRefining();
+				}
+			}
+		}
+		super.preferenceChanged(child, width, height);
+	}
+
+	/**
+	 * Sets the size of the view. When the width changes, the height of every
+	 * paragraph is estimated again at the new width, only the paragraphs in view
+	 * being laid out once painted. The paragraph at the top of the viewport is
+	 * kept at the top.
+	 */
+	@Override
+	public void setSize(float width, float height) {
+		int childWidth = Math.max(0, (int) width - getLeftInset() - getRightInset());
+		if (childWidth == this.width) {
+			return;
+		}
+		int[] anchor = getAnchor();
+		this.width = childWidth;
+		updateMetrics();
+		totalHeight = 0;
+		preferredWidth = 0;
+		minimumWidth = 0;
+		int count = getViewCount();
+		for (int i = 0; i < count; i++) {
+			heights[i] = estimate(i);
+			measured[i] = false;
+			totalHeight += heights[i];
+		}
+		unmeasured = count;
+		validOffsets = 0;
+		heightChanged = true;
+		if (anchor != null) {
+			SwingUtilities.invokeLater(() -> restoreAnchor(anchor));
+		}
+		startRefining();
+	}
+
+	/**
+	 * Paints the paragraphs within the clip, laying out any that have only been
+	 * estimated.
+	 */
+	@Override
+	public void paint(Graphics g, Shape allocation) {
+		Rectangle inside = new Rectangle(getInsideAllocation(allocation));
+		Rectangle clip = g.getClipBounds();
+		if (clip == null) {
+			clip = inside;
+		}
+		Rectangle child = new Rectangle();
+		int count = getViewCount();
+		for (int i = indexAt(clip.y - inside.y); i < count; i++) {
+			child.setBounds(inside);
+			childAllocation(i, child);
+			if (child.y >= clip.y + clip.height) {
+				break;
+			}
+			if (child.intersects(clip)) {
+				getView(i).paint(g, child);
+			}
+		}
+		flushHeightChange();
+	}
+
+	@Override
+	public float getPreferredSpan(int axis) {
+		if (axis == X_AXIS) {
+			return preferredWidth + getLeftInset() + getRightInset();
+		}
+		return totalHeight + getTopInset() + getBottomInset();
+	}
+
+	@Override
+	public float getMinimumSpan(int axis) {
+		if (axis == X_AXIS) {
+			return minimumWidth + getLeftInset() + getRightInset();
+		}
+		return getPreferredSpan(axis);
+	}
+
+	@Override
+	public float getMaximumSpan(int axis) {
+		if (axis == X_AXIS) {
+			return Integer.MAX_VALUE;
+		}
+		return getPreferredSpan(axis);
+	}
+
+	/**
+	 * Finds the paragraph at a point by its height alone, rather than asking the
+	 * allocation of every paragraph in turn.
+	 */
+	@Override
+	public int getViewIndex(float x, float y, Shape allocation) {
+		Rectangle inside = getInsideAllocation(allocation);
+		if (getViewCount() == 0 || y < inside.y || y >= inside.y + totalHeight) {
+			return -1;
+		}
+		return indexAt((int) y - inside.y);
+	}
+
+	@Override
+	protected boolean isBefore(int x, int y, Rectangle alloc) {
+		return y < alloc.y;
+	}
+
+	@Override
+	protected boolean isAfter(int x, int y, Rectangle alloc) {
+		return y > alloc.y + alloc.height;
+	}
+
+	@Override
+	protected View getViewAtPoint(int x, int y, Rectangle alloc) {
+		int index = indexAt(y - alloc.y);
+		childAllocation(index, alloc);
+		return getView(index);
+	}
+
+	@Override
+	public Shape getChildAllocation(int index, Shape allocation) {
+		return allocation == null ? null : super.getChildAllocation(index, allocation);
+	}
+
+	/**
+	 * Works out the allocation of a paragraph, laying it out first if its height
+	 * is only estimated.
+	 */
+	@Override
+	protected void childAllocation(int index, Rectangle alloc) {
+		measure(index);
+		alloc.y += offset(index);
+		alloc.height = heights[index];
+	}
+
+	/**
+	 * Lays out a paragraph at the current width and records its height, if it
+	 * has not already been measured.
+	 *
+	 * @param index the index of the paragraph
+	 */
+	private void measure(int index) {
+		if (measured[index]) {
+			return;
+		}
+		View child = getView(index);
+		int childWidth = Math.max(0, width);
+		measuring = index;
+		try {
+			child.setSize(childWidth, heights[index]);
+			int height = (int) Math.ceil(child.getPreferredSpan(Y_AXIS));
+			child.setSize(childWidth, height);
+			setHeight(index, height);
+		} finally {
+			measuring = -1;
+		}
+		lengths[index] = child.getEndOffset() - child.getStartOffset();
+		measured[index] = true;
+		unmeasured--;
+		preferredWidth = Math.max(preferredWidth, child.getPreferredSpan(X_AXIS));
+		minimumWidth = Math.max(minimumWidth, child.getMinimumSpan(X_AXIS));
+	}
+
+	/**
+	 * Sets the height of a paragraph, invalidating the offsets of the paragraphs
+	 * after it if it has changed.
+	 *
+	 * @param index  the index of the paragraph
+	 * @param height the height of the paragraph
+	 */
+	private void setHeight(int index, int height) {
+		if (heights[index] != height) {
+			totalHeight += height - heights[index];
+			heights[index] = height;
+			validOffsets = Math.min(validOffsets, index + 1);
+			heightChanged = true;
+		}
+	}
+
+	/**
+	 * Returns the offset of the top of a paragraph from the top of the view,
+	 * working out the offsets of the paragraphs before it that are not valid.
+	 *
+	 * @param index the index of the paragraph
+	 * @return the offset of the paragraph
+	 */
+	private int offset(int index) {
+		if (index >= validOffsets) {
+			int y = validOffsets == 0 ? 0 : offsets[validOffsets - 1] + heights[validOffsets - 1];
+			for (int i = validOffsets; i <= index; i++) {
+				offsets[i] = y;
+				y += heights[i];
+			}
+			validOffsets = index + 1;
+		}
+		return offsets[index];
+	}
+
+	/**
+	 * Finds the paragraph covering an offset from the top of the view, clamped
+	 * to the first and last paragraph.
+	 *
+	 * @param y the offset from the top of the view
+	 * @return the index of the paragraph, 0 if there are none
+	 */
+	private int indexAt(int y) {
+		int count = getViewCount();
+		if (count == 0 || y <= 0) {
+			return 0;
+		}
+		offset(count - 1);
+		int low = 0;
+		int high = count - 1;
+		while (low < high) {
+			int middle = (low + high + 1) >>> 1;
+			if (offsets[middle] <= y) {
+				low = middle;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Estimates the height of a paragraph from its number of characters, as the
+	 * number of lines the characters would fill at the current width. The
+	 * number of characters is the one recorded when the paragraph was last
+	 * estimated or measured, so that estimating every paragraph does not need to
+	 * look up the positions of each in the document.
+	 *
+	 * @param index the index of the paragraph
+	 * @return the estimated height of the paragraph
+	 */
+	private int estimate(int index) {
+		int lineLength = width > 0 ? Math.max(1, width / charWidth) : DEFAULT_LINE_LENGTH;
+		return (lengths[index] / lineLength + 1) * lineHeight;
+	}
+
+	/**
+	 * Reads the line height and character width estimates are made with from the
+	 * font of the text pane.
+	 */
+	private void updateMetrics() {
+		Container host = getContainer();
+		if (host != null && host.getFont() != null) {
+			FontMetrics metrics = host.getFontMetrics(host.getFont());
+			lineHeight = Math.max(1, metrics.getHeight());
+			charWidth = Math.max(1, metrics.charWidth('n'));
+		}
+	}
+
+	/**
+	 * Tells the parent the total height has changed, so the text pane is resized
+	 * to fit it.
+	 */
+	private void flushHeightChange() {
+		if (heightChanged) {
+			heightChanged = false;
+			super.preferenceChanged(null, false, true);
+		}
+	}
+
+	/**
+	 * Starts refining the estimated heights if there are any and the view is
+	 * shown in a text pane.
+	 */
+	private void startRefining() {
+		if (unmeasured > 0 && width > 0 && getContainer() != null && !refiner.isRunning()) {
+			refiner.start();
+		}
+	}
+
+	/**
+	 * Lays out paragraphs whose height is estimated for up to
+	 * {@code REFINE_BUDGET} nanoseconds, first those within a screen of the
+	 * viewport and then the rest in order. The paragraph at the top of the
+	 * viewport is kept in place. Stops once every paragraph has been measured, or
+	 * once the text pane is no longer displayable, i.e its tab has been closed.
+	 */
+	private void refine() {
+		Container host = getContainer();
+		if (unmeasured == 0 || host == null || width <= 0 || !host.isDisplayable()) {
+			refiner.stop();
+			return;
+		}
+		int[] anchor = getAnchor();
+		long deadline = System.nanoTime() + REFINE_BUDGET;
+		int count = getViewCount();
+		Rectangle visible = host instanceof JComponent ? ((JComponent) host).getVisibleRect() : host.getBounds();
+		int top = visible.y - getTopInset() - host.getInsets().top;
+		int last = indexAt(top + visible.height * 2);
+		for (int i = indexAt(top - visible.height); i <= last && System.nanoTime() < deadline; i++) {
+			measure(i);
+		}
+		while (unmeasured > 0 && System.nanoTime() < deadline) {
+			if (refineCursor >= count) {
+				refineCursor = 0;
+			}
+			measure(refineCursor++);
+		}
+		if (anchor != null) {
+			restoreAnchor(anchor);
+		}
+		flushHeightChange();
+	}
+
+	/**
+	 * Returns the paragraph at the top of the viewport along with how far into
+	 * the paragraph the top of the viewport is.
+	 *
+	 * @return the index of the paragraph and the distance into it, or null if
+	 *         the view is not within a viewport
+	 */
+	private int[] getAnchor() {
+		JViewport viewport = getViewport();
+		if (viewport == null || getViewCount() == 0) {
+			return null;
+		}
+		int top = viewport.getViewPosition().y - getTopInset() - getContainer().getInsets().top;
+		int index = indexAt(top);
+		return new int[] { index, top - offset(index) };
+	}
+
+	/**
+	 * Moves the viewport so the paragraph of an anchor is back at the top of the
+	 * viewport, if the paragraphs above it have changed height.
+	 *
+	 * @param anchor the index of the paragraph and the distance into it
+	 */
+	private void restoreAnchor(int[] anchor) {
+		JViewport viewport = getViewport();
+		if (viewport == null || anchor[0] >= getViewCount()) {
+			return;
+		}
+		Insets insets = getContainer().getInsets();
+		int y = insets.top + getTopInset() + offset(anchor[0]) + Math.min(anchor[1], heights[anchor[0]]);
+		Point position = viewport.getViewPosition();
+		if (position.y != y && y >= 0) {
+			viewport.setViewPosition(new Point(position.x, y));
+		}
+	}
+
+	/**
+	 * Returns the viewport the text pane is shown in.
+	 *
+	 * @return the {@code JViewport} of the text pane, or null if there is none
+	 */
+	private JViewport getViewport() {
+		Container host = getContainer();
+		return host != null && host.getParent() instanceof JViewport ? (JViewport) host.getParent() : null;
+	}
+}
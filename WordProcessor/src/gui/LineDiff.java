@@ -0,0 +1,983 @@
+package gui;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+import file.ChunkedFileReader;
+import file.RichTextFile;
+
+/**
+ * The differences between the lines of a file on the disk and the lines of a
+ * document, found without holding the text of either as a {@code String}.
+ *
+ * Both the file and the document are streamed a chunk at a time and each line
+ * is hashed as it goes past, a {@code LineTable} giving each distinct line an
+ * integer id. The lines are then compared as two arrays of ids, two lines being
+ * taken as equal when their 64-bit hashes and lengths are equal. Once the
+ * changes are known the file and document are streamed a second time to keep
+ * the text of only the lines that are shown, which are checked against their
+ * hashes so a file changed in between is reported rather than shown wrongly.
+ *
+ * A Textual document on the disk is compared by its text, which is read in
+ * full as the text of such a document is stored in a single block.
+ *
+ * The ids are compared with the linear space variant of the Myers algorithm,
+ * finding the middle snake of each range and dividing the range around it. A
+ * line that does not occur at all on the other side can never be matched, so
+ * such lines are marked as changed before the comparison and left out of it,
+ * which keeps files that have little in common quick to compare. Where the
+ * middle snake of a range is not found within {@code COST_LIMIT} steps the
+ * range is divided at the furthest point reached instead, so the result may
+ * not be the smallest possible but the time taken stays bounded.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see CompareView
+ */
+public class LineDiff {
+	/** The number of unchanged lines shown either side of a change. */
+	public static final int CONTEXT_LINES = 3;
+	/** The most lines shown from each side of a single change. */
+	public static final int MAX_HUNK_LINES = 1000;
+	/** The most lines shown in total, changes past this are only counted. */
+	public static final int MAX_SHOWN_LINES = 50_000;
+	/** The most steps taken looking for the middle snake of a range. */
+	static final int COST_LIMIT = 256;
+	/** The attempts made at a comparison before the document is held throughout. */
+	private static final int MAX_COMPARE_ATTEMPTS = 3;
+
+	/** The offset basis of the 64-bit FNV-1a hash. */
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	/** The prime of the 64-bit FNV-1a hash. */
+	private static final long FNV_PRIME = 0x100000001b3L;
+
+	/** The id of each line of the file. */
+	private final int[] fileLines;
+	/** The id of each line of the document. */
+	private final int[] documentLines;
+	/** The changes, in the order they occur. */
+	private final List<Hunk> hunks;
+	/** The number of changes whose lines are shown. */
+	private final int shownHunks;
+	/** The text of each line of the file that is shown. */
+	private final Map<Integer, String> fileText = new HashMap<>();
+	/** The text of each line of the document that is shown. */
+	private final Map<Integer, String> documentText = new HashMap<>();
+
+	/**
+	 * Class constructor that compares the lines given as ids, working out which
+	 * lines of each side are to be shown.
+	 *
+	 * @param fileLines     the id of each line of the file
+	 * @param documentLines the id of each line of the document
+	 */
+	LineDiff(int[] fileLines, int[] documentLines) {
+		this.fileLines = fileLines;
+		this.documentLines = documentLines;
+		this.hunks = Collections.unmodifiableList(diff(fileLines, documentLines));
+		int shown = 0;
+		int count = 0;
+		for (Hunk hunk : hunks) {
+			if (count > 0 && shown >= MAX_SHOWN_LINES) {
+				break;
+			}
+			shown += 2 * CONTEXT_LINES + Math.min(hunk.getFileLength(), MAX_HUNK_LINES)
+					+ Math.min(hunk.getDocumentLength(), MAX_HUNK_LINES);
+			count++;
+		}
+		this.shownHunks = count;
+	}
+
+	/**
+	 * Compares a file on the disk with a document. The file is read before the
+	 * document is locked. The lines of the document are then hashed under its
+	 * read lock, and compared once the lock has been released, so the user can
+	 * carry on typing whilst a large document is compared. The lock is taken
+	 * again only to keep the text of the lines of the document that are shown.
+	 *
+	 * A listener notes any change made to the document in between, in which case
+	 * the document is hashed and compared again. After
+	 * {@code MAX_COMPARE_ATTEMPTS} attempts the document is held for reading
+	 * whilst it is compared, so the comparison always finishes. Must not be
+	 * called on the event dispatch thread.
+	 *
+	 * @param file     the {@code Path} value of the file
+	 * @param document the {@code Document} being compared with the file
+	 * @return the {@code LineDiff} of the file and document
+	 * @throws IOException if the file could not be read, or changed whilst being
+	 *                     compared
+	 */
+	public static LineDiff compare(Path file, Document document) throws IOException {
+		LineTable table = new LineTable();
+		LineScanner fileScanner = new LineScanner(table);
+		readFile(file, fileScanner);
+		int[] fileLines = fileScanner.finish();
+
+		AtomicBoolean edited = new AtomicBoolean();
+		DocumentListener listener = new DocumentListener() {
+			@Override
+			public void insertUpdate(DocumentEvent e) {
+				edited.set(true);
+			}
+
+			@Override
+			public void removeUpdate(DocumentEvent e) {
+				edited.set(true);
+			}
+
+			@Override
+			public void changedUpdate(DocumentEvent e) {
+				// Formatting does not change the lines.
+			}
+		};
+		LineDiff diff = null;
+		document.addDocumentListener(listener);
+		try {
+			for (int attempt = 1; diff == null; attempt++) {
+				diff = compareDocument(fileLines, table, document, edited, attempt == MAX_COMPARE_ATTEMPTS);
+			}
+		} finally {
+			document.removeDocumentListener(listener);
+		}
+
+		LineScanner collector = new LineScanner(table, fileLines, diff.shownFileLines(), diff.fileText);
+		readFile(file, collector);
+		if (collector.finish() == null) {
+			throw new IOException("The file changed whilst being compared.");
+		}
+		return diff;
+	}
+
+	/**
+	 * Makes a single attempt at comparing the lines of a file with a document, as
+	 * described by {@code compare}, keeping the text of the lines of the document
+	 * that are shown.
+	 *
+	 * @param fileLines the id of each line of the file
+	 * @param table     the {@code LineTable} the ids of the file were given by
+	 * @param document  the {@code Document} being compared with the file
+	 * @param edited    set whenever the document is changed
+	 * @param locked    whether to hold the document for reading throughout
+	 * @return the {@code LineDiff} of the file and document, or null if the
+	 *         document was changed part way through
+	 */
+	private static LineDiff compareDocument(int[] fileLines, LineTable table, Document document,
+			AtomicBoolean edited, boolean locked) {
+		LineDiff[] diff = { null };
+		int[][] documentLines = { null };
+		edited.set(false);
+		document.render(() -> {
+			LineScanner scanner = new LineScanner(table);
+			readDocument(document, scanner);
+			documentLines[0] = scanner.finish();
+			if (locked) {
+				diff[0] = new LineDiff(fileLines, documentLines[0]);
+				diff[0].collectDocumentText(document, table);
+			}
+		});
+		if (locked) {
+			return diff[0];
+		}
+		LineDiff unlocked = new LineDiff(fileLines, documentLines[0]);
+		document.render(() -> {
+			if (!edited.get()) {
+				unlocked.collectDocumentText(document, table);
+				diff[0] = unlocked;
+			}
+		});
+		return diff[0];
+	}
+
+	/**
+	 * Keeps the text of the lines of the document that are shown. Must be called
+	 * whilst the document is locked for reading.
+	 *
+	 * @param document the {@code Document} being compared with the file
+	 * @param table    the {@code LineTable} the ids of the lines were given by
+	 */
+	private void collectDocumentText(Document document, LineTable table) {
+		LineScanner scanner = new LineScanner(table, documentLines, shownDocumentLines(), documentText);
+		readDocument(document, scanner);
+		scanner.finish();
+	}
+
+	/**
+	 * Streams the text of a file through a scanner a chunk at a time, or passes
+	 * on the text of a Textual document.
+	 *
+	 * @param file    the {@code Path} value of the file
+	 * @param scanner the {@code LineScanner} the text is passed to
+	 * @throws IOException if the file could not be read
+	 */
+	private static void readFile(Path file, LineScanner scanner) throws IOException {
+		if (RichTextFile.isRichTextFile(file)) {
+			RichTextFile document = new RichTextFile(file);
+			scanner.append(document.getText(), 0, document.getLength());
+			return;
+		}
+		try (ChunkedFileReader reader = new ChunkedFileReader(file, ChunkedFileReader.DEFAULT_CHUNK_SIZE)) {
+			String chunk;
+			while (!scanner.isDone() && (chunk = reader.readChunk()) != null) {
+				scanner.append(chunk);
+			}
+		}
+	}
+
+	/**
+	 * Streams the text of a document through a scanner, passing on the text of
+	 * the document a piece at a time without copying it. Must be called whilst
+	 * the document is locked for reading.
+	 *
+	 * @param document the {@code Document} being read
+	 * @param scanner  the {@code LineScanner} the text is passed to
+	 */
+	private static void readDocument(Document document, LineScanner scanner) {
+		Segment segment = new Segment();
+		segment.setPartialReturn(true);
+		int length = document.getLength();
+		int offset = 0;
+		try {
+			while (offset < length && !scanner.isDone()) {
+				document.getText(offset, length - offset, segment);
+				scanner.append(segment.array, segment.offset, segment.count);
+				offset += segment.count;
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error reading document.");
+		}
+	}
+
+	/**
+	 * Returns the changes between the file and the document, in the order they
+	 * occur.
+	 *
+	 * @return an unmodifiable {@code List} of the changes
+	 */
+	public List<Hunk> getHunks() {
+		return hunks;
+	}
+
+	/**
+	 * Returns the number of changes whose lines are shown, being the first of
+	 * the changes. The rest are only counted, keeping the lines held bounded.
+	 *
+	 * @return the number of changes shown
+	 */
+	public int getShownHunkCount() {
+		return shownHunks;
+	}
+
+	/**
+	 * Returns the number of lines of the file.
+	 *
+	 * @return the number of lines of the file
+	 */
+	public int getFileLineCount() {
+		return fileLines.length;
+	}
+
+	/**
+	 * Returns the number of lines of the document.
+	 *
+	 * @return the number of lines of the document
+	 */
+	public int getDocumentLineCount() {
+		return documentLines.length;
+	}
+
+	/**
+	 * Returns the text of a line of the file, if it is shown.
+	 *
+	 * @param line the index of the line
+	 * @return the text of the line without its line ending, or null if it is not
+	 *         shown
+	 */
+	public String getFileLine(int line) {
+		return fileText.get(line);
+	}
+
+	/**
+	 * Returns the text of a line of the document, if it is shown.
+	 *
+	 * @param line the index of the line
+	 * @return the text of the line without its new line, or null if it is not
+	 *         shown
+	 */
+	public String getDocumentLine(int line) {
+		return documentText.get(line);
+	}
+
+	/**
+	 * Returns the lines of the file that are shown, being the changed lines of
+	 * each shown change and the unchanged lines around it. The unchanged lines
+	 * are taken from the file, as they are the same in the document.
+	 *
+	 * @return a {@code BitSet} of the lines of the file that are shown
+	 */
+	private BitSet shownFileLines() {
+		BitSet shown = new BitSet(fileLines.length);
+		for (int i = 0; i < shownHunks; i++) {
+			Hunk hunk = hunks.get(i);
+			shown.set(Math.max(0, hunk.fileStart - CONTEXT_LINES),
+					Math.min(hunk.fileEnd, hunk.fileStart + MAX_HUNK_LINES));
+			shown.set(hunk.fileEnd, Math.min(fileLines.length, hunk.fileEnd + CONTEXT_LINES));
+		}
+		return shown;
+	}
+
+	/**
+	 * Returns the changed lines of the document that are shown.
+	 *
+	 * @return a {@code BitSet} of the lines of the document that are shown
+	 */
+	private BitSet shownDocumentLines() {
+		BitSet shown = new BitSet(documentLines.length);
+		for (int i = 0; i < shownHunks; i++) {
+			Hunk hunk = hunks.get(i);
+			shown.set(hunk.documentStart, Math.min(hunk.documentEnd, hunk.documentStart + MAX_HUNK_LINES));
+		}
+		return shown;
+	}
+
+	/**
+	 * Finds the changes between two sequences of line ids.
+	 *
+	 * @param a the ids of the lines of the first sequence
+	 * @param b the ids of the lines of the second sequence
+	 * @return a {@code List} of the changes, in the order they occur
+	 */
+	static List<Hunk> diff(int[] a, int[] b) {
+		boolean[] changedA = new boolean[a.length];
+		boolean[] changedB = new boolean[b.length];
+		new Comparison(a, b, changedA, changedB).run();
+
+		// Unchanged lines pair up in order, so each run of changed lines between
+		// them on either side is a change.
+		List<Hunk> hunks = new ArrayList<>();
+		int i = 0;
+		int j = 0;
+		while (i < a.length || j < b.length) {
+			if ((i < a.length && changedA[i]) || (j < b.length && changedB[j])) {
+				int startA = i;
+				int startB = j;
+				while (i < a.length && changedA[i]) {
+					i++;
+				}
+				while (j < b.length && changedB[j]) {
+					j++;
+				}
+				hunks.add(new Hunk(startA, i, startB, j));
+			} else {
+				i++;
+				j++;
+			}
+		}
+		return hunks;
+	}
+
+	/**
+	 * A run of lines of the file replaced by a run of lines of the document,
+	 * either of which may be empty.
+	 */
+	public static class Hunk {
+		/** The index of the first changed line of the file. */
+		private final int fileStart;
+		/** The index after the last changed line of the file. */
+		private final int fileEnd;
+		/** The index of the first changed line of the document. */
+		private final int documentStart;
+		/** The index after the last changed line of the document. */
+		private final int documentEnd;
+
+		/**
+		 * Class constructor that holds the lines changed on each side.
+		 *
+		 * @param fileStart     the index of the first changed line of the file
+		 * @param fileEnd       the index after the last changed line of the file
+		 * @param documentStart the index of the first changed line of the document
+		 * @param documentEnd   the index after the last changed line of the
+		 *                      document
+		 */
+		Hunk(int fileStart, int fileEnd, int documentStart, int documentEnd) {
+			this.fileStart = fileStart;
+			this.fileEnd = fileEnd;
+			this.documentStart = documentStart;
+			this.documentEnd = documentEnd;
+		}
+
+		/**
+		 * Returns the index of the first changed line of the file.
+		 *
+		 * @return the index of the first changed line of the file
+		 */
+		public int getFileStart() {
+			return fileStart;
+		}
+
+		/**
+		 * Returns the index after the last changed line of the file.
+		 *
+		 * @return the index after the last changed line of the file
+		 */
+		public int getFileEnd() {
+			return fileEnd;
+		}
+
+		/**
+		 * Returns the number of changed lines of the file.
+		 *
+		 * @return the number of changed lines of the file
+		 */
+		public int getFileLength() {
+			return fileEnd - fileStart;
+		}
+
+		/**
+		 * Returns the index of the first changed line of the document.
+		 *
+		 * @return the index of the first changed line of the document
+		 */
+		public int getDocumentStart() {
+			return documentStart;
+		}
+
+		/**
+		 * Returns the index after the last changed line of the document.
+		 *
+		 * @return the index after the last changed line of the document
+		 */
+		public int getDocumentEnd() {
+			return documentEnd;
+		}
+
+		/**
+		 * Returns the number of changed lines of the document.
+		 *
+		 * @return the number of changed lines of the document
+		 */
+		public int getDocumentLength() {
+			return documentEnd - documentStart;
+		}
+	}
+
+	/**
+	 * Marks the lines of two sequences of ids that are not part of a longest
+	 * common subsequence of them, using the linear space Myers algorithm.
+	 */
+	private static class Comparison {
+		/** The ids of the lines of the first sequence that occur in the second. */
+		private final int[] a;
+		/** The ids of the lines of the second sequence that occur in the first. */
+		private final int[] b;
+		/** The index in the first sequence of each line of {@code a}. */
+		private final int[] indexA;
+		/** The index in the second sequence of each line of {@code b}. */
+		private final int[] indexB;
+		/** Whether each line of the first sequence is changed. */
+		private final boolean[] changedA;
+		/** Whether each line of the second sequence is changed. */
+		private final boolean[] changedB;
+		/** The furthest point reached on each diagonal going forwards. */
+		private final int[] forward;
+		/** The furthest point reached on each diagonal going backwards. */
+		private final int[] backward;
+
+		/**
+		 * Class constructor that leaves out the lines that do not occur at all on
+		 * the other side, marking them as changed straight away.
+		 *
+		 * @param a        the ids of the lines of the first sequence
+		 * @param b        the ids of the lines of the second sequence
+		 * @param changedA set to whether each line of the first sequence is changed
+		 * @param changedB set to whether each line of the second sequence is
+		 *                 changed
+		 */
+		Comparison(int[] a, int[] b, boolean[] changedA, boolean[] changedB) {
+			this.changedA = changedA;
+			this.changedB = changedB;
+			int ids = 0;
+			for (int id : a) {
+				ids = Math.max(ids, id + 1);
+			}
+			for (int id : b) {
+				ids = Math.max(ids, id + 1);
+			}
+			boolean[] inA = new boolean[ids];
+			boolean[] inB = new boolean[ids];
+			for (int id : a) {
+				inA[id] = true;
+			}
+			for (int id : b) {
+				inB[id] = true;
+			}
+			this.indexA = keep(a, inB, changedA);
+			this.indexB = keep(b, inA, changedB);
+			this.a = new int[indexA.length];
+			for (int i = 0; i < indexA.length; i++) {
+				this.a[i] = a[indexA[i]];
+			}
+			this.b = new int[indexB.length];
+			for (int i = 0; i < indexB.length; i++) {
+				this.b[i] = b[indexB[i]];
+			}
+			int maxD = Math.min(COST_LIMIT, (this.a.length + this.b.length + 1) / 2);
+			this.forward = new int[2 * maxD + 2];
+			this.backward = new int[2 * maxD + 2];
+		}
+
+		/**
+		 * Returns the indexes of the lines whose ids occur on the other side,
+		 * marking the rest as changed.
+		 *
+		 * @param lines   the ids of the lines
+		 * @param inOther whether each id occurs on the other side
+		 * @param changed set to true for each line left out
+		 * @return the indexes of the lines kept
+		 */
+		private static int[] keep(int[] lines, boolean[] inOther, boolean[] changed) {
+			int[] kept = new int[lines.length];
+			int count = 0;
+			for (int i = 0; i < lines.length; i++) {
+				if (inOther[lines[i]]) {
+					kept[count++] = i;
+				} else {
+					changed[i] = true;
+				}
+			}
+			return Arrays.copyOf(kept, count);
+		}
+
+		/**
+		 * Compares the lines kept, marking those that are changed.
+		 */
+		void run() {
+			compare(0, a.length, 0, b.length);
+		}
+
+		/**
+		 * Compares a range of the first sequence with a range of the second. The
+		 * first part of a divided range is compared recursively and the second
+		 * part by the same call, so the depth of the recursion stays small.
+		 *
+		 * @param aLow  the start of the range of the first sequence
+		 * @param aHigh the end of the range of the first sequence
+		 * @param bLow  the start of the range of the second sequence
+		 * @param bHigh the end of the range of the second sequence
+		 */
+		private void compare(int aLow, int aHigh, int bLow, int bHigh) {
+			while (true) {
+				while (aLow < aHigh && bLow < bHigh && a[aLow] == b[bLow]) {
+					aLow++;
+					bLow++;
+				}
+				while (aLow < aHigh && bLow < bHigh && a[aHigh - 1] == b[bHigh - 1]) {
+					aHigh--;
+					bHigh--;
+				}
+				if (aLow == aHigh || bLow == bHigh) {
+					markChanged(aLow, aHigh, bLow, bHigh);
+					return;
+				}
+				long split = bisect(aLow, aHigh, bLow, bHigh);
+				int x = (int) (split >>> 32);
+				int y = (int) split;
+				if (split < 0 || (x == aLow && y == bLow) || (x == aHigh && y == bHigh)) {
+					markChanged(aLow, aHigh, bLow, bHigh);
+					return;
+				}
+				compare(aLow, x, bLow, y);
+				aLow = x;
+				bLow = y;
+			}
+		}
+
+		/**
+		 * Marks every line of a range of each sequence as changed.
+		 *
+		 * @param aLow  the start of the range of the first sequence
+		 * @param aHigh the end of the range of the first sequence
+		 * @param bLow  the start of the range of the second sequence
+		 * @param bHigh the end of the range of the second sequence
+		 */
+		private void markChanged(int aLow, int aHigh, int bLow, int bHigh) {
+			for (int i = aLow; i < aHigh; i++) {
+				changedA[indexA[i]] = true;
+			}
+			for (int i = bLow; i < bHigh; i++) {
+				changedB[indexB[i]] = true;
+			}
+		}
+
+		/**
+		 * Finds the point the range is divided at, working forwards from the start
+		 * and backwards from the end of the range at the same time until the two
+		 * paths overlap, which is where the middle snake is. If they do not overlap
+		 * within {@code COST_LIMIT} steps the furthest point reached going forwards
+		 * is used instead.
+		 *
+		 * Neither range may be empty, and the ranges must neither start nor end
+		 * with the same line.
+		 *
+		 * @param aLow  the start of the range of the first sequence
+		 * @param aHigh the end of the range of the first sequence
+		 * @param bLow  the start of the range of the second sequence
+		 * @param bHigh the end of the range of the second sequence
+		 * @return the point in the first sequence in the upper 32 bits and the
+		 *         point in the second sequence in the lower 32 bits, or -1 if the
+		 *         range cannot be divided
+		 */
+		private long bisect(int aLow, int aHigh, int bLow, int bHigh) {
+			int n = aHigh - aLow;
+			int m = bHigh - bLow;
+			int maxD = Math.min(COST_LIMIT, (n + m + 1) / 2);
+			int offset = maxD;
+			int length = 2 * maxD + 2;
+			Arrays.fill(forward, 0, length, -1);
+			Arrays.fill(backward, 0, length, -1);
+			forward[offset + 1] = 0;
+			backward[offset + 1] = 0;
+			int delta = n - m;
+			// If the difference in length is odd the forward path meets the
+			// backward path, otherwise the backward path meets the forward path.
+			boolean front = (delta & 1) != 0;
+			// Diagonals that have run off the edge of the range are skipped.
+			int kStart1 = 0;
+			int kEnd1 = 0;
+			int kStart2 = 0;
+			int kEnd2 = 0;
+			for (int d = 0; d < maxD; d++) {
+				for (int k1 = -d + kStart1; k1 <= d - kEnd1; k1 += 2) {
+					int k1Offset = offset + k1;
+					int x1;
+					if (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) {
+						x1 = forward[k1Offset + 1];
+					} else {
+						x1 = forward[k1Offset - 1] + 1;
+					}
+					int y1 = x1 - k1;
+					while (x1 < n && y1 < m && a[aLow + x1] == b[bLow + y1]) {
+						x1++;
+						y1++;
+					}
+					forward[k1Offset] = x1;
+					if (x1 > n) {
+						kEnd1 += 2;
+					} else if (y1 > m) {
+						kStart1 += 2;
+					} else if (front) {
+						int k2Offset = offset + delta - k1;
+						if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1
+								&& x1 >= n - backward[k2Offset]) {
+							return point(aLow + x1, bLow + y1);
+						}
+					}
+				}
+				for (int k2 = -d + kStart2; k2 <= d - kEnd2; k2 += 2) {
+					int k2Offset = offset + k2;
+					int x2;
+					if (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) {
+						x2 = backward[k2Offset + 1];
+					} else {
+						x2 = backward[k2Offset - 1] + 1;
+					}
+					int y2 = x2 - k2;
+					while (x2 < n && y2 < m && a[aHigh - x2 - 1] == b[bHigh - y2 - 1]) {
+						x2++;
+						y2++;
+					}
+					backward[k2Offset] = x2;
+					if (x2 > n) {
+						kEnd2 += 2;
+					} else if (y2 > m) {
+						kStart2 += 2;
+					} else if (!front) {
+						int k1Offset = offset + delta - k2;
+						if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+							int x1 = forward[k1Offset];
+							int y1 = offset + x1 - k1Offset;
+							if (x1 >= n - x2) {
+								return point(aLow + x1, bLow + y1);
+							}
+						}
+					}
+				}
+			}
+			// Too costly to find the middle snake, so divide at the point furthest
+			// along any diagonal going forwards.
+			long best = -1;
+			int furthest = 0;
+			for (int k = -maxD; k <= maxD; k++) {
+				int x = forward[offset + k];
+				int y = x - k;
+				if (x >= 0 && x <= n && y >= 0 && y <= m && x + y > furthest) {
+					furthest = x + y;
+					best = point(aLow + x, bLow + y);
+				}
+			}
+			return best;
+		}
+
+		/**
+		 * Packs a point of the two sequences into a single value.
+		 *
+		 * @param x the point in the first sequence
+		 * @param y the point in the second sequence
+		 * @return the packed point
+		 */
+		private static long point(int x, int y) {
+			return ((long) x << 32) | (y & 0xffffffffL);
+		}
+	}
+
+	/**
+	 * Gives each distinct line an integer id from its hash, so the lines of both
+	 * sides are compared as integers.
+	 */
+	private static class LineTable {
+		/** The hash of each line, or zero for an empty slot. */
+		private long[] keys = new long[1 << 12];
+		/** The id of the line in each slot. */
+		private int[] ids = new int[1 << 12];
+		/** The hash of each id. */
+		private long[] hashes = new long[1 << 10];
+		/** The number of ids given out. */
+		private int size = 0;
+
+		/**
+		 * Returns the id of the line with the hash provided, giving it a new id if
+		 * it has not been seen before.
+		 *
+		 * @param hash the hash of the line, which is never zero
+		 * @return the id of the line
+		 */
+		int id(long hash) {
+			int mask = keys.length - 1;
+			int slot = (int) (hash ^ (hash >>> 32)) & mask;
+			while (keys[slot] != 0) {
+				if (keys[slot] == hash) {
+					return ids[slot];
+				}
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = hash;
+			ids[slot] = size;
+			if (size == hashes.length) {
+				hashes = Arrays.copyOf(hashes, size * 2);
+			}
+			hashes[size] = hash;
+			size++;
+			if (size * 2 > keys.length) {
+				grow();
+			}
+			return size - 1;
+		}
+
+		/**
+		 * Doubles the number of slots, placing each line again.
+		 */
+		private void grow() {
+			long[] oldKeys = keys;
+			int[] oldIds = ids;
+			keys = new long[oldKeys.length * 2];
+			ids = new int[oldKeys.length * 2];
+			int mask = keys.length - 1;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != 0) {
+					int slot = (int) (oldKeys[i] ^ (oldKeys[i] >>> 32)) & mask;
+					while (keys[slot] != 0) {
+						slot = (slot + 1) & mask;
+					}
+					keys[slot] = oldKeys[i];
+					ids[slot] = oldIds[i];
+				}
+			}
+		}
+
+		/**
+		 * Returns the hash of the line with the id provided.
+		 *
+		 * @param id the id of the line
+		 * @return the hash of the line
+		 */
+		long hash(int id) {
+			return hashes[id];
+		}
+	}
+
+	/**
+	 * Splits streamed text into lines, hashing each line as it goes past. The
+	 * lines are separated by new lines, a new line at the very end of the text
+	 * not starting another line.
+	 *
+	 * A scanner either gives each line its id, or collects the text of the lines
+	 * that are shown, checking each against the id it was given the first time.
+	 */
+	private static class LineScanner {
+		/** Gives each line its id. */
+		private final LineTable table;
+		/** The ids given the first time, or null if giving ids. */
+		private final int[] expected;
+		/** The lines to collect the text of, or null if giving ids. */
+		private final BitSet shown;
+		/** Holds the text of each line collected. */
+		private final Map<Integer, String> text;
+		/** The index after the last line to be collected. */
+		private final int last;
+		/** The id of each line so far, when giving ids. */
+		private int[] ids = new int[1024];
+		/** The number of lines so far. */
+		private int line = 0;
+		/** The hash of the line so far. */
+		private long hash = FNV_OFFSET;
+		/** The number of characters of the line so far. */
+		private int length = 0;
+		/** Holds the text of the line so far if it is being collected. */
+		private final StringBuilder builder = new StringBuilder();
+		/** Set if a line did not match the id it was given the first time. */
+		private boolean mismatch = false;
+		/** Holds each chunk of a file whilst it is scanned. */
+		private char[] buffer = new char[0];
+
+		/**
+		 * Class constructor that gives each line an id.
+		 *
+		 * @param table the {@code LineTable} giving out the ids
+		 */
+		LineScanner(LineTable table) {
+			this(table, null, null, null);
+		}
+
+		/**
+		 * Class constructor that collects the text of the lines that are shown.
+		 *
+		 * @param table    the {@code LineTable} the ids were given by
+		 * @param expected the ids given to the lines the first time
+		 * @param shown    the lines to collect the text of
+		 * @param text     holds the text of each line collected
+		 */
+		LineScanner(LineTable table, int[] expected, BitSet shown, Map<Integer, String> text) {
+			this.table = table;
+			this.expected = expected;
+			this.shown = shown;
+			this.text = text;
+			this.last = shown == null ? Integer.MAX_VALUE : shown.length();
+		}
+
+		/**
+		 * Returns whether every line to be collected has been, so the rest of the
+		 * text need not be read.
+		 *
+		 * @return true if no more text is needed
+		 */
+		boolean isDone() {
+			return line >= last;
+		}
+
+		/**
+		 * Passes on the next piece of the text.
+		 *
+		 * @param chars  the array holding the text
+		 * @param offset the offset of the text in the array
+		 * @param count  the number of characters of the text
+		 */
+		void append(char[] chars, int offset, int count) {
+			int end = offset + count;
+			int i = offset;
+			while (i < end) {
+				if (shown != null && !shown.get(line)) {
+					// A line that is not shown only needs its end finding.
+					while (i < end && chars[i] != '\n') {
+						i++;
+						length++;
+					}
+				} else {
+					while (i < end && chars[i] != '\n') {
+						hash = (hash ^ chars[i]) * FNV_PRIME;
+						length++;
+						i++;
+					}
+					if (shown != null) {
+						builder.append(chars, i - Math.min(length, i - offset), Math.min(length, i - offset));
+					}
+				}
+				if (i < end) {
+					endLine();
+					i++;
+				}
+			}
+		}
+
+		/**
+		 * Passes on the next piece of the text.
+		 *
+		 * @param chars the text
+		 */
+		void append(String chars) {
+			if (buffer.length < chars.length()) {
+				buffer = new char[chars.length()];
+			}
+			chars.getChars(0, chars.length(), buffer, 0);
+			append(buffer, 0, chars.length());
+		}
+
+		/**
+		 * Ends the line so far, giving it an id or collecting its text.
+		 */
+		private void endLine() {
+			// Mix in the length and spread the bits, keeping zero for empty slots.
+			long h = hash ^ (length * 0x9e3779b97f4a7c15L);
+			h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+			h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+			h ^= h >>> 33;
+			if (h == 0) {
+				h = 1;
+			}
+			if (shown == null) {
+				if (line == ids.length) {
+					ids = Arrays.copyOf(ids, line * 2);
+				}
+				ids[line] = table.id(h);
+			} else if (shown.get(line)) {
+				if (line >= expected.length || table.hash(expected[line]) != h) {
+					mismatch = true;
+				}
+				text.put(line, builder.toString());
+				builder.setLength(0);
+			}
+			line++;
+			hash = FNV_OFFSET;
+			length = 0;
+		}
+
+		/**
+		 * Ends the text, giving the last line its id if the text does not end
+		 * with a new line.
+		 *
+		 * @return the id of each line when giving ids, or the ids given the first
+		 *         time if every line collected matched them
+		 */
+		int[] finish() {
+			if (length > 0 && !isDone()) {
+				endLine();
+			}
+			if (shown == null) {
+				return Arrays.copyOf(ids, line);
+			}
+			return mismatch ? null : expected;
+		}
+	}
+}
@@ -0,0 +1,425 @@
+package gui;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * Keeps the offset of the start of every line of a document, so the line of an
+ * offset and the offset of a line can be found without reading the text.
+ *
+ * The length of each line, including its new line, is held in a treap ordered
+ * by line, where each node holds a run of at most {@code MAX_RUN} line lengths
+ * along with the number of lines and characters in its subtree. Finding the
+ * line of an offset or the start of a line therefore costs O(log n) plus a scan
+ * of a single run. The index is kept up to date from the insert and remove
+ * events of the document, an edit within a line only changing the length held
+ * for that line and the sizes of the nodes above it.
+ *
+ * Only inserted text is read, to find the new lines within it. A removal joins
+ * the lines at either end of the removed range using the lengths already held,
+ * so the removed text is not needed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LineNumberGutter
+ */
+public class LineIndex implements DocumentListener {
+	/** The most line lengths held by a single node of the tree. */
+	static final int MAX_RUN = 256;
+
+	/** The document being indexed. */
+	private final Document document;
+	/** Reused segment the inserted text is read through. */
+	private final Segment segment = new Segment();
+	/** The root of the tree holding the line lengths. */
+	private Run root;
+
+	/**
+	 * Class constructor that indexes the document provided and keeps the index
+	 * up to date as the document changes.
+	 *
+	 * @param document the {@code Document} to be indexed
+	 */
+	public LineIndex(Document document) {
+		this.document = document;
+		root = new Run(new int[1], 1);
+		document.render(() -> insert(0, document.getLength()));
+		document.addDocumentListener(this);
+	}
+
+	@Override
+	public synchronized void insertUpdate(DocumentEvent e) {
+		insert(e.getOffset(), e.getLength());
+	}
+
+	@Override
+	public synchronized void removeUpdate(DocumentEvent e) {
+		remove(e.getOffset(), e.getLength());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting does not change the lines.
+	}
+
+	/**
+	 * Returns the number of lines in the document, one more than the number of
+	 * new lines.
+	 *
+	 * @return the number of lines
+	 */
+	public synchronized int getLineCount() {
+		return root.lines;
+	}
+
+	/**
+	 * Returns the line an offset falls within.
+	 *
+	 * @param offset the offset within the document
+	 * @return the zero based index of the line, the last line if the offset is
+	 *         past the end of the document
+	 */
+	public synchronized int getLineOfOffset(int offset) {
+		int[] local = new int[3];
+		findOffset(Math.max(0, Math.min(offset, root.size)), local);
+		return local[2];
+	}
+
+	/**
+	 * Returns the offset of the start of a line.
+	 *
+	 * @param line the zero based index of the line
+	 * @return the offset of the first character of the line, or of the start of
+	 *         the last line if there is no such line
+	 */
+	public synchronized int getLineStartOffset(int line) {
+		line = Math.max(0, Math.min(line, root.lines - 1));
+		int start = 0;
+		Run node = root;
+		while (true) {
+			int leftLines = lines(node.left);
+			if (line < leftLines) {
+				node = node.left;
+			} else if (line < leftLines + node.count) {
+				start += size(node.left);
+				for (int i = 0; i < line - leftLines; i++) {
+					start += node.lengths[i];
+				}
+				return start;
+			} else {
+				start += size(node.left) + node.chars;
+				line -= leftLines + node.count;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Adds the lines of inserted text to the index. Text without a new line only
+	 * lengthens the line it is inserted into, otherwise that line is replaced by
+	 * the lines it is split into.
+	 *
+	 * @param offset the offset of the insert
+	 * @param length the number of characters inserted
+	 */
+	private void insert(int offset, int length) {
+		if (length == 0) {
+			return;
+		}
+		int[] breaks = new int[16];
+		int count = 0;
+		segment.setPartialReturn(true);
+		try {
+			for (int done = 0; done < length; done += segment.count) {
+				document.getText(offset + done, length - done, segment);
+				char[] chars = segment.array;
+				for (int i = 0; i < segment.count; i++) {
+					if (chars[segment.offset + i] == '\n') {
+						if (count == breaks.length) {
+							breaks = Arrays.copyOf(breaks, count * 2);
+						}
+						breaks[count++] = done + i;
+					}
+				}
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error indexing lines.");
+			return;
+		}
+		int[] local = new int[3];
+		Run run = findOffset(offset, local);
+		int index = local[0];
+		if (count == 0) {
+			run.lengths[index] += length;
+			run.chars += length;
+			resize(run, length, 0);
+			return;
+		}
+		// The line inserted into is split into the lines of the inserted text.
+		int before = local[1];
+		int after = run.lengths[index] - before;
+		int[] added = new int[count + 1];
+		added[0] = before + breaks[0] + 1;
+		for (int i = 1; i < count; i++) {
+			added[i] = breaks[i] - breaks[i - 1];
+		}
+		added[count] = length - breaks[count - 1] - 1 + after;
+		if (run.count + count <= MAX_RUN) {
+			if (run.lengths.length < run.count + count) {
+				run.lengths = Arrays.copyOf(run.lengths,
+						Math.min(MAX_RUN, Math.max(run.count + count, run.lengths.length * 2)));
+			}
+			System.arraycopy(run.lengths, index + 1, run.lengths, index + 1 + count, run.count - index - 1);
+			System.arraycopy(added, 0, run.lengths, index, added.length);
+			run.count += count;
+			run.chars += length;
+			resize(run, length, count);
+			return;
+		}
+		Run[] left = split(root, local[2]);
+		Run[] right = split(left[1], 1);
+		Run middle = null;
+		for (int i = 0; i < added.length; i += MAX_RUN / 2) {
+			int end = Math.min(added.length, i + MAX_RUN / 2);
+			middle = merge(middle, new Run(Arrays.copyOfRange(added, i, end), end - i));
+		}
+		root = merge(merge(left[0], middle), right[1]);
+		root.parent = null;
+	}
+
+	/**
+	 * Removes a range from the index, joining the start of the line the range
+	 * starts in to the end of the line it ends in.
+	 *
+	 * @param offset the offset of the removal
+	 * @param length the number of characters removed
+	 */
+	private void remove(int offset, int length) {
+		if (length == 0) {
+			return;
+		}
+		int[] first = new int[3];
+		Run firstRun = findOffset(offset, first);
+		int[] last = new int[3];
+		Run lastRun = findOffset(Math.min(offset + length, root.size), last);
+		if (first[2] == last[2]) {
+			firstRun.lengths[first[0]] -= length;
+			firstRun.chars -= length;
+			resize(firstRun, -length, 0);
+			return;
+		}
+		int joined = first[1] + lastRun.lengths[last[0]] - last[1];
+		int removedLines = last[2] - first[2];
+		if (firstRun == lastRun) {
+			firstRun.lengths[first[0]] = joined;
+			System.arraycopy(firstRun.lengths, last[0] + 1, firstRun.lengths, first[0] + 1,
+					firstRun.count - last[0] - 1);
+			firstRun.count -= removedLines;
+			firstRun.chars -= length;
+			resize(firstRun, -length, -removedLines);
+			return;
+		}
+		Run[] left = split(root, first[2]);
+		Run[] right = split(left[1], removedLines + 1);
+		root = merge(merge(left[0], new Run(new int[] { joined }, 1)), right[1]);
+		root.parent = null;
+	}
+
+	/**
+	 * Finds the run holding the line an offset falls within.
+	 *
+	 * @param offset the offset within the document
+	 * @param local  an array set to the index of the line within the run, the
+	 *               offset within the line and the index of the line
+	 * @return the run holding the line
+	 */
+	private Run findOffset(int offset, int[] local) {
+		Run node = root;
+		int line = 0;
+		while (true) {
+			int leftSize = size(node.left);
+			if (offset < leftSize) {
+				node = node.left;
+			} else if (offset < leftSize + node.chars || node.right == null) {
+				offset -= leftSize;
+				line += lines(node.left);
+				int i = 0;
+				while (i < node.count - 1 && offset >= node.lengths[i]) {
+					offset -= node.lengths[i];
+					i++;
+				}
+				local[0] = i;
+				local[1] = offset;
+				local[2] = line + i;
+				return node;
+			} else {
+				offset -= leftSize + node.chars;
+				line += lines(node.left) + node.count;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of characters in the subtree of a node, or 0 if the node
+	 * is null.
+	 *
+	 * @param node the root of the subtree
+	 * @return the number of characters in the subtree
+	 */
+	private static int size(Run node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Returns the number of lines in the subtree of a node, or 0 if the node is
+	 * null.
+	 *
+	 * @param node the root of the subtree
+	 * @return the number of lines in the subtree
+	 */
+	private static int lines(Run node) {
+		return node == null ? 0 : node.lines;
+	}
+
+	/**
+	 * Recalculates the sizes of a node from its children and sets it as the
+	 * parent of each child.
+	 *
+	 * @param node the node to be updated
+	 */
+	private static void update(Run node) {
+		node.size = size(node.left) + size(node.right) + node.chars;
+		node.lines = lines(node.left) + lines(node.right) + node.count;
+		if (node.left != null) {
+			node.left.parent = node;
+		}
+		if (node.right != null) {
+			node.right.parent = node;
+		}
+	}
+
+	/**
+	 * Adds to the sizes of a node and each of its ancestors after its run has
+	 * been changed in place.
+	 *
+	 * @param node  the node whose run has changed
+	 * @param chars the change in the number of characters
+	 * @param lines the change in the number of lines
+	 */
+	private static void resize(Run node, int chars, int lines) {
+		for (Run n = node; n != null; n = n.parent) {
+			n.size += chars;
+			n.lines += lines;
+		}
+	}
+
+	/**
+	 * Joins two trees, every line of the first coming before the second.
+	 *
+	 * @param a the first tree
+	 * @param b the second tree
+	 * @return the root of the joined tree
+	 */
+	private static Run merge(Run a, Run b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			update(a);
+			return a;
+		}
+		b.left = merge(a, b.left);
+		update(b);
+		return b;
+	}
+
+	/**
+	 * Splits a tree into the lines before the line provided and those from the
+	 * line onwards, splitting a run in two if the line falls within it.
+	 *
+	 * @param node the root of the tree to be split
+	 * @param line the index of the line to split at
+	 * @return an array of the two resulting trees, either of which may be null
+	 */
+	private static Run[] split(Run node, int line) {
+		if (node == null) {
+			return new Run[2];
+		}
+		int leftLines = lines(node.left);
+		Run[] parts;
+		if (line <= leftLines) {
+			parts = split(node.left, line);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+		} else if (line >= leftLines + node.count) {
+			parts = split(node.right, line - leftLines - node.count);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+		} else {
+			int local = line - leftLines;
+			Run tail = new Run(Arrays.copyOfRange(node.lengths, local, node.count), node.count - local);
+			node.count = local;
+			node.chars -= tail.chars;
+			Run right = node.right;
+			node.right = null;
+			update(node);
+			parts = new Run[] { node, merge(tail, right) };
+		}
+		for (Run part : parts) {
+			if (part != null) {
+				part.parent = null;
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * A node of the tree, holding a run of line lengths and the number of lines
+	 * and characters in its subtree.
+	 */
+	private static class Run {
+		/** Holds the length of each line of the run, which may have spare capacity. */
+		int[] lengths;
+		/** The number of lines used in the array. */
+		int count;
+		/** The number of characters in the lines of the run. */
+		int chars;
+		/** The number of characters in the subtree of this node. */
+		int size;
+		/** The number of lines in the subtree of this node. */
+		int lines;
+		/** The random priority keeping the tree balanced. */
+		final int priority = ThreadLocalRandom.current().nextInt();
+		/** The children and parent of the node. */
+		Run left, right, parent;
+
+		/**
+		 * Class constructor that creates a node holding the line lengths provided.
+		 *
+		 * @param lengths the length of each line of the run
+		 * @param count   the number of lines used in the array
+		 */
+		Run(int[] lengths, int count) {
+			this.lengths = lengths;
+			this.count = count;
+			for (int i = 0; i < count; i++) {
+				chars += lengths[i];
+			}
+			this.size = chars;
+			this.lines = count;
+		}
+	}
+}
@@ -0,0 +1,182 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.geom.Rectangle2D;
+
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+
+/**
+ * Shows the number of each line beside the text pane, used as the row header of
+ * the scroll pane the text pane is shown in.
+ *
+ * Only the lines within the area being painted are looked up, each through the
+ * {@code LineIndex} of the document, so painting does not depend on the size of
+ * the document. When the document changes only the rows that have changed are
+ * repainted, the row of the edited line if the number of lines is the same,
+ * otherwise every row from the edited line down. A burst of edits results in one
+ * repaint.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LineIndex
+ */
+public class LineNumberGutter extends JComponent implements DocumentListener {
+	private static final long serialVersionUID = 1L;
+
+	/** The space either side of the line numbers. */
+	private static final int MARGIN = 5;
+
+	/** The text pane whose lines are numbered. */
+	private final JTextPane textPane;
+	/** The index of the lines of the document of the text pane. */
+	private final LineIndex index;
+	/** The number of lines when the gutter was last updated. */
+	private int lineCount;
+	/** The earliest offset edited since the gutter was last updated, or -1. */
+	private int editedFrom = -1;
+
+	/**
+	 * Class constructor that creates the gutter of the text pane provided.
+	 *
+	 * @param textPane the {@code JTextPane} whose lines are numbered
+	 * @param index    the {@code LineIndex} of the document of the text pane
+	 */
+	public LineNumberGutter(JTextPane textPane, LineIndex index) {
+		this.textPane = textPane;
+		this.index = index;
+		this.lineCount = index.getLineCount();
+		setFont(textPane.getFont());
+		setForeground(Color.GRAY);
+		setBackground(new Color(0xF0F0F0));
+		setOpaque(true);
+		setBorder(BorderFactory.createMatteBorder(0, 0, 0, 1, Color.LIGHT_GRAY));
+		textPane.getDocument().addDocumentListener(this);
+		// A change of height, i.e lines wrapping differently, moves every row.
+		textPane.addComponentListener(new ComponentAdapter() {
+			@Override
+			public void componentResized(ComponentEvent e) {
+				revalidate();
+				repaint();
+			}
+		});
+	}
+
+	@Override
+	public Dimension getPreferredSize() {
+		Insets insets = getInsets();
+		int digits = Math.max(3, String.valueOf(lineCount).length());
+		int width = getFontMetrics(getFont()).charWidth('0') * digits + MARGIN * 2;
+		return new Dimension(width + insets.left + insets.right, textPane.getHeight());
+	}
+
+	@Override
+	public void insertUpdate(DocumentEvent e) {
+		edited(e.getOffset());
+	}
+
+	@Override
+	public void removeUpdate(DocumentEvent e) {
+		edited(e.getOffset());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting changes are shown by the resize of the text pane, if any.
+	}
+
+	/**
+	 * Records the offset of an edit and posts an update of the gutter to the EDT,
+	 * unless one is already posted.
+	 *
+	 * @param offset the offset of the edit
+	 */
+	private synchronized void edited(int offset) {
+		if (editedFrom < 0) {
+			editedFrom = offset;
+			SwingUtilities.invokeLater(this::update);
+		} else {
+			editedFrom = Math.min(editedFrom, offset);
+		}
+	}
+
+	/**
+	 * Repaints the rows changed by the edits made since the last update.
+	 */
+	private void update() {
+		int offset;
+		synchronized (this) {
+			offset = editedFrom;
+			editedFrom = -1;
+		}
+		int count = index.getLineCount();
+		if (String.valueOf(count).length() != String.valueOf(lineCount).length()) {
+			lineCount = count;
+			revalidate();
+			repaint();
+			return;
+		}
+		int line = index.getLineOfOffset(offset);
+		try {
+			Rectangle2D top = textPane.modelToView2D(index.getLineStartOffset(line));
+			if (top == null) {
+				repaint();
+			} else if (count != lineCount) {
+				repaint(0, (int) top.getY(), getWidth(), getHeight() - (int) top.getY());
+			} else {
+				Rectangle2D bottom = textPane.modelToView2D(index.getLineStartOffset(line + 1));
+				int end = line + 1 < count && bottom != null ? (int) bottom.getY() : getHeight();
+				repaint(0, (int) top.getY(), getWidth(), Math.max(end - (int) top.getY(), (int) top.getHeight()));
+			}
+		} catch (BadLocationException e) {
+			repaint();
+		}
+		lineCount = count;
+	}
+
+	/**
+	 * Paints the number of each line whose first row falls within the area being
+	 * painted, aligned to the right and to the baseline of the text.
+	 *
+	 * @param g the {@code Graphics} to paint with
+	 */
+	@Override
+	protected void paintComponent(Graphics g) {
+		Rectangle clip = g.getClipBounds();
+		g.setColor(getBackground());
+		g.fillRect(clip.x, clip.y, clip.width, clip.height);
+		g.setColor(getForeground());
+		g.setFont(getFont());
+		FontMetrics metrics = g.getFontMetrics();
+		Insets insets = getInsets();
+		int right = getWidth() - insets.right - MARGIN;
+		int count = index.getLineCount();
+		int line = index.getLineOfOffset(textPane.viewToModel2D(new Point(0, clip.y)));
+		try {
+			for (; line < count; line++) {
+				Rectangle2D row = textPane.modelToView2D(index.getLineStartOffset(line));
+				if (row == null || row.getY() > clip.y + clip.height) {
+					break;
+				}
+				String number = String.valueOf(line + 1);
+				int baseline = (int) (row.getY() + row.getHeight()) - metrics.getDescent();
+				g.drawString(number, right - metrics.stringWidth(number), baseline);
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error painting line numbers.");
+		}
+	}
+}
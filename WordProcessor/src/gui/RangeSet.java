@@ -0,0 +1,159 @@
+package gui;
+
+import java.util.Arrays;
+
+/**
+ * A set of ranges of a document, such as those yet to be checked or restyled,
+ * held as a sorted array of start and end offsets without overlaps. The ranges
+ * are moved along by the edits of the document in the same way as the text
+ * they cover, so a range keeps covering the same text.
+ *
+ * A range may be empty, marking a single point of the document such as the
+ * point text was removed from. The set is not thread safe, each user
+ * synchronizing access to it itself.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see SpellChecker
+ * @see RestyleEngine
+ */
+class RangeSet {
+	/** Holds the start and end offset of each range, in order. */
+	private int[] ranges = new int[16];
+	/** The number of offsets used in the array, two per range. */
+	private int count = 0;
+
+	/**
+	 * Returns whether the set holds no ranges.
+	 *
+	 * @return true if there are no ranges
+	 */
+	boolean isEmpty() {
+		return count == 0;
+	}
+
+	/**
+	 * Removes every range from the set.
+	 */
+	void clear() {
+		count = 0;
+	}
+
+	/**
+	 * Adds a range to the set, joining it with any range it overlaps or touches.
+	 *
+	 * @param start the offset of the start of the range
+	 * @param end   the offset of the end of the range
+	 */
+	void add(int start, int end) {
+		int i = 0;
+		while (i < count && ranges[i + 1] < start) {
+			i += 2;
+		}
+		int j = i;
+		while (j < count && ranges[j] <= end) {
+			start = Math.min(start, ranges[j]);
+			end = Math.max(end, ranges[j + 1]);
+			j += 2;
+		}
+		// The ranges from i up to j are replaced by the single joined range.
+		int shift = 2 - (j - i);
+		if (count + shift > ranges.length) {
+			ranges = Arrays.copyOf(ranges, ranges.length * 2);
+		}
+		System.arraycopy(ranges, j, ranges, j + shift, count - j);
+		count += shift;
+		ranges[i] = start;
+		ranges[i + 1] = end;
+	}
+
+	/**
+	 * Removes the characters from the start offset up to the end offset from the
+	 * set, splitting any range they fall within. An empty range from the start
+	 * offset up to but not including the end offset is removed with them, so to
+	 * remove an empty range at the end of the document the end offset should be
+	 * past the end of the document.
+	 *
+	 * @param start the offset of the first character to be removed
+	 * @param end   the offset after the last character to be removed
+	 */
+	void subtract(int start, int end) {
+		int[] kept = new int[Math.max(16, count + 2)];
+		int keptCount = 0;
+		for (int i = 0; i < count; i += 2) {
+			int from = ranges[i];
+			int to = ranges[i + 1];
+			if (from == to ? (from < start || from >= end) : (to <= start || from >= end)) {
+				kept[keptCount++] = from;
+				kept[keptCount++] = to;
+				continue;
+			}
+			if (from < start) {
+				kept[keptCount++] = from;
+				kept[keptCount++] = start;
+			}
+			if (to > end) {
+				kept[keptCount++] = end;
+				kept[keptCount++] = to;
+			}
+		}
+		ranges = kept;
+		count = keptCount;
+	}
+
+	/**
+	 * Moves the ranges after an insert along by its length. A range ending at the
+	 * insert is lengthened to cover it.
+	 *
+	 * @param offset the offset of the insert
+	 * @param length the number of characters inserted
+	 */
+	void inserted(int offset, int length) {
+		for (int i = 0; i < count; i++) {
+			if (ranges[i] > offset || (i % 2 == 1 && ranges[i] == offset)) {
+				ranges[i] += length;
+			}
+		}
+	}
+
+	/**
+	 * Moves the ranges after a removal back by its length, shortening any range
+	 * that overlaps it.
+	 *
+	 * @param offset the offset of the removal
+	 * @param length the number of characters removed
+	 */
+	void removed(int offset, int length) {
+		int end = offset + length;
+		for (int i = 0; i < count; i++) {
+			if (ranges[i] >= end) {
+				ranges[i] -= length;
+			} else if (ranges[i] > offset) {
+				ranges[i] = offset;
+			}
+		}
+	}
+
+	/**
+	 * Finds the part of the first range that falls within the bounds provided. A
+	 * range only touching a bound is not included unless the bound is the start
+	 * or end of the document, so a range left at the edge of the bounds is not
+	 * found again and again.
+	 *
+	 * @param from   the offset of the start of the bounds
+	 * @param to     the offset of the end of the bounds
+	 * @param length the length of the document
+	 * @return an array of the start and end offset of the part of the range
+	 *         within the bounds, or null if no range falls within them
+	 */
+	int[] first(int from, int to, int length) {
+		int i = 0;
+		while (i < count && (ranges[i + 1] < from || (ranges[i + 1] == from && from > 0))) {
+			i += 2;
+		}
+		if (i == count || ranges[i] > to || (ranges[i] == to && to < length)) {
+			return null;
+		}
+		return new int[] { Math.max(ranges[i], from), Math.min(ranges[i + 1], to) };
+	}
+}
@@ -0,0 +1,487 @@
+package gui;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Element;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyledDocument;
+
+/**
+ * Applies a list of {@code StyleRule}s to the paragraphs of a document, styling
+ * only the paragraphs that have changed rather than the whole document.
+ *
+ * The ranges edited since they were last styled are kept in a
+ * {@code RangeSet}, moved along by the insert and remove events of the
+ * document, which is all the work done while typing. The rules are evaluated on
+ * a background thread {@code RESTYLE_DELAY} milliseconds after the last edit,
+ * for the paragraphs within the edited ranges, a batch of at most
+ * {@code MAX_BATCH} characters at a time. The changes of a batch are then made
+ * on the EDT in a single pass, in which runs needing the same attributes are
+ * joined so each is set through one call to {@code setCharacterAttributes}, and
+ * runs whose attributes have not changed are left alone. The next batch is not
+ * evaluated until the last has been applied, so the EDT is free to handle input
+ * between batches. A batch read before an edit that has since been made is
+ * discarded and evaluated again.
+ *
+ * The attributes added by the rules are recorded in each run alongside the
+ * attributes themselves, so they can be told apart from formatting applied by
+ * the user and removed again once the text no longer matches a rule. Formatting
+ * applied by the user to the same attribute as a rule is lost when the rule
+ * stops matching. The changes are made through
+ * {@code BoundedUndoManager.runUnrecorded}, so they are not a step of the undo
+ * history of their own, but are undone and re-done along with the edit they
+ * followed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see StyleRule
+ * @see StyleRules
+ */
+public class RestyleEngine implements DocumentListener {
+	/** The number of milliseconds after an edit the edited paragraphs are styled. */
+	static final long RESTYLE_DELAY = 100;
+	/** The most characters of paragraphs evaluated in a single batch. */
+	private static final int MAX_BATCH = 64 * 1024;
+	/** The key of the attributes added to a run by the rules. */
+	private static final Object RULE_ATTRIBUTES = new Object() {
+		@Override
+		public String toString() {
+			return "rule attributes";
+		}
+	};
+
+	/** The document being styled. */
+	private final StyledDocument document;
+	/** The undo manager the changes are kept out of, may be null. */
+	private final BoundedUndoManager manager;
+	/** The number of milliseconds after an edit the edits are styled. */
+	private final long delay;
+	/** Reused segment the text of each paragraph is read through. */
+	private final Segment segment = new Segment();
+	/** Told each time every edit has been styled. */
+	private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+	/** Evaluates the rules in the background. */
+	private final ScheduledExecutorService restyler = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Restyle Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** The ranges of the document edited since they were last styled. */
+	private final RangeSet damaged = new RangeSet();
+	/** The rules applied to each paragraph. */
+	private volatile List<StyleRule> rules = new ArrayList<>();
+	/** Whether any rule has been applied, so there may be attributes to remove. */
+	private volatile boolean applied = false;
+	/** Counts the edits made to the document, so stale batches are not applied. */
+	private int generation = 0;
+	/** Whether a restyle has been scheduled or is running. */
+	private boolean pending = false;
+
+	/**
+	 * Class constructor that styles the document provided, keeping the changes
+	 * out of the undo manager provided. No rules are applied until they are set.
+	 *
+	 * @param document the {@code StyledDocument} to be styled
+	 * @param manager  the {@code BoundedUndoManager} of the document, may be null
+	 */
+	public RestyleEngine(StyledDocument document, BoundedUndoManager manager) {
+		this(document, manager, RESTYLE_DELAY);
+	}
+
+	/**
+	 * Class constructor that styles the document provided the number of
+	 * milliseconds provided after each edit.
+	 *
+	 * @param document the {@code StyledDocument} to be styled
+	 * @param manager  the {@code BoundedUndoManager} of the document, may be null
+	 * @param delay    the number of milliseconds after an edit it is styled
+	 */
+	RestyleEngine(StyledDocument document, BoundedUndoManager manager, long delay) {
+		this.document = document;
+		this.manager = manager;
+		this.delay = delay;
+		document.addDocumentListener(this);
+	}
+
+	/**
+	 * Sets the rules applied to each paragraph and styles the whole document
+	 * again, removing the attributes of rules no longer applied.
+	 *
+	 * @param rules the {@code StyleRule}s to be applied, in order
+	 */
+	public void setRules(List<StyleRule> rules) {
+		this.rules = new ArrayList<>(rules);
+		synchronized (this) {
+			damaged.clear();
+			damaged.add(0, document.getLength());
+		}
+		schedule();
+	}
+
+	/**
+	 * Adds a listener told on the EDT each time every edit has been styled, once
+	 * the last batch of changes has been applied.
+	 *
+	 * @param listener the {@code Runnable} to be run
+	 */
+	public void addRestyleListener(Runnable listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Removes a listener added through {@code addRestyleListener}.
+	 *
+	 * @param listener the {@code Runnable} to be removed
+	 */
+	public void removeRestyleListener(Runnable listener) {
+		listeners.remove(listener);
+	}
+
+	/**
+	 * Returns whether every edit has been styled.
+	 *
+	 * @return true if there is nothing left to style
+	 */
+	public synchronized boolean isIdle() {
+		return !pending && damaged.isEmpty();
+	}
+
+	@Override
+	public synchronized void insertUpdate(DocumentEvent e) {
+		generation++;
+		damaged.inserted(e.getOffset(), e.getLength());
+		damaged.add(e.getOffset(), e.getOffset() + e.getLength());
+		schedule();
+	}
+
+	@Override
+	public synchronized void removeUpdate(DocumentEvent e) {
+		generation++;
+		damaged.removed(e.getOffset(), e.getLength());
+		damaged.add(e.getOffset(), e.getOffset());
+		schedule();
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting, including that applied by the engine, does not change the text.
+	}
+
+	/**
+	 * Returns the attributes of a run without those added by a rule, which are the
+	 * attributes set by the user. Used when the formatting of the document is
+	 * saved, as the rules style the text again once it is opened.
+	 *
+	 * @param attributes the attributes of a run
+	 * @return the attributes of the run not added by a rule
+	 */
+	public static AttributeSet getUserAttributes(AttributeSet attributes) {
+		Object added = attributes.getAttribute(RULE_ATTRIBUTES);
+		if (!(added instanceof AttributeSet)) {
+			return attributes;
+		}
+		SimpleAttributeSet user = new SimpleAttributeSet(attributes);
+		Enumeration<?> names = ((AttributeSet) added).getAttributeNames();
+		user.removeAttributes(names);
+		user.removeAttribute(RULE_ATTRIBUTES);
+		return user;
+	}
+
+	/**
+	 * Stops styling the document, used when its tab is closed. Any restyle
+	 * already running is interrupted.
+	 */
+	public void dispose() {
+		document.removeDocumentListener(this);
+		restyler.shutdownNow();
+	}
+
+	/**
+	 * Schedules a restyle on the background thread, unless one is already
+	 * scheduled, running or the engine has been disposed of.
+	 */
+	private synchronized void schedule() {
+		if (!pending && !restyler.isShutdown()) {
+			pending = true;
+			restyler.schedule(this::restyle, delay, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Evaluates and applies batches of the edited paragraphs until none are left.
+	 * Run on the background thread.
+	 */
+	private void restyle() {
+		while (true) {
+			if (rules.isEmpty() && !applied) {
+				// Nothing has been styled, so there is nothing to restyle.
+				synchronized (this) {
+					damaged.clear();
+				}
+			}
+			Batch batch = nextBatch();
+			if (batch == null) {
+				synchronized (this) {
+					pending = false;
+					if (!damaged.isEmpty()) {
+						// A batch could not be read, try again after the next delay.
+						schedule();
+						return;
+					}
+				}
+				SwingUtilities.invokeLater(() -> {
+					for (Runnable listener : listeners) {
+						listener.run();
+					}
+				});
+				return;
+			}
+			try {
+				SwingUtilities.invokeAndWait(() -> apply(batch));
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				synchronized (this) {
+					pending = false;
+				}
+				return;
+			} catch (InvocationTargetException e) {
+				System.out.println("Error restyling paragraphs.");
+			}
+		}
+	}
+
+	/**
+	 * Reads the paragraphs of the first edited range, up to {@code MAX_BATCH}
+	 * characters of them, and evaluates the rules for each.
+	 *
+	 * @return the batch of runs found, or null if nothing is left to style
+	 */
+	private Batch nextBatch() {
+		Batch[] batch = new Batch[1];
+		List<StyleRule> current = rules;
+		document.render(() -> {
+			int length = document.getLength();
+			int[] range;
+			int batchGeneration;
+			synchronized (this) {
+				range = damaged.first(0, length, length);
+				batchGeneration = generation;
+			}
+			if (range == null) {
+				return;
+			}
+			Element root = document.getDefaultRootElement();
+			int index = root.getElementIndex(range[0]);
+			int start = root.getElement(index).getStartOffset();
+			int end = start;
+			Batch found = new Batch(batchGeneration);
+			do {
+				Element paragraph = root.getElement(index++);
+				int paragraphStart = paragraph.getStartOffset();
+				int paragraphEnd = Math.min(paragraph.getEndOffset(), length);
+				try {
+					document.getText(paragraphStart, Math.max(0, paragraph.getEndOffset() - 1 - paragraphStart),
+							segment);
+				} catch (BadLocationException e) {
+					System.out.println("Error reading paragraph to restyle.");
+					break;
+				}
+				Paragraph styled = new Paragraph(paragraphStart, paragraphEnd);
+				for (StyleRule rule : current) {
+					rule.style(segment, styled);
+				}
+				found.paragraphs.add(styled);
+				end = paragraphEnd;
+			} while (index < root.getElementCount() && end < range[1] && end - start < MAX_BATCH);
+			synchronized (this) {
+				damaged.subtract(start, end < length ? end : end + 1);
+			}
+			try {
+				found.start = document.createPosition(start);
+				found.end = document.createPosition(end);
+			} catch (BadLocationException e) {
+				System.out.println("Error restyling paragraphs.");
+				return;
+			}
+			batch[0] = found;
+		});
+		return batch[0];
+	}
+
+	/**
+	 * Applies the runs of a batch to the document, or marks the batch as edited
+	 * again if the document has been edited since it was read. Run on the EDT.
+	 *
+	 * @param batch the batch to be applied
+	 */
+	private void apply(Batch batch) {
+		synchronized (this) {
+			if (batch.generation != generation) {
+				damaged.add(batch.start.getOffset(), batch.end.getOffset());
+				return;
+			}
+		}
+		Runnable change = () -> {
+			for (Paragraph paragraph : batch.paragraphs) {
+				applyParagraph(paragraph);
+			}
+		};
+		if (manager != null) {
+			manager.runUnrecorded(change);
+		} else {
+			change.run();
+		}
+	}
+
+	/**
+	 * Sets the attributes of each run of a paragraph to those given by the rules,
+	 * on top of the attributes of the run that were not added by a rule. Runs are
+	 * split at the edges of each character element and each styled run, and
+	 * neighbouring runs needing the same attributes are joined so that each is set
+	 * with a single call.
+	 *
+	 * @param paragraph the paragraph and its styled runs
+	 */
+	private void applyParagraph(Paragraph paragraph) {
+		int start = paragraph.start;
+		int end = paragraph.end;
+		List<Integer> bounds = new ArrayList<>();
+		for (int offset = start; offset < end;) {
+			Element element = document.getCharacterElement(offset);
+			bounds.add(offset);
+			offset = Math.max(offset + 1, element.getEndOffset());
+		}
+		for (int i = 0; i < paragraph.runs.size(); i += 2) {
+			bounds.add(Math.min(end, start + paragraph.runs.get(i)));
+			bounds.add(Math.min(end, start + paragraph.runs.get(i + 1)));
+		}
+		bounds.add(end);
+		bounds.sort(null);
+
+		int changeStart = -1;
+		int changeEnd = -1;
+		AttributeSet changeAttributes = null;
+		for (int i = 0; i + 1 < bounds.size(); i++) {
+			int from = bounds.get(i);
+			int to = bounds.get(i + 1);
+			if (from == to) {
+				continue;
+			}
+			AttributeSet current = document.getCharacterElement(from).getAttributes();
+			AttributeSet wanted = wantedAttributes(current, paragraph, from - start, to - start);
+			boolean changed = !wanted.isEqual(current);
+			if (changeAttributes != null && (!changed || changeEnd != from || !wanted.isEqual(changeAttributes))) {
+				document.setCharacterAttributes(changeStart, changeEnd - changeStart, changeAttributes, true);
+				changeAttributes = null;
+			}
+			if (changed) {
+				if (changeAttributes == null) {
+					changeStart = from;
+					changeAttributes = wanted;
+				}
+				changeEnd = to;
+			}
+		}
+		if (changeAttributes != null) {
+			document.setCharacterAttributes(changeStart, changeEnd - changeStart, changeAttributes, true);
+		}
+	}
+
+	/**
+	 * Works out the attributes a run should have, its current attributes without
+	 * those added by a rule, along with those of each styled run covering it.
+	 *
+	 * @param current   the current attributes of the run
+	 * @param paragraph the paragraph holding the run
+	 * @param from      the index within the paragraph of the start of the run
+	 * @param to        the index within the paragraph of the end of the run
+	 * @return the attributes the run should have
+	 */
+	private AttributeSet wantedAttributes(AttributeSet current, Paragraph paragraph, int from, int to) {
+		SimpleAttributeSet wanted = new SimpleAttributeSet(getUserAttributes(current));
+		SimpleAttributeSet added = new SimpleAttributeSet();
+		for (int i = 0; i < paragraph.runs.size(); i += 2) {
+			if (paragraph.runs.get(i) <= from && paragraph.runs.get(i + 1) >= to) {
+				added.addAttributes(paragraph.attributes.get(i / 2));
+			}
+		}
+		if (added.getAttributeCount() > 0) {
+			wanted.addAttributes(added);
+			wanted.addAttribute(RULE_ATTRIBUTES, added.copyAttributes());
+			applied = true;
+		}
+		return wanted;
+	}
+
+	/**
+	 * A paragraph of a batch along with the runs styled by the rules.
+	 */
+	private static class Paragraph implements StyleRule.Runs {
+		/** The offset of the start of the paragraph. */
+		final int start;
+		/** The offset of the end of the paragraph, including its new line. */
+		final int end;
+		/** The start and end index within the paragraph of each styled run. */
+		final List<Integer> runs = new ArrayList<>();
+		/** The attributes of each styled run. */
+		final List<AttributeSet> attributes = new ArrayList<>();
+
+		/**
+		 * Class constructor that creates a paragraph without any styled runs.
+		 *
+		 * @param start the offset of the start of the paragraph
+		 * @param end   the offset of the end of the paragraph
+		 */
+		Paragraph(int start, int end) {
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		public void add(int start, int end, AttributeSet attributes) {
+			if (start < end) {
+				runs.add(start);
+				runs.add(end);
+				this.attributes.add(attributes);
+			}
+		}
+	}
+
+	/**
+	 * The paragraphs evaluated together, applied in a single pass on the EDT.
+	 */
+	private static class Batch {
+		/** The number of edits made to the document when the batch was read. */
+		final int generation;
+		/** The paragraphs of the batch. */
+		final List<Paragraph> paragraphs = new ArrayList<>();
+		/** The start of the first paragraph, moved along by later edits. */
+		Position start;
+		/** The end of the last paragraph, moved along by later edits. */
+		Position end;
+
+		/**
+		 * Class constructor that creates an empty batch.
+		 *
+		 * @param generation the number of edits made to the document
+		 */
+		Batch(int generation) {
+			this.generation = generation;
+		}
+	}
+}
@@ -0,0 +1,234 @@
+package gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleContext;
+
+import file.RichTextFile;
+
+/**
+ * The document of the text pane, a {@code DefaultStyledDocument} holding its
+ * text in a {@code RopeContent} that can also be loaded from a Textual document
+ * in a single step.
+ *
+ * Inserting the text of a large document and then applying the formatting of
+ * each run makes the document split its paragraphs and runs one edit at a
+ * time, firing an event for each. Instead the paragraphs and runs of the
+ * {@code RichTextFile} are turned into the element structure of the document
+ * by {@code prepare}, which can be done off the event dispatch thread, and
+ * {@code load} then builds the whole document from it as a single insert.
+ *
+ * Each element shares the attributes of its style with every other element of
+ * that style, as the attributes are made unique by the {@code StyleContext} of
+ * the document once when prepared rather than again for each element built.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RichTextFile
+ */
+public class RichDocument extends DefaultStyledDocument {
+	private static final long serialVersionUID = 1L;
+
+	/**
+	 * Class constructor that creates an empty document holding its text in a
+	 * {@code RopeContent}.
+	 */
+	public RichDocument() {
+		super(new RopeContent(), new LoadContext());
+	}
+
+	/**
+	 * Turns the paragraphs and runs of a Textual document into the element
+	 * structure it is loaded from. The text of the document is not read, so this
+	 * may be called on any thread.
+	 *
+	 * The last paragraph of a document has no new line of its own, sharing the
+	 * new line that ends every document. As the structure can only be built from
+	 * paragraphs ending with a new line, one is added to the last paragraph and
+	 * removed again once loaded, joining the paragraph onto the end of the
+	 * document.
+	 *
+	 * @param file the {@code RichTextFile} being loaded
+	 * @return the contents of the file ready to be loaded
+	 */
+	Contents prepare(RichTextFile file) {
+		char[] text = file.getText();
+		AttributeSet defaultStyle = getStyle(StyleContext.DEFAULT_STYLE);
+		LoadContext context = (LoadContext) getAttributeContext();
+		Map<AttributeSet, AttributeSet> paragraphStyles = new IdentityHashMap<>();
+		Map<AttributeSet, AttributeSet> runStyles = new IdentityHashMap<>();
+		Set<AttributeSet> interned = Collections.newSetFromMap(new IdentityHashMap<>());
+		List<ElementSpec> specs = new ArrayList<>(file.getParagraphCount() * 3 + file.getRunCount() + 1);
+		specs.add(new ElementSpec(null, ElementSpec.StartTagType));
+		int offset = 0;
+		int run = 0;
+		int runEnd = file.getRunCount() > 0 ? file.getRunLength(0) : 0;
+		int last = file.getParagraphCount() - 1;
+		for (int i = 0; i < last || (i == last && file.getParagraphLength(i) > 0); i++) {
+			AttributeSet paragraph = paragraphStyles.computeIfAbsent(file.getParagraphAttributes(i),
+					style -> context.intern(paragraphAttributes(style, defaultStyle), interned));
+			specs.add(new ElementSpec(paragraph, ElementSpec.StartTagType));
+			int end = offset + file.getParagraphLength(i);
+			while (offset < end) {
+				while (runEnd <= offset) {
+					runEnd += file.getRunLength(++run);
+				}
+				int next = Math.min(end, runEnd);
+				char[] chars = Arrays.copyOfRange(text, offset, i == last && next == end ? next + 1 : next);
+				if (i == last && next == end) {
+					chars[chars.length - 1] = '\n';
+				}
+				AttributeSet style = runStyles.computeIfAbsent(file.getRunAttributes(run),
+						attributes -> context.intern(attributes, interned));
+				specs.add(new ElementSpec(style, ElementSpec.ContentType, chars, 0, chars.length));
+				offset = next;
+			}
+			specs.add(new ElementSpec(null, ElementSpec.EndTagType));
+		}
+		return new Contents(specs.toArray(new ElementSpec[0]), file.getLength(), file.getParagraphLength(last) > 0,
+				paragraphAttributes(file.getParagraphAttributes(last), defaultStyle), interned);
+	}
+
+	/**
+	 * Returns the attributes of a paragraph of a Textual document, resolving
+	 * through the default style of the document as a typed paragraph does.
+	 *
+	 * @param style        the style of the paragraph in the {@code RichTextFile}
+	 * @param defaultStyle the default style of the document
+	 * @return the attributes of the paragraph
+	 */
+	private static AttributeSet paragraphAttributes(AttributeSet style, AttributeSet defaultStyle) {
+		SimpleAttributeSet attributes = new SimpleAttributeSet(style);
+		attributes.setResolveParent(defaultStyle);
+		return attributes;
+	}
+
+	/**
+	 * Replaces the contents of the document with the contents prepared from a
+	 * Textual document. Must be called on the event dispatch thread.
+	 *
+	 * The attributes made unique when the contents were prepared are only handed
+	 * straight back by the {@code StyleContext} whilst the elements are built,
+	 * so they are not held by the document once loaded.
+	 *
+	 * @param contents the contents prepared by {@code prepare}
+	 */
+	void load(Contents contents) {
+		LoadContext context = (LoadContext) getAttributeContext();
+		context.setInterned(contents.interned);
+		try {
+			if (contents.specs.length > 1) {
+				create(contents.specs);
+			} else {
+				remove(0, getLength());
+			}
+			if (contents.addedNewLine) {
+				remove(contents.length, 1);
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error loading document.");
+		} finally {
+			context.setInterned(null);
+		}
+		setParagraphAttributes(contents.length, 0, contents.lastParagraph, true);
+	}
+
+	/**
+	 * The {@code StyleContext} of the document, which hands back the attributes
+	 * it has already made unique when they are added to an empty set, rather
+	 * than building a search key and looking them up again. An element takes its
+	 * attributes by adding them to an empty set, so the elements of a loaded
+	 * document are built without a lookup each.
+	 *
+	 * The sets are only handed back whilst the document they were prepared for
+	 * is being loaded. At any other time they are looked up as usual, so the
+	 * context holds no set that the document no longer uses.
+	 */
+	private static class LoadContext extends StyleContext {
+		private static final long serialVersionUID = 1L;
+
+		/** The unique sets of the document being loaded, null when not loading. */
+		private Set<AttributeSet> interned;
+
+		/**
+		 * Returns the unique set of the attributes provided, adding it to the sets
+		 * to be handed straight back whilst the document is loaded. Sets too large
+		 * to be made unique are returned as they are made by the context, and are
+		 * not added.
+		 *
+		 * @param attributes the attributes to be made unique
+		 * @param interned   the unique sets of the document being prepared
+		 * @return the unique {@code AttributeSet}
+		 */
+		synchronized AttributeSet intern(AttributeSet attributes, Set<AttributeSet> interned) {
+			AttributeSet unique = super.addAttributes(getEmptySet(), attributes);
+			if (unique instanceof SmallAttributeSet) {
+				interned.add(unique);
+			}
+			return unique;
+		}
+
+		/**
+		 * Sets the unique sets to be handed straight back, those of the document
+		 * about to be loaded.
+		 *
+		 * @param interned the unique sets made by {@code intern}, or null once the
+		 *                 document has been loaded
+		 */
+		synchronized void setInterned(Set<AttributeSet> interned) {
+			this.interned = interned;
+		}
+
+		@Override
+		public synchronized AttributeSet addAttributes(AttributeSet old, AttributeSet attr) {
+			if (interned != null && old.getAttributeCount() == 0 && interned.contains(attr)) {
+				return attr;
+			}
+			return super.addAttributes(old, attr);
+		}
+	}
+
+	/**
+	 * The element structure of a Textual document ready to be loaded.
+	 */
+	static class Contents {
+		/** The paragraphs and runs of the document, after the root. */
+		private final ElementSpec[] specs;
+		/** The number of characters of the document. */
+		private final int length;
+		/** Whether a new line was added to the end of the last paragraph. */
+		private final boolean addedNewLine;
+		/** The attributes of the last paragraph. */
+		private final AttributeSet lastParagraph;
+		/** The attributes made unique when the contents were prepared. */
+		private final Set<AttributeSet> interned;
+
+		/**
+		 * Class constructor that holds the prepared contents of a document.
+		 *
+		 * @param specs         the element structure of the document
+		 * @param length        the number of characters of the document
+		 * @param addedNewLine  whether a new line was added to the last paragraph
+		 * @param lastParagraph the attributes of the last paragraph
+		 * @param interned      the attributes made unique when prepared
+		 */
+		Contents(ElementSpec[] specs, int length, boolean addedNewLine, AttributeSet lastParagraph,
+				Set<AttributeSet> interned) {
+			this.specs = specs;
+			this.length = length;
+			this.addedNewLine = addedNewLine;
+			this.lastParagraph = lastParagraph;
+			this.interned = interned;
+		}
+	}
+}
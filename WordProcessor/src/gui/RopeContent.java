@@ -0,0 +1,898 @@
+package gui;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.undo.AbstractUndoableEdit;
+import javax.swing.undo.CannotRedoException;
+import javax.swing.undo.CannotUndoException;
+import javax.swing.undo.UndoableEdit;
+
+/**
+ * An implementation of {@code AbstractDocument.Content} that stores the text of
+ * a document as a rope, a balanced tree of small character arrays, in place of
+ * the gap buffer used by default.
+ *
+ * A gap buffer has to move the gap, copying every character in between, each
+ * time an edit is made far from the previous one. Here the tree is a treap
+ * ordered by position in the text, where each node holds a leaf of at most
+ * {@code MAX_LEAF} characters and the number of characters in its subtree.
+ * Finding, inserting into and removing from any position therefore costs
+ * O(log n), plus the copy of a single leaf.
+ *
+ * The positions created by the document, which mark the bounds of its elements,
+ * are kept in a second treap ordered by offset. Shifting every position after
+ * an edit is done lazily by adding to the root of the subtree being shifted, so
+ * an edit does not have to visit every position that follows it.
+ *
+ * As with {@code GapContent}, the positions within a removed range are
+ * recorded by the edit returned, and put back at their old offsets when the
+ * removal is undone. Otherwise the bounds of the elements in the range would
+ * be left collapsed at its start, leaving empty paragraphs behind once the
+ * text is inserted again.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see Textual#createTextArea()
+ */
+public class RopeContent implements AbstractDocument.Content {
+	/** The most characters held by a single leaf of the rope. */
+	static final int MAX_LEAF = 1024;
+
+	/** The root of the tree holding the text. */
+	private Leaf root;
+	/** Holds the positions created within the content. */
+	private final MarkTree marks = new MarkTree();
+
+	/**
+	 * Class constructor that creates the content with the single implied new line
+	 * that every document ends with.
+	 */
+	public RopeContent() {
+		root = new Leaf(new char[] { '\n' }, 1);
+	}
+
+	@Override
+	public int length() {
+		return size(root);
+	}
+
+	@Override
+	public Position createPosition(int offset) throws BadLocationException {
+		if (offset < 0 || offset > length()) {
+			throw new BadLocationException("Invalid position", offset);
+		}
+		return marks.create(offset);
+	}
+
+	@Override
+	public UndoableEdit insertString(int where, String str) throws BadLocationException {
+		if (where >= length() || where < 0) {
+			throw new BadLocationException("Invalid insert", length());
+		}
+		insert(where, str);
+		marks.shift(where == 0 ? 1 : where, str.length());
+		return new InsertEdit(where, str.length());
+	}
+
+	@Override
+	public UndoableEdit remove(int where, int nitems) throws BadLocationException {
+		if (where + nitems >= length() || where < 0 || nitems < 0) {
+			throw new BadLocationException("Invalid remove", length() + 1);
+		}
+		String removed = getString(where, nitems);
+		return new RemoveEdit(where, removed, erase(where, nitems));
+	}
+
+	@Override
+	public String getString(int where, int len) throws BadLocationException {
+		Segment segment = new Segment();
+		getChars(where, len, segment);
+		return new String(segment.array, segment.offset, segment.count);
+	}
+
+	@Override
+	public void getChars(int where, int len, Segment txt) throws BadLocationException {
+		if (where < 0 || len < 0 || where + len > length()) {
+			throw new BadLocationException("Invalid location", length());
+		}
+		int[] local = new int[1];
+		Leaf leaf = find(where, local);
+		if (len == 0) {
+			txt.array = new char[0];
+			txt.offset = 0;
+			txt.count = 0;
+			return;
+		}
+		if (local[0] + len <= leaf.length || txt.isPartialReturn()) {
+			// The range can be returned straight from the array of a single leaf.
+			txt.array = leaf.chars;
+			txt.offset = local[0];
+			txt.count = Math.min(len, leaf.length - local[0]);
+			return;
+		}
+		char[] chars = new char[len];
+		int copied = 0;
+		int start = local[0];
+		while (copied < len) {
+			int count = Math.min(len - copied, leaf.length - start);
+			System.arraycopy(leaf.chars, start, chars, copied, count);
+			copied += count;
+			start = 0;
+			leaf = successor(leaf);
+		}
+		txt.array = chars;
+		txt.offset = 0;
+		txt.count = len;
+	}
+
+	/**
+	 * Inserts text into the rope. If the leaf the text falls in has room the
+	 * characters are copied into it in place, otherwise the rope is split at the
+	 * insertion point and new leaves are merged in between.
+	 *
+	 * @param where the offset to insert at
+	 * @param str   the text to be inserted
+	 */
+	private void insert(int where, String str) {
+		int len = str.length();
+		if (len == 0) {
+			return;
+		}
+		int[] local = new int[1];
+		Leaf leaf = find(where, local);
+		if (leaf.length + len <= MAX_LEAF) {
+			if (leaf.chars.length < leaf.length + len) {
+				char[] grown = new char[Math.min(MAX_LEAF, Math.max(leaf.length + len, leaf.chars.length * 2))];
+				System.arraycopy(leaf.chars, 0, grown, 0, leaf.length);
+				leaf.chars = grown;
+			}
+			System.arraycopy(leaf.chars, local[0], leaf.chars, local[0] + len, leaf.length - local[0]);
+			str.getChars(0, len, leaf.chars, local[0]);
+			leaf.length += len;
+			resize(leaf, len);
+			return;
+		}
+		Leaf[] parts = split(root, where);
+		Leaf middle = null;
+		for (int i = 0; i < len; i += MAX_LEAF / 2) {
+			int end = Math.min(len, i + MAX_LEAF / 2);
+			char[] chars = new char[end - i];
+			str.getChars(i, end, chars, 0);
+			middle = merge(middle, new Leaf(chars, chars.length));
+		}
+		root = merge(merge(parts[0], middle), parts[1]);
+		root.parent = null;
+	}
+
+	/**
+	 * Removes a range of text from the rope. A range within a single leaf is
+	 * removed in place, otherwise the rope is split either side of the range and
+	 * the remaining parts merged.
+	 *
+	 * @param where  the offset of the start of the range
+	 * @param nitems the number of characters to remove
+	 */
+	private void delete(int where, int nitems) {
+		if (nitems == 0) {
+			return;
+		}
+		int[] local = new int[1];
+		Leaf leaf = find(where, local);
+		if (local[0] + nitems < leaf.length) {
+			System.arraycopy(leaf.chars, local[0] + nitems, leaf.chars, local[0], leaf.length - local[0] - nitems);
+			leaf.length -= nitems;
+			resize(leaf, -nitems);
+			return;
+		}
+		Leaf[] left = split(root, where);
+		Leaf[] right = split(left[1], nitems);
+		root = merge(left[0], right[1]);
+		root.parent = null;
+	}
+
+	/**
+	 * Removes a range of text from the rope and collapses the positions within
+	 * it to its start, recording where those positions were.
+	 *
+	 * @param where  the offset of the start of the range
+	 * @param nitems the number of characters to remove
+	 * @return the {@code CollapsedMarks} to be restored when the removal is undone
+	 */
+	private CollapsedMarks erase(int where, int nitems) {
+		delete(where, nitems);
+		return marks.collapse(where, nitems);
+	}
+
+	/**
+	 * Returns the size of the subtree of a node, or 0 if the node is null.
+	 *
+	 * @param node the root of the subtree
+	 * @return the number of characters in the subtree
+	 */
+	private static int size(Leaf node) {
+		return node == null ? 0 : node.size;
+	}
+
+	/**
+	 * Recalculates the size of a node from its children and sets it as the
+	 * parent of each child.
+	 *
+	 * @param node the node to be updated
+	 */
+	private static void update(Leaf node) {
+		node.size = size(node.left) + size(node.right) + node.length;
+		if (node.left != null) {
+			node.left.parent = node;
+		}
+		if (node.right != null) {
+			node.right.parent = node;
+		}
+	}
+
+	/**
+	 * Adds to the size of a node and each of its ancestors after the length of its
+	 * leaf has been changed in place.
+	 *
+	 * @param node  the node whose leaf has changed
+	 * @param delta the change in the length of the leaf
+	 */
+	private static void resize(Leaf node, int delta) {
+		for (Leaf n = node; n != null; n = n.parent) {
+			n.size += delta;
+		}
+	}
+
+	/**
+	 * Finds the leaf containing the offset provided.
+	 *
+	 * @param offset the offset within the text
+	 * @param local  an array whose first element is set to the offset within the
+	 *               leaf
+	 * @return the leaf containing the offset
+	 */
+	private Leaf find(int offset, int[] local) {
+		Leaf node = root;
+		while (true) {
+			int leftSize = size(node.left);
+			if (offset < leftSize) {
+				node = node.left;
+			} else if (offset < leftSize + node.length || node.right == null) {
+				local[0] = offset - leftSize;
+				return node;
+			} else {
+				offset -= leftSize + node.length;
+				node = node.right;
+			}
+		}
+	}
+
+	/**
+	 * Returns the leaf following the one provided in the text.
+	 *
+	 * @param node the current leaf
+	 * @return the next leaf, or null if it is the last
+	 */
+	private static Leaf successor(Leaf node) {
+		if (node.right != null) {
+			node = node.right;
+			while (node.left != null) {
+				node = node.left;
+			}
+			return node;
+		}
+		while (node.parent != null && node.parent.right == node) {
+			node = node.parent;
+		}
+		return node.parent;
+	}
+
+	/**
+	 * Joins two trees, every character of the first coming before the second.
+	 *
+	 * @param a the first tree
+	 * @param b the second tree
+	 * @return the root of the joined tree
+	 */
+	private static Leaf merge(Leaf a, Leaf b) {
+		if (a == null) {
+			return b;
+		}
+		if (b == null) {
+			return a;
+		}
+		if (a.priority > b.priority) {
+			a.right = merge(a.right, b);
+			update(a);
+			return a;
+		}
+		b.left = merge(a, b.left);
+		update(b);
+		return b;
+	}
+
+	/**
+	 * Splits a tree into the characters before the offset provided and those from
+	 * the offset onwards, splitting a leaf in two if the offset falls within it.
+	 *
+	 * @param node   the root of the tree to be split
+	 * @param offset the offset to split at
+	 * @return an array of the two resulting trees, either of which may be null
+	 */
+	private static Leaf[] split(Leaf node, int offset) {
+		if (node == null) {
+			return new Leaf[2];
+		}
+		int leftSize = size(node.left);
+		Leaf[] parts;
+		if (offset <= leftSize) {
+			parts = split(node.left, offset);
+			node.left = parts[1];
+			update(node);
+			parts[1] = node;
+		} else if (offset >= leftSize + node.length) {
+			parts = split(node.right, offset - leftSize - node.length);
+			node.right = parts[0];
+			update(node);
+			parts[0] = node;
+		} else {
+			int local = offset - leftSize;
+			char[] tail = new char[node.length - local];
+			System.arraycopy(node.chars, local, tail, 0, tail.length);
+			node.length = local;
+			Leaf right = node.right;
+			node.right = null;
+			update(node);
+			parts = new Leaf[] { node, merge(new Leaf(tail, tail.length), right) };
+		}
+		for (Leaf part : parts) {
+			if (part != null) {
+				part.parent = null;
+			}
+		}
+		return parts;
+	}
+
+	/**
+	 * A node of the rope, holding a leaf of characters and the number of
+	 * characters in its subtree.
+	 */
+	private static class Leaf {
+		/** Holds the characters of the leaf, which may have spare capacity. */
+		char[] chars;
+		/** The number of characters used in the array. */
+		int length;
+		/** The number of characters in the subtree of this node. */
+		int size;
+		/** The random priority keeping the tree balanced. */
+		final int priority = ThreadLocalRandom.current().nextInt();
+		/** The children and parent of the node. */
+		Leaf left, right, parent;
+
+		/**
+		 * Class constructor that creates a node holding the characters provided.
+		 *
+		 * @param chars  the characters of the leaf
+		 * @param length the number of characters used in the array
+		 */
+		Leaf(char[] chars, int length) {
+			this.chars = chars;
+			this.length = length;
+			this.size = length;
+		}
+	}
+
+	/**
+	 * Undoes an insertion by removing the inserted text, remembering it and the
+	 * positions within it so that both can be put back on re-do.
+	 */
+	private class InsertEdit extends AbstractUndoableEdit {
+		/** Version of the serialisable class. */
+		private static final long serialVersionUID = 1L;
+		/** The offset the text was inserted at. */
+		private final int offset;
+		/** The number of characters inserted. */
+		private final int length;
+		/** Holds the inserted text once the edit has been undone. */
+		private String string;
+		/** Holds the positions within the text once the edit has been undone. */
+		private CollapsedMarks collapsed;
+
+		/**
+		 * Class constructor that records an insertion.
+		 *
+		 * @param offset the offset the text was inserted at
+		 * @param length the number of characters inserted
+		 */
+		InsertEdit(int offset, int length) {
+			this.offset = offset;
+			this.length = length;
+		}
+
+		@Override
+		public void undo() throws CannotUndoException {
+			super.undo();
+			try {
+				string = getString(offset, length);
+				collapsed = erase(offset, length);
+			} catch (BadLocationException e) {
+				throw new CannotUndoException();
+			}
+		}
+
+		@Override
+		public void redo() throws CannotRedoException {
+			super.redo();
+			try {
+				insertString(offset, string);
+				marks.restore(collapsed);
+				string = null;
+				collapsed = null;
+			} catch (BadLocationException e) {
+				throw new CannotRedoException();
+			}
+		}
+	}
+
+	/**
+	 * Undoes a removal by inserting the removed text again and putting the
+	 * positions that were within it back where they were.
+	 */
+	private class RemoveEdit extends AbstractUndoableEdit {
+		/** Version of the serialisable class. */
+		private static final long serialVersionUID = 1L;
+		/** The offset the text was removed from. */
+		private final int offset;
+		/** The text that was removed. */
+		private final String string;
+		/** The positions that were within the text, whilst it is removed. */
+		private CollapsedMarks collapsed;
+
+		/**
+		 * Class constructor that records a removal.
+		 *
+		 * @param offset    the offset the text was removed from
+		 * @param string    the text that was removed
+		 * @param collapsed the positions that were within the text
+		 */
+		RemoveEdit(int offset, String string, CollapsedMarks collapsed) {
+			this.offset = offset;
+			this.string = string;
+			this.collapsed = collapsed;
+		}
+
+		@Override
+		public void undo() throws CannotUndoException {
+			super.undo();
+			try {
+				insertString(offset, string);
+				marks.restore(collapsed);
+				collapsed = null;
+			} catch (BadLocationException e) {
+				throw new CannotUndoException();
+			}
+		}
+
+		@Override
+		public void redo() throws CannotRedoException {
+			super.redo();
+			if (offset + string.length() >= length()) {
+				throw new CannotRedoException();
+			}
+			collapsed = erase(offset, string.length());
+		}
+	}
+
+	/**
+	 * Holds the positions created within the content in a treap ordered by
+	 * offset. A value added to a node lazily applies to every node below it, so
+	 * the offset of a position is its own value plus that of each of its
+	 * ancestors' pending additions.
+	 *
+	 * Positions no longer referenced outside the content are removed from the tree
+	 * as new positions are created.
+	 */
+	private static class MarkTree {
+		/** The root of the tree of marks. */
+		private Mark root;
+		/** Receives the references of positions that have been collected. */
+		private final ReferenceQueue<Position> collected = new ReferenceQueue<>();
+
+		/**
+		 * Creates a position at the offset provided.
+		 *
+		 * The mark is added as a treap insertion rather than by splitting and
+		 * joining the whole tree. The tree is walked down from the root, passing
+		 * on pending additions, until a node of lower priority is reached, and
+		 * only the subtree below that node is split around the new mark. As the
+		 * expected size of that subtree is small, this visits far fewer nodes when
+		 * the positions of a large document are created one after another.
+		 *
+		 * @param offset the offset of the position
+		 * @return the new {@code Position}
+		 */
+		synchronized Position create(int offset) {
+			removeCollected();
+			Mark mark = new Mark(offset);
+			MarkPosition position = new MarkPosition(mark, this);
+			mark.reference = new MarkReference(position, mark, collected);
+			add(mark);
+			return position;
+		}
+
+		/**
+		 * Adds a mark to the tree at its offset, walking down from the root until
+		 * a node of lower priority is reached and splitting only the subtree below
+		 * it.
+		 *
+		 * @param mark the mark to be added, not yet in the tree
+		 */
+		private void add(Mark mark) {
+			int offset = mark.value;
+			Mark parent = null;
+			Mark node = root;
+			boolean left = false;
+			while (node != null && node.priority > mark.priority) {
+				push(node);
+				parent = node;
+				left = node.value >= offset;
+				node = left ? node.left : node.right;
+			}
+			Mark[] parts = split(node, offset);
+			mark.left = parts[0];
+			mark.right = parts[1];
+			if (mark.left != null) {
+				mark.left.parent = mark;
+			}
+			if (mark.right != null) {
+				mark.right.parent = mark;
+			}
+			mark.parent = parent;
+			if (parent == null) {
+				root = mark;
+			} else if (left) {
+				parent.left = mark;
+			} else {
+				parent.right = mark;
+			}
+		}
+
+		/**
+		 * Moves every position at or after the offset provided forward by the length
+		 * of an insertion.
+		 *
+		 * @param from   the offset the shift starts from
+		 * @param length the number of characters inserted
+		 */
+		synchronized void shift(int from, int length) {
+			Mark[] parts = split(root, from);
+			if (parts[1] != null) {
+				parts[1].value += length;
+				parts[1].pending += length;
+			}
+			root = merge(parts[0], parts[1]);
+			if (root != null) {
+				root.parent = null;
+			}
+		}
+
+		/**
+		 * Moves every position within a removed range, including its end, to its
+		 * start, and every position after the range back by its length.
+		 *
+		 * @param offset the offset of the start of the removed range
+		 * @param length the number of characters removed
+		 * @return the {@code CollapsedMarks} recording where the moved positions
+		 *         were
+		 */
+		synchronized CollapsedMarks collapse(int offset, int length) {
+			CollapsedMarks collapsed = new CollapsedMarks();
+			if (length == 0) {
+				return collapsed;
+			}
+			Mark[] left = split(root, offset);
+			Mark[] right = split(left[1], offset + length + 1);
+			collapseAll(right[0], 0, offset, collapsed);
+			if (right[1] != null) {
+				right[1].value -= length;
+				right[1].pending -= length;
+			}
+			root = merge(merge(left[0], right[0]), right[1]);
+			if (root != null) {
+				root.parent = null;
+			}
+			return collapsed;
+		}
+
+		/**
+		 * Moves the positions recorded by a removal back to the offsets they had
+		 * before it, once the removed text has been inserted again. Each mark is
+		 * taken out of the tree and added again, as the positions created at the
+		 * start of the range since the removal are not to be moved with them.
+		 * Positions that have since been collected are left to be removed.
+		 *
+		 * @param collapsed the positions recorded by the removal
+		 */
+		synchronized void restore(CollapsedMarks collapsed) {
+			for (int i = 0; i < collapsed.count; i++) {
+				Mark mark = collapsed.marks[i];
+				if (mark.reference.get() == null) {
+					continue;
+				}
+				detach(mark);
+				mark.value = collapsed.offsets[i];
+				mark.pending = 0;
+				add(mark);
+			}
+		}
+
+		/**
+		 * Returns the offset of the mark provided.
+		 *
+		 * @param mark the mark of a position
+		 * @return the offset of the position
+		 */
+		synchronized int offsetOf(Mark mark) {
+			int offset = mark.value;
+			for (Mark m = mark.parent; m != null; m = m.parent) {
+				offset += m.pending;
+			}
+			return offset;
+		}
+
+		/**
+		 * Removes the marks of positions that are no longer referenced.
+		 */
+		private void removeCollected() {
+			MarkReference reference;
+			while ((reference = (MarkReference) collected.poll()) != null) {
+				detach(reference.mark);
+			}
+		}
+
+		/**
+		 * Takes a mark out of the tree, joining its children in its place.
+		 *
+		 * @param mark the mark to be taken out
+		 */
+		private void detach(Mark mark) {
+			pushPath(mark);
+			Mark replacement = merge(mark.left, mark.right);
+			Mark parent = mark.parent;
+			if (parent == null) {
+				root = replacement;
+			} else if (parent.left == mark) {
+				parent.left = replacement;
+			} else {
+				parent.right = replacement;
+			}
+			if (replacement != null) {
+				replacement.parent = parent;
+			}
+		}
+
+		/**
+		 * Applies the pending additions of every ancestor of a mark, from the root
+		 * down, so the mark and its children hold their true values.
+		 *
+		 * @param mark the mark whose path should be applied
+		 */
+		private void pushPath(Mark mark) {
+			if (mark.parent != null) {
+				pushPath(mark.parent);
+			}
+			push(mark);
+		}
+
+		/**
+		 * Sets every mark in a subtree to the same offset, recording the offset
+		 * each had before.
+		 *
+		 * @param node      the root of the subtree
+		 * @param added     the pending additions of the ancestors of the node
+		 * @param offset    the offset to be set
+		 * @param collapsed records the marks and their offsets
+		 */
+		private static void collapseAll(Mark node, int added, int offset, CollapsedMarks collapsed) {
+			if (node == null) {
+				return;
+			}
+			collapsed.add(node, node.value + added);
+			added += node.pending;
+			node.value = offset;
+			node.pending = 0;
+			collapseAll(node.left, added, offset, collapsed);
+			collapseAll(node.right, added, offset, collapsed);
+		}
+
+		/**
+		 * Passes the pending addition of a node on to its children.
+		 *
+		 * @param node the node to be pushed
+		 */
+		private static void push(Mark node) {
+			if (node.pending != 0) {
+				if (node.left != null) {
+					node.left.value += node.pending;
+					node.left.pending += node.pending;
+				}
+				if (node.right != null) {
+					node.right.value += node.pending;
+					node.right.pending += node.pending;
+				}
+				node.pending = 0;
+			}
+		}
+
+		/**
+		 * Joins two trees, every mark of the first being before the second.
+		 *
+		 * @param a the first tree
+		 * @param b the second tree
+		 * @return the root of the joined tree
+		 */
+		private static Mark merge(Mark a, Mark b) {
+			if (a == null) {
+				return b;
+			}
+			if (b == null) {
+				return a;
+			}
+			if (a.priority > b.priority) {
+				push(a);
+				a.right = merge(a.right, b);
+				a.right.parent = a;
+				return a;
+			}
+			push(b);
+			b.left = merge(a, b.left);
+			b.left.parent = b;
+			return b;
+		}
+
+		/**
+		 * Splits a tree into the marks before the offset provided and those at or
+		 * after it.
+		 *
+		 * @param node   the root of the tree
+		 * @param offset the offset to split at
+		 * @return an array of the two resulting trees, either of which may be null
+		 */
+		private static Mark[] split(Mark node, int offset) {
+			if (node == null) {
+				return new Mark[2];
+			}
+			push(node);
+			Mark[] parts;
+			if (node.value < offset) {
+				parts = split(node.right, offset);
+				node.right = parts[0];
+				if (node.right != null) {
+					node.right.parent = node;
+				}
+				parts[0] = node;
+			} else {
+				parts = split(node.left, offset);
+				node.left = parts[1];
+				if (node.left != null) {
+					node.left.parent = node;
+				}
+				parts[1] = node;
+			}
+			node.parent = null;
+			return parts;
+		}
+	}
+
+	/**
+	 * The marks moved to the start of a removed range, along with the offset each
+	 * had before the removal.
+	 */
+	private static class CollapsedMarks {
+		/** The marks that were moved. */
+		Mark[] marks = new Mark[0];
+		/** The offset of each mark before the removal. */
+		int[] offsets = new int[0];
+		/** The number of marks recorded. */
+		int count;
+
+		/**
+		 * Records a mark and the offset it had.
+		 *
+		 * @param mark   the mark being moved
+		 * @param offset the offset of the mark before the removal
+		 */
+		void add(Mark mark, int offset) {
+			if (count == marks.length) {
+				marks = Arrays.copyOf(marks, Math.max(8, count * 2));
+				offsets = Arrays.copyOf(offsets, marks.length);
+			}
+			marks[count] = mark;
+			offsets[count++] = offset;
+		}
+	}
+
+	/**
+	 * A node of the tree of marks.
+	 */
+	private static class Mark {
+		/** The offset of the mark, not including its ancestors' pending additions. */
+		int value;
+		/** The addition still to be applied to the children of this node. */
+		int pending;
+		/** The random priority keeping the tree balanced. */
+		final int priority = ThreadLocalRandom.current().nextInt();
+		/** The children and parent of the node. */
+		Mark left, right, parent;
+		/** The reference to the position of the mark. */
+		MarkReference reference;
+
+		/**
+		 * Class constructor that creates a mark at the offset provided.
+		 *
+		 * @param value the offset of the mark
+		 */
+		Mark(int value) {
+			this.value = value;
+		}
+	}
+
+	/**
+	 * A weak reference to a position, allowing its mark to be removed once the
+	 * position is no longer used.
+	 */
+	private static class MarkReference extends WeakReference<Position> {
+		/** The mark of the referenced position. */
+		final Mark mark;
+
+		/**
+		 * Class constructor that references the position provided.
+		 *
+		 * @param position the position being referenced
+		 * @param mark     the mark of the position
+		 * @param queue    the queue the reference is added to once collected
+		 */
+		MarkReference(Position position, Mark mark, ReferenceQueue<Position> queue) {
+			super(position, queue);
+			this.mark = mark;
+		}
+	}
+
+	/**
+	 * The position returned to the document, which looks up the offset of its
+	 * mark.
+	 */
+	private static class MarkPosition implements Position {
+		/** The mark holding the offset of the position. */
+		private final Mark mark;
+		/** The tree holding the mark. */
+		private final MarkTree tree;
+
+		/**
+		 * Class constructor that creates a position for the mark provided.
+		 *
+		 * @param mark the mark of the position
+		 * @param tree the tree holding the mark
+		 */
+		MarkPosition(Mark mark, MarkTree tree) {
+			this.mark = mark;
+			this.tree = tree;
+		}
+
+		@Override
+		public int getOffset() {
+			return tree.offsetOf(mark);
+		}
+
+		@Override
+		public String toString() {
+			return Integer.toString(getOffset());
+		}
+	}
+}
@@ -0,0 +1,523 @@
+package gui;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.JScrollPane;
+import javax.swing.JTextPane;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Element;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+import javax.swing.text.Position;
+import javax.swing.text.Segment;
+import javax.swing.text.View;
+
+import file.FileManipulation;
+import file.WordDictionary;
+
+/**
+ * Underlines the words of the text pane that are not in the dictionary, without
+ * adding to the time taken by each key press.
+ *
+ * The ranges of the document that have not been checked since they were last
+ * edited are kept in a {@code RangeSet}, moved along by the insert and remove
+ * events of the document in the same way as the text itself, which is all the
+ * work done while typing. The checking is done on a background thread
+ * {@code CHECK_DELAY} milliseconds after the last edit or scroll, and only of
+ * the unchecked paragraphs within the part of the document in view. The rest
+ * stays unchecked until it is scrolled into view.
+ *
+ * Misspelt words are marked through the {@code Highlighter} of the text pane
+ * rather than by changing the attributes of the text, so the underlines are
+ * never recorded by the undo manager or the {@code EditJournal}, and never
+ * saved. The number of underlines is bounded by {@code MAX_HIGHLIGHTS}, once
+ * passed they are removed and only the part of the document in view is checked
+ * again.
+ *
+ * The {@code WordDictionary} is loaded on the background thread the first time
+ * it is needed, so it costs nothing at start up. If no word list can be found
+ * nothing is underlined.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see WordDictionary
+ */
+public class SpellChecker implements DocumentListener {
+	/** The number of milliseconds after an edit or scroll the view is checked. */
+	private static final long CHECK_DELAY = 300;
+	/** The most misspelt words underlined at once. */
+	private static final int MAX_HIGHLIGHTS = 2000;
+	/** The most characters either side of the view checked within a paragraph. */
+	private static final int VIEW_MARGIN = 256;
+	/** The most characters read past either end of a range to complete a word. */
+	private static final int WORD_SLACK = 64;
+	/** The word list of the system, used if the user has not provided one. */
+	private static final Path SYSTEM_WORD_LIST = Paths.get("/usr", "share", "dict", "words");
+	/** Underlines each misspelt word. */
+	private static final Highlighter.HighlightPainter PAINTER = new UnderlinePainter(Color.RED);
+
+	/** The text pane being checked. */
+	private final JTextPane textPane;
+	/** The scroll pane the text pane is shown in. */
+	private final JScrollPane scrollPane;
+	/** The document of the text pane. */
+	private final Document document;
+	/** The word list the dictionary is compiled from. */
+	private final Path wordList;
+	/** The compiled dictionary of the word list. */
+	private final Path compiled;
+	/** Reused segment the text being checked is read through. */
+	private final Segment segment = new Segment();
+	/** Reused buffer a word is copied into to be looked up in another case. */
+	private final StringBuilder word = new StringBuilder();
+	/** The underlines currently painted in the text pane. */
+	private final List<Object> highlights = new ArrayList<>();
+	/** Checks the view in the background. */
+	private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread = new Thread(r, "Spell Check Thread");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/** The dictionary, null until loaded or if it could not be loaded. */
+	private WordDictionary dictionary;
+	/** Whether an attempt has been made to load the dictionary. */
+	private boolean loaded = false;
+	/** The ranges of the document yet to be checked. */
+	private final RangeSet unchecked = new RangeSet();
+	/** Counts the edits made to the document, so stale results are not shown. */
+	private int generation = 0;
+	/** The offset of the first character in view. */
+	private int viewStart = 0;
+	/** The offset of the last character in view. */
+	private int viewEnd = 0;
+	/** Whether misspelt words are underlined. */
+	private volatile boolean enabled = true;
+	/** Whether a check has already been scheduled. */
+	private boolean checkPending = false;
+
+	/**
+	 * Class constructor that checks the text pane against the word list in the
+	 * {@code .textual} folder in the home directory of the user, named
+	 * {@code dictionary.txt}, or the word list of the system if there is none.
+	 *
+	 * @param textPane   the {@code JTextPane} to be checked
+	 * @param scrollPane the {@code JScrollPane} the text pane is shown in
+	 */
+	public SpellChecker(JTextPane textPane, JScrollPane scrollPane) {
+		this(textPane, scrollPane, defaultWordList());
+	}
+
+	/**
+	 * Class constructor that checks the text pane against the word list provided,
+	 * compiled into the {@code .textual} folder in the home directory of the
+	 * user.
+	 *
+	 * @param textPane   the {@code JTextPane} to be checked
+	 * @param scrollPane the {@code JScrollPane} the text pane is shown in
+	 * @param wordList   the {@code Path} value of the word list
+	 */
+	public SpellChecker(JTextPane textPane, JScrollPane scrollPane, Path wordList) {
+		this.textPane = textPane;
+		this.scrollPane = scrollPane;
+		this.document = textPane.getDocument();
+		this.wordList = wordList;
+		String name = wordList.getFileName().toString();
+		this.compiled = Paths.get(System.getProperty("user.home"), ".textual",
+				(name.contains(".") ? name.substring(0, name.lastIndexOf('.')) : name) + ".dawg");
+		unchecked.add(0, document.getLength());
+		document.addDocumentListener(this);
+		scrollPane.getViewport().addChangeListener(e -> viewChanged());
+	}
+
+	/**
+	 * Returns the word list provided by the user if there is one, otherwise the
+	 * word list of the system.
+	 *
+	 * @return the {@code Path} value of the word list
+	 */
+	private static Path defaultWordList() {
+		Path user = Paths.get(System.getProperty("user.home"), ".textual", "dictionary.txt");
+		return Files.exists(user) ? user : SYSTEM_WORD_LIST;
+	}
+
+	/**
+	 * Turns the underlining of misspelt words on or off. Turning it off removes
+	 * every underline, turning it on checks the view again.
+	 *
+	 * @param enabled whether misspelt words are underlined
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		clearHighlights();
+		synchronized (this) {
+			unchecked.clear();
+			unchecked.add(0, document.getLength());
+		}
+		scheduleCheck();
+	}
+
+	@Override
+	public synchronized void insertUpdate(DocumentEvent e) {
+		generation++;
+		unchecked.inserted(e.getOffset(), e.getLength());
+		unchecked.add(e.getOffset(), e.getOffset() + e.getLength());
+		scheduleCheck();
+	}
+
+	@Override
+	public synchronized void removeUpdate(DocumentEvent e) {
+		generation++;
+		unchecked.removed(e.getOffset(), e.getLength());
+		// The words either side of the removal may now be joined.
+		unchecked.add(e.getOffset(), e.getOffset());
+		scheduleCheck();
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting does not change the spelling.
+	}
+
+	/**
+	 * Stops checking the text pane, used when its tab is closed. Any check
+	 * already running is interrupted.
+	 */
+	public void dispose() {
+		document.removeDocumentListener(this);
+		checker.shutdownNow();
+	}
+
+	/**
+	 * Records the part of the document now in view and schedules a check of it.
+	 * Called on the EDT whenever the view is scrolled or resized.
+	 */
+	private void viewChanged() {
+		Rectangle view = scrollPane.getViewport().getViewRect();
+		int start = textPane.viewToModel2D(new Point(view.x, view.y));
+		int end = textPane.viewToModel2D(new Point(view.x + view.width, view.y + view.height));
+		synchronized (this) {
+			viewStart = Math.max(0, start);
+			viewEnd = Math.max(viewStart, end);
+		}
+		scheduleCheck();
+	}
+
+	/**
+	 * Removes a range from those yet to be checked, including the point at its end
+	 * if it ends at the end of the document.
+	 *
+	 * @param start the offset of the start of the range
+	 * @param end   the offset of the end of the range
+	 */
+	private synchronized void markChecked(int start, int end) {
+		unchecked.subtract(start, end < document.getLength() ? end : end + 1);
+	}
+
+	/**
+	 * Schedules a check of the view on the background thread, unless one is
+	 * already scheduled or the checker has been disposed of.
+	 */
+	private synchronized void scheduleCheck() {
+		if (enabled && !checkPending && !checker.isShutdown()) {
+			checkPending = true;
+			checker.schedule(this::check, CHECK_DELAY, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Checks each unchecked range within the view, loading the dictionary first if
+	 * it has not yet been loaded. Run on the background thread.
+	 */
+	private void check() {
+		synchronized (this) {
+			checkPending = false;
+		}
+		if (!loaded) {
+			dictionary = new FileManipulation().getDictionary(wordList, compiled);
+			loaded = true;
+			if (dictionary == null) {
+				System.out.println("Error loading dictionary, spelling will not be checked.");
+			}
+		}
+		while (enabled && dictionary != null && checkNextRange()) {
+			// Check ranges until none are left in view.
+		}
+	}
+
+	/**
+	 * Checks the paragraphs of the first unchecked range within the view, and
+	 * posts the misspelt words found to the EDT to be underlined.
+	 *
+	 * @return true if a range was checked, false if none are left in view
+	 */
+	private boolean checkNextRange() {
+		List<Integer> misspelt = new ArrayList<>();
+		int[] checked = new int[3];
+		boolean[] found = { false };
+		document.render(() -> {
+			int length = document.getLength();
+			int from;
+			int to;
+			int start;
+			int end;
+			synchronized (this) {
+				from = Math.max(0, Math.min(viewStart - VIEW_MARGIN, length));
+				to = Math.min(length, viewEnd + VIEW_MARGIN);
+				int[] range = unchecked.first(from, to, length);
+				if (range == null) {
+					return;
+				}
+				start = range[0];
+				end = range[1];
+				checked[2] = generation;
+			}
+			// Widen the range to the paragraphs it falls within, as far as the view.
+			Element root = document.getDefaultRootElement();
+			int paragraphStart = root.getElement(root.getElementIndex(start)).getStartOffset();
+			int paragraphEnd = Math.min(length, root.getElement(root.getElementIndex(end)).getEndOffset());
+			start = Math.max(from, paragraphStart);
+			end = Math.max(start, Math.min(to, paragraphEnd));
+			// Read a little either side so a word cut off by the view is completed.
+			int readStart = Math.max(paragraphStart, start - WORD_SLACK);
+			int readEnd = Math.min(paragraphEnd, end + WORD_SLACK);
+			try {
+				document.getText(readStart, readEnd - readStart, segment);
+			} catch (BadLocationException e) {
+				System.out.println("Error reading text to check spelling.");
+				markChecked(start, end);
+				found[0] = true;
+				return;
+			}
+			char[] chars = segment.array;
+			int first = segment.offset + start - readStart;
+			while (first > segment.offset && isWordPart(chars[first - 1])) {
+				first--;
+			}
+			int last = segment.offset + end - readStart;
+			while (last < segment.offset + segment.count && isWordPart(chars[last])) {
+				last++;
+			}
+			int base = readStart - segment.offset;
+			findMisspelt(chars, first, last, base, misspelt);
+			checked[0] = base + first;
+			checked[1] = base + last;
+			markChecked(checked[0], checked[1]);
+			found[0] = true;
+		});
+		if (found[0]) {
+			SwingUtilities.invokeLater(() -> underline(checked[0], checked[1], checked[2], misspelt));
+		}
+		return found[0];
+	}
+
+	/**
+	 * Finds the words of a region of text that are not in the dictionary. A word is
+	 * a run of letters, which may hold an apostrophe between two letters. Runs
+	 * holding a digit and single letters are not checked.
+	 *
+	 * @param chars    the array holding the text
+	 * @param from     the index of the first character to check
+	 * @param to       the index after the last character to check
+	 * @param base     the offset in the document of the first index of the array
+	 * @param misspelt the list the start and end offset of each misspelt word is
+	 *                 added to
+	 */
+	private void findMisspelt(char[] chars, int from, int to, int base, List<Integer> misspelt) {
+		int i = from;
+		while (i < to) {
+			if (!isWordPart(chars[i])) {
+				i++;
+				continue;
+			}
+			int start = i;
+			boolean hasDigit = false;
+			while (i < to && (isWordPart(chars[i])
+					|| (isApostrophe(chars[i]) && i + 1 < to && Character.isLetter(chars[i + 1])))) {
+				hasDigit |= Character.isDigit(chars[i]);
+				i++;
+			}
+			if (!hasDigit && i - start > 1 && !isCorrect(chars, start, i)) {
+				misspelt.add(base + start);
+				misspelt.add(base + i);
+			}
+		}
+	}
+
+	/**
+	 * Determines whether a word is spelt correctly. A word is also accepted if it
+	 * is in the dictionary in lower case and is capitalised or in upper case, or
+	 * capitalised and is in upper case.
+	 *
+	 * @param chars the array holding the word
+	 * @param start the index of the first character of the word
+	 * @param end   the index after the last character of the word
+	 * @return true if the word is in the dictionary
+	 */
+	private boolean isCorrect(char[] chars, int start, int end) {
+		word.setLength(0);
+		boolean upper = true;
+		boolean lowerAfterFirst = true;
+		for (int i = start; i < end; i++) {
+			char c = chars[i] == '\u2019' ? '\'' : chars[i];
+			word.append(c);
+			upper &= !Character.isLowerCase(c);
+			if (i > start) {
+				lowerAfterFirst &= !Character.isUpperCase(c);
+			}
+		}
+		if (dictionary.contains(word)) {
+			return true;
+		}
+		if (upper || lowerAfterFirst) {
+			for (int i = 0; i < word.length(); i++) {
+				word.setCharAt(i, Character.toLowerCase(word.charAt(i)));
+			}
+			if (dictionary.contains(word)) {
+				return true;
+			}
+		}
+		if (upper) {
+			word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+			return dictionary.contains(word);
+		}
+		return false;
+	}
+
+	/**
+	 * Determines whether a character may be part of a word, a letter or digit.
+	 *
+	 * @param c the character to be checked
+	 * @return true if the character may be part of a word
+	 */
+	private static boolean isWordPart(char c) {
+		return Character.isLetterOrDigit(c);
+	}
+
+	/**
+	 * Determines whether a character is an apostrophe, straight or curly.
+	 *
+	 * @param c the character to be checked
+	 * @return true if the character is an apostrophe
+	 */
+	private static boolean isApostrophe(char c) {
+		return c == '\'' || c == '\u2019';
+	}
+
+	/**
+	 * Replaces the underlines within a checked range by those of the misspelt
+	 * words found in it. If the document has been edited since the range was read
+	 * the words found are out of date, so the view is checked again instead. Run
+	 * on the EDT.
+	 *
+	 * @param start      the offset of the start of the checked range
+	 * @param end        the offset of the end of the checked range
+	 * @param generation the number of edits made when the range was read
+	 * @param misspelt   the start and end offset of each misspelt word found
+	 */
+	private void underline(int start, int end, int generation, List<Integer> misspelt) {
+		if (!enabled) {
+			return;
+		}
+		synchronized (this) {
+			if (generation != this.generation) {
+				unchecked.add(Math.max(0, viewStart - VIEW_MARGIN),
+						Math.min(document.getLength(), viewEnd + VIEW_MARGIN));
+				scheduleCheck();
+				return;
+			}
+		}
+		Highlighter highlighter = textPane.getHighlighter();
+		highlights.removeIf(tag -> {
+			Highlighter.Highlight highlight = (Highlighter.Highlight) tag;
+			int from = highlight.getStartOffset();
+			int to = highlight.getEndOffset();
+			// The underline of a word that has since been removed is left empty.
+			if ((from < end && to > start) || (from == to && from >= start && from <= end)) {
+				highlighter.removeHighlight(tag);
+				return true;
+			}
+			return false;
+		});
+		try {
+			for (int i = 0; i < misspelt.size(); i += 2) {
+				highlights.add(highlighter.addHighlight(misspelt.get(i), misspelt.get(i + 1), PAINTER));
+			}
+		} catch (BadLocationException e) {
+			System.out.println("Error underlining misspelt word.");
+		}
+		if (highlights.size() > MAX_HIGHLIGHTS) {
+			clearHighlights();
+			synchronized (this) {
+				unchecked.clear();
+				unchecked.add(0, document.getLength());
+			}
+			scheduleCheck();
+		}
+	}
+
+	/**
+	 * Removes every underline painted by the spell checker.
+	 */
+	private void clearHighlights() {
+		Highlighter highlighter = textPane.getHighlighter();
+		for (Object highlight : highlights) {
+			highlighter.removeHighlight(highlight);
+		}
+		highlights.clear();
+	}
+
+	/**
+	 * Paints a wavy line under the text of a highlight rather than filling its
+	 * background.
+	 */
+	private static class UnderlinePainter extends DefaultHighlighter.DefaultHighlightPainter {
+		/**
+		 * Class constructor that creates a painter of the colour provided.
+		 *
+		 * @param color the {@code Color} of the line
+		 */
+		UnderlinePainter(Color color) {
+			super(color);
+		}
+
+		@Override
+		public Shape paintLayer(Graphics g, int offs0, int offs1, Shape bounds, JTextComponent c, View view) {
+			Rectangle r;
+			if (offs0 == view.getStartOffset() && offs1 == view.getEndOffset()) {
+				r = bounds instanceof Rectangle ? (Rectangle) bounds : bounds.getBounds();
+			} else {
+				try {
+					Shape shape = view.modelToView(offs0, Position.Bias.Forward, offs1, Position.Bias.Backward, bounds);
+					r = shape instanceof Rectangle ? (Rectangle) shape : shape.getBounds();
+				} catch (BadLocationException e) {
+					return null;
+				}
+			}
+			g.setColor(getColor());
+			int y = r.y + r.height - 2;
+			for (int x = r.x; x < r.x + r.width; x += 4) {
+				g.drawLine(x, y, Math.min(x + 2, r.x + r.width), y - 2);
+				g.drawLine(Math.min(x + 2, r.x + r.width), y - 2, Math.min(x + 4, r.x + r.width), y);
+			}
+			return r;
+		}
+	}
+}
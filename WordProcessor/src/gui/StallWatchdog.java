@@ -0,0 +1,384 @@
+package gui;
+
+import java.awt.AWTEvent;
+import java.awt.EventQueue;
+import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.InvocationEvent;
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.AbstractButton;
+import javax.swing.ImageIcon;
+import javax.swing.JMenuItem;
+
+import file.EditorEvents;
+
+/**
+ * Watches the event dispatch thread for stalls, i.e an action doing disk I/O or
+ * copying the whole document whilst the window cannot be repainted, and writes
+ * a short report of each to a log file.
+ *
+ * A heartbeat is posted to the event queue every {@code HEARTBEAT_INTERVAL}
+ * milliseconds by a background thread, which then waits for it to be
+ * dispatched. Once a heartbeat has waited for longer than the threshold, the
+ * stack of the event dispatch thread is sampled every
+ * {@code SAMPLE_INTERVAL} milliseconds until the heartbeat is dispatched. The
+ * samples are not kept, only a count of the frame at the top of each stack and
+ * of the first frame of the program below it, so a long stall uses no more
+ * memory than a short one.
+ *
+ * The event being dispatched is kept by an {@code EventQueue} pushed in front
+ * of the system event queue, so the report names the action that caused the
+ * stall, i.e the menu item clicked or the key pressed. A stall that is still
+ * going after {@code REPORT_UNFINISHED} milliseconds is reported straight
+ * away, so there is a trace even if the user ends the program. Each stall is
+ * also recorded as an {@code EdtStall} event for the JDK Flight Recorder.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see EditorEvents.EdtStall
+ */
+public class StallWatchdog {
+	/** The default number of milliseconds a heartbeat may wait before it is a stall. */
+	public static final long DEFAULT_THRESHOLD = 500;
+	/** The number of milliseconds between heartbeats. */
+	private static final long HEARTBEAT_INTERVAL = 100;
+	/** The number of milliseconds between samples of a stall. */
+	private static final long SAMPLE_INTERVAL = 10;
+	/** The number of milliseconds after which a stall still going is reported. */
+	private static final long REPORT_UNFINISHED = 5000;
+	/** The number of frames of each kind listed in a report. */
+	private static final int FRAMES_REPORTED = 5;
+	/** The size of the log, in bytes, past which it is moved aside. */
+	private static final long MAX_LOG_SIZE = 1024 * 1024;
+	/** The number of nanoseconds in a millisecond. */
+	private static final long NANOS_PER_MILLI = 1_000_000;
+	/** The format of the time at the start of each report. */
+	private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+	/** The file the reports are appended to. */
+	private final Path log;
+	/** The number of nanoseconds a heartbeat may wait before it is a stall. */
+	private final long threshold;
+	/** Keeps the event being dispatched. */
+	private final WatchedQueue queue = new WatchedQueue();
+	/** The event dispatch thread, updated by each heartbeat as it may be replaced. */
+	private volatile Thread dispatchThread;
+	/** The thread posting heartbeats and sampling stalls, null until started. */
+	private Thread thread;
+
+	/**
+	 * Class constructor that reports each stall longer than the threshold to the
+	 * log provided.
+	 *
+	 * @param log       the {@code Path} value of the file the reports are
+	 *                  appended to
+	 * @param threshold the number of milliseconds the event dispatch thread may
+	 *                  be stalled before it is reported
+	 */
+	public StallWatchdog(Path log, long threshold) {
+		this.log = log;
+		this.threshold = Math.max(threshold, SAMPLE_INTERVAL) * NANOS_PER_MILLI;
+	}
+
+	/**
+	 * Pushes the queue keeping the event being dispatched and starts the thread
+	 * watching the event dispatch thread. Should be called on the event dispatch
+	 * thread, so it can be sampled before the first heartbeat.
+	 */
+	public synchronized void start() {
+		if (thread != null) {
+			return;
+		}
+		if (EventQueue.isDispatchThread()) {
+			dispatchThread = Thread.currentThread();
+		}
+		Toolkit.getDefaultToolkit().getSystemEventQueue().push(queue);
+		thread = new Thread(this::watch, "Stall Watchdog Thread");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Posts a heartbeat and waits for it, sampling the event dispatch thread if
+	 * it waits for longer than the threshold, until the watchdog is interrupted.
+	 */
+	private void watch() {
+		try {
+			while (!Thread.currentThread().isInterrupted()) {
+				Heartbeat heartbeat = new Heartbeat();
+				EventQueue.invokeLater(heartbeat);
+				if (!heartbeat.dispatched.await(threshold, TimeUnit.NANOSECONDS)) {
+					sample(heartbeat);
+				}
+				Thread.sleep(HEARTBEAT_INTERVAL);
+			}
+		} catch (InterruptedException e) {
+			// The watchdog has been stopped.
+		}
+	}
+
+	/**
+	 * Samples the stack of the event dispatch thread until the heartbeat is
+	 * dispatched, then reports the stall.
+	 *
+	 * @param heartbeat the {@code Heartbeat} that has waited for longer than the
+	 *                  threshold
+	 * @throws InterruptedException if the watchdog is stopped
+	 */
+	private void sample(Heartbeat heartbeat) throws InterruptedException {
+		EditorEvents.EdtStall event = new EditorEvents.EdtStall();
+		event.begin();
+		Stall stall = new Stall(describe(queue.dispatching));
+		boolean reported = false;
+		do {
+			Thread edt = dispatchThread;
+			if (edt != null) {
+				stall.add(edt.getStackTrace());
+			}
+			long stalledFor = System.nanoTime() - heartbeat.posted;
+			if (!reported && stalledFor > REPORT_UNFINISHED * NANOS_PER_MILLI) {
+				report(stall, stalledFor, false);
+				reported = true;
+			}
+		} while (!heartbeat.dispatched.await(SAMPLE_INTERVAL, TimeUnit.MILLISECONDS));
+
+		long stalledFor = heartbeat.dispatchedAt - heartbeat.posted;
+		report(stall, stalledFor, true);
+		event.stalledFor = stalledFor;
+		event.action = stall.action;
+		event.hotFrame = stall.hotFrame();
+		event.samples = stall.samples;
+		event.commit();
+	}
+
+	/**
+	 * Writes the report of a stall to the log, moving the log aside first if it
+	 * has grown past {@code MAX_LOG_SIZE}, and prints a line saying where it was
+	 * wrote.
+	 *
+	 * @param stall      the {@code Stall} to be reported
+	 * @param stalledFor the number of nanoseconds the stall has lasted
+	 * @param ended      whether the stall has ended
+	 */
+	private void report(Stall stall, long stalledFor, boolean ended) {
+		String report = stall.report(stalledFor, ended);
+		try {
+			Files.createDirectories(log.toAbsolutePath().getParent());
+			if (Files.exists(log) && Files.size(log) > MAX_LOG_SIZE) {
+				Files.move(log, log.resolveSibling(log.getFileName() + ".old"), StandardCopyOption.REPLACE_EXISTING);
+			}
+			Files.write(log, report.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+					StandardOpenOption.APPEND);
+			System.out.println(report.substring(0, report.indexOf('\n')) + ", reported to " + log);
+		} catch (IOException e) {
+			System.out.println("Error writing stall report.");
+		}
+	}
+
+	/**
+	 * Describes an event in terms of the action of the user, i.e the text of the
+	 * menu item or button clicked, or the key pressed.
+	 *
+	 * @param event the {@code AWTEvent} being dispatched, may be null
+	 * @return the description of the event
+	 */
+	static String describe(AWTEvent event) {
+		if (event == null) {
+			return "no event";
+		}
+		if (event instanceof KeyEvent) {
+			KeyEvent key = (KeyEvent) event;
+			String modifiers = InputEvent.getModifiersExText(key.getModifiersEx());
+			String name = key.getKeyCode() == KeyEvent.VK_UNDEFINED ? "'" + key.getKeyChar() + "'"
+					: KeyEvent.getKeyText(key.getKeyCode());
+			return "key " + (modifiers.isEmpty() ? "" : modifiers + "+") + name;
+		}
+		if (event.getSource() instanceof AbstractButton) {
+			AbstractButton button = (AbstractButton) event.getSource();
+			String name = button.getText();
+			if ((name == null || name.isEmpty()) && button.getIcon() instanceof ImageIcon) {
+				// The buttons of the tool bar are only an icon, named after its file.
+				name = ((ImageIcon) button.getIcon()).getDescription();
+			}
+			return "\"" + name + "\" " + (button instanceof JMenuItem ? "menu item" : "button");
+		}
+		if (event instanceof InvocationEvent) {
+			// The runnable is only given through the parameter string of the event.
+			String params = event.paramString();
+			int start = params.indexOf("runnable=");
+			if (start < 0) {
+				return "invocation";
+			}
+			int end = params.indexOf(',', start);
+			String runnable = params.substring(start + "runnable=".length(), end < 0 ? params.length() : end);
+			// A lambda is named after the class it was wrote in, followed by a generated name.
+			int lambda = runnable.indexOf("$$Lambda");
+			return "invocation of " + (lambda < 0 ? runnable : runnable.substring(0, lambda) + " lambda");
+		}
+		return event.getClass().getSimpleName() + " on " + event.getSource().getClass().getSimpleName();
+	}
+
+	/**
+	 * Posted to the event queue, noting when it was dispatched.
+	 */
+	private class Heartbeat implements Runnable {
+		/** The value of {@code System.nanoTime()} when it was posted. */
+		final long posted = System.nanoTime();
+		/** Counted down once it has been dispatched. */
+		final CountDownLatch dispatched = new CountDownLatch(1);
+		/** The value of {@code System.nanoTime()} when it was dispatched. */
+		volatile long dispatchedAt;
+
+		@Override
+		public void run() {
+			dispatchThread = Thread.currentThread();
+			dispatchedAt = System.nanoTime();
+			dispatched.countDown();
+		}
+	}
+
+	/**
+	 * An {@code EventQueue} that keeps the event it is dispatching, so the
+	 * watchdog can name the action that caused a stall. An event dispatched
+	 * within another, i.e by a modal dialog, is kept until it ends.
+	 */
+	private static class WatchedQueue extends EventQueue {
+		/** The event being dispatched, or null. */
+		volatile AWTEvent dispatching;
+
+		@Override
+		protected void dispatchEvent(AWTEvent event) {
+			AWTEvent outer = dispatching;
+			dispatching = event;
+			try {
+				super.dispatchEvent(event);
+			} finally {
+				dispatching = outer;
+			}
+		}
+	}
+
+	/**
+	 * The samples of a single stall, counted by the frame at the top of each
+	 * stack and the first frame of the program below it.
+	 */
+	private static class Stall {
+		/** The name of the frames of the watchdog, which are not counted. */
+		private static final String OWN_FRAMES = StallWatchdog.class.getName();
+
+		/** The action being dispatched when the stall was noticed. */
+		final String action;
+		/** The time the stall was noticed, shown at the start of the report. */
+		final LocalDateTime noticed = LocalDateTime.now();
+		/** The number of stacks sampled. */
+		int samples;
+		/** The number of samples with each frame at the top of the stack. */
+		private final Map<String, Integer> topFrames = new HashMap<>();
+		/** The number of samples with each frame as the first of the program. */
+		private final Map<String, Integer> programFrames = new HashMap<>();
+
+		/**
+		 * Class constructor that accepts the action that caused the stall.
+		 *
+		 * @param action the description of the event being dispatched
+		 */
+		Stall(String action) {
+			this.action = action;
+		}
+
+		/**
+		 * Counts the frames of a sample of the stack.
+		 *
+		 * @param stack the stack of the event dispatch thread, top frame first
+		 */
+		void add(StackTraceElement[] stack) {
+			if (stack.length == 0) {
+				return;
+			}
+			samples++;
+			topFrames.merge(stack[0].toString(), 1, Integer::sum);
+			for (StackTraceElement frame : stack) {
+				String className = frame.getClassName();
+				if ((className.startsWith("gui.") || className.startsWith("file."))
+						&& !className.startsWith(OWN_FRAMES)) {
+					programFrames.merge(frame.toString(), 1, Integer::sum);
+					break;
+				}
+			}
+		}
+
+		/**
+		 * Returns the frame of the program seen in the most samples.
+		 *
+		 * @return the frame, or null if no frame of the program was seen
+		 */
+		String hotFrame() {
+			List<Map.Entry<String, Integer>> hottest = hottest(programFrames);
+			return hottest.isEmpty() ? null : hottest.get(0).getKey();
+		}
+
+		/**
+		 * Writes the report of the stall, a line saying how long it lasted and the
+		 * action that caused it, followed by the frames seen most often and the
+		 * share of the samples each was seen in.
+		 *
+		 * @param stalledFor the number of nanoseconds the stall has lasted
+		 * @param ended      whether the stall has ended
+		 * @return the report, ending with a blank line
+		 */
+		String report(long stalledFor, boolean ended) {
+			StringBuilder report = new StringBuilder();
+			report.append(TIME_FORMAT.format(noticed)).append(" event dispatch thread ")
+					.append(ended ? "stalled for " : "still stalled after ").append(stalledFor / NANOS_PER_MILLI)
+					.append(" ms during ").append(action).append('\n');
+			report.append("  ").append(samples).append(" samples every ").append(SAMPLE_INTERVAL).append(" ms\n");
+			appendFrames(report, "top frames", topFrames);
+			appendFrames(report, "program frames", programFrames);
+			return report.append('\n').toString();
+		}
+
+		/**
+		 * Adds the frames seen most often to a report.
+		 *
+		 * @param report the report being wrote
+		 * @param title  the title of the list of frames
+		 * @param frames the number of samples each frame was seen in
+		 */
+		private void appendFrames(StringBuilder report, String title, Map<String, Integer> frames) {
+			if (frames.isEmpty()) {
+				return;
+			}
+			report.append("  ").append(title).append(":\n");
+			for (Map.Entry<String, Integer> frame : hottest(frames)) {
+				report.append(String.format("    %3d%%  %s\n", 100 * frame.getValue() / samples, frame.getKey()));
+			}
+		}
+
+		/**
+		 * Returns the frames seen in the most samples, most first.
+		 *
+		 * @param frames the number of samples each frame was seen in
+		 * @return up to {@code FRAMES_REPORTED} frames
+		 */
+		private static List<Map.Entry<String, Integer>> hottest(Map<String, Integer> frames) {
+			List<Map.Entry<String, Integer>> sorted = new ArrayList<>(frames.entrySet());
+			sorted.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+			return sorted.subList(0, Math.min(FRAMES_REPORTED, sorted.size()));
+		}
+	}
+}
@@ -0,0 +1,42 @@
+package gui;
+
+import javax.swing.text.AttributeSet;
+
+/**
+ * A rule that styles part of the text of a paragraph from the text alone, such
+ * as a heading or emphasis marked in the text. Rules are evaluated on the
+ * restyle thread of the {@code RestyleEngine}, one paragraph at a time, so a
+ * rule must not read the document itself and must only depend on the text it
+ * is given.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RestyleEngine
+ * @see StyleRules
+ */
+public interface StyleRule {
+
+	/**
+	 * Finds the runs of a paragraph this rule styles.
+	 *
+	 * @param text the text of the paragraph, not including its new line
+	 * @param runs receives each run styled by the rule
+	 */
+	public void style(CharSequence text, Runs runs);
+
+	/**
+	 * Receives the runs of a paragraph styled by a rule.
+	 */
+	public interface Runs {
+
+		/**
+		 * Adds the attributes provided to a run of the paragraph. Where runs
+		 * overlap, the attributes of each are applied.
+		 *
+		 * @param start      the index within the paragraph of the start of the run
+		 * @param end        the index within the paragraph of the end of the run
+		 * @param attributes the attributes of the run
+		 */
+		public void add(int start, int end, AttributeSet attributes);
+	}
+}
@@ -0,0 +1,131 @@
+package gui;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+
+/**
+ * Enumeration of the style rules built into the program, styling text marked
+ * in a similar way to Markdown. The marks themselves are left in the text and
+ * styled along with it, so the text saved is unchanged.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RestyleEngine
+ */
+public enum StyleRules implements StyleRule {
+
+	/** Paragraphs starting with one to three '#' and a space are headings. */
+	HEADING {
+		@Override
+		public void style(CharSequence text, Runs runs) {
+			int level = 0;
+			while (level < text.length() && level < HEADING_SIZES.length && text.charAt(level) == '#') {
+				level++;
+			}
+			if (level > 0 && level < text.length() && text.charAt(level) == ' ') {
+				runs.add(0, text.length(), HEADING_ATTRIBUTES[level - 1]);
+			}
+		}
+	},
+	/** Text between a pair of "**" is bold. */
+	BOLD {
+		@Override
+		public void style(CharSequence text, Runs runs) {
+			styleDelimited(text, "**", attributes(StyleConstants.Bold), runs);
+		}
+	},
+	/** Text between a pair of single '*' is italic. */
+	ITALIC {
+		@Override
+		public void style(CharSequence text, Runs runs) {
+			styleDelimited(text, "*", attributes(StyleConstants.Italic), runs);
+		}
+	},
+	/** Text between a pair of "~~" is struck through. */
+	STRIKE_THROUGH {
+		@Override
+		public void style(CharSequence text, Runs runs) {
+			styleDelimited(text, "~~", attributes(StyleConstants.StrikeThrough), runs);
+		}
+	};
+
+	/** The font size of each level of heading. */
+	private static final int[] HEADING_SIZES = { 24, 18, 15 };
+	/** The attributes of each level of heading. */
+	private static final AttributeSet[] HEADING_ATTRIBUTES = new AttributeSet[HEADING_SIZES.length];
+
+	static {
+		for (int i = 0; i < HEADING_SIZES.length; i++) {
+			SimpleAttributeSet set = new SimpleAttributeSet();
+			StyleConstants.setBold(set, true);
+			StyleConstants.setFontSize(set, HEADING_SIZES[i]);
+			HEADING_ATTRIBUTES[i] = set.copyAttributes();
+		}
+	}
+
+	/**
+	 * Creates an attribute set with the single font style provided turned on.
+	 *
+	 * @param style the font style, i.e {@code StyleConstants.Bold}
+	 * @return the attribute set
+	 */
+	private static AttributeSet attributes(Object style) {
+		SimpleAttributeSet set = new SimpleAttributeSet();
+		set.addAttribute(style, Boolean.TRUE);
+		return set;
+	}
+
+	/**
+	 * Styles each run of text between a pair of the delimiter provided, including
+	 * the delimiters. The opening delimiter must be followed by, and the closing
+	 * delimiter preceded by, a character other than a space. A single character
+	 * delimiter next to another of the same character is ignored, so that the
+	 * delimiters of longer marks are not matched.
+	 *
+	 * @param text       the text of the paragraph
+	 * @param delimiter  the mark either side of the styled text
+	 * @param attributes the attributes of the styled text
+	 * @param runs       receives each styled run
+	 */
+	private static void styleDelimited(CharSequence text, String delimiter, AttributeSet attributes, Runs runs) {
+		int open = -1;
+		int length = delimiter.length();
+		for (int i = 0; i + length <= text.length(); i++) {
+			if (!matches(text, i, delimiter)) {
+				continue;
+			}
+			if (length == 1 && ((i > 0 && text.charAt(i - 1) == delimiter.charAt(0))
+					|| (i + 1 < text.length() && text.charAt(i + 1) == delimiter.charAt(0)))) {
+				continue;
+			}
+			if (open < 0) {
+				if (i + length < text.length() && !Character.isWhitespace(text.charAt(i + length))) {
+					open = i;
+					i += length - 1;
+				}
+			} else if (!Character.isWhitespace(text.charAt(i - 1))) {
+				runs.add(open, i + length, attributes);
+				open = -1;
+				i += length - 1;
+			}
+		}
+	}
+
+	/**
+	 * Determines whether the text at an index matches the delimiter provided.
+	 *
+	 * @param text      the text to be checked
+	 * @param index     the index of the first character to compare
+	 * @param delimiter the delimiter to be matched
+	 * @return true if the text matches the delimiter at the index
+	 */
+	private static boolean matches(CharSequence text, int index, String delimiter) {
+		for (int i = 0; i < delimiter.length(); i++) {
+			if (text.charAt(index + i) != delimiter.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -1,44 +1,153 @@
 package gui;
 
+import java.io.File;
+import java.nio.file.Path;
+
 import javax.swing.JFileChooser;
+import javax.swing.SwingUtilities;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.filechooser.FileSystemView;
+import javax.swing.plaf.basic.BasicFileChooserUI;
+
+import file.DirectoryCache;
+import file.ExportFormat;
+import file.RichTextFile;
 
 /**
  * This abstract class is responsible for providing a blueprint for the
  * {@code JFileChooser} dialogue box that child class can implement to tailor
  * the dialogue box relative the prompt being shown.
  * 
+ * Every system explorer shows the same {@code JFileChooser}. As a Swing
+ * component it is only ever created and used on the event dispatch thread,
+ * where {@code prewarm} queues it to be built once the program has started, so
+ * the first dialog does not wait for it. Only the parts that are not Swing are
+ * warmed on a background thread: the file system view is asked for the folder
+ * the chooser starts in, and that folder is read into the cache. The folders it
+ * shows are listed through a {@code CachedFileSystemView}, so a folder is only
+ * read from the disk the first time it is shown and again once it changes. As
+ * the chooser is shared, each dialog opens in the folder the last one was left
+ * in.
+ * 
  * @author Aiden Parker
  * @version 1
  *
  */
 
 public abstract class SystemExplorer {
+	/** The file filter that shows only ".txt" files. */
+	static final FileNameExtensionFilter TEXT_FILTER = new FileNameExtensionFilter("Text Files (.txt)", "txt");
+	/** The file filter that shows only Textual documents, which keep their formatting. */
+	static final FileNameExtensionFilter DOCUMENT_FILTER = new FileNameExtensionFilter(
+			"Textual Documents (." + RichTextFile.EXTENSION + ")", RichTextFile.EXTENSION);
+	/** The file filter of the Open dialog, showing both ".txt" files and Textual documents. */
+	static final FileNameExtensionFilter SUPPORTED_FILTER = new FileNameExtensionFilter(
+			"All Supported Files (.txt, ." + RichTextFile.EXTENSION + ")", "txt", RichTextFile.EXTENSION);
+	/** The file filters of the Export dialog, one for each format that can be exported to. */
+	static final FileNameExtensionFilter[] EXPORT_FILTERS = {
+			new FileNameExtensionFilter("Web Pages (.html)", "html", "htm"),
+			new FileNameExtensionFilter("Rich Text Format (.rtf)", "rtf"),
+			new FileNameExtensionFilter("Markdown (.md)", "md", "markdown") };
+	/** Holds the listings of the folders shown by the file chooser. */
+	private static final DirectoryCache DIRECTORIES = new DirectoryCache();
+	/** The file chooser shared by every system explorer, null until created. */
+	private static JFileChooser chooser;
+	/** Whether the background warming has been started. */
+	private static boolean prewarmed = false;
 	/** the {@code Integer} value of the {@code JFileChooser} dialog chosen. */
 	private int dialogType;
 	/**
 	 * The {@code String} value of the absolute path chosen via the system explorer
 	 */
 	private String fileSelected;
-	/** Instantiates the {@code JFileChooser} class */
-	JFileChooser fc = new JFileChooser();
+	/** The shared {@code JFileChooser}, created now if it has not been already. */
+	final JFileChooser fc = getChooser();
+
+	/**
+	 * Class constructor that clears the file name left in the shared file chooser
+	 * by the last dialog, so each dialog starts blank.
+	 */
+	SystemExplorer() {
+		fc.setSelectedFile(null);
+		if (fc.getUI() instanceof BasicFileChooserUI) {
+			((BasicFileChooserUI) fc.getUI()).setFileName("");
+		}
+	}
+
+	/**
+	 * Starts reading the folder the file chooser opens in on a background thread,
+	 * and queues the chooser to be created on the event dispatch thread once the
+	 * events already waiting have been handled. This is called on the event
+	 * dispatch thread once the look and feel has been set, so the chooser is
+	 * created with it.
+	 * 
+	 * The background thread touches nothing of Swing. It asks the file system
+	 * view for the default folder, which may be slow the first time on some
+	 * systems, and starts reading that folder into the cache.
+	 */
+	static void prewarm() {
+		if (prewarmed) {
+			return;
+		}
+		prewarmed = true;
+		Thread thread = new Thread(() -> {
+			FileSystemView view = new CachedFileSystemView(DIRECTORIES);
+			File directory = view.getDefaultDirectory();
+			if (directory != null && view.isFileSystem(directory)) {
+				DIRECTORIES.prefetch(directory.toPath());
+			}
+		}, "Explorer Thread");
+		thread.setDaemon(true);
+		thread.start();
+		SwingUtilities.invokeLater(SystemExplorer::getChooser);
+	}
+
+	/**
+	 * Returns the shared file chooser, creating it if it has not been already.
+	 * Must be called on the event dispatch thread.
+	 * 
+	 * @return the shared {@code JFileChooser}
+	 */
+	private static JFileChooser getChooser() {
+		if (chooser == null) {
+			chooser = createChooser();
+		}
+		return chooser;
+	}
 
 	/**
-	 * Class constructor that configures the system explorers base settings. 
-	 * These settings:
+	 * Creates the file chooser and configures its base settings. These settings:
+	 * 	Lists folders through a {@code CachedFileSystemView}
 	 * 	Sets any file filter being used to false
-	 * 	Sets the file filter to one created that shows only ".txt" files
+	 * 	Adds the file filters of ".txt" files and Textual documents, showing only ".txt" files
 	 * 	sets the current directory to null (This points to the users default directory)
 	 * 	Sets the content selectable in the system explorer to only files.  
 	 * 
-	 * 
+	 * @return the configured {@code JFileChooser}
 	 */
-	SystemExplorer() {
-		FileNameExtensionFilter filter = new FileNameExtensionFilter("Text Files (.txt)", "txt");
+	private static JFileChooser createChooser() {
+		JFileChooser fc = new JFileChooser(new CachedFileSystemView(DIRECTORIES));
 		fc.setAcceptAllFileFilterUsed(false);
-		fc.setFileFilter(filter);
+		fc.addChoosableFileFilter(TEXT_FILTER);
+		fc.addChoosableFileFilter(DOCUMENT_FILTER);
+		fc.setFileFilter(TEXT_FILTER);
 		fc.setCurrentDirectory(null);
 		fc.setFileSelectionMode(JFileChooser.FILES_ONLY);
+		return fc;
+	}
+
+	/**
+	 * Drops the listing of the folder of a file that has just been created or
+	 * saved, so the next dialog shows it even if the change has not yet been
+	 * reported by the file system.
+	 * 
+	 * @param file the {@code Path} value of the file that has changed
+	 */
+	static void fileChanged(Path file) {
+		Path folder = file.toAbsolutePath().getParent();
+		if (folder != null) {
+			DIRECTORIES.invalidate(folder);
+		}
 	}
 
 	/**
@@ -104,6 +213,15 @@ public abstract class SystemExplorer {
  */
 class OpenExplorer extends SystemExplorer {
 
+	/**
+	 * Class constructor that adds a file filter showing both ".txt" files and
+	 * Textual documents, which is shown first.
+	 */
+	OpenExplorer() {
+		fc.addChoosableFileFilter(SUPPORTED_FILTER);
+		fc.setFileFilter(SUPPORTED_FILTER);
+	}
+
 	@Override
 	public void showDialog() {
 		super.setDialogType(fc.showOpenDialog(null));
@@ -129,6 +247,15 @@ class OpenExplorer extends SystemExplorer {
  */
 class SaveExplorer extends SystemExplorer {
 
+	/**
+	 * Class constructor that removes the file filter of the Open dialog, as a
+	 * file can only be saved as one type, showing only ".txt" files.
+	 */
+	SaveExplorer() {
+		fc.removeChoosableFileFilter(SUPPORTED_FILTER);
+		fc.setFileFilter(TEXT_FILTER);
+	}
+
 	@Override
 	public void showDialog() {
 		super.setDialogType(fc.showSaveDialog(null));
@@ -136,17 +263,67 @@ class SaveExplorer extends SystemExplorer {
 		// If the "yes" button is selected.
 		if (super.getDialogType() == JFileChooser.APPROVE_OPTION) {
 			String file = fc.getSelectedFile().toString();
+			String extension = file.substring(file.lastIndexOf('.') + 1);
 
-			if (file.substring(file.lastIndexOf('.') + 1).equalsIgnoreCase("txt")) {
-				// If the file contains "txt" at the last index of the character '.'
+			if (extension.equalsIgnoreCase("txt") || extension.equalsIgnoreCase(RichTextFile.EXTENSION)) {
+				// If the file contains "txt" or the extension of a Textual document at the last
+				// index of the character '.'
 				super.setFileSelected(file);
 			} else {
-				// Concatenate ".txt" to the end of the path provided, converting the file into
-				// a .txt file.
-				super.setFileSelected(file.concat(".txt"));
+				// Concatenate the extension of the file filter chosen to the end of the path
+				// provided, converting the file into a file of that type.
+				String type = fc.getFileFilter() == DOCUMENT_FILTER ? RichTextFile.EXTENSION : "txt";
+				super.setFileSelected(file.concat("." + type));
 			}
 
 		}
 	}
 
 }
+
+/**
+ * Similar to the {@code SaveExplorer} class, this class is responsible for
+ * setting the {@code JFileChooser} configuration settings to the Export dialog,
+ * offering the formats a document can be exported to in place of the formats
+ * it can be saved as. The filters of the Save dialog are put back once the
+ * dialog is closed, as the file chooser is shared.
+ * 
+ * @author Aiden Parker
+ * @version 1
+ * @see ExportFormat
+ */
+class ExportExplorer extends SystemExplorer {
+
+	@Override
+	public void showDialog() {
+		fc.removeChoosableFileFilter(SUPPORTED_FILTER);
+		fc.removeChoosableFileFilter(TEXT_FILTER);
+		fc.removeChoosableFileFilter(DOCUMENT_FILTER);
+		for (FileNameExtensionFilter filter : EXPORT_FILTERS) {
+			fc.addChoosableFileFilter(filter);
+		}
+		fc.setFileFilter(EXPORT_FILTERS[0]);
+		try {
+			super.setDialogType(fc.showDialog(null, "Export"));
+
+			// If the "Export" button is selected.
+			if (super.getDialogType() == JFileChooser.APPROVE_OPTION) {
+				String file = fc.getSelectedFile().toString();
+				if (ExportFormat.forPath(fc.getSelectedFile().toPath()) == null
+						&& fc.getFileFilter() instanceof FileNameExtensionFilter) {
+					// Add the extension of the format chosen.
+					file = file.concat("." + ((FileNameExtensionFilter) fc.getFileFilter()).getExtensions()[0]);
+				}
+				super.setFileSelected(file);
+			}
+		} finally {
+			for (FileNameExtensionFilter filter : EXPORT_FILTERS) {
+				fc.removeChoosableFileFilter(filter);
+			}
+			fc.addChoosableFileFilter(TEXT_FILTER);
+			fc.addChoosableFileFilter(DOCUMENT_FILTER);
+			fc.setFileFilter(TEXT_FILTER);
+		}
+	}
+
+}
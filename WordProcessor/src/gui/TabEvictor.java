@@ -0,0 +1,172 @@
+package gui;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.swing.JOptionPane;
+import javax.swing.JTabbedPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.StyledDocument;
+
+import file.AsyncFileManipulation;
+import file.FileManipulation;
+import file.RichTextFile;
+
+/**
+ * Keeps the memory held by the documents of the tabs of the workspace within a
+ * budget, by evicting the text of the least recently used background tabs to
+ * cache files and loading it back once the tab is selected again.
+ *
+ * The memory held by a tab is estimated from the length of its document and the
+ * size of its undo history. Each time a tab is selected, loaded or saved the
+ * total is worked out again, and while it is over the budget the background
+ * tab selected least recently is evicted. The tab in view is never evicted,
+ * even if it alone is over the budget, nor is a tab whose file is still being
+ * loaded.
+ *
+ * The text of a tab is wrote to its cache file as a Textual document on the
+ * I/O executor, so it keeps its formatting, and only once wrote is the
+ * document emptied, on the event dispatch thread. If the tab has been selected
+ * or edited in the meantime the cache file is removed instead. Selecting an
+ * evicted tab loads its text straight back, before it is shown, or replays its
+ * journal if the cache file can no longer be read.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see DocumentTab
+ */
+public class TabEvictor {
+	/**
+	 * The estimated number of bytes held for each character of a document, i.e
+	 * its text along with the elements, indexes and highlights kept of it.
+	 */
+	static final int BYTES_PER_CHAR = 8;
+	/** The budget used if none is given, a quarter of the memory of the JVM. */
+	public static final long DEFAULT_BUDGET = Runtime.getRuntime().maxMemory() / 4;
+	/** The prefix of the name of each cache file. */
+	private static final String CACHE_PREFIX = "textual-tab-";
+
+	/** The tabs of the workspace. */
+	private final JTabbedPane tabs;
+	/** The number of bytes the documents of the tabs may hold in memory. */
+	private final long budget;
+	/** Writes and reads the cache files. */
+	private final FileManipulation fileManip = new FileManipulation();
+	/** Writes the cache files off the event dispatch thread. */
+	private final AsyncFileManipulation asyncManip;
+	/** The tabs whose text is being wrote to a cache file. */
+	private final Set<DocumentTab> evicting = new HashSet<>();
+	/** Counts the selections of tabs, giving the order they were last used in. */
+	private long uses = 0;
+
+	/**
+	 * Class constructor that keeps the tabs provided within the budget provided,
+	 * restoring each evicted tab once it is selected.
+	 *
+	 * @param tabs       the {@code JTabbedPane} holding the {@code DocumentTab}s
+	 * @param budget     the number of bytes the documents may hold in memory
+	 * @param asyncManip the file manager the cache files are wrote through
+	 */
+	public TabEvictor(JTabbedPane tabs, long budget, AsyncFileManipulation asyncManip) {
+		this.tabs = tabs;
+		this.budget = budget;
+		this.asyncManip = asyncManip;
+		tabs.addChangeListener(e -> selected());
+	}
+
+	/**
+	 * Returns the estimated number of bytes held in memory by the document of a
+	 * tab and its undo history.
+	 *
+	 * @param tab the {@code DocumentTab} to be measured
+	 * @return the estimated bytes held by the tab
+	 */
+	static long getMemoryUsed(DocumentTab tab) {
+		return tab.getDocument().getLength() * (long) BYTES_PER_CHAR + tab.getUndoRedoManager().getMemoryUsed();
+	}
+
+	/**
+	 * Evicts the least recently used background tabs until the estimated memory
+	 * held by the tabs is within the budget, or no more tabs can be evicted. The
+	 * memory of the tabs already being evicted is counted as freed.
+	 */
+	public void trim() {
+		long used = 0;
+		List<DocumentTab> candidates = new ArrayList<>();
+		for (int i = 0; i < tabs.getTabCount(); i++) {
+			DocumentTab tab = (DocumentTab) tabs.getComponentAt(i);
+			if (evicting.contains(tab)) {
+				continue;
+			}
+			used += getMemoryUsed(tab);
+			if (tab != tabs.getSelectedComponent() && !tab.isEvicted() && !tab.isLoading()
+					&& tab.getDocument().getLength() > 0) {
+				candidates.add(tab);
+			}
+		}
+		candidates.sort(Comparator.comparingLong(DocumentTab::getLastUsed));
+		for (DocumentTab tab : candidates) {
+			if (used <= budget) {
+				break;
+			}
+			used -= getMemoryUsed(tab);
+			evict(tab);
+		}
+	}
+
+	/**
+	 * Handles the selection of a tab, loading its text back if it was evicted,
+	 * then trimming the other tabs to make room for it.
+	 */
+	private void selected() {
+		DocumentTab tab = (DocumentTab) tabs.getSelectedComponent();
+		if (tab == null) {
+			return;
+		}
+		tab.setLastUsed(++uses);
+		if (tab.isEvicted() && !tab.restore(fileManip)) {
+			JOptionPane.showMessageDialog(null, "Some of the document could not be restored.",
+					"Error Restoring Document", JOptionPane.WARNING_MESSAGE);
+		}
+		trim();
+	}
+
+	/**
+	 * Writes the text of a tab to a new cache file on the I/O executor, then
+	 * empties its document on the event dispatch thread, unless the tab has been
+	 * selected, edited, loaded into or closed whilst it was being wrote.
+	 *
+	 * @param tab the {@code DocumentTab} to be evicted
+	 */
+	private void evict(DocumentTab tab) {
+		evicting.add(tab);
+		long edits = tab.getEditCount();
+		StyledDocument document = tab.getDocument();
+		asyncManip.supply(() -> {
+			Path cache = Files.createTempFile(CACHE_PREFIX, "." + RichTextFile.EXTENSION);
+			try {
+				fileManip.writeRichDocumentFile(cache, document, RestyleEngine::getUserAttributes);
+			} catch (IOException e) {
+				fileManip.deleteFile(cache);
+				throw e;
+			}
+			return cache;
+		}).whenCompleteAsync((cache, ex) -> {
+			evicting.remove(tab);
+			if (ex != null) {
+				System.out.println("Error evicting tab.");
+			} else if (tab != tabs.getSelectedComponent() && tabs.indexOfComponent(tab) >= 0
+					&& tab.getEditCount() == edits && !tab.isLoading()) {
+				tab.evict(cache);
+			} else {
+				fileManip.deleteFile(cache);
+			}
+		}, SwingUtilities::invokeLater);
+	}
+}
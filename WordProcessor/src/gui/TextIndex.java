@@ -0,0 +1,709 @@
+package gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
+
+/**
+ * An index of the text of a document allowing a literal search to skip the
+ * parts of the document that cannot contain a match, kept up to date from the
+ * insert and remove events of the document.
+ *
+ * The document is split into blocks of around {@code BLOCK_SIZE} characters.
+ * Each block has a signature, a set of bits holding the hashes of the three
+ * character sequences, ignoring case, that start within it or within the first
+ * {@code OVERLAP} characters after it, along with smaller sets holding its two
+ * character sequences and single characters. Short sequences are kept apart
+ * from the signature so they do not fill it. A query only reads the text of the blocks whose
+ * signature holds every sequence of the query, so a search of a large document
+ * reads a few blocks rather than the whole text.
+ *
+ * The signatures are stored sliced, for each group of 64 blocks there is one
+ * {@code long} per bit of the signature holding that bit for each block of the
+ * group. Finding the blocks that may hold a match is then a few {@code long}
+ * values AND-ed together per group, rather than a read of the signature of
+ * every block. A block keeps the same slot in its group for as long as it
+ * exists, so blocks can be added and removed without moving the others.
+ *
+ * An edit only changes the length of the blocks it falls within and marks them
+ * to be indexed again, which happens the next time the index is searched. As
+ * the offsets of the blocks are not stored, no work is done for the blocks
+ * after an edit.
+ *
+ * The index is changed whilst the document is locked for writing and should be
+ * searched whilst the document is locked for reading, i.e through
+ * {@code Document.render}.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FindBar
+ */
+public class TextIndex implements DocumentListener {
+	/** The number of characters a block is split to once it grows too large. */
+	private static final int BLOCK_SIZE = 8192;
+	/** The number of characters after a block whose sequences it also holds. */
+	private static final int OVERLAP = 64;
+	/** The number of bits in the signature of each block. */
+	private static final int SIGNATURE_BITS = 32768;
+	/** The number of bits of the two character sequences of each block. */
+	private static final int PAIR_BITS = 4096;
+	/** The number of bits of the single character mask of each block. */
+	private static final int CHAR_BITS = 128;
+	/** The number of blocks sharing each group of sliced signatures. */
+	private static final int GROUP_SIZE = 64;
+
+	/** The document being indexed. */
+	private final Document document;
+	/** The blocks of the document, in order. */
+	private final List<Block> blocks = new ArrayList<>();
+	/** The block holding each slot, null if the slot is free. */
+	private Block[] owners = new Block[GROUP_SIZE];
+	/** The free slots, used before new slots are made. */
+	private int[] freeSlots = new int[GROUP_SIZE];
+	/** The number of free slots. */
+	private int freeCount;
+	/** The number of slots made so far. */
+	private int slotCount;
+	/** The sliced signatures of each group of slots. */
+	private long[][] signatures = new long[0][];
+	/** The sliced two character sequences of each group of slots. */
+	private long[][] pairs = new long[0][];
+	/** The sliced single character masks of each group of slots. */
+	private long[][] characters = new long[0][];
+	/** The blocks changed since the index was last searched. */
+	private final List<Block> dirtyBlocks = new ArrayList<>();
+	/** Reused segment the text of a block is read through. */
+	private final Segment segment = new Segment();
+	/** The offset of the start of each block, or null once a block changes. */
+	private int[] starts;
+
+	/**
+	 * Class constructor that indexes the document provided and keeps the index
+	 * up to date as the document changes.
+	 *
+	 * @param document the {@code Document} to be indexed
+	 */
+	public TextIndex(Document document) {
+		this.document = document;
+		document.render(() -> insert(0, document.getLength()));
+		document.addDocumentListener(this);
+	}
+
+	@Override
+	public synchronized void insertUpdate(DocumentEvent e) {
+		insert(e.getOffset(), e.getLength());
+	}
+
+	@Override
+	public synchronized void removeUpdate(DocumentEvent e) {
+		remove(e.getOffset(), e.getLength());
+	}
+
+	@Override
+	public void changedUpdate(DocumentEvent e) {
+		// Formatting does not change the text.
+	}
+
+	/**
+	 * Grows the block an insert falls within, splitting it if it has grown too
+	 * large.
+	 *
+	 * @param offset the offset of the insert
+	 * @param length the number of characters inserted
+	 */
+	private void insert(int offset, int length) {
+		if (length == 0) {
+			return;
+		}
+		starts = null;
+		if (blocks.isEmpty()) {
+			blocks.add(newBlock(0));
+		}
+		int index = 0;
+		int start = 0;
+		// An insert at the end of a block joins that block rather than the next.
+		while (index < blocks.size() - 1 && start + blocks.get(index).length < offset) {
+			start += blocks.get(index).length;
+			index++;
+		}
+		markBefore(index, start, offset);
+		Block block = blocks.get(index);
+		block.length += length;
+		markDirty(block);
+		if (block.length > 2 * BLOCK_SIZE) {
+			int remaining = block.length;
+			List<Block> split = new ArrayList<>();
+			while (remaining > 0) {
+				int size = remaining > 2 * BLOCK_SIZE ? BLOCK_SIZE : remaining;
+				split.add(newBlock(size));
+				remaining -= size;
+			}
+			freeBlock(blocks.remove(index));
+			blocks.addAll(index, split);
+		}
+	}
+
+	/**
+	 * Shrinks the blocks a removal falls within, removing those left empty and
+	 * joining those left small with the next block.
+	 *
+	 * @param offset the offset of the removal
+	 * @param length the number of characters removed
+	 */
+	private void remove(int offset, int length) {
+		starts = null;
+		int index = 0;
+		int start = 0;
+		while (index < blocks.size() && start + blocks.get(index).length <= offset) {
+			start += blocks.get(index).length;
+			index++;
+		}
+		markBefore(index, start, offset);
+		int first = index;
+		while (length > 0 && index < blocks.size()) {
+			Block block = blocks.get(index);
+			int count = Math.min(block.length - Math.max(offset - start, 0), length);
+			block.length -= count;
+			length -= count;
+			if (block.length == 0) {
+				freeBlock(blocks.remove(index));
+			} else {
+				markDirty(block);
+				start += block.length;
+				index++;
+			}
+		}
+		if (first < blocks.size()) {
+			Block block = blocks.get(first);
+			if (block.length < BLOCK_SIZE / 4 && first + 1 < blocks.size()
+					&& block.length + blocks.get(first + 1).length <= 2 * BLOCK_SIZE) {
+				blocks.get(first + 1).length += block.length;
+				markDirty(blocks.get(first + 1));
+				freeBlock(blocks.remove(first));
+			}
+		}
+	}
+
+	/**
+	 * Marks the blocks before a block as changed if the sequences held in their
+	 * signatures run up to the offset of an edit.
+	 *
+	 * @param index  the index of the block the edit falls within
+	 * @param start  the offset of the start of that block
+	 * @param offset the offset of the edit
+	 */
+	private void markBefore(int index, int start, int offset) {
+		for (int i = index - 1; i >= 0 && offset - start < OVERLAP + 2; i--) {
+			markDirty(blocks.get(i));
+			start -= blocks.get(i).length;
+		}
+	}
+
+	/**
+	 * Creates a block, giving it a free slot.
+	 *
+	 * @param length the number of characters in the block
+	 * @return the created {@code Block}
+	 */
+	private Block newBlock(int length) {
+		int slot;
+		boolean used = freeCount > 0;
+		if (used) {
+			slot = freeSlots[--freeCount];
+		} else {
+			slot = slotCount++;
+			if (slot == owners.length) {
+				owners = Arrays.copyOf(owners, owners.length * 2);
+			}
+			int group = slot / GROUP_SIZE;
+			if (group == signatures.length) {
+				signatures = Arrays.copyOf(signatures, group + 1);
+				pairs = Arrays.copyOf(pairs, group + 1);
+				characters = Arrays.copyOf(characters, group + 1);
+				signatures[group] = new long[SIGNATURE_BITS];
+				pairs[group] = new long[PAIR_BITS];
+				characters[group] = new long[CHAR_BITS];
+			}
+		}
+		Block block = new Block(length, slot, used);
+		owners[slot] = block;
+		markDirty(block);
+		return block;
+	}
+
+	/**
+	 * Frees the slot of a block that has been removed. Its bits are cleared when
+	 * the slot is next used.
+	 *
+	 * @param block the block removed
+	 */
+	private void freeBlock(Block block) {
+		owners[block.slot] = null;
+		if (freeCount == freeSlots.length) {
+			freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+		}
+		freeSlots[freeCount++] = block.slot;
+		block.slot = -1;
+	}
+
+	/**
+	 * Marks a block to be indexed again before the next search.
+	 *
+	 * @param block the block that has changed
+	 */
+	private void markDirty(Block block) {
+		if (!block.dirty) {
+			block.dirty = true;
+			dirtyBlocks.add(block);
+		}
+	}
+
+	/**
+	 * Finds the first match of the query at or after the offset provided, or at
+	 * or before it if searching backwards.
+	 *
+	 * @param query     the text to be found
+	 * @param from      the offset the search starts from
+	 * @param forward   whether to search towards the end of the document
+	 * @param matchCase whether the case of the letters must match
+	 * @param wholeWord whether the match must not be part of a larger word
+	 * @return the offset of the match, or -1 if there is no match
+	 */
+	public synchronized int find(String query, int from, boolean forward, boolean matchCase, boolean wholeWord) {
+		if (query.isEmpty() || blocks.isEmpty()) {
+			return -1;
+		}
+		Query q = new Query(query, matchCase, wholeWord);
+		int[] candidates = q.candidates();
+		int first = indexOf(from);
+		if (forward) {
+			for (int i = lowerBound(candidates, first); i < candidates.length; i++) {
+				int match = q.search(candidates[i], from, true);
+				if (match >= 0) {
+					return match;
+				}
+			}
+		} else {
+			for (int i = lowerBound(candidates, first + 1) - 1; i >= 0; i--) {
+				int match = q.search(candidates[i], from, false);
+				if (match >= 0) {
+					return match;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Finds every match of the query starting within the range provided, used to
+	 * highlight only the matches that can be seen.
+	 *
+	 * @param query     the text to be found
+	 * @param start     the offset of the start of the range
+	 * @param end       the offset of the end of the range
+	 * @param matchCase whether the case of the letters must match
+	 * @param wholeWord whether the match must not be part of a larger word
+	 * @return the offset of each match, in order
+	 */
+	public synchronized List<Integer> findAll(String query, int start, int end, boolean matchCase,
+			boolean wholeWord) {
+		List<Integer> matches = new ArrayList<>();
+		if (query.isEmpty() || blocks.isEmpty()) {
+			return matches;
+		}
+		Query q = new Query(query, matchCase, wholeWord);
+		int[] candidates = q.candidates();
+		int from = start;
+		for (int i = lowerBound(candidates, indexOf(start)); i < candidates.length; i++) {
+			int index = candidates[i];
+			if (starts[index] >= end) {
+				break;
+			}
+			int match;
+			while ((match = q.search(index, from, true)) >= 0 && match < end) {
+				matches.add(match);
+				from = match + 1;
+			}
+			from = Math.max(from, starts[index] + blocks.get(index).length);
+		}
+		return matches;
+	}
+
+	/**
+	 * Works out the offset of the start of each block if a block has changed,
+	 * then indexes every block changed since the last search.
+	 */
+	private void prepare() {
+		if (starts == null) {
+			starts = new int[blocks.size()];
+			int start = 0;
+			for (int i = 0; i < starts.length; i++) {
+				Block block = blocks.get(i);
+				block.index = i;
+				starts[i] = start;
+				start += block.length;
+			}
+		}
+		for (Block block : dirtyBlocks) {
+			if (block.slot >= 0) {
+				refresh(block);
+			}
+		}
+		dirtyBlocks.clear();
+	}
+
+	/**
+	 * Finds the block an offset falls within.
+	 *
+	 * @param offset the offset to be found
+	 * @return the index of the block, the last block if past the end
+	 */
+	private int indexOf(int offset) {
+		int low = 0;
+		int high = starts.length - 1;
+		while (low < high) {
+			int mid = (low + high + 1) >>> 1;
+			if (starts[mid] <= offset) {
+				low = mid;
+			} else {
+				high = mid - 1;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Finds the position of the first value in a sorted array not less than the
+	 * value provided.
+	 *
+	 * @param values the sorted array
+	 * @param value  the value to be found
+	 * @return the position of the first value not less than it
+	 */
+	private static int lowerBound(int[] values, int value) {
+		int low = 0;
+		int high = values.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (values[mid] < value) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * Indexes a block again, clearing the bits of its slot and setting those of
+	 * the sequences it now holds.
+	 *
+	 * @param block the block to be indexed
+	 */
+	private void refresh(Block block) {
+		long[] signature = signatures[block.slot / GROUP_SIZE];
+		long[] pair = pairs[block.slot / GROUP_SIZE];
+		long[] chars = characters[block.slot / GROUP_SIZE];
+		long bit = 1L << block.slot;
+		if (block.used) {
+			clear(signature, bit);
+			clear(pair, bit);
+			clear(chars, bit);
+		}
+		block.used = true;
+		block.dirty = false;
+		int start = starts[block.index];
+		int length = Math.min(block.length + OVERLAP + 2, document.getLength() - start);
+		try {
+			document.getText(start, length, segment);
+		} catch (BadLocationException e) {
+			return;
+		}
+		char[] text = segment.array;
+		int base = segment.offset;
+		int grams = Math.min(block.length + OVERLAP, length);
+		for (int i = 0; i < grams; i++) {
+			char c = Character.toLowerCase(text[base + i]);
+			if (i < block.length) {
+				chars[c & (CHAR_BITS - 1)] |= bit;
+			}
+			if (i + 1 < length) {
+				char c2 = Character.toLowerCase(text[base + i + 1]);
+				pair[hash(c, c2) & (PAIR_BITS - 1)] |= bit;
+				if (i + 2 < length) {
+					char c3 = Character.toLowerCase(text[base + i + 2]);
+					signature[hash(c, c2, c3) & (SIGNATURE_BITS - 1)] |= bit;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Clears the bit of a slot from each {@code long} of a slice.
+	 *
+	 * @param slice the sliced bits of a group
+	 * @param bit   the bit of the slot within the group
+	 */
+	private static void clear(long[] slice, long bit) {
+		for (int i = 0; i < slice.length; i++) {
+			slice[i] &= ~bit;
+		}
+	}
+
+	/**
+	 * Hashes a sequence of two characters.
+	 *
+	 * @param a the first character
+	 * @param b the second character
+	 * @return the hash of the sequence
+	 */
+	private static int hash(char a, char b) {
+		int h = a * 0x9E3779B1 + b;
+		return (h ^ (h >>> 15)) * 0x85EBCA6B;
+	}
+
+	/**
+	 * Hashes a sequence of three characters.
+	 *
+	 * @param a the first character
+	 * @param b the second character
+	 * @param c the third character
+	 * @return the hash of the sequence
+	 */
+	private static int hash(char a, char b, char c) {
+		int h = (a * 0x9E3779B1 + b) * 0x9E3779B1 + c;
+		return (h ^ (h >>> 13)) * 0xC2B2AE35;
+	}
+
+	/**
+	 * A run of characters of the document and the slot of its signature.
+	 */
+	private static class Block {
+		/** The number of characters of the document in the block. */
+		private int length;
+		/** The slot of the signature of the block, or -1 once removed. */
+		private int slot;
+		/** The index of the block when the starts were last worked out. */
+		private int index;
+		/** Whether the block has changed since it was last indexed. */
+		private boolean dirty;
+		/** Whether the slot may hold bits set for a previous block. */
+		private boolean used;
+
+		/**
+		 * Class constructor that accepts the number of characters in the block
+		 * and its slot.
+		 *
+		 * @param length the number of characters in the block
+		 * @param slot   the slot of the signature of the block
+		 * @param used   whether the slot has been used by a previous block
+		 */
+		Block(int length, int slot, boolean used) {
+			this.length = length;
+			this.slot = slot;
+			this.used = used;
+		}
+	}
+
+	/**
+	 * A query prepared for searching, holding the hashes of its sequences.
+	 */
+	private class Query {
+		/** The text being found. */
+		private final String text;
+		/** Whether the case of the letters must match. */
+		private final boolean matchCase;
+		/** Whether the match must not be part of a larger word. */
+		private final boolean wholeWord;
+		/** The bits of the sequences of the query, checked against each group. */
+		private final int[] bits;
+		/** The slices the bits are checked against. */
+		private final long[][] slices;
+		/** The first character of the query. */
+		private final char first;
+		/** The first character of the query in the other case, if case is ignored. */
+		private final char firstOther;
+		/** The offset in the document of the start of the segment. */
+		private int segmentStart;
+
+		/**
+		 * Class constructor that hashes the sequences of the query, ignoring case
+		 * in the same way as the blocks. Only the sequences starting within the
+		 * first {@code OVERLAP} characters are used, as only those are certain to
+		 * be in the signature of the block the match starts in.
+		 *
+		 * @param text      the text being found
+		 * @param matchCase whether the case of the letters must match
+		 * @param wholeWord whether the match must not be part of a larger word
+		 */
+		Query(String text, boolean matchCase, boolean wholeWord) {
+			this.text = text;
+			this.matchCase = matchCase;
+			this.wholeWord = wholeWord;
+			int length = Math.min(text.length(), OVERLAP + 2);
+			char[] lower = new char[length];
+			for (int i = 0; i < length; i++) {
+				lower[i] = Character.toLowerCase(text.charAt(i));
+			}
+			first = text.charAt(0);
+			if (matchCase) {
+				firstOther = first;
+			} else if (Character.isUpperCase(first)) {
+				firstOther = Character.toLowerCase(first);
+			} else {
+				firstOther = Character.toUpperCase(first);
+			}
+			if (length == 1) {
+				slices = characters;
+				bits = new int[] { lower[0] & (CHAR_BITS - 1) };
+			} else if (length == 2) {
+				slices = pairs;
+				bits = new int[] { hash(lower[0], lower[1]) & (PAIR_BITS - 1) };
+			} else {
+				slices = signatures;
+				bits = new int[length - 2];
+				for (int i = 0; i < bits.length; i++) {
+					bits[i] = hash(lower[i], lower[i + 1], lower[i + 2]) & (SIGNATURE_BITS - 1);
+				}
+			}
+		}
+
+		/**
+		 * Finds the blocks whose signatures hold every sequence of the query.
+		 *
+		 * @return the index of each block that may hold a match, in order
+		 */
+		int[] candidates() {
+			prepare();
+			int[] found = new int[16];
+			int count = 0;
+			for (int group = 0; group < slices.length; group++) {
+				long[] slice = slices[group];
+				long mask = -1L;
+				for (int i = 0; i < bits.length && mask != 0; i++) {
+					mask &= slice[bits[i]];
+				}
+				while (mask != 0) {
+					int slot = group * GROUP_SIZE + Long.numberOfTrailingZeros(mask);
+					mask &= mask - 1;
+					Block block = owners[slot];
+					if (block != null) {
+						if (count == found.length) {
+							found = Arrays.copyOf(found, count * 2);
+						}
+						found[count++] = block.index;
+					}
+				}
+			}
+			found = Arrays.copyOf(found, count);
+			Arrays.sort(found);
+			return found;
+		}
+
+		/**
+		 * Searches for a match starting within a block.
+		 *
+		 * @param index   the index of the block
+		 * @param from    the offset the search starts from
+		 * @param forward whether to search towards the end of the document
+		 * @return the offset of the match, or -1 if there is no match
+		 */
+		int search(int index, int from, boolean forward) {
+			int start = starts[index];
+			int end = start + blocks.get(index).length;
+			if (forward ? from >= end : from < start) {
+				return -1;
+			}
+			int length = Math.min(end - start + text.length() - 1, document.getLength() - start);
+			try {
+				document.getText(start, length, segment);
+				segmentStart = start;
+			} catch (BadLocationException e) {
+				return -1;
+			}
+			if (forward) {
+				for (int offset = Math.max(from, start); offset < end; offset++) {
+					if (startsMatch(offset - start) && matches(offset - start)) {
+						return offset;
+					}
+				}
+			} else {
+				for (int offset = Math.min(from, end - 1); offset >= start; offset--) {
+					if (startsMatch(offset - start) && matches(offset - start)) {
+						return offset;
+					}
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Determines whether the first character of the query is at the position
+		 * of the segment provided, a quick check before the whole query is matched.
+		 *
+		 * @param position the position within the segment
+		 * @return true if the first character matches
+		 */
+		private boolean startsMatch(int position) {
+			char c = segment.array[segment.offset + position];
+			return c == first || c == firstOther;
+		}
+
+		/**
+		 * Determines whether the query matches the text of the segment at the
+		 * position provided.
+		 *
+		 * @param position the position within the segment
+		 * @return true if the query matches
+		 */
+		private boolean matches(int position) {
+			if (position + text.length() > segment.count) {
+				return false;
+			}
+			char[] chars = segment.array;
+			int base = segment.offset + position;
+			for (int i = 0; i < text.length(); i++) {
+				char a = chars[base + i];
+				char b = text.charAt(i);
+				if (a != b && (matchCase || Character.toLowerCase(a) != Character.toLowerCase(b))) {
+					return false;
+				}
+			}
+			if (wholeWord) {
+				return !isWordPart(position - 1) && !isWordPart(position + text.length());
+			}
+			return true;
+		}
+
+		/**
+		 * Determines whether the character at a position of the document is part
+		 * of a word.
+		 *
+		 * @param position the position relative to the start of the segment
+		 * @return true if the character is a letter, digit or underscore
+		 */
+		private boolean isWordPart(int position) {
+			char c;
+			if (position >= 0 && position < segment.count) {
+				c = segment.array[segment.offset + position];
+			} else {
+				int offset = segmentStart + position;
+				if (offset < 0 || offset >= document.getLength()) {
+					return false;
+				}
+				try {
+					c = document.getText(offset, 1).charAt(0);
+				} catch (BadLocationException e) {
+					return false;
+				}
+			}
+			return Character.isLetterOrDigit(c) || c == '_';
+		}
+	}
+}
@@ -5,29 +5,52 @@ import java.awt.BorderLayout;
 import java.awt.Container;
 import java.awt.Dimension;
 import java.awt.Toolkit;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
+import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JButton;
 import javax.swing.JFrame;
-import javax.swing.JLabel;
 import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
-import javax.swing.JScrollPane;
-import javax.swing.JTextPane;
+import javax.swing.JTabbedPane;
 import javax.swing.JToggleButton;
-import javax.swing.SwingConstants;
+import javax.swing.KeyStroke;
+import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
 import javax.swing.UnsupportedLookAndFeelException;
 import javax.swing.text.DefaultEditorKit;
-import javax.swing.undo.UndoManager;
+import javax.swing.text.StyledDocument;
+
+import file.AsyncFileManipulation;
+import file.EditorMetrics;
+import file.FileFingerprint;
+import file.FileManipulation;
+import file.RecentFiles;
+import file.SnapshotCache;
+import file.Template;
+import file.TemplateRegistry;
+import file.TextEncoding;
 
 /**
  * A simple word processing application that allows the user to manipulate text
@@ -41,7 +64,7 @@ import javax.swing.undo.UndoManager;
  * @version 1
  */
 
-public class Textual implements Runnable {
+public class Textual {
 
 	/**
 	 * Instantiates the {@code ButtonActionListeners} class.
@@ -52,8 +75,10 @@ public class Textual implements Runnable {
 
 	/** Gets the width and height of the display output. */
 	private static Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
-	/** Instantiates the {@code UndoManager} class */
-	private static UndoManager manager = new UndoManager();
+	/** Holds the pre-defined templates and those imported by the user. */
+	private static TemplateRegistry templateRegistry = new TemplateRegistry();
+	/** Holds the files most recently opened or saved. */
+	private static RecentFiles recentFiles = new RecentFiles();
 
 	/** Sets a final variable of the minimum width the frame is valid to. */
 	private static final int MIN_WIDTH = (int) screenSize.getWidth() / 2;
@@ -65,22 +90,44 @@ public class Textual implements Runnable {
 	 */
 	private static ImageIcon newFileIcon, openFileIcon, saveFileIcon, copyIcon, cutIcon, pasteIcon, templateIcon,
 			boldIcon, underlineIcon, italicIcon, undoIcon, redoIcon;
+	/** Holds a {@code DocumentTab} for each document open in the workspace. */
+	private static JTabbedPane tabs;
+	/** Evicts the text of the least recently used background tabs to disk. */
+	private static TabEvictor evictor;
+	/** Reads and removes the files of the tabs, i.e their journals. */
+	private static FileManipulation fileManip = new FileManipulation();
+	/** Writes the cache files of evicted tabs off the event dispatch thread. */
+	private static AsyncFileManipulation asyncManip = new AsyncFileManipulation();
+	/** The folder the journal of each tab is kept in. */
+	private static final Path JOURNAL_FOLDER = Paths.get(System.getProperty("user.home"), ".textual");
 	/**
-	 * Declares the text pane instance that is used in the user interface, this is
-	 * where the user enters text into.
+	 * The number of bytes the documents of the tabs may hold in memory before the
+	 * least recently used background tabs are evicted to disk, set in megabytes
+	 * by the {@code textual.tabMemory} system property.
 	 */
-	private static JTextPane textPane;
-
-	/** Holds the text value of the characters */
-	private static JLabel charCountLBL;
-	/** Holds the number of characters {@code Integer} value */
-	private static int charCount = 0;
+	private static final long TAB_MEMORY_BUDGET = Long.getLong("textual.tabMemory",
+			TabEvictor.DEFAULT_BUDGET >> 20) << 20;
+	/**
+	 * Holds snapshots of the documents last closed so they reopen straight away,
+	 * taking up to the number of megabytes set by the
+	 * {@code textual.snapshotCache} system property.
+	 */
+	private static SnapshotCache snapshots = new SnapshotCache(JOURNAL_FOLDER.resolve("snapshots"),
+			Long.getLong("textual.snapshotCache", SnapshotCache.DEFAULT_MAX_BYTES >> 20) << 20);
 
-	/** Holds the current save state of the application. */
-	private static boolean isSaved;
+	/**
+	 * Reports each stall of the event dispatch thread longer than the number of
+	 * milliseconds set by the {@code textual.stallThreshold} system property.
+	 */
+	private static StallWatchdog watchdog = new StallWatchdog(JOURNAL_FOLDER.resolve("stalls.log"),
+			Long.getLong("textual.stallThreshold", StallWatchdog.DEFAULT_THRESHOLD));
 
-	/** Declares the use of a thread for the character counter. */
-	private static Thread charCountThread;
+	/** Whether line numbers are shown beside the text pane of each tab. */
+	private static boolean lineNumbersShown = false;
+	/** Whether misspelt words are underlined in each tab. */
+	private static boolean spellCheckEnabled = true;
+	/** Whether text marked in a similar way to Markdown is styled in each tab. */
+	private static boolean markdownStyled = false;
 
 	/**
 	 * Class constructor that assigns the icon variables a new instance of an image
@@ -107,52 +154,253 @@ public class Textual implements Runnable {
 	}
 
 	/**
-	 * A getter method that returns the {@code UndoManager} of the class.
+	 * Returns the tab shown in the workspace, whose document the menus and tool
+	 * bar act on.
+	 * 
+	 * @return the selected {@code DocumentTab}
+	 */
+	protected DocumentTab getCurrentTab() {
+		return selectedTab();
+	}
+
+	/**
+	 * Returns the tab a file being opened should be shown in, the tab in view if
+	 * it is unused, otherwise a new tab.
+	 * 
+	 * @return the {@code DocumentTab} to open a file in, selected
+	 * @see DocumentTab#isUnused()
+	 */
+	protected DocumentTab openTab() {
+		DocumentTab tab = selectedTab();
+		return tab != null && tab.isUnused() ? tab : newTab();
+	}
+
+	/**
+	 * Creates a new empty tab recording its edits in a journal of its own, and
+	 * selects it.
+	 * 
+	 * @return the new {@code DocumentTab}
+	 */
+	protected DocumentTab newTab() {
+		DocumentTab tab = addTab(nextJournalPath());
+		tab.getJournal().resume();
+		tabs.setSelectedComponent(tab);
+		return tab;
+	}
+
+	/**
+	 * Closes a tab, first asking the user whether to save it if it has unsaved
+	 * work. The journal of the tab is removed along with it. A new empty tab is
+	 * opened if it was the last tab. A snapshot of a saved document is taken on
+	 * the I/O executor so it reopens straight away. If the user chooses to save
+	 * first, the tab is closed once the save has finished.
+	 * 
+	 * @param tab the {@code DocumentTab} to be closed
+	 * @return true if the tab was closed, false if the user cancelled or the
+	 *         document is still being saved
+	 */
+	protected boolean closeTab(DocumentTab tab) {
+		if (!confirmClose(tab, () -> {
+			if (tabs.indexOfComponent(tab) >= 0) {
+				closeTab(tab);
+			}
+		})) {
+			return false;
+		}
+		Runnable snapshot = takeSnapshot(tab);
+		if (snapshot != null) {
+			asyncManip.supply(() -> {
+				snapshot.run();
+				return null;
+			});
+		}
+		tabs.remove(tab);
+		tab.dispose(fileManip, false);
+		if (tabs.getTabCount() == 0) {
+			newTab();
+		}
+		return true;
+	}
+
+	/**
+	 * Shows or hides the line numbers beside the text pane of every tab.
+	 * 
+	 * @param shown whether the line numbers are shown
+	 */
+	protected void setLineNumbersShown(boolean shown) {
+		lineNumbersShown = shown;
+		for (DocumentTab tab : getTabs()) {
+			tab.setLineNumbersShown(shown);
+		}
+	}
+
+	/**
+	 * Turns the underlining of misspelt words on or off in every tab.
+	 * 
+	 * @param enabled whether misspelt words are underlined
+	 * @see SpellChecker#setEnabled(boolean)
+	 */
+	protected void setSpellCheckEnabled(boolean enabled) {
+		spellCheckEnabled = enabled;
+		for (DocumentTab tab : getTabs()) {
+			tab.setSpellCheckEnabled(enabled);
+		}
+	}
+
+	/**
+	 * Turns the styling of text marked in a similar way to Markdown on or off,
+	 * restyling the whole document of every tab.
+	 * 
+	 * @param styled whether the {@code StyleRules} are applied
+	 * @see RestyleEngine#setRules(java.util.List)
+	 */
+	protected void setMarkdownStyled(boolean styled) {
+		markdownStyled = styled;
+		for (DocumentTab tab : getTabs()) {
+			tab.setStyleRules(styleRules());
+		}
+	}
+
+	/**
+	 * Returns the registry holding the pre-defined and imported templates.
 	 * 
-	 * @return manager the {@code UndoManager} of the class.
+	 * @return the {@code TemplateRegistry} of the program
 	 */
-	public UndoManager getUndoRedoManager() {
-		return manager;
+	protected TemplateRegistry getTemplateRegistry() {
+		return templateRegistry;
 	}
 
 	/**
-	 * A setter method used to set the value of the class variable {@code isSaved}
-	 * to one of two boolean states.
+	 * Returns the list of the files most recently opened or saved.
 	 * 
-	 * @param value a boolean argument used to set the value of the {@code isSaved}
-	 *              variable.
+	 * @return the {@code RecentFiles} of the program
 	 */
-	public void setIsSaved(boolean value) {
-		isSaved = value;
+	protected RecentFiles getRecentFiles() {
+		return recentFiles;
 	}
 
 	/**
-	 * Gets the text content stored in the text pane if the value is not blank.
+	 * Returns the cache of snapshots of the documents last closed.
 	 * 
+	 * @return the {@code SnapshotCache} of the program
+	 */
+	protected SnapshotCache getSnapshotCache() {
+		return snapshots;
+	}
+
+	/**
+	 * Returns the task that takes a snapshot of the document of a tab being
+	 * closed, along with the position of its caret and view, if its document
+	 * matches its file. The positions are read straight away, on the event
+	 * dispatch thread, so the task can then be run on any thread. The snapshot is
+	 * stored under the fingerprint of the file when the document was last loaded
+	 * or saved, so it is skipped if another program has since changed the file.
 	 * 
-	 * @return byte array of the characters in the text pane
+	 * @param tab the {@code DocumentTab} being closed
+	 * @return the task taking the snapshot, or null if none can be taken
+	 * @see SnapshotCache#store(Path, FileFingerprint, javax.swing.text.StyledDocument,
+	 *      java.util.function.UnaryOperator, file.TextEncoding, int, int)
 	 */
-	protected byte[] getTextAreaBytes() {
-		if (textPane.getText().isBlank()) {
+	private static Runnable takeSnapshot(DocumentTab tab) {
+		if (!tab.isSnapshotReady()) {
 			return null;
 		}
-		return textPane.getText().getBytes();
+		Path file = tab.getFile();
+		FileFingerprint fingerprint = tab.getFingerprint();
+		StyledDocument document = tab.getDocument();
+		TextEncoding encoding = tab.getDocumentEncoding();
+		int caret = tab.getTextPane().getCaretPosition();
+		int top = tab.getTopOffset();
+		return () -> snapshots.store(file, fingerprint, document, RestyleEngine::getUserAttributes, encoding,
+				caret, top);
 	}
 
 	/**
-	 * Sets the text area content by parsing a a byte array argument to a string in
-	 * the UTF-8 format if not equal null. With UTF-8 being the encoder, some Asian
-	 * characters may cause an issue.
+	 * Returns the tab shown in the workspace.
 	 * 
+	 * @return the selected {@code DocumentTab}, or null before the first tab is
+	 *         added
+	 */
+	private static DocumentTab selectedTab() {
+		return (DocumentTab) tabs.getSelectedComponent();
+	}
+
+	/**
+	 * Returns every tab of the workspace, in the order they are shown.
 	 * 
-	 * @param content a byte array with the byte value of each character to be added
-	 *                to the text pane.
+	 * @return the {@code DocumentTab}s of the workspace
 	 */
-	protected void setTextPane(byte[] content) {
-		if (content != null) {
-			String string = new String(content, StandardCharsets.UTF_8);
-			textPane.setText(string);
+	private static List<DocumentTab> getTabs() {
+		List<DocumentTab> list = new ArrayList<>();
+		for (int i = 0; i < tabs.getTabCount(); i++) {
+			list.add((DocumentTab) tabs.getComponentAt(i));
 		}
+		return list;
+	}
+
+	/**
+	 * Returns the style rules applied to each document, all of the
+	 * {@code StyleRules} whilst Markdown styling is turned on, otherwise none.
+	 * 
+	 * @return the {@code StyleRule}s to be applied
+	 */
+	private static List<StyleRule> styleRules() {
+		return markdownStyled ? Arrays.asList(StyleRules.values()) : Collections.emptyList();
+	}
+
+	/**
+	 * Adds a tab to the workspace whose edits are recorded in the journal
+	 * provided, showing the line numbers, spelling and styling turned on. The
+	 * title of the tab is kept up to date, and the tabs are trimmed to the memory
+	 * budget whenever it changes, as a load or save changes the memory held by
+	 * the tab. The journal does not record edits until resumed.
+	 * 
+	 * @param journalPath the {@code Path} value of the journal of the tab
+	 * @return the new {@code DocumentTab}
+	 */
+	private static DocumentTab addTab(Path journalPath) {
+		DocumentTab tab = new DocumentTab(journalPath);
+		tab.setLineNumbersShown(lineNumbersShown);
+		tab.setSpellCheckEnabled(spellCheckEnabled);
+		tab.setStyleRules(styleRules());
+		tab.addTitleListener(() -> {
+			int index = tabs.indexOfComponent(tab);
+			if (index >= 0) {
+				tabs.setTitleAt(index, tab.getTitle());
+				tabs.setToolTipTextAt(index, tab.getFile() == null ? null : tab.getFile().toString());
+			}
+			evictor.trim();
+		});
+		tabs.addTab(tab.getTitle(), tab);
+		return tab;
+	}
+
+	/**
+	 * Returns the path of a numbered journal in the journal folder. The first
+	 * journal keeps the name of the journal of a single document.
+	 * 
+	 * @param number the number of the journal
+	 * @return the {@code Path} value of the journal
+	 */
+	private static Path journalPath(int number) {
+		return JOURNAL_FOLDER.resolve(number == 0 ? "journal.bin" : "journal-" + number + ".bin");
+	}
+
+	/**
+	 * Returns the path of the lowest numbered journal not used by an open tab.
+	 * 
+	 * @return the {@code Path} value of the journal of a new tab
+	 */
+	private static Path nextJournalPath() {
+		Set<Path> used = new HashSet<>();
+		for (DocumentTab tab : getTabs()) {
+			used.add(tab.getJournalPath());
+		}
+		int number = 0;
+		while (used.contains(journalPath(number))) {
+			number++;
+		}
+		return journalPath(number);
 	}
 
 	/**
@@ -183,12 +431,41 @@ public class Textual implements Runnable {
 		actionListener.openFile(menuItem);
 		menu.add(menuItem);
 
+		// Open Recent Sub-Menu, rebuilt each time a file is opened or saved
+		JMenu recentMenu = new JMenu("Open Recent");
+		populateRecentMenu(recentMenu);
+		recentFiles.addChangeListener(() -> SwingUtilities.invokeLater(() -> populateRecentMenu(recentMenu)));
+		menu.add(recentMenu);
+
 		// Save File Menu Item
 		menuItem = new JMenuItem("Save");
 		menuItem.setIcon(saveFileIcon);
 		actionListener.saveFile(menuItem);
 		menu.add(menuItem);
 
+		// Export Menu Item
+		menuItem = new JMenuItem("Export...");
+		actionListener.exportFile(menuItem);
+		menu.add(menuItem);
+
+		// Compare With File Menu Item
+		menuItem = new JMenuItem("Compare With File...");
+		actionListener.compareFile(menuItem);
+		menu.add(menuItem);
+		menu.addSeparator();
+
+		// New Tab Menu Item
+		menuItem = new JMenuItem("New Tab");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_T, InputEvent.CTRL_DOWN_MASK));
+		actionListener.newTab(menuItem);
+		menu.add(menuItem);
+
+		// Close Tab Menu Item
+		menuItem = new JMenuItem("Close Tab");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_W, InputEvent.CTRL_DOWN_MASK));
+		actionListener.closeTab(menuItem);
+		menu.add(menuItem);
+
 		menuBar.add(menu);
 
 		// Edit Menu
@@ -205,6 +482,29 @@ public class Textual implements Runnable {
 		menuItem.setText("Paste");
 		menuItem.setIcon(pasteIcon);
 		menu.add(menuItem);
+		menu.addSeparator();
+		menuItem = new JMenuItem("Find...");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_F, InputEvent.CTRL_DOWN_MASK));
+		menuItem.addActionListener(e -> selectedTab().openFindBar());
+		menu.add(menuItem);
+		menuItem = new JMenuItem("Go to Line...");
+		menuItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_G, InputEvent.CTRL_DOWN_MASK));
+		actionListener.goToLine(menuItem);
+		menu.add(menuItem);
+
+		menuBar.add(menu);
+
+		// View Menu
+		menu = new JMenu("View");
+		JCheckBoxMenuItem checkBoxItem = new JCheckBoxMenuItem("Line Numbers");
+		actionListener.showLineNumbers(checkBoxItem);
+		menu.add(checkBoxItem);
+		checkBoxItem = new JCheckBoxMenuItem("Spell Checking", true);
+		actionListener.checkSpelling(checkBoxItem);
+		menu.add(checkBoxItem);
+		checkBoxItem = new JCheckBoxMenuItem("Markdown Styling");
+		actionListener.styleMarkdown(checkBoxItem);
+		menu.add(checkBoxItem);
 
 		menuBar.add(menu);
 
@@ -222,26 +522,12 @@ public class Textual implements Runnable {
 
 		menu.addSeparator();
 
-		// Templates Sub-Menu - Pre-defined Templates
+		// Templates Sub-Menu - Pre-defined Templates, rebuilt when a template is
+		// imported, changed or deleted
 		JMenu submenu = new JMenu("Pre-defined Templates");
 		submenu.setIcon(templateIcon);
-
-		// Dear Sir/Madam Menu Item
-		menuItem = new JMenuItem("Dear Sir/Madam");
-		menuItem.setActionCommand("dear");
-		actionListener.showTemplate(menuItem);
-		submenu.add(menuItem);
-
-		// Kind Regards Menu Item
-		menuItem = new JMenuItem("Kind Regards");
-		menuItem.setActionCommand("regards");
-		actionListener.showTemplate(menuItem);
-		submenu.add(menuItem);
-		// Many Thanks Menu Item
-		menuItem = new JMenuItem("Many Thanks");
-		menuItem.setActionCommand("thanks");
-		actionListener.showTemplate(menuItem);
-		submenu.add(menuItem);
+		populateTemplateMenu(submenu);
+		templateRegistry.addChangeListener(() -> SwingUtilities.invokeLater(() -> populateTemplateMenu(submenu)));
 
 		// Add the sub-menu to the Templates menu
 		menu.add(submenu);
@@ -252,6 +538,45 @@ public class Textual implements Runnable {
 		return menuBar;
 	}
 
+	/**
+	 * Fills the template menu with an item for each template in the
+	 * {@code TemplateRegistry}, the action command of each item being the name of
+	 * its template. Any items already in the menu are removed first.
+	 * 
+	 * @param submenu the {@code JMenu} the templates are shown in
+	 * @see ButtonActionListeners#showTemplate(JMenuItem)
+	 */
+	private static void populateTemplateMenu(JMenu submenu) {
+		submenu.removeAll();
+		for (Template template : templateRegistry.getTemplates()) {
+			JMenuItem menuItem = new JMenuItem(template.getLabel());
+			menuItem.setActionCommand(template.getName());
+			actionListener.showTemplate(menuItem);
+			submenu.add(menuItem);
+		}
+	}
+
+	/**
+	 * Fills the recent files menu with an item for each file in the
+	 * {@code RecentFiles}, most recent first, the action command of each item
+	 * being the path of its file. Any items already in the menu are removed
+	 * first, and the menu is disabled whilst there are no recent files.
+	 * 
+	 * @param submenu the {@code JMenu} the recent files are shown in
+	 * @see ButtonActionListeners#openRecentFile(JMenuItem)
+	 */
+	private static void populateRecentMenu(JMenu submenu) {
+		submenu.removeAll();
+		for (Path file : recentFiles.getFiles()) {
+			JMenuItem menuItem = new JMenuItem(file.getFileName().toString());
+			menuItem.setToolTipText(file.toString());
+			menuItem.setActionCommand(file.toString());
+			actionListener.openRecentFile(menuItem);
+			submenu.add(menuItem);
+		}
+		submenu.setEnabled(submenu.getMenuComponentCount() > 0);
+	}
+
 	/**
 	 * Handles the creation of the operations tool bar situated on the top of the
 	 * window below the menu bar. Adds 3 {@code JToggleButton}'s to the panel which
@@ -328,129 +653,136 @@ public class Textual implements Runnable {
 	}
 
 	/**
-	 * Handles the creation of the text area the user types into. Adds an
-	 * {@code UndoableEditListener} to the document of the text pane. Creates a
-	 * scroll pane with the view of which set to the text area, allowing the ability
-	 * to scroll when text goes of screen.
+	 * Handles the creation of the workspace, a tabbed pane holding a
+	 * {@code DocumentTab} for each document open, starting with a single empty
+	 * tab. The first tab records its edits in the journal of a single document,
+	 * so unsaved work left by a previous session can be recovered into it. The
+	 * {@code TabEvictor} of the tabs is created here, keeping the documents
+	 * within {@code TAB_MEMORY_BUDGET}. The {@code EditorMetrics} are pointed at
+	 * the document of each tab as it is selected.
 	 * 
-	 * @return {@code JScrollPane} text pane within the scroll pane view.
+	 * @return {@code JTabbedPane} the tabs of the workspace.
+	 * @see DocumentTab
 	 */
-	private static JScrollPane createTextArea() {
-		textPane = new JTextPane();
-
-		textPane.getDocument().addUndoableEditListener(manager);
-		JScrollPane scrollPane = new JScrollPane(textPane);
-		scrollPane.setHorizontalScrollBarPolicy(JScrollPane.HORIZONTAL_SCROLLBAR_ALWAYS);
-		scrollPane.setVerticalScrollBarPolicy(JScrollPane.VERTICAL_SCROLLBAR_ALWAYS);
-		return scrollPane;
+	private static JTabbedPane createTabs() {
+		tabs = new JTabbedPane();
+		tabs.setTabLayoutPolicy(JTabbedPane.SCROLL_TAB_LAYOUT);
+		evictor = new TabEvictor(tabs, TAB_MEMORY_BUDGET, asyncManip);
+		tabs.addChangeListener(e -> {
+			DocumentTab tab = selectedTab();
+			if (tab != null) {
+				StyledDocument document = tab.getDocument();
+				BoundedUndoManager manager = tab.getUndoRedoManager();
+				EditorMetrics.get().watch(document::getLength, manager::getEditCount, manager::getMemoryUsed);
+			}
+		});
+		addTab(journalPath(0));
+		return tabs;
 	}
 
 	/**
-	 * Handles the continuous looping of the {@code updateCharCount} method.
+	 * This method handles the updating of the count of the document in view by
+	 * counting the whole document again.
 	 * 
-	 * @see #updateCharCount
+	 * The count is normally kept up to date by the {@code CharacterCounter}
+	 * attached to the document of each tab, which adjusts the count by the size
+	 * of each insert or removal as it happens. Each character that has the
+	 * ordinal value of either a space, new line or carriage return is not counted.
+	 * 
+	 * @see CharacterCounter
 	 */
-	@Override
-	public void run() {
-
-		while (true) {
-			while (textPane.isFocusOwner()) {
-				updateCharCount();
-			}
-			Thread.yield();
-
-		}
-
+	static void updateCharCount() {
+		selectedTab().updateCharCount();
 	}
 
 	/**
-	 * This method handles the updating of the {@code charCountLBL} and
-	 * {@code charCount} class variables.
-	 * 
-	 * This is achieved by getting the current text within the text pane and
-	 * converting it to a character array. The length of the array is then assigned
-	 * to the {@code charCount} class variable.
+	 * Handles adding each of the sections of the frame to the window at the points
+	 * specified.
 	 * 
-	 * This array is then looped through and each characters that has the ordinal
-	 * value of either a new line, end of line or carriage return is subtracted from
-	 * the value in charCount. Once the array is exhausted, the {@code charCountLBL}
-	 * is updated with the current value of {@code charCount}.
+	 * @param pane the content pane of the frame
 	 */
-	private synchronized static void updateCharCount() {
-		int newLineOrd = 10; // Ordinal value of a newline character
-		int carriageReturnOrd = 13; // Ordinal value of a carriage return character
-		int spaceOrd = 32; // Ordinal value of a space character
-		char[] characters = textPane.getText().toCharArray();
-		charCount = characters.length;
-
-		for (char c : characters) {
-			int charOrd = (int) c; // Ordinal value of the character
-			if (charOrd == spaceOrd || charOrd == newLineOrd || charOrd == carriageReturnOrd) {
-				charCount--;
-
-			}
-		}
-		charCountLBL.setText("Characters: " + charCount);
-
+	private static void addComponentsToPane(Container pane) {
+		pane.add(createToolBar(), BorderLayout.NORTH);
+		pane.add(createTabs(), BorderLayout.CENTER);
 	}
 
 	/**
-	 * Creates the Count pane shown at the bottom of the window frame whilst adding
-	 * a label and styling the panel.
+	 * Handles the closing operation of the window, allowing the user to save each
+	 * document if it has not already been saved and they wish to close the
+	 * program.
+	 * 
+	 * Each tab is checked in turn, the user being asked whether to save any with
+	 * unsaved work. Clicking Cancel keeps the window alive, otherwise once every
+	 * tab has been checked a snapshot is taken of each saved document, the
+	 * journals are removed and the program closes. The snapshots are taken
+	 * before closing as the I/O executor does not keep the program open. If a
+	 * document is being saved, the checks carry on from it once saved, the tabs
+	 * already checked not being asked about again.
 	 * 
-	 * @return {@code JPanel} character counter panel
+	 * @param confirmed the tabs the user has already allowed to be closed
 	 */
-	private static JPanel createCountPanel() {
-		JPanel countPanel = new JPanel();
-
-		charCountLBL = new JLabel("Characters: " + charCount);
-		charCountLBL.setHorizontalAlignment(SwingConstants.CENTER);
-
-		countPanel.add(charCountLBL);
-
-		return countPanel;
+	private static void setCloseOperation(Set<DocumentTab> confirmed) {
+		List<DocumentTab> open = getTabs();
+		for (DocumentTab tab : open) {
+			if (!confirmed.contains(tab) && !confirmClose(tab, () -> setCloseOperation(confirmed))) {
+				return;
+			}
+			confirmed.add(tab);
+		}
+		for (DocumentTab tab : open) {
+			Runnable snapshot = takeSnapshot(tab);
+			if (snapshot != null) {
+				snapshot.run();
+			}
+			tab.dispose(fileManip, false);
+		}
+		System.exit(0);
 	}
 
 	/**
-	 * Handles adding each of the sections of the frame to the window at the points
-	 * specified.
+	 * Checks whether a tab can be closed, allowing the user to save its document
+	 * if it has not already been saved.
 	 * 
-	 * @param pane the content pane of the frame
+	 * If the document is saved or empty it can be closed. Otherwise the tab is
+	 * shown and the user is asked if they would like to save. Yes results in the
+	 * save dialog being shown, No closes the tab without saving, and clicking
+	 * Cancel keeps it open.
+	 * 
+	 * A save runs in the background, so the tab is kept open until it has
+	 * finished rather than the event dispatch thread waiting for it. Once the
+	 * document has been saved the close is tried again. If the save dialog is
+	 * cancelled or the save fails, the tab and its journal are kept, the user
+	 * having been told why the save failed.
+	 * 
+	 * @param tab   the {@code DocumentTab} being closed
+	 * @param retry the close to try again once the document has been saved
+	 * @return true if the tab can be closed
 	 */
-	private static void addComponentsToPane(Container pane) {
-		pane.add(createToolBar(), BorderLayout.NORTH);
-		pane.add(createTextArea(), BorderLayout.CENTER);
-		pane.add(createCountPanel(), BorderLayout.SOUTH);
-	}
-
-	/**
-	 * Handles the closing operation of the window, allowing the user to save their
-	 * document if it has not already been saved and they wish to close the program.
-	 * 
-	 * It first checks if the file is already saved or if there is content in the
-	 * text area. If neither are satisfied, the user is asked if they would like to
-	 * save. Yes results in the save dialog being shown, No closes the program
-	 * without saving without saving, and clicking Cancel keeps the window alive.
-	 */
-	private static void setCloseOperation() {
-		if (isSaved == true || textPane.getText().length() == 0) {
-			System.exit(0);
-		} else {
-			int opt = JOptionPane.showConfirmDialog(null, "File has not been saved, would you like to save it?");
-			switch (opt) {
-			// Show save dialog
-			case JOptionPane.YES_OPTION:
-				actionListener.showSaveDialog();
-				System.exit(0);
-				break;
-			// Close program without saving
-			case JOptionPane.NO_OPTION:
-				System.exit(0);
-				break;
-			// Keep window open
-			case JOptionPane.CANCEL_OPTION:
-				break;
+	private static boolean confirmClose(DocumentTab tab, Runnable retry) {
+		if (tab.isSaved() || (!tab.isEvicted() && tab.getDocument().getLength() == 0)) {
+			return true;
+		}
+		tabs.setSelectedComponent(tab);
+		int opt = JOptionPane.showConfirmDialog(null,
+				tab.getDisplayName() + " has not been saved, would you like to save it?");
+		switch (opt) {
+		// Show save dialog
+		case JOptionPane.YES_OPTION:
+			CompletableFuture<Void> save = actionListener.showSaveDialog();
+			if (save != null) {
+				save.whenCompleteAsync((v, ex) -> {
+					if (ex == null && tab.isSaved()) {
+						retry.run();
+					}
+				}, SwingUtilities::invokeLater);
 			}
+			return false;
+		// Close without saving
+		case JOptionPane.NO_OPTION:
+			return true;
+		// Keep open
+		default:
+			return false;
 		}
 	}
 
@@ -466,7 +798,7 @@ public class Textual implements Runnable {
 			@Override
 			public void windowClosing(WindowEvent event) {
 				// Invoke the close operation method.
-				setCloseOperation();
+				setCloseOperation(new HashSet<>());
 			}
 		});
 	}
@@ -486,27 +818,102 @@ public class Textual implements Runnable {
 		}
 	}
 
+	/**
+	 * Checks for unsaved work left in the journals of the tabs of a previous
+	 * session that did not close properly. If found, the user is asked whether
+	 * they would like to recover it, if Yes each journal is replayed into a tab of
+	 * its own, the first into the tab already open, otherwise they are removed.
+	 * Edits are recorded from then on. The user is told of any file whose work
+	 * could not be recovered as the file has changed since it was last saved.
+	 */
+	static void recoverUnsavedWork() {
+		List<Path> journals = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(JOURNAL_FOLDER, "journal*.bin")) {
+			for (Path journal : stream) {
+				if (Files.size(journal) > 0) {
+					journals.add(journal);
+				}
+			}
+		} catch (IOException e) {
+			// There is no journal folder yet, so nothing to recover.
+		}
+		DocumentTab first = selectedTab();
+		boolean firstRecovered = false;
+		if (!journals.isEmpty()) {
+			int opt = JOptionPane.showConfirmDialog(null,
+					"Textual did not close properly.\nWould you like to recover your unsaved work?",
+					"Recover Unsaved Work", JOptionPane.YES_NO_OPTION);
+			if (opt == JOptionPane.YES_OPTION) {
+				boolean recovered = true;
+				StringBuilder changed = new StringBuilder();
+				Collections.sort(journals);
+				for (Path journal : journals) {
+					DocumentTab tab = first;
+					if (journal.equals(first.getJournalPath())) {
+						firstRecovered = true;
+					} else {
+						tab = addTab(journal);
+					}
+					if (!tab.recover(fileManip)) {
+						recovered = false;
+						Path base = tab.getJournal().getChangedBase();
+						if (base != null) {
+							changed.append("\n").append(base);
+						}
+					}
+				}
+				if (changed.length() > 0) {
+					JOptionPane.showMessageDialog(null,
+							"Unsaved work on the following files could not be recovered, as each file has"
+									+ " changed since the work was last saved:" + changed,
+							"Recover Unsaved Work", JOptionPane.WARNING_MESSAGE);
+				} else if (!recovered) {
+					JOptionPane.showMessageDialog(null, "Some unsaved work could not be recovered.",
+							"Recover Unsaved Work", JOptionPane.WARNING_MESSAGE);
+				}
+			} else {
+				for (Path journal : journals) {
+					fileManip.deleteFile(journal);
+				}
+			}
+		}
+		if (!firstRecovered) {
+			first.getJournal().resume();
+		}
+	}
+
 	/**
 	 * Handles the creating and showing the user interface. Here the actions of the
 	 * frame are applied, namely the setting of the close operation, adding the
 	 * {@code JMenuBar}, setting the look and feel and applying a minimum size
 	 * whilst setting the size of the components to there necessary size needed.
 	 * 
+	 * Once the look and feel is set, the folder the file chooser opens in and the
+	 * recent files start being read in the background, and the file chooser is
+	 * queued to be created on the event dispatch thread. The {@code EditorMetrics}
+	 * are registered and the {@code StallWatchdog} started first, so they can be
+	 * watched from JConsole and a stall whilst starting up is reported.
+	 * 
 	 */
 
 	private static void createAndShowGUI() {
+		EditorMetrics.get().register();
+		watchdog.start();
 		JFrame frame = new JFrame();
 		frame.setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
 		handleClose(frame);
 		addComponentsToPane(frame.getContentPane());
 		setLookAndFeel();
+		SystemExplorer.prewarm();
+		recentFiles.load();
 		frame.setTitle("Textual");
 		frame.setJMenuBar(createMenuBar());
 		frame.setMinimumSize(new Dimension(MIN_WIDTH, MIN_HEIGHT));
 		frame.pack();
 		frame.setLocationRelativeTo(null);
 		frame.setVisible(true);
-		charCountThread = new Thread(new Textual());
+		templateRegistry.start();
+		recoverUnsavedWork();
 	}
 
 	/**
@@ -519,9 +926,6 @@ public class Textual implements Runnable {
 		javax.swing.SwingUtilities.invokeLater(new Runnable() {
 			public void run() {
 				createAndShowGUI();
-
-				charCountThread.start();
-				charCountThread.setName("Char Count Thread");
 			}
 		});
 
@@ -0,0 +1,89 @@
+package file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests reading a file whose encoding is detected from its start, but which
+ * holds bytes further on that the encoding cannot decode, and the fingerprint
+ * worked out whilst reading a file.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see ChunkedFileReader
+ */
+class ChunkedFileReaderTest {
+	/** The folder the files are wrote to. */
+	@TempDir
+	Path folder;
+
+	@Test
+	void malformedPastSampleIsLossy() throws IOException {
+		byte[] bytes = new byte[70_000];
+		Arrays.fill(bytes, (byte) 'a');
+		bytes[69_000] = (byte) 0xE9;
+		Path file = Files.write(folder.resolve("mixed.txt"), bytes);
+
+		StringBuilder text = new StringBuilder();
+		TextEncoding encoding;
+		try (ChunkedFileReader reader = new ChunkedFileReader(file, ChunkedFileReader.DEFAULT_CHUNK_SIZE)) {
+			assertFalse(reader.getEncoding().isLossy());
+			String chunk;
+			while ((chunk = reader.readChunk()) != null) {
+				text.append(chunk);
+			}
+			encoding = reader.getEncoding();
+		}
+		assertEquals(StandardCharsets.UTF_8, encoding.getCharset());
+		assertTrue(encoding.isLossy());
+		assertEquals(70_000, text.length());
+		assertEquals('�', text.charAt(69_000));
+	}
+
+	@Test
+	void validFileIsExact() throws IOException {
+		String written = "café\r\n".repeat(20_000);
+		Path file = Files.write(folder.resolve("valid.txt"), written.getBytes(StandardCharsets.UTF_8));
+
+		StringBuilder text = new StringBuilder();
+		TextEncoding encoding;
+		try (ChunkedFileReader reader = new ChunkedFileReader(file, 1000)) {
+			String chunk;
+			while ((chunk = reader.readChunk()) != null) {
+				text.append(chunk);
+			}
+			encoding = reader.getEncoding();
+		}
+		assertFalse(encoding.isLossy());
+		assertEquals("\r\n", encoding.getLineSeparator());
+		assertEquals(written.replace("\r\n", "\n"), text.toString());
+	}
+
+	@Test
+	void fingerprintMatchesFile() throws IOException {
+		byte[] bom = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+		byte[] text = "line\n".repeat(30_000).getBytes(StandardCharsets.UTF_8);
+		byte[] bytes = Arrays.copyOf(bom, bom.length + text.length);
+		System.arraycopy(text, 0, bytes, bom.length, text.length);
+		Path file = Files.write(folder.resolve("bom.txt"), bytes);
+
+		try (ChunkedFileReader reader = new ChunkedFileReader(file, 1000)) {
+			assertNull(reader.getFingerprint());
+			while (reader.readChunk() != null) {
+				continue;
+			}
+			assertEquals(FileFingerprint.read(file), reader.getFingerprint());
+		}
+	}
+}
@@ -0,0 +1,163 @@
+package file;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.PlainDocument;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+import javax.swing.text.StyledDocument;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests saving a document, and that saving over an existing file keeps the
+ * file as it was but for its contents. Also tests exporting a document copied
+ * a batch at a time.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see FileManipulation#writeDocumentFile(Path, javax.swing.text.Document,
+ *      TextEncoding)
+ * @see FileManipulation#writeExportFile(Path, StyledDocument,
+ *      java.util.function.Supplier, UnaryOperator)
+ */
+class FileManipulationTest {
+	/** The folder the files are wrote to. */
+	@TempDir
+	Path folder;
+
+	@Test
+	void saveKeepsPermissions() throws IOException, BadLocationException {
+		Path file = Files.writeString(folder.resolve("shared.txt"), "old");
+		assumeTrue(Files.getFileStore(file).supportsFileAttributeView("posix"));
+		Files.setPosixFilePermissions(file, PosixFilePermissions.fromString("rw-rw-r--"));
+
+		new FileManipulation().writeDocumentFile(file, document("new"), TextEncoding.DEFAULT);
+		assertEquals("new", Files.readString(file));
+		assertEquals("rw-rw-r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(file)));
+	}
+
+	@Test
+	void saveThroughLinkKeepsLink() throws IOException, BadLocationException {
+		Path file = Files.writeString(folder.resolve("target.txt"), "old");
+		Path link = folder.resolve("link.txt");
+		try {
+			Files.createSymbolicLink(link, file.getFileName());
+		} catch (UnsupportedOperationException | IOException e) {
+			assumeTrue(false, "symbolic links are not supported");
+		}
+
+		new FileManipulation().writeDocumentFile(link, document("new"), TextEncoding.DEFAULT);
+		assertTrue(Files.isSymbolicLink(link));
+		assertEquals("new", Files.readString(file));
+		try (Stream<Path> files = Files.list(folder)) {
+			assertEquals(2, files.count());
+		}
+	}
+
+	@Test
+	void saveConvertsLineEndingsAcrossChunks() throws IOException, BadLocationException {
+		String text = "ab\uD83D\uDE00\n".repeat(20_000);
+		Path file = folder.resolve("lines.txt");
+		TextEncoding encoding = new TextEncoding(StandardCharsets.UTF_8, false, "\r\n");
+
+		new FileManipulation().writeDocumentFile(file, document(text), encoding);
+		assertEquals(text.replace("\n", "\r\n"), Files.readString(file));
+	}
+
+	@Test
+	void exportKeepsRunsWholeAcrossBatches() throws IOException, BadLocationException {
+		DefaultStyledDocument document = new DefaultStyledDocument();
+		SimpleAttributeSet bold = new SimpleAttributeSet();
+		StyleConstants.setBold(bold, true);
+		String plain = "a".repeat(100_000);
+		String strong = "b".repeat(100_000);
+		document.insertString(0, plain + "\n" + plain, null);
+		document.insertString(document.getLength(), strong, bold);
+		Path file = folder.resolve("export.txt");
+
+		new FileManipulation().writeExportFile(file, document, TranscriptFormat::new, UnaryOperator.identity());
+		assertEquals("<[" + plain + "]>\n<[" + plain + "][" + strong + "]>\n.", Files.readString(file));
+	}
+
+	@Test
+	void asyncSaveReplacesLongerFile() throws IOException {
+		Path file = Files.writeString(folder.resolve("shorter.txt"), "a much longer file");
+		AsyncFileManipulation manager = new AsyncFileManipulation();
+
+		manager.saveFile(file, "short".getBytes(StandardCharsets.UTF_8)).join();
+		assertArrayEquals("short".getBytes(StandardCharsets.UTF_8), manager.getFileContents(file).join());
+		try (Stream<Path> files = Files.list(folder)) {
+			assertEquals(1, files.count());
+		}
+	}
+
+	/**
+	 * Writes each call of an export as it is made, a paragraph between angle
+	 * brackets on a line of its own and each run between square brackets.
+	 */
+	private static final class TranscriptFormat implements ExportFormat {
+		@Override
+		public void startDocument(Writer out, StyledDocument document) {
+		}
+
+		@Override
+		public void startParagraph(Writer out, AttributeSet attributes) throws IOException {
+			out.write('<');
+		}
+
+		@Override
+		public void startRun(Writer out, AttributeSet attributes) throws IOException {
+			out.write('[');
+		}
+
+		@Override
+		public void writeText(Writer out, char[] text, int offset, int length) throws IOException {
+			out.write(text, offset, length);
+		}
+
+		@Override
+		public void endRun(Writer out) throws IOException {
+			out.write(']');
+		}
+
+		@Override
+		public void endParagraph(Writer out) throws IOException {
+			out.write(">\n");
+		}
+
+		@Override
+		public void endDocument(Writer out) throws IOException {
+			out.write('.');
+		}
+	}
+
+	/**
+	 * Creates a plain document holding the text provided.
+	 *
+	 * @param text the text of the document
+	 * @return the new document
+	 * @throws BadLocationException never, the text is inserted at the start
+	 */
+	private static PlainDocument document(String text) throws BadLocationException {
+		PlainDocument document = new PlainDocument();
+		document.insertString(0, text, null);
+		return document;
+	}
+}
@@ -0,0 +1,48 @@
+package file;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Tests finding the line an offset of a file falls on, including the end of
+ * the file.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see MappedTextFile#getLineOfOffset(long)
+ */
+class MappedTextFileTest {
+	/** The folder the files are wrote to. */
+	@TempDir
+	Path folder;
+
+	@Test
+	void endOfFileIsOnLastLine() throws IOException {
+		assertLines("aa\nbb\ncc", 0, 0, 0, 1, 1, 1, 2, 2, 2);
+		assertLines("aa\nbb\n", 0, 0, 0, 1, 1, 1, 1);
+		assertLines("", 0);
+	}
+
+	/**
+	 * Checks the line of each offset of a file, from its start to its end.
+	 *
+	 * @param text  the text of the file
+	 * @param lines the line expected at each offset
+	 * @throws IOException if the file could not be wrote or read
+	 */
+	private void assertLines(String text, long... lines) throws IOException {
+		Path path = Files.writeString(folder.resolve("lines.txt"), text);
+		try (MappedTextFile file = new MappedTextFile(path)) {
+			for (int offset = 0; offset < lines.length; offset++) {
+				assertEquals(lines[offset], file.getLineOfOffset(offset), "offset " + offset + " of " + text);
+			}
+			assertEquals(file.getLineCount() - 1, file.getLineOfOffset(file.getSize()));
+		}
+	}
+}
@@ -0,0 +1,78 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import file.Template;
+
+/**
+ * Tests stamping a template onto files that are not plain UTF-8, checking the
+ * template is wrote in the encoding of each file.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see BatchProcessor#processFile(Path)
+ */
+class BatchProcessorTest {
+	/** The character set of Windows files, which the detection falls back to. */
+	private static final Charset WINDOWS_1252 = Charset.forName("windows-1252");
+
+	/** The folder the files are wrote to. */
+	@TempDir
+	Path folder;
+
+	/** Stamps a template holding a character outside ASCII onto each file. */
+	private final BatchProcessor processor = new BatchProcessor(new Template("Hi", "Hi", "Héllo\n"), null, false);
+
+	@Test
+	void templateFollowsByteOrderMark() throws IOException {
+		byte[] bom = { (byte) 0xEF, (byte) 0xBB, (byte) 0xBF };
+		Path file = Files.write(folder.resolve("bom.txt"), concat(bom, "text".getBytes(StandardCharsets.UTF_8)));
+
+		BatchProcessor.Result result = processor.processFile(file);
+		assertNull(result.getError());
+		assertArrayEquals(concat(bom, "Héllo\ntext".getBytes(StandardCharsets.UTF_8)), Files.readAllBytes(file));
+		assertEquals(9, result.getCharCount());
+	}
+
+	@Test
+	void templateUsesCharsetAndLineEnding() throws IOException {
+		Path file = Files.write(folder.resolve("windows.txt"), "café\r\nau lait".getBytes(WINDOWS_1252));
+
+		assertNull(processor.processFile(file).getError());
+		assertEquals("Héllo\r\ncafé\r\nau lait", new String(Files.readAllBytes(file), WINDOWS_1252));
+	}
+
+	@Test
+	void undecodableFileIsLeftUnchanged() throws IOException {
+		byte[] bytes = { (byte) 0xFF, (byte) 0xFE, 'a', 0, (byte) 0x00 };
+		Path file = Files.write(folder.resolve("odd.txt"), bytes);
+
+		assertEquals(-1, processor.processFile(file).getCharCount());
+		assertArrayEquals(bytes, Files.readAllBytes(file));
+	}
+
+	/**
+	 * Joins two arrays of bytes.
+	 *
+	 * @param first  the bytes to come first
+	 * @param second the bytes to come after them
+	 * @return the joined bytes
+	 */
+	private static byte[] concat(byte[] first, byte[] second) {
+		byte[] bytes = new byte[first.length + second.length];
+		System.arraycopy(first, 0, bytes, 0, first.length);
+		System.arraycopy(second, 0, bytes, first.length, second.length);
+		return bytes;
+	}
+}
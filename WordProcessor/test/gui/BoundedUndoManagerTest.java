@@ -0,0 +1,54 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests moving the whole undo history out to the spill files, as when a tab is
+ * evicted, and undoing and re-doing from them once the text is put back.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see BoundedUndoManager#spillAll()
+ */
+class BoundedUndoManagerTest {
+
+	@Test
+	void historyIsKeptWhilstTextIsHeldElsewhere() throws BadLocationException {
+		DefaultStyledDocument document = new DefaultStyledDocument();
+		BoundedUndoManager manager = new BoundedUndoManager();
+		manager.attach(document);
+		document.insertString(0, "one ", null);
+		document.insertString(4, "two ", null);
+		document.insertString(8, "three", null);
+		manager.undo();
+
+		manager.spillAll();
+		assertEquals(0, manager.getMemoryUsed());
+		String text = document.getText(0, document.getLength());
+		manager.runUnrecorded(() -> {
+			try {
+				document.remove(0, document.getLength());
+				document.insertString(0, text, null);
+			} catch (BadLocationException e) {
+				throw new IllegalStateException(e);
+			}
+		});
+
+		assertTrue(manager.canRedo());
+		manager.redo();
+		assertEquals("one two three", document.getText(0, document.getLength()));
+		manager.undo();
+		manager.undo();
+		manager.undo();
+		assertEquals("", document.getText(0, document.getLength()));
+		assertFalse(manager.canUndo());
+		manager.close();
+	}
+}
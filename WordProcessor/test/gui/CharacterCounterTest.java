@@ -0,0 +1,48 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests that the count of a document is kept up to date when its edits are
+ * undone and re-done, the count being checked straight after each step so that
+ * a recount left on the event dispatch thread would not be seen.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see CharacterCounter#removeUpdate(javax.swing.event.DocumentEvent)
+ */
+class CharacterCounterTest {
+
+	@Test
+	void undoAndRedoAreCounted() throws BadLocationException {
+		DefaultStyledDocument document = new DefaultStyledDocument();
+		BoundedUndoManager manager = new BoundedUndoManager();
+		CharacterCounter counter = new CharacterCounter(document, null, manager);
+		manager.attach(document);
+		document.insertString(0, "ab cd\n", null);
+		document.insertString(6, "ef gh", null);
+		document.remove(0, 3);
+		document.replace(0, 2, "xyz ", null);
+		assertEquals(7, counter.getCharCount());
+
+		int[] counts = { 6, 8, 4 };
+		for (int count : counts) {
+			manager.undo();
+			assertEquals(count, counter.getCharCount());
+		}
+		manager.undo();
+		assertEquals(0, counter.getCharCount());
+		manager.redo();
+		for (int i = counts.length - 1; i >= 0; i--) {
+			assertEquals(counts[i], counter.getCharCount());
+			manager.redo();
+		}
+		assertEquals(7, counter.getCharCount());
+		manager.close();
+	}
+}
@@ -0,0 +1,106 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import javax.swing.text.BadLocationException;
+import javax.swing.text.PlainDocument;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import file.FileFingerprint;
+import file.FileManipulation;
+
+/**
+ * Tests recovering the unsaved work of a document from its journal, replayed
+ * on top of the file it was based on or of a snapshot, and that the work is
+ * refused once the file it was based on has changed.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see EditJournal#recover(FileManipulation)
+ */
+class EditJournalTest {
+	/** The folder the files are wrote to. */
+	@TempDir
+	Path folder;
+
+	@Test
+	void editsAreReplayedOnBaseFile() throws IOException, BadLocationException {
+		Path base = Files.writeString(folder.resolve("base.txt"), "hello world");
+		Path journal = record(base, "hello world");
+
+		PlainDocument recovered = new PlainDocument();
+		EditJournal replay = new EditJournal(journal);
+		replay.attach(recovered);
+		assertTrue(replay.recover(new FileManipulation()));
+		assertEquals("ello, world", recovered.getText(0, recovered.getLength()));
+		assertNull(replay.getChangedBase());
+		replay.close();
+	}
+
+	@Test
+	void changedBaseFileIsRefused() throws IOException, BadLocationException {
+		Path base = Files.writeString(folder.resolve("base.txt"), "hello world");
+		Path journal = record(base, "hello world");
+		Files.writeString(base, "HELLO WORLD");
+
+		PlainDocument recovered = new PlainDocument();
+		EditJournal replay = new EditJournal(journal);
+		replay.attach(recovered);
+		assertFalse(replay.recover(new FileManipulation()));
+		assertEquals(0, recovered.getLength());
+		assertEquals(base.toAbsolutePath(), replay.getChangedBase());
+		replay.close();
+	}
+
+	@Test
+	void snapshotKeepsEveryCharacter() throws IOException, BadLocationException {
+		// Longer than a buffer of the snapshot, with a character split across two.
+		String text = "ab😀\n".repeat(60_000) + "\uD800";
+		PlainDocument document = new PlainDocument();
+		document.insertString(0, text, null);
+		Path journal = folder.resolve("journal.bin");
+		EditJournal recording = new EditJournal(journal);
+		recording.attach(document);
+		recording.resume();
+		recording.close();
+
+		PlainDocument recovered = new PlainDocument();
+		EditJournal replay = new EditJournal(journal);
+		replay.attach(recovered);
+		assertTrue(replay.recover(new FileManipulation()));
+		assertEquals(text, recovered.getText(0, recovered.getLength()));
+		replay.close();
+	}
+
+	/**
+	 * Records a comma being typed into, and the first character being removed
+	 * from, a document loaded from the file provided.
+	 *
+	 * @param base the {@code Path} value of the file the document is loaded from
+	 * @param text the text of the file
+	 * @return the {@code Path} value of the journal recorded
+	 * @throws IOException          if the file could not be read
+	 * @throws BadLocationException never, the edits are within the document
+	 */
+	private Path record(Path base, String text) throws IOException, BadLocationException {
+		Path journal = folder.resolve("journal.bin");
+		PlainDocument document = new PlainDocument();
+		document.insertString(0, text, null);
+		EditJournal recording = new EditJournal(journal);
+		recording.attach(document);
+		recording.rebase(base, FileFingerprint.read(base));
+		document.insertString(5, ",", null);
+		document.remove(0, 1);
+		recording.close();
+		return journal;
+	}
+}
@@ -0,0 +1,89 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests finding the changes between two sequences of line ids, checking that
+ * applying the changes to the first sequence gives the second, both for small
+ * sequences and for sequences too different to be compared within
+ * {@code COST_LIMIT} steps.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see LineDiff#diff(int[], int[])
+ */
+class LineDiffTest {
+
+	@Test
+	void smallChangesAreFound() {
+		int[] a = { 1, 2, 3, 4, 5, 6 };
+		int[] b = { 1, 3, 4, 7, 5, 6, 8 };
+
+		List<LineDiff.Hunk> hunks = LineDiff.diff(a, b);
+		assertArrayEquals(b, apply(a, b, hunks));
+		assertEquals(3, hunks.size());
+	}
+
+	@Test
+	void emptySidesAreCompared() {
+		int[] lines = { 1, 2, 3 };
+
+		assertArrayEquals(lines, apply(new int[0], lines, LineDiff.diff(new int[0], lines)));
+		assertArrayEquals(new int[0], apply(lines, new int[0], LineDiff.diff(lines, new int[0])));
+		assertTrue(LineDiff.diff(lines, lines).isEmpty());
+	}
+
+	@Test
+	void costLimitStillTurnsOneIntoTheOther() {
+		Random random = new Random(21);
+		for (int round = 0; round < 20; round++) {
+			// Few distinct lines, so most lines match somewhere on the other side.
+			int[] a = random.ints(LineDiff.COST_LIMIT * 8, 0, 8).toArray();
+			int[] b = random.ints(LineDiff.COST_LIMIT * 6, 0, 8).toArray();
+
+			assertArrayEquals(b, apply(a, b, LineDiff.diff(a, b)));
+		}
+	}
+
+	/**
+	 * Applies the changes to the first sequence, checking that the lines in
+	 * between the changes are the same on both sides.
+	 *
+	 * @param a     the first sequence
+	 * @param b     the second sequence
+	 * @param hunks the changes between them
+	 * @return the first sequence with each change made
+	 */
+	private static int[] apply(int[] a, int[] b, List<LineDiff.Hunk> hunks) {
+		int[] result = new int[b.length];
+		int count = 0;
+		int i = 0;
+		int j = 0;
+		for (LineDiff.Hunk hunk : hunks) {
+			assertEquals(hunk.getFileStart() - i, hunk.getDocumentStart() - j);
+			assertArrayEquals(Arrays.copyOfRange(b, j, hunk.getDocumentStart()),
+					Arrays.copyOfRange(a, i, hunk.getFileStart()));
+			for (; i < hunk.getFileStart(); i++) {
+				result[count++] = a[i];
+			}
+			for (j = hunk.getDocumentStart(); j < hunk.getDocumentEnd(); j++) {
+				result[count++] = b[j];
+			}
+			i = hunk.getFileEnd();
+		}
+		assertEquals(a.length - i, b.length - j);
+		for (; i < a.length; i++) {
+			result[count++] = a[i];
+		}
+		assertEquals(b.length, count);
+		return result;
+	}
+}
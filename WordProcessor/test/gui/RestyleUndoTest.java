@@ -0,0 +1,207 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+import javax.swing.text.SimpleAttributeSet;
+import javax.swing.text.StyleConstants;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests undoing and re-doing edits of a document styled by a
+ * {@code RestyleEngine}, checking the text and formatting are restored and the
+ * element tree of the document is left whole after each step.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see BoundedUndoManager#runUnrecorded(Runnable)
+ */
+class RestyleUndoTest {
+	/** The text inserted, with a bold word in each paragraph. */
+	private static final String TEXT = "ab **cd** ef\nxy **z** w\n";
+
+	/** The document being edited, backed by the default {@code GapContent}. */
+	private DefaultStyledDocument document;
+	/** The undo manager of the document. */
+	private BoundedUndoManager manager;
+	/** The engine styling the document. */
+	private RestyleEngine engine;
+
+	/**
+	 * Creates the document, its undo manager and an engine applying the bold
+	 * rule without a delay.
+	 *
+	 * @throws Exception if the rules could not be set
+	 */
+	@BeforeEach
+	void setUp() throws Exception {
+		document = new DefaultStyledDocument();
+		manager = new BoundedUndoManager();
+		manager.attach(document);
+		engine = new RestyleEngine(document, manager, 0);
+		await(() -> engine.setRules(List.of(StyleRules.BOLD)));
+	}
+
+	/**
+	 * Stops the engine.
+	 */
+	@AfterEach
+	void tearDown() {
+		engine.dispose();
+	}
+
+	@Test
+	void undoAndRedoAfterRestyle() throws Exception {
+		await(() -> insert(0, TEXT));
+		assertBold(5, 7);
+		assertBold(16, 17);
+
+		await(manager::undo);
+		assertEquals("", text());
+		assertWhole();
+
+		await(manager::redo);
+		assertEquals(TEXT, text());
+		assertWhole();
+		assertBold(5, 7);
+		assertBold(16, 17);
+	}
+
+	@Test
+	void undoAndRedoAcrossSteps() throws Exception {
+		await(() -> insert(0, "ab **cd"));
+		await(() -> insert(7, "** ef"));
+		assertBold(5, 7);
+
+		await(manager::undo);
+		assertEquals("ab **cd", text());
+		assertWhole();
+		assertFalse(isBold(5));
+
+		await(manager::redo);
+		assertEquals("ab **cd** ef", text());
+		assertWhole();
+		assertBold(5, 7);
+
+		await(manager::undo);
+		await(manager::undo);
+		assertEquals("", text());
+		assertWhole();
+	}
+
+	@Test
+	void formattingWhileUndoneKeepsRedo() throws Exception {
+		await(() -> insert(0, "ab cd ef"));
+		await(() -> insert(8, " gh"));
+		await(manager::undo);
+
+		SimpleAttributeSet italic = new SimpleAttributeSet();
+		StyleConstants.setItalic(italic, true);
+		SwingUtilities.invokeAndWait(
+				() -> manager.runUnrecorded(() -> document.setCharacterAttributes(3, 2, italic, false)));
+		assertWhole();
+
+		SwingUtilities.invokeAndWait(manager::redo);
+		assertEquals("ab cd ef gh", text());
+		assertWhole();
+		SwingUtilities.invokeAndWait(manager::undo);
+		SwingUtilities.invokeAndWait(manager::undo);
+		assertEquals("", text());
+		assertWhole();
+	}
+
+	/**
+	 * Inserts text into the document without attributes.
+	 *
+	 * @param offset the offset to insert at
+	 * @param text   the text to be inserted
+	 */
+	private void insert(int offset, String text) {
+		try {
+			document.insertString(offset, text, null);
+		} catch (BadLocationException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Returns the text of the document.
+	 *
+	 * @return the text of the document
+	 * @throws BadLocationException never, the whole document is read
+	 */
+	private String text() throws BadLocationException {
+		return document.getText(0, document.getLength());
+	}
+
+	/**
+	 * Determines whether the character at an offset is bold.
+	 *
+	 * @param offset the offset of the character
+	 * @return true if the character is bold
+	 */
+	private boolean isBold(int offset) {
+		return StyleConstants.isBold(document.getCharacterElement(offset).getAttributes());
+	}
+
+	/**
+	 * Checks each character of a range is bold.
+	 *
+	 * @param start the offset of the first character
+	 * @param end   the offset after the last character
+	 */
+	private void assertBold(int start, int end) {
+		for (int offset = start; offset < end; offset++) {
+			assertTrue(isBold(offset), "not bold at " + offset);
+		}
+	}
+
+	/**
+	 * Checks the paragraphs of the document cover it end to end, and the runs of
+	 * each paragraph cover the paragraph end to end without being empty.
+	 */
+	private void assertWhole() {
+		Element root = document.getDefaultRootElement();
+		int offset = 0;
+		for (int i = 0; i < root.getElementCount(); i++) {
+			Element paragraph = root.getElement(i);
+			assertEquals(offset, paragraph.getStartOffset(), "paragraph " + i);
+			for (int j = 0; j < paragraph.getElementCount(); j++) {
+				Element run = paragraph.getElement(j);
+				assertEquals(offset, run.getStartOffset(), "run " + j + " of paragraph " + i);
+				assertTrue(run.getEndOffset() > offset, "empty run " + j + " of paragraph " + i);
+				offset = run.getEndOffset();
+			}
+			assertEquals(offset, paragraph.getEndOffset(), "paragraph " + i);
+		}
+		assertEquals(document.getLength() + 1, offset);
+	}
+
+	/**
+	 * Runs an action on the EDT and waits until the engine has nothing left to
+	 * restyle.
+	 *
+	 * @param action the action starting the restyle
+	 * @throws Exception if the action failed or the wait was interrupted
+	 */
+	private void await(Runnable action) throws Exception {
+		CountDownLatch idle = new CountDownLatch(1);
+		Runnable listener = idle::countDown;
+		engine.addRestyleListener(listener);
+		SwingUtilities.invokeAndWait(action);
+		assertTrue(idle.await(5, TimeUnit.SECONDS), "restyle did not finish");
+		engine.removeRestyleListener(listener);
+	}
+}
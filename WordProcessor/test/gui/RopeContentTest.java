@@ -0,0 +1,103 @@
+package gui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import javax.swing.text.AbstractDocument;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.Element;
+import javax.swing.text.GapContent;
+import javax.swing.text.Position;
+import javax.swing.text.StyleContext;
+import javax.swing.undo.UndoableEdit;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests a {@code RopeContent} keeps its text and positions the same as a
+ * {@code GapContent} given the same edits, undos and re-dos.
+ *
+ * Positions are only created whilst there is nothing to undo, as a
+ * {@code GapContent} can leave its marks out of order when a removal is undone
+ * around a position created after it.
+ *
+ * @author Aiden Parker
+ * @version 1
+ * @see RopeContent
+ */
+class RopeContentTest {
+	@Test
+	void undoRemoveRestoresParagraphs() throws BadLocationException {
+		DefaultStyledDocument document = new DefaultStyledDocument(new RopeContent(),
+				new StyleContext());
+		document.insertString(0, "aaa\nbbb\nccc", null);
+		List<UndoableEdit> edits = new ArrayList<>();
+		document.addUndoableEditListener(e -> edits.add(e.getEdit()));
+		document.remove(2, 6);
+		edits.get(0).undo();
+
+		Element root = document.getDefaultRootElement();
+		assertEquals(3, root.getElementCount());
+		assertEquals(0, root.getElement(0).getStartOffset());
+		assertEquals(4, root.getElement(1).getStartOffset());
+		assertEquals(8, root.getElement(2).getStartOffset());
+		assertEquals(12, root.getElement(2).getEndOffset());
+	}
+
+	@Test
+	void randomEditsMatchGapContent() throws BadLocationException {
+		Random random = new Random(20);
+		for (int round = 0; round < 50; round++) {
+			AbstractDocument.Content rope = new RopeContent();
+			AbstractDocument.Content gap = new GapContent();
+			List<Position> ropePositions = new ArrayList<>();
+			List<Position> gapPositions = new ArrayList<>();
+			Deque<UndoableEdit[]> undos = new ArrayDeque<>();
+			Deque<UndoableEdit[]> redos = new ArrayDeque<>();
+			for (int step = 0; step < 400; step++) {
+				int length = rope.length();
+				int action = random.nextInt(10);
+				if (step % 40 == 0) {
+					undos.clear();
+					redos.clear();
+					for (int i = 0; i < 20; i++) {
+						int offset = random.nextInt(length + 1);
+						ropePositions.add(rope.createPosition(offset));
+						gapPositions.add(gap.createPosition(offset));
+					}
+				} else if (action < 4) {
+					int offset = random.nextInt(length);
+					String text = "x".repeat(1 + random.nextInt(random.nextBoolean() ? 8 : 2000));
+					undos.push(new UndoableEdit[] { rope.insertString(offset, text), gap.insertString(offset, text) });
+					redos.clear();
+				} else if (action < 7 && length > 1) {
+					int offset = random.nextInt(length - 1);
+					int count = 1 + random.nextInt(length - offset - 1);
+					undos.push(new UndoableEdit[] { rope.remove(offset, count), gap.remove(offset, count) });
+					redos.clear();
+				} else if (action < 9 && !undos.isEmpty()) {
+					UndoableEdit[] edit = undos.pop();
+					edit[0].undo();
+					edit[1].undo();
+					redos.push(edit);
+				} else if (!redos.isEmpty()) {
+					UndoableEdit[] edit = redos.pop();
+					edit[0].redo();
+					edit[1].redo();
+					undos.push(edit);
+				}
+				assertEquals(gap.getString(0, gap.length()), rope.getString(0, rope.length()), "step " + step);
+				for (int i = 0; i < ropePositions.size(); i++) {
+					assertEquals(gapPositions.get(i).getOffset(), ropePositions.get(i).getOffset(),
+							"position " + i + " at step " + step + " of round " + round);
+				}
+			}
+		}
+	}
+}